@@ -0,0 +1,135 @@
+package aoop.asteroids.control;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Asteroid;
+import aoop.asteroids.model.AsteroidSize;
+import aoop.asteroids.model.Bullet;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.WorldSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a single game tick takes on the host, and how long the collision checks within it take, for
+ * different numbers of objects in the game.
+ * <p>
+ * Run with JMH, for example: {@code java -cp <classpath> org.openjdk.jmh.Main GameUpdaterBenchmark -p asteroids=1000}
+ * <p>
+ * With {@code -prof gc}, {@link #tick} shows how much a whole tick allocates, including publishing its world snapshot,
+ * which should be nothing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameUpdaterBenchmark {
+    /**
+     * One whole tick of a dedicated server: moving all objects, checking for collisions and removing what was
+     * destroyed.
+     */
+    @Benchmark
+    public int updatePhysics(PhysicsState state) {
+        state.updater.updatePhysics();
+        return state.game.getAsteroids().size();
+    }
+
+    /**
+     * A whole tick as the game updater does it: reading inputs, updating the physics and publishing a world snapshot.
+     */
+    @Benchmark
+    public WorldSnapshot tick(PhysicsState state) {
+        state.updater.tick();
+        return state.game.getWorldSnapshot();
+    }
+
+    /**
+     * Only the collision checks. These just mark objects as destroyed, so the game stays the same between invocations.
+     */
+    @Benchmark
+    public void checkCollisions(CollisionState state) {
+        state.updater.checkCollisions();
+    }
+
+    /**
+     * A game with only asteroids. Bullets run out after a while and asteroids that destroy each other would empty the
+     * game, so neither is used when measuring whole ticks.
+     */
+    @State(Scope.Thread)
+    public static class PhysicsState {
+        /**
+         * The number of asteroids in the game.
+         */
+        @Param({"10", "100", "1000"})
+        int asteroids;
+
+        Game game;
+        GameUpdater updater;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            this.game = createGame(this.asteroids, 0);
+            this.updater = new GameUpdater(this.game);
+        }
+    }
+
+    /**
+     * A game with asteroids and bullets, that may or may not let asteroids collide with each other.
+     */
+    @State(Scope.Thread)
+    public static class CollisionState {
+        /**
+         * The number of asteroids in the game.
+         */
+        @Param({"10", "100", "1000"})
+        int asteroids;
+
+        /**
+         * The number of bullets in the game.
+         */
+        @Param({"0", "100"})
+        int bullets;
+
+        /**
+         * Whether asteroids collide with each other.
+         */
+        @Param({"false", "true"})
+        boolean kesslerSyndrome;
+
+        GameUpdater updater;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            this.updater = new GameUpdater(createGame(this.asteroids, this.bullets));
+            this.updater.setKesslerSyndrome(this.kesslerSyndrome);
+        }
+    }
+
+    /**
+     * Creates a dedicated server game with randomly scattered objects. The objects are placed the same way in every
+     * run, so that the results can be compared.
+     *
+     * @param asteroids The number of asteroids to add.
+     * @param bullets   The number of bullets to add.
+     * @return The new game.
+     */
+    private static Game createGame(int asteroids, int bullets) {
+        Random random = new Random(42);
+        Game game = new Game();
+        game.initializeGameData(true, true, GameModeInterface.GameMode.COOP);
+        game.setDedicatedServer(true);
+        AsteroidSize[] sizes = AsteroidSize.values();
+        for (int i = 0; i < asteroids; i++) {
+            Point.Double location = new Point.Double(random.nextDouble() * Game.WORLD_WIDTH, random.nextDouble() * Game.WORLD_HEIGHT);
+            Point.Double velocity = new Point.Double(random.nextDouble() * 6 - 3, random.nextDouble() * 6 - 3);
+            game.getAsteroids().add(new Asteroid(location, velocity, sizes[random.nextInt(sizes.length)]));
+        }
+        for (int i = 0; i < bullets; i++) {
+            game.getBullets().add(new Bullet(random.nextDouble() * Game.WORLD_WIDTH, random.nextDouble() * Game.WORLD_HEIGHT, random.nextDouble() * 30 - 15, random.nextDouble() * 30 - 15));
+        }
+        return game;
+    }
+}
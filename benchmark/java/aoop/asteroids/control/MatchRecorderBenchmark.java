@@ -0,0 +1,76 @@
+package aoop.asteroids.control;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Asteroid;
+import aoop.asteroids.model.AsteroidSize;
+import aoop.asteroids.model.Game;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how much recording a game adds to a game tick, by comparing whole ticks with and without a
+ * {@link MatchRecorder}. The recording goes to a temporary file, which is deleted after every iteration.
+ * <p>
+ * Run with JMH, for example: {@code java -cp <classpath> org.openjdk.jmh.Main MatchRecorderBenchmark -prof gc}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchRecorderBenchmark {
+    /**
+     * The number of asteroids in the game, which decides the size of the keyframes.
+     */
+    @Param({"10", "100", "1000"})
+    int asteroids;
+
+    @Param({"false", "true"})
+    boolean recording;
+
+    private Game game;
+    private GameUpdater updater;
+    private Path file;
+    private MatchRecorder recorder;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        this.game = new Game();
+        this.game.setSeed(42);
+        this.game.initializeGameData(false, false, GameModeInterface.GameMode.Singleplayer);
+        AsteroidSize[] sizes = AsteroidSize.values();
+        for (int i = 0; i < this.asteroids; i++) {
+            Point.Double location = new Point.Double(random.nextDouble() * Game.WORLD_WIDTH, random.nextDouble() * Game.WORLD_HEIGHT);
+            Point.Double velocity = new Point.Double(random.nextDouble() * 6 - 3, random.nextDouble() * 6 - 3);
+            this.game.getAsteroids().add(new Asteroid(location, velocity, sizes[random.nextInt(sizes.length)]));
+        }
+        this.updater = new GameUpdater(this.game);
+        if (this.recording) {
+            this.file = Files.createTempFile("asteroids-benchmark", ".match");
+            this.recorder = this.updater.recordMatch(this.file);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        if (this.recorder != null) {
+            this.recorder.close();
+            Files.delete(this.file);
+            this.recorder = null;
+        }
+    }
+
+    @Benchmark
+    public int tick() {
+        this.updater.tick();
+        return this.game.getAsteroids().size();
+    }
+}
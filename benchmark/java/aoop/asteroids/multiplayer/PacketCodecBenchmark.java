@@ -0,0 +1,154 @@
+package aoop.asteroids.multiplayer;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Asteroid;
+import aoop.asteroids.model.AsteroidSize;
+import aoop.asteroids.model.Bullet;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.GameObject;
+import aoop.asteroids.model.WorldSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to turn the game into packets and back, which the network thread does for every client
+ * on every tick.
+ * <p>
+ * Decoding a delta snapshot isn't measured, because a client ignores a snapshot that it has already received, so the
+ * same delta can't be decoded twice.
+ * <p>
+ * Run with JMH, for example: {@code java -cp <classpath> org.openjdk.jmh.Main PacketCodecBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketCodecBenchmark implements GameModeInterface {
+    /**
+     * The number of asteroids in the game. There are half as many bullets.
+     */
+    @Param({"10", "100", "1000"})
+    private int asteroids;
+
+    private final PacketCodec codec = new PacketCodec();
+    private final SnapshotHistory history = new SnapshotHistory();
+    private WorldSnapshot world;
+    private final DataPacket_Game snapshot = new DataPacket_Game();
+    private final DataPacket_Game receivedSnapshot = new DataPacket_Game();
+    private final DataPacket_Client client = new DataPacket_Client();
+    private final DataPacket_Client receivedClient = new DataPacket_Client();
+
+    /**
+     * The sequence number of the snapshot that deltas are made against.
+     */
+    private int baseline;
+
+    private ByteBuffer encodedSnapshot;
+    private ByteBuffer encodedClient;
+
+    /**
+     * Records two snapshots of the game a few ticks apart, so that the second can be sent as a delta against the first.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Game game = this.createGame();
+        this.snapshot.capture(game);
+        this.baseline = this.history.record(this.snapshot);
+        for (int i = 0; i < 3; i++) {
+            game.getAsteroids().forEach(GameObject::nextStep);
+            game.getBullets().forEach(GameObject::nextStep);
+            game.advanceTick();
+        }
+        this.world = WorldSnapshot.capture(game);
+        this.snapshot.capture(this.world);
+        this.history.record(this.snapshot);
+        InputHistory inputs = new InputHistory();
+        for (int i = 0; i < DataPacket_Client.INPUT_REDUNDANCY; i++) {
+            inputs.record(i);
+        }
+        this.client.capture(this.world, inputs);
+        this.encodedSnapshot = copy(this.codec.encode(this.snapshot));
+        this.encodedClient = copy(this.codec.encode(this.client));
+    }
+
+    /**
+     * Filling a snapshot packet from the world, before it is encoded.
+     */
+    @Benchmark
+    public DataPacket_Game captureSnapshot() {
+        this.snapshot.capture(this.world);
+        return this.snapshot;
+    }
+
+    /**
+     * A whole snapshot, as sent to a client without a baseline.
+     */
+    @Benchmark
+    public int encodeKeyframe() {
+        return this.codec.encode(this.snapshot, this.history, SnapshotHistory.NO_SNAPSHOT).remaining();
+    }
+
+    /**
+     * Only what changed since the baseline, as sent to most clients.
+     */
+    @Benchmark
+    public int encodeDelta() {
+        return this.codec.encode(this.snapshot, this.history, this.baseline).remaining();
+    }
+
+    @Benchmark
+    public DataPacket_Game decodeKeyframe() throws ProtocolException {
+        this.encodedSnapshot.rewind();
+        this.codec.decode(this.encodedSnapshot, this.receivedSnapshot);
+        return this.receivedSnapshot;
+    }
+
+    @Benchmark
+    public int encodeClient() {
+        return this.codec.encode(this.client).remaining();
+    }
+
+    @Benchmark
+    public DataPacket_Client decodeClient() throws ProtocolException {
+        this.encodedClient.rewind();
+        this.codec.decode(this.encodedClient, this.receivedClient);
+        return this.receivedClient;
+    }
+
+    /**
+     * @return A hosted game with randomly scattered asteroids and bullets, placed the same way in every run.
+     */
+    private Game createGame() {
+        Random random = new Random(42);
+        Game game = new Game();
+        game.initializeGameData(true, true, GameMode.COOP);
+        game.setUsername("host");
+        AsteroidSize[] sizes = AsteroidSize.values();
+        for (int i = 0; i < this.asteroids; i++) {
+            Point.Double location = new Point.Double(random.nextDouble() * Game.WORLD_WIDTH, random.nextDouble() * Game.WORLD_HEIGHT);
+            Point.Double velocity = new Point.Double(random.nextDouble() * 6 - 3, random.nextDouble() * 6 - 3);
+            game.getAsteroids().add(new Asteroid(location, velocity, sizes[random.nextInt(sizes.length)]));
+        }
+        for (int i = 0; i < this.asteroids / 2; i++) {
+            game.getBullets().add(new Bullet(random.nextDouble() * Game.WORLD_WIDTH, random.nextDouble() * Game.WORLD_HEIGHT, random.nextDouble() * 30 - 15, random.nextDouble() * 30 - 15));
+        }
+        return game;
+    }
+
+    /**
+     * @return A copy of the encoded packet, since the codec reuses its buffer for the next packet.
+     */
+    private static ByteBuffer copy(ByteBuffer encoded) {
+        ByteBuffer copy = ByteBuffer.allocate(encoded.remaining());
+        copy.put(encoded);
+        copy.flip();
+        return copy;
+    }
+}
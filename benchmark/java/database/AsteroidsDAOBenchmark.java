@@ -0,0 +1,65 @@
+package database;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many scores can be stored per second, each in its own transaction, and in batches of
+ * {@link ScoreWriter#BATCH_SIZE} per transaction, as the {@link ScoreWriter} stores them.
+ * The database is a fresh file in a temporary directory, which is deleted afterwards.
+ * <p>
+ * Run with JMH, for example: {@code java -cp <classpath> org.openjdk.jmh.Main AsteroidsDAOBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsteroidsDAOBenchmark {
+    private Path directory;
+    private AsteroidsDAO dao;
+    private int score;
+    private final List<Player> batch = new ArrayList<>(ScoreWriter.BATCH_SIZE);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("asteroids-benchmark");
+        this.dao = new AsteroidsDAO(this.directory.resolve("players").toString());
+        this.dao.openDataSource();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.dao.closeDataSource();
+        File[] files = this.directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        this.directory.toFile().delete();
+    }
+
+    @Benchmark
+    public void addPlayer() {
+        this.dao.addPlayer(new Player("benchmark", this.score++));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ScoreWriter.BATCH_SIZE)
+    public void addPlayers() {
+        this.batch.clear();
+        for (int i = 0; i < ScoreWriter.BATCH_SIZE; i++) {
+            this.batch.add(new Player("benchmark", this.score++));
+        }
+        this.dao.addPlayers(this.batch);
+    }
+}
@@ -3,12 +3,16 @@ package aoop.asteroids;
 import aoop.asteroids.control.GameUpdater;
 import aoop.asteroids.control.NewGameAction;
 import aoop.asteroids.control.QuitAction;
+import aoop.asteroids.metrics.Metrics;
+import aoop.asteroids.metrics.MetricsServer;
 import aoop.asteroids.model.Game;
 import aoop.asteroids.view.AsteroidsPanel;
 import aoop.asteroids.view.menu.MainMenu;
 //import database.AsteroidsDAO;
 import database.AsteroidsDAO;
 import database.GameListener;
+import database.Leaderboard;
+import database.ScoreWriter;
 import database.Player;
 
 import javax.swing.*;
@@ -47,14 +51,18 @@ public class Asteroids {
         }
         UIManager.put("OptionPane.background", Color.black);
         UIManager.put("Panel.background", Color.black);
+        MetricsServer.start(Metrics.PORT);
         //\\
         AsteroidsDAO asteroidsDAOSP = new AsteroidsDAO("game");
         AsteroidsDAO asteroidsDAOMP = new AsteroidsDAO("gameMP");
         Game game = new Game();
-        GameListener gameListenerSP = new GameListener(game.getSpaceship(),asteroidsDAOSP);
+        // Scores are stored in the background, and whatever is still queued is stored when the program exits.
+        ScoreWriter scoreWriterSP = new ScoreWriter(asteroidsDAOSP);
+        Runtime.getRuntime().addShutdownHook(new Thread(scoreWriterSP::close, "ScoreWriterShutdown"));
+        GameListener gameListenerSP = new GameListener(game.getSpaceship(),scoreWriterSP);
         game.addDeathListener(gameListenerSP);
         //\\
-        MainMenu menu = new MainMenu(game, asteroidsDAOSP, asteroidsDAOMP);
+        MainMenu menu = new MainMenu(game, new Leaderboard(asteroidsDAOSP), new Leaderboard(asteroidsDAOMP));
         game.addDeathListener(menu);
     }
 }
@@ -0,0 +1,152 @@
+package aoop.asteroids;
+
+import aoop.asteroids.control.BatchRunner;
+import aoop.asteroids.control.BatchStatistics;
+import aoop.asteroids.control.GameUpdater;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Main class of the batch runner, which plays many single player matches without displaying them, as fast as the
+ * machine allows, and prints statistics about how they went. This is for trying out changes to the game's settings, and
+ * for checking that a change to the game doesn't change how it plays.
+ * <p>
+ * Like {@link AsteroidsServer}, this never touches Swing, the menu or the database. The matches are played by a bot, see
+ * {@link BatchRunner}, and the same arguments always give the same statistics, whatever the number of workers. The seed
+ * of the best and worst match is printed, so that they can be looked into with {@code -Dasteroids.seed}.
+ * <p>
+ * Usage: {@code java aoop.asteroids.AsteroidsBatch [--matches <count>] [--ticks <count>] [--seed <seed>]
+ * [--workers <count>] [--spawn-interval <ticks>] [--asteroids-limit <count>] [--kessler]}
+ */
+public class AsteroidsBatch {
+    private static final String USAGE = "Usage: AsteroidsBatch [--matches <count>] [--ticks <count>] [--seed <seed>] [--workers <count>] [--spawn-interval <ticks>] [--asteroids-limit <count>] [--kessler]";
+
+    private int matches = 1000;
+    private int ticks = BatchRunner.DEFAULT_MAX_TICKS;
+    private long seed;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int spawnInterval = GameUpdater.SPAWN_INTERVAL_DEFAULT;
+    private int asteroidsLimit = GameUpdater.ASTEROIDS_LIMIT_DEFAULT;
+    private boolean kesslerSyndrome;
+
+    /**
+     * Main method of the batch runner. Plays the matches and prints their statistics.
+     *
+     * @param args The array of arguments passed to the program from the command line.
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        AsteroidsBatch batch;
+        try {
+            batch = parse(args);
+        }
+        catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+            return;
+        }
+        System.out.println("Playing " + batch.matches + " match(es) of at most " + batch.ticks + " ticks from seed " + batch.seed + " with " + batch.workers + " worker(s)");
+        long start = System.nanoTime();
+        BatchStatistics statistics = batch.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(statistics);
+        System.out.printf("Took %.2f s (%.0f ticks per second)%n", seconds, statistics.getTicks() / seconds);
+    }
+
+    /**
+     * Reads the batch's configuration from the command line arguments.
+     *
+     * @param args The command line arguments.
+     * @return The configured batch, ready to be run.
+     * @throws IllegalArgumentException If the arguments are not valid.
+     */
+    static AsteroidsBatch parse(String[] args) {
+        AsteroidsBatch batch = new AsteroidsBatch();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--matches":
+                    batch.matches = AsteroidsServer.parseNumber(AsteroidsServer.value(args, i++), 1, Integer.MAX_VALUE, "number of matches");
+                    break;
+                case "--ticks":
+                    batch.ticks = AsteroidsServer.parseNumber(AsteroidsServer.value(args, i++), 1, Integer.MAX_VALUE, "number of ticks");
+                    break;
+                case "--seed":
+                    batch.seed = parseSeed(AsteroidsServer.value(args, i++));
+                    break;
+                case "--workers":
+                    batch.workers = AsteroidsServer.parseNumber(AsteroidsServer.value(args, i++), 1, Integer.MAX_VALUE, "number of workers");
+                    break;
+                case "--spawn-interval":
+                    batch.spawnInterval = AsteroidsServer.parseNumber(AsteroidsServer.value(args, i++), 1, Integer.MAX_VALUE, "spawn interval");
+                    break;
+                case "--asteroids-limit":
+                    batch.asteroidsLimit = AsteroidsServer.parseNumber(AsteroidsServer.value(args, i++), 0, Integer.MAX_VALUE, "asteroids limit");
+                    break;
+                case "--kessler":
+                    batch.kesslerSyndrome = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Plays the configured matches on a pool of its own, which is shut down afterwards.
+     *
+     * @return The statistics of all matches.
+     */
+    BatchStatistics run() {
+        BatchRunner runner = new BatchRunner(this.matches, this.seed);
+        runner.setMaxTicks(this.ticks);
+        runner.setSpawnInterval(this.spawnInterval);
+        runner.setAsteroidsLimit(this.asteroidsLimit);
+        runner.setKesslerSyndrome(this.kesslerSyndrome);
+        ForkJoinPool pool = new ForkJoinPool(this.workers);
+        try {
+            return runner.run(pool);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    int getMatches() {
+        return this.matches;
+    }
+
+    int getTicks() {
+        return this.ticks;
+    }
+
+    long getSeed() {
+        return this.seed;
+    }
+
+    int getWorkers() {
+        return this.workers;
+    }
+
+    int getSpawnInterval() {
+        return this.spawnInterval;
+    }
+
+    int getAsteroidsLimit() {
+        return this.asteroidsLimit;
+    }
+
+    boolean isKesslerSyndrome() {
+        return this.kesslerSyndrome;
+    }
+
+    private static long parseSeed(String value) {
+        try {
+            return Long.parseLong(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a valid seed: " + value);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package aoop.asteroids;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.metrics.FlightRecording;
+import aoop.asteroids.metrics.Metrics;
+import aoop.asteroids.metrics.MetricsServer;
+import aoop.asteroids.multiplayer.DatagramTransport;
+import aoop.asteroids.multiplayer.RoomManager;
+
+/**
+ * Main class of the dedicated server, which hosts multiplayer games for its clients without a window or a player of
+ * its own.
+ * <p>
+ * Unlike {@link Asteroids}, this never touches Swing, the menu or the database, so it starts quickly with a small heap
+ * and runs on machines without a display. Any number of games (rooms) can be hosted on the same port, sharing a fixed
+ * number of worker threads, see {@link RoomManager}. The games keep running whatever happens to the clients' ships,
+ * until the process is stopped.
+ * <p>
+ * The metrics of every room and client are shown through JMX, and in plain text on a local port if one is given, see
+ * {@link MetricsServer}. With --flight-recording, the server records continuously with Flight Recorder, using the
+ * settings that come with the game, which record slow ticks, snapshots and database calls along with the garbage
+ * collections and safepoints around them, see {@link FlightRecording}.
+ * <p>
+ * Usage: {@code java aoop.asteroids.AsteroidsServer [--port <port>] [--mode coop|deathmatch] [--rooms <count>]
+ * [--workers <count>] [--metrics-port <port>] [--flight-recording]}
+ */
+public class AsteroidsServer implements GameModeInterface {
+    private static final String USAGE = "Usage: AsteroidsServer [--port <port>] [--mode coop|deathmatch] [--rooms <count>] [--workers <count>] [--metrics-port <port>] [--flight-recording]";
+
+    private int port = DatagramTransport.DEFAULT_PORT;
+    private GameMode mode = GameMode.COOP;
+    private int rooms = 1;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int metricsPort = Metrics.PORT;
+    private boolean flightRecording;
+
+    /**
+     * Main method of the dedicated server. Starts the rooms, and stops them again when the process is shut down.
+     *
+     * @param args The array of arguments passed to the program from the command line.
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        AsteroidsServer server;
+        try {
+            server = parse(args);
+        }
+        catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+            return;
+        }
+        RoomManager roomManager = server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(roomManager::close, "AsteroidsServerShutdown"));
+        MetricsServer.start(server.metricsPort);
+        if (server.flightRecording) {
+            FlightRecording.start();
+        }
+        System.out.println("Hosting " + server.rooms + " " + server.mode + " room(s) on port " + server.port + " with " + server.workers + " worker(s)");
+    }
+
+    /**
+     * Reads the server's configuration from the command line arguments.
+     *
+     * @param args The command line arguments.
+     * @return The configured server, ready to be started.
+     * @throws IllegalArgumentException If the arguments are not valid.
+     */
+    static AsteroidsServer parse(String[] args) {
+        AsteroidsServer server = new AsteroidsServer();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    server.port = parseNumber(value(args, i++), 1, 65535, "port");
+                    break;
+                case "--mode":
+                    server.mode = parseMode(value(args, i++));
+                    break;
+                case "--rooms":
+                    server.rooms = parseNumber(value(args, i++), 1, Integer.MAX_VALUE, "number of rooms");
+                    break;
+                case "--workers":
+                    server.workers = parseNumber(value(args, i++), 1, Integer.MAX_VALUE, "number of workers");
+                    break;
+                case "--metrics-port":
+                    server.metricsPort = parseNumber(value(args, i++), 1, 65535, "metrics port");
+                    break;
+                case "--flight-recording":
+                    server.flightRecording = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        return server;
+    }
+
+    /**
+     * Opens the configured number of rooms.
+     *
+     * @return The room manager that hosts the rooms.
+     */
+    RoomManager start() {
+        RoomManager roomManager = new RoomManager(this.port, this.workers);
+        for (int i = 0; i < this.rooms; i++) {
+            roomManager.openRoom(this.mode);
+        }
+        return roomManager;
+    }
+
+    int getPort() {
+        return this.port;
+    }
+
+    GameMode getMode() {
+        return this.mode;
+    }
+
+    int getRooms() {
+        return this.rooms;
+    }
+
+    int getWorkers() {
+        return this.workers;
+    }
+
+    int getMetricsPort() {
+        return this.metricsPort;
+    }
+
+    boolean isFlightRecording() {
+        return this.flightRecording;
+    }
+
+    /**
+     * @return The value that follows the option at the given index.
+     */
+    static String value(String[] args, int option) {
+        if (option + 1 >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[option]);
+        }
+        return args[option + 1];
+    }
+
+    static int parseNumber(String value, int minimum, int maximum, String name) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= minimum && number <= maximum) {
+                return number;
+            }
+        }
+        catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException("Not a valid " + name + ": " + value);
+    }
+
+    /**
+     * @return The game mode with the given name. Only the modes that can be hosted are accepted.
+     */
+    private static GameMode parseMode(String value) {
+        switch (value.toLowerCase()) {
+            case "coop":
+                return GameMode.COOP;
+            case "deathmatch":
+                return GameMode.Deathmatch;
+            default:
+                throw new IllegalArgumentException("Not a game mode that can be hosted: " + value);
+        }
+    }
+}
@@ -37,7 +37,7 @@ public class Action_JoinGameDeathMatch extends AbstractAction implements GameMod
         if(hostIP != null && port != null) {
             this.game.quit(); // Try to stop the game if it's currently running.
             this.game.initializeGameData(true, false, GameMode.Deathmatch); // Resets the game's objects to their default state.
-            this.game.setHostPort(Integer.parseInt(port));
+            this.game.setHostPort(port);
             this.game.setHostAddress(hostIP);
             this.game.start(); // Spools up the game's engine and starts the main game loop.
         }
@@ -34,7 +34,7 @@ public class Action_Spectate extends AbstractAction implements GameModeInterface
     public void actionPerformed(ActionEvent actionEvent) {
         this.game.quit(); // Try to stop the game if it's currently running.
         this.game.initializeGameData(true, false, GameMode.Spectate); // Resets the game's objects to their default state.
-        this.game.setHostPort(Integer.parseInt(port));
+        this.game.setHostPort(port);
         this.game.setHostAddress(hostIP);
         this.game.start(); // Spools up the game's engine and starts the main game loop.String ip = JOptionPane.showInputDialog("Enter IP Address (By default, it connects to port 1198");
     }
@@ -0,0 +1,178 @@
+package aoop.asteroids.control;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.Spaceship;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many single player matches as fast as possible, without displaying them, to see how changes to the game's
+ * settings (such as how often asteroids spawn) change its outcome.
+ * <p>
+ * A match does nothing but call {@link GameUpdater#updatePhysics()} in a loop, without waiting for the next tick, taking
+ * snapshots or locking the game, until the ship is destroyed or the tick limit is reached. The ship is flown by a simple
+ * bot that keeps firing and turns and accelerates at random. Match i is started from seed {@code seed + i}, and the bot
+ * gets its own generator from that seed too, so every match can be played again exactly, on its own, with
+ * {@link #play(int)}.
+ * <p>
+ * The matches are independent, so they are split up between the threads of a fork-join pool: the range of matches is
+ * halved until a range is small enough to play on one thread, and the statistics of the halves are merged on the way
+ * back up.
+ */
+public class BatchRunner implements GameModeInterface {
+    /**
+     * The default tick limit of a match: five minutes at the default tick rate.
+     */
+    public static final int DEFAULT_MAX_TICKS = 5 * 60 * 30;
+
+    /**
+     * The most matches that are played in one task, rather than being split further.
+     */
+    private static final int MATCHES_PER_TASK = 8;
+
+    /**
+     * The number of ticks that the bot keeps pressing the same buttons.
+     */
+    private static final int BOT_DECISION_INTERVAL = 10;
+
+    private final int matches;
+    private final long seed;
+    private int maxTicks = DEFAULT_MAX_TICKS;
+    private int spawnInterval = GameUpdater.SPAWN_INTERVAL_DEFAULT;
+    private int asteroidsLimit = GameUpdater.ASTEROIDS_LIMIT_DEFAULT;
+    private boolean kesslerSyndrome;
+
+    /**
+     * @param matches The number of matches to play.
+     * @param seed    The seed of the first match. The others follow on from it.
+     */
+    public BatchRunner(int matches, long seed) {
+        this.matches = matches;
+        this.seed = seed;
+    }
+
+    /**
+     * @param maxTicks The most ticks that a match lasts, if the ship isn't destroyed before.
+     */
+    public void setMaxTicks(int maxTicks) {
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * @param spawnInterval The number of ticks between two attempts to spawn an asteroid, see
+     *                      {@link GameUpdater#setSpawnInterval(int)}.
+     */
+    public void setSpawnInterval(int spawnInterval) {
+        this.spawnInterval = spawnInterval;
+    }
+
+    /**
+     * @param asteroidsLimit The number of asteroids at the start of a match above which none spawn, see
+     *                       {@link GameUpdater#setAsteroidsLimit(int)}.
+     */
+    public void setAsteroidsLimit(int asteroidsLimit) {
+        this.asteroidsLimit = asteroidsLimit;
+    }
+
+    public void setKesslerSyndrome(boolean kesslerSyndrome) {
+        this.kesslerSyndrome = kesslerSyndrome;
+    }
+
+    /**
+     * Plays every match on the given pool, and waits for them to finish.
+     *
+     * @param pool The pool to play the matches on.
+     * @return The statistics of all matches.
+     */
+    public BatchStatistics run(ForkJoinPool pool) {
+        return pool.invoke(new MatchRange(0, this.matches));
+    }
+
+    /**
+     * Plays a single match on the current thread.
+     *
+     * @param match The number of the match, counting from 0.
+     * @return The statistics of the match.
+     */
+    public BatchStatistics play(int match) {
+        long matchSeed = this.seed + match;
+        Game game = new Game();
+        game.setSeed(matchSeed);
+        game.initializeGameData(false, false, GameMode.Singleplayer);
+        GameUpdater updater = new GameUpdater(game);
+        updater.setKesslerSyndrome(this.kesslerSyndrome);
+        updater.setSpawnInterval(this.spawnInterval);
+        updater.setAsteroidsLimit(this.asteroidsLimit);
+        Random bot = new Random(~matchSeed); // Separate from the game's generator, so the bot doesn't change the game.
+        Spaceship ship = game.getSpaceship();
+
+        int inputs = 0;
+        int peakAsteroids = 0;
+        long asteroidTicks = 0;
+        int tick = 0;
+        while (tick < this.maxTicks && !ship.isDestroyed()) {
+            if (tick % BOT_DECISION_INTERVAL == 0) {
+                inputs = this.decide(bot);
+            }
+            ship.setInputs(inputs);
+            updater.updatePhysics();
+            tick++;
+            int asteroids = game.getAsteroids().size();
+            peakAsteroids = Math.max(peakAsteroids, asteroids);
+            asteroidTicks += asteroids;
+        }
+        return BatchStatistics.of(matchSeed, tick, !ship.isDestroyed(), ship.getScore(), peakAsteroids, asteroidTicks);
+    }
+
+    /**
+     * @return The buttons that the bot presses for the next while: always fire, turn one way or the other or not at all,
+     * and sometimes accelerate.
+     */
+    private int decide(Random bot) {
+        int inputs = Spaceship.INPUT_FIRE;
+        switch (bot.nextInt(3)) {
+            case 1:
+                inputs |= Spaceship.INPUT_TURN_LEFT;
+                break;
+            case 2:
+                inputs |= Spaceship.INPUT_TURN_RIGHT;
+                break;
+        }
+        if (bot.nextInt(4) == 0) {
+            inputs |= Spaceship.INPUT_ACCELERATE;
+        }
+        return inputs;
+    }
+
+    /**
+     * Plays a range of matches, splitting it in two if it is too large.
+     */
+    private class MatchRange extends RecursiveTask<BatchStatistics> {
+        private final int from;
+        private final int to;
+
+        MatchRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BatchStatistics compute() {
+            if (this.to - this.from <= MATCHES_PER_TASK) {
+                BatchStatistics statistics = BatchStatistics.EMPTY;
+                for (int match = this.from; match < this.to; match++) {
+                    statistics = statistics.merge(BatchRunner.this.play(match));
+                }
+                return statistics;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            MatchRange first = new MatchRange(this.from, middle);
+            first.fork();
+            BatchStatistics second = new MatchRange(middle, this.to).compute();
+            return first.join().merge(second);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package aoop.asteroids.control;
+
+/**
+ * The outcome of a number of matches that were played by a {@link BatchRunner}, summed up. Statistics of different
+ * matches are combined with {@link #merge(BatchStatistics)}, so they can be gathered separately on every thread and
+ * combined at the end. Statistics never change once they are made.
+ */
+public class BatchStatistics {
+    /**
+     * The statistics of no matches at all.
+     */
+    public static final BatchStatistics EMPTY = new BatchStatistics(0, 0, 0, 0, 0, Integer.MAX_VALUE, 0, Integer.MIN_VALUE, 0, 0, 0);
+
+    private final int matches;
+
+    /**
+     * The number of game ticks that were played, in all matches together.
+     */
+    private final long ticks;
+
+    /**
+     * The number of matches in which the ship was still alive when the tick limit was reached.
+     */
+    private final int survivors;
+
+    private final long totalScore;
+    private final double totalScoreSquares;
+
+    /**
+     * The lowest and highest score of any match, and the seed of that match, with which it can be played again.
+     */
+    private final int lowestScore;
+    private final long lowestScoreSeed;
+    private final int highestScore;
+    private final long highestScoreSeed;
+
+    /**
+     * The most asteroids that were in the game at once, summed over all matches.
+     */
+    private final long totalPeakAsteroids;
+
+    /**
+     * The number of asteroids that were in the game, summed over every tick of every match.
+     */
+    private final long asteroidTicks;
+
+    private BatchStatistics(int matches, long ticks, int survivors, long totalScore, double totalScoreSquares, int lowestScore, long lowestScoreSeed, int highestScore, long highestScoreSeed, long totalPeakAsteroids, long asteroidTicks) {
+        this.matches = matches;
+        this.ticks = ticks;
+        this.survivors = survivors;
+        this.totalScore = totalScore;
+        this.totalScoreSquares = totalScoreSquares;
+        this.lowestScore = lowestScore;
+        this.lowestScoreSeed = lowestScoreSeed;
+        this.highestScore = highestScore;
+        this.highestScoreSeed = highestScoreSeed;
+        this.totalPeakAsteroids = totalPeakAsteroids;
+        this.asteroidTicks = asteroidTicks;
+    }
+
+    /**
+     * @param seed          The seed of the match.
+     * @param ticks         The number of ticks that the match lasted.
+     * @param survived      Whether the ship was still alive at the end of the match.
+     * @param score         The player's score at the end of the match.
+     * @param peakAsteroids The most asteroids that were in the game at once.
+     * @param asteroidTicks The number of asteroids that were in the game, summed over every tick.
+     * @return The statistics of a single match.
+     */
+    static BatchStatistics of(long seed, int ticks, boolean survived, int score, int peakAsteroids, long asteroidTicks) {
+        return new BatchStatistics(1, ticks, survived ? 1 : 0, score, (double) score * score, score, seed, score, seed, peakAsteroids, asteroidTicks);
+    }
+
+    /**
+     * @param other The statistics of other matches.
+     * @return The statistics of the matches of both.
+     */
+    public BatchStatistics merge(BatchStatistics other) {
+        boolean lowest = this.lowestScore <= other.lowestScore;
+        boolean highest = this.highestScore >= other.highestScore;
+        return new BatchStatistics(
+                this.matches + other.matches,
+                this.ticks + other.ticks,
+                this.survivors + other.survivors,
+                this.totalScore + other.totalScore,
+                this.totalScoreSquares + other.totalScoreSquares,
+                lowest ? this.lowestScore : other.lowestScore,
+                lowest ? this.lowestScoreSeed : other.lowestScoreSeed,
+                highest ? this.highestScore : other.highestScore,
+                highest ? this.highestScoreSeed : other.highestScoreSeed,
+                this.totalPeakAsteroids + other.totalPeakAsteroids,
+                this.asteroidTicks + other.asteroidTicks);
+    }
+
+    public int getMatches() {
+        return this.matches;
+    }
+
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    public int getSurvivors() {
+        return this.survivors;
+    }
+
+    public double getMeanTicks() {
+        return this.matches == 0 ? 0 : (double) this.ticks / this.matches;
+    }
+
+    public double getMeanScore() {
+        return this.matches == 0 ? 0 : (double) this.totalScore / this.matches;
+    }
+
+    public double getScoreStandardDeviation() {
+        if (this.matches == 0) {
+            return 0;
+        }
+        double mean = this.getMeanScore();
+        return Math.sqrt(Math.max(0, this.totalScoreSquares / this.matches - mean * mean));
+    }
+
+    public int getLowestScore() {
+        return this.lowestScore;
+    }
+
+    public long getLowestScoreSeed() {
+        return this.lowestScoreSeed;
+    }
+
+    public int getHighestScore() {
+        return this.highestScore;
+    }
+
+    public long getHighestScoreSeed() {
+        return this.highestScoreSeed;
+    }
+
+    /**
+     * @return The average number of asteroids in the game, over every tick of every match.
+     */
+    public double getMeanAsteroids() {
+        return this.ticks == 0 ? 0 : (double) this.asteroidTicks / this.ticks;
+    }
+
+    /**
+     * @return The average of the most asteroids that were in a game at once.
+     */
+    public double getMeanPeakAsteroids() {
+        return this.matches == 0 ? 0 : (double) this.totalPeakAsteroids / this.matches;
+    }
+
+    @Override
+    public String toString() {
+        if (this.matches == 0) {
+            return "No matches";
+        }
+        return String.format("Matches:         %d (%d survived)%n", this.matches, this.survivors)
+                + String.format("Ticks:           %d (%.1f per match)%n", this.ticks, this.getMeanTicks())
+                + String.format("Score:           %.2f mean, %.2f standard deviation%n", this.getMeanScore(), this.getScoreStandardDeviation())
+                + String.format("Lowest score:    %d (seed %d)%n", this.lowestScore, this.lowestScoreSeed)
+                + String.format("Highest score:   %d (seed %d)%n", this.highestScore, this.highestScoreSeed)
+                + String.format("Asteroids:       %.2f mean, %.2f mean peak", this.getMeanAsteroids(), this.getMeanPeakAsteroids());
+    }
+}
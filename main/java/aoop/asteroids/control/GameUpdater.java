@@ -1,47 +1,97 @@
 package aoop.asteroids.control;
 
 import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.metrics.TickEvent;
+import aoop.asteroids.metrics.TickMetrics;
+import aoop.asteroids.metrics.TickMetrics.Phase;
+import aoop.asteroids.metrics.TickOverrunEvent;
 import aoop.asteroids.model.*;
 import aoop.asteroids.multiplayer.DataPacket_Client;
+import aoop.asteroids.physics.Broadphase;
+import aoop.asteroids.physics.UniformGridBroadphase;
 
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 /**
  * A runnable object which, when started in a thread, runs the main game loop and periodically updates the game's model
  * as time goes on. This class can be thought of as the 'Game Engine', because it is solely responsible for all changes
  * to the game model as a result of user input, and this class also defines the very important game loop itself.
+ * <p>
+ * The simulation is deterministic: a game tick only depends on the state of the game, the game's seeded random number
+ * generator and the buttons that are pressed during the tick, which are read once at the start of the tick. Objects are
+ * always updated and removed in the same order. So a game that starts from the same seed and gets the same inputs on
+ * every tick plays out exactly the same, which is what {@link InputLog} relies on.
+ * <p>
+ * How long every phase of a tick takes, and how many objects there are, is kept in the updater's {@link TickMetrics},
+ * which are shown through JMX while the game runs. Slow ticks, and time that the game skips because it fell behind,
+ * are also recorded as Flight Recorder events, see {@link TickEvent} and {@link TickOverrunEvent}.
  */
 public class GameUpdater implements Runnable, GameModeInterface {
     /**
      * The refresh rate of the display, in frames per second. Increasing this number makes the game look smoother, up to
-     * a certain point where it's no longer noticeable.
+     * a certain point where it's no longer noticeable. Can be changed with the asteroids.displayFps system property.
      */
-    private static final int DISPLAY_FPS = 120;
+    public static final int DISPLAY_FPS = Integer.getInteger("asteroids.displayFps", 120);
+
+    /**
+     * Whether the display draws its frames on a render thread of its own, at {@link #DISPLAY_FPS}, instead of being told
+     * to refresh by this updater. Can be turned on with the asteroids.activeRendering system property.
+     */
+    public static final boolean ACTIVE_RENDERING = Boolean.getBoolean("asteroids.activeRendering");
 
     /**
      * The rate at which the game ticks (how often physics updates are applied), in frames per second. Increasing this
-     * number speeds up everything in the game. Ships react faster to input, bullets fly faster, etc.
+     * number speeds up everything in the game. Ships react faster to input, bullets fly faster, etc. Can be changed
+     * with the asteroids.physicsFps system property.
      */
-    private static final int PHYSICS_FPS = 30;
+    public static final int PHYSICS_FPS = Integer.getInteger("asteroids.physicsFps", 30);
 
     /**
      * The number of milliseconds in a game tick.
      */
     public static final double MILLISECONDS_PER_TICK = 1000.0 / PHYSICS_FPS;
 
+    /**
+     * The most game ticks that are done in a row to catch up, when the game has fallen behind (for example because the
+     * machine was busy). Any time beyond that is dropped, so that the game slows down for a moment instead of getting
+     * stuck trying to catch up forever.
+     */
+    static final int MAX_CATCH_UP_TICKS = 5;
+
     /**
      * The default maximum number of asteroids that may be present in the game when starting.
      */
-    private static final int ASTEROIDS_LIMIT_DEFAULT = 7;
+    public static final int ASTEROIDS_LIMIT_DEFAULT = 7;
+
+    /**
+     * The default number of game ticks between two attempts to spawn a new asteroid.
+     */
+    public static final int SPAWN_INTERVAL_DEFAULT = 200;
 
     /**
      * Set this to true to allow asteroids to collide with each other, potentially causing chain reactions of asteroid
-     * collisions.
+     * collisions. Can be changed with the asteroids.kesslerSyndrome system property, or per updater with
+     * {@link #setKesslerSyndrome(boolean)}.
      */
-    private static final boolean KESSLER_SYNDROME = false;
+    private static final boolean KESSLER_SYNDROME = Boolean.getBoolean("asteroids.kesslerSyndrome");
+
+    /**
+     * The file that every game is recorded to, if set with the asteroids.recordMatch system property, see
+     * {@link MatchRecorder}. Null if games aren't recorded.
+     */
+    public static final String RECORD_MATCH = System.getProperty("asteroids.recordMatch");
 
     /**
      * The game that this updater works for.
@@ -58,53 +108,394 @@ public class GameUpdater implements Runnable, GameModeInterface {
      */
     private int asteroidsLimit;
 
+    /**
+     * The number of game ticks between two attempts to spawn a new asteroid.
+     */
+    private int spawnInterval = SPAWN_INTERVAL_DEFAULT;
+
+    /**
+     * Whether asteroids collide with each other in this game, see {@link #KESSLER_SYNDROME}.
+     */
+    private boolean kesslerSyndrome = KESSLER_SYNDROME;
+
+    /**
+     * Narrows down which asteroids need to be checked for collisions with bullets, ships and each other, so that a
+     * collision check doesn't have to look at every single asteroid in the game.
+     */
+    private final Broadphase<Asteroid> asteroidBroadphase;
+
+    /**
+     * Destroyed bullets and asteroids, which are reused for the next ones that are fired or spawned.
+     */
+    private final EntityPool entityPool = new EntityPool();
+
+    /*
+     * The object that is being checked for collisions with nearby asteroids, and what to do with each of those
+     * asteroids. The actions are made once, rather than as a new lambda for every object on every tick.
+     */
+    private Bullet collidingBullet;
+    private Spaceship collidingShip;
+    private final Consumer<Asteroid> bulletAsteroidCollision = asteroid -> {
+        if (asteroid.collides(this.collidingBullet)) {
+            asteroid.destroy();
+            this.collidingBullet.destroy();
+        }
+    };
+    private final Consumer<Asteroid> shipAsteroidCollision = asteroid -> {
+        if (asteroid.collides(this.collidingShip)) {
+            asteroid.destroy();
+            this.collidingShip.destroy();
+        }
+    };
+
+    /**
+     * Every ship that takes part in a deathmatch, gathered again on every tick.
+     */
+    private final List<Spaceship> deathmatchShips = new ArrayList<>();
+
+    /**
+     * The number of nanoseconds between two game ticks.
+     */
+    private long nanosecondsPerTick;
+
+    /**
+     * The number of nanoseconds between two display refreshes.
+     */
+    private long nanosecondsPerDisplayFrame;
+
+    /**
+     * Sends and receives the game over the network, if this is a multiplayer game. Null otherwise.
+     */
+    private MultiplayerGameUpdater multiplayerGameUpdater;
+
+    /**
+     * Where the player's inputs are recorded, once per tick, or null if they aren't recorded.
+     */
+    private InputLog recordedInputs;
+
+    /**
+     * Where the player's inputs are taken from instead of the keyboard, or null if the player is playing.
+     */
+    private InputLog replayedInputs;
+
+    /**
+     * Records the game to a file, or null if the game isn't recorded.
+     */
+    private MatchRecorder matchRecorder;
+
+    /**
+     * The ticks of this updater, if it is run on a scheduler instead of in its own thread.
+     */
+    private volatile ScheduledFuture<?> scheduledTicks;
+
+    /**
+     * Set once the game has ended, when run on a scheduler.
+     */
+    private volatile boolean ended;
+
+    private final TickMetrics metrics = new TickMetrics();
+
     /**
      * Constructs a new game updater with the given game.
      *
      * @param game The game that this updater will update when it's running.
      */
     public GameUpdater(Game game) {
+        this(game, new UniformGridBroadphase<>());
+    }
+
+    /**
+     * Constructs a new game updater with the given game, using a specific broadphase for asteroid collisions.
+     *
+     * @param game               The game that this updater will update when it's running.
+     * @param asteroidBroadphase The broadphase used to find asteroids that may be colliding with something.
+     */
+    public GameUpdater(Game game, Broadphase<Asteroid> asteroidBroadphase) {
         this.game = game;
         this.updateCounter = 0;
         this.asteroidsLimit = ASTEROIDS_LIMIT_DEFAULT;
+        this.asteroidBroadphase = asteroidBroadphase;
+        this.setRates(PHYSICS_FPS, ACTIVE_RENDERING ? 0 : DISPLAY_FPS); // An active display refreshes by itself.
+    }
+
+    /**
+     * @param kesslerSyndrome True if asteroids should collide with each other.
+     */
+    public void setKesslerSyndrome(boolean kesslerSyndrome) {
+        this.kesslerSyndrome = kesslerSyndrome;
+    }
+
+    boolean isKesslerSyndrome() {
+        return this.kesslerSyndrome;
+    }
+
+    /**
+     * Changes how often a new asteroid spawns, for trying out how that changes the game. Should be done before the
+     * first tick.
+     *
+     * @param spawnInterval The number of game ticks between two attempts to spawn a new asteroid.
+     */
+    public void setSpawnInterval(int spawnInterval) {
+        if (spawnInterval < 1) {
+            throw new IllegalArgumentException("Spawn interval must be positive: " + spawnInterval);
+        }
+        this.spawnInterval = spawnInterval;
+    }
+
+    int getSpawnInterval() {
+        return this.spawnInterval;
+    }
+
+    /**
+     * Changes how often this updater ticks and refreshes the display. Note that the display still assumes the default
+     * tick duration of {@link #MILLISECONDS_PER_TICK} when drawing objects in between ticks, so changing the physics
+     * rate is mostly useful when nothing is displayed.
+     *
+     * @param physicsFps The number of game ticks per second.
+     * @param displayFps The number of display refreshes per second. Zero or less means the display is never refreshed.
+     */
+    public void setRates(int physicsFps, int displayFps) {
+        this.nanosecondsPerTick = TimeUnit.SECONDS.toNanos(1) / physicsFps;
+        this.nanosecondsPerDisplayFrame = displayFps > 0 ? TimeUnit.SECONDS.toNanos(1) / displayFps : Long.MAX_VALUE;
+    }
+
+    /**
+     * Makes this updater exchange the game with other players. The multiplayer updater is only ever called from this
+     * updater's thread, around every game tick, so that no other thread has to change the game.
+     *
+     * @param multiplayerGameUpdater The multiplayer updater of the game.
+     */
+    public void setMultiplayerGameUpdater(MultiplayerGameUpdater multiplayerGameUpdater) {
+        this.multiplayerGameUpdater = multiplayerGameUpdater;
+    }
+
+    /**
+     * Records the buttons that the player presses on every tick from now on, so that the game can be replayed. The log
+     * should be made with the game's seed, and the game should be recorded from its first tick.
+     *
+     * @param log The log to add the inputs to.
+     */
+    public void recordInputs(InputLog log) {
+        this.recordedInputs = log;
+    }
+
+    /**
+     * Replays the inputs of an earlier game: on every tick, the player's ship presses the buttons of the next tick in
+     * the log instead of the keys on the keyboard. For the game to play out the same, it should be started from the
+     * seed of the log, see {@link Game#setSeed(long)}. Once the log runs out, no buttons are pressed.
+     *
+     * @param log The log to take the inputs from.
+     */
+    public void replayInputs(InputLog log) {
+        this.replayedInputs = log;
+    }
+
+    /**
+     * Records the game to a file from the coming tick on, until the game ends, so that it can be watched again from any
+     * tick, see {@link MatchRecording}. Only the player's own ship is recorded, so this is meant for single player
+     * games.
+     *
+     * @param file The file to record the game to. Anything that is in it already is overwritten.
+     * @return The recorder, which is closed by this updater once the game ends.
+     * @throws IOException If the file could not be opened.
+     */
+    public MatchRecorder recordMatch(Path file) throws IOException {
+        this.matchRecorder = new MatchRecorder(file, this.game, this);
+        return this.matchRecorder;
+    }
 
+    /**
+     * @return The durations of this updater's ticks, and the number of objects in the game.
+     */
+    public TickMetrics getMetrics() {
+        return this.metrics;
     }
 
     /**
      * The main game loop.
      * <p>
-     * Starts the game updater thread. This will run until the quit() method is called on this updater's game object.
-     * If the game is multiplayer, the reciever thread is opened.
+     * Starts the game updater thread. This will run until the quit() method is called on this updater's game object,
+     * or until the thread is interrupted. If the game is multiplayer, the reciever thread is opened.
+     * <p>
+     * Time is measured with a fixed time step: the time that passes is added up, and for every full tick's worth of
+     * time one game tick is done, leaving the remainder for the next round. That way ticks happen at a steady rate on
+     * average, even if a single round of the loop is late. In between, the thread is parked until the next tick or
+     * display refresh is due, instead of spinning and using up a whole CPU core.
+     * <p>
+     * At the end of every tick, a {@link WorldSnapshot} of the game is published, which the display and the network
+     * code read instead of the game itself. That way neither of them has to lock the game while the next tick is done.
      */
     @Override
-    public synchronized void run() {
-        long previousTime = System.currentTimeMillis();
+    public void run() {
+        synchronized (this.game) {
+            this.game.publishWorldSnapshot(); // So that there is something to draw right away.
+        }
+        this.metrics.register(this.game.getRoomId());
+        long previousTime = System.nanoTime();
         long timeSinceLastTick = 0L;
         long timeSinceLastDisplayFrame = 0L;
 
-        final double millisecondsPerDisplayFrame = 1000.0 / DISPLAY_FPS;
-
-        while (this.game.isRunning() && !this.game.isGameOver()) {
-            long currentTime = System.currentTimeMillis();
+        while (this.game.isRunning() && !this.game.isGameOver() && !Thread.currentThread().isInterrupted()) {
+            long currentTime = System.nanoTime();
             long elapsedTime = currentTime - previousTime;
-            timeSinceLastTick += elapsedTime;
+            previousTime = currentTime;
             timeSinceLastDisplayFrame += elapsedTime;
-            if (timeSinceLastTick >= MILLISECONDS_PER_TICK) { // Check if enough time has passed to update the physics.
-                synchronized (this.game) {
-                    //TODO removed this line
-                   if(this.game.getCurrentGameMode() != GameMode.Spectate) {
-                        this.updatePhysics(); // Perform one 'step' in the game.
-                        notifyAll();
-                    }
-                }
-                timeSinceLastTick = 0L;
+            timeSinceLastTick = this.tickFor(timeSinceLastTick + elapsedTime);
+
+            if (timeSinceLastDisplayFrame >= this.nanosecondsPerDisplayFrame) { // Check if enough time has passed to refresh the display.
+                this.game.notifyListeners(TimeUnit.NANOSECONDS.toMillis(timeSinceLastTick)); // Tell the asteroids panel that it should refresh.
+                timeSinceLastDisplayFrame %= this.nanosecondsPerDisplayFrame;
             }
-            if (timeSinceLastDisplayFrame >= millisecondsPerDisplayFrame) { // Check if enough time has passed to refresh the display.
-                this.game.notifyListeners(timeSinceLastTick); // Tell the asteroids panel that it should refresh.
-                timeSinceLastDisplayFrame = 0L;
+
+            // Sleep until whichever comes first: the next tick, or the next display refresh.
+            long untilNextTick = this.nanosecondsPerTick - timeSinceLastTick;
+            long untilNextDisplayFrame = this.nanosecondsPerDisplayFrame - timeSinceLastDisplayFrame;
+            LockSupport.parkNanos(Math.min(untilNextTick, untilNextDisplayFrame));
+        }
+        this.end();
+    }
+
+    /**
+     * Does one game tick for every full tick's worth of the given time, taking that time off, up to
+     * {@link #MAX_CATCH_UP_TICKS} in a row. If more time than that has built up, the full ticks of the rest are dropped.
+     * <p>
+     * Package-private so that tests can hand it any amount of time, instead of waiting for it to pass.
+     *
+     * @param timeSinceLastTick The time since the last tick, in nanoseconds.
+     * @return The time that is left over for the next tick, which is less than a tick.
+     */
+    long tickFor(long timeSinceLastTick) {
+        int ticksThisRound = 0;
+        while (timeSinceLastTick >= this.nanosecondsPerTick && ticksThisRound < MAX_CATCH_UP_TICKS) { // Check if enough time has passed to update the physics.
+            this.tick();
+            timeSinceLastTick -= this.nanosecondsPerTick;
+            ticksThisRound++;
+        }
+        if (timeSinceLastTick >= this.nanosecondsPerTick) { // Still behind after catching up as far as we allow; drop the rest.
+            TickOverrunEvent event = new TickOverrunEvent();
+            if (event.shouldCommit()) {
+                event.room = this.game.getRoomId();
+                event.tick = this.updateCounter;
+                event.droppedTicks = timeSinceLastTick / this.nanosecondsPerTick;
+                event.droppedTime = timeSinceLastTick - timeSinceLastTick % this.nanosecondsPerTick;
+                event.commit();
             }
+            timeSinceLastTick %= this.nanosecondsPerTick;
+        }
+        return timeSinceLastTick;
+    }
 
-            previousTime = currentTime;
+    /**
+     * Runs this updater on the given scheduler instead of in a thread of its own, so that many games can share a few
+     * threads. Each tick is a separate task, and the scheduler never runs two ticks of the same updater at once, so the
+     * game is still only changed by one thread at a time. Nothing is displayed. Once the game stops running, the ticks
+     * stop by themselves.
+     *
+     * @param scheduler The scheduler to run the ticks on.
+     * @return The scheduled ticks.
+     */
+    public ScheduledFuture<?> schedule(ScheduledExecutorService scheduler) {
+        synchronized (this.game) {
+            this.game.publishWorldSnapshot();
+        }
+        this.metrics.register(this.game.getRoomId());
+        ScheduledFuture<?> ticks = scheduler.scheduleAtFixedRate(this::scheduledTick, this.nanosecondsPerTick, this.nanosecondsPerTick, TimeUnit.NANOSECONDS);
+        this.scheduledTicks = ticks;
+        if (this.ended) { // The game already ended before the ticks could be stored.
+            ticks.cancel(false);
+        }
+        return ticks;
+    }
+
+    /**
+     * One run of the scheduled ticks: does a game tick, or ends the game once it has stopped running.
+     */
+    private void scheduledTick() {
+        if (this.ended) {
+            return;
+        }
+        if (this.game.isRunning() && !this.game.isGameOver()) {
+            this.tick();
+            return;
+        }
+        this.ended = true;
+        ScheduledFuture<?> ticks = this.scheduledTicks;
+        if (ticks != null) {
+            ticks.cancel(false);
+        }
+        this.end();
+    }
+
+    /**
+     * Cleans up once the game has ended: finishes the recording of the game, if it is being recorded, stops showing the
+     * metrics, and tells the other players.
+     */
+    private void end() {
+        if (this.matchRecorder != null) {
+            this.matchRecorder.close();
+            this.matchRecorder = null;
+        }
+        this.metrics.unregister();
+        if (this.multiplayerGameUpdater != null) {
+            this.multiplayerGameUpdater.onGameEnd();
+        }
+    }
+
+    /**
+     * Does one game tick: reads the player's inputs, handles the packets received since the last tick, updates the
+     * physics, and publishes a world snapshot of the result, which is then sent to the other players.
+     * <p>
+     * Package-private so that tests can step through a game one tick at a time.
+     */
+    void tick() {
+        TickEvent event = new TickEvent();
+        event.begin();
+        long start = System.nanoTime();
+        synchronized (this.game) {
+            this.readInputs();
+            if (this.multiplayerGameUpdater != null) {
+                this.multiplayerGameUpdater.receivePackets();
+            }
+            if (this.game.getCurrentGameMode() != GameMode.Spectate) {
+                this.updatePhysics(); // Perform one 'step' in the game.
+            }
+            this.game.publishWorldSnapshot();
+            if (this.multiplayerGameUpdater != null) {
+                this.multiplayerGameUpdater.onGameUpdate();
+            }
+        }
+        long end = this.metrics.record(Phase.TICK, start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.room = this.game.getRoomId();
+            event.tick = this.updateCounter;
+            event.overrun = end - start > this.nanosecondsPerTick;
+            event.asteroids = this.metrics.getAsteroids();
+            event.bullets = this.metrics.getBullets();
+            event.spaceships = this.metrics.getSpaceships();
+            event.commit();
+        }
+    }
+
+    /**
+     * Presses the buttons of the player's ship for the coming tick: the keys that the player is holding down, or the
+     * next inputs of the log that is being replayed. The ship keeps them for the whole tick, however the keys change in
+     * the meantime.
+     */
+    private void readInputs() {
+        Spaceship ship = this.game.getSpaceship();
+        int inputs;
+        if (this.replayedInputs != null) {
+            inputs = this.replayedInputs.hasNext() ? this.replayedInputs.next() : 0;
+        } else {
+            inputs = ship.getPressedKeys();
+        }
+        ship.setInputs(inputs);
+        if (this.recordedInputs != null) {
+            this.recordedInputs.record(inputs);
+        }
+        if (this.matchRecorder != null) {
+            this.matchRecorder.record(this, inputs);
         }
     }
 
@@ -113,53 +504,100 @@ public class GameUpdater implements Runnable, GameModeInterface {
      * <p>
      * First, each object's movement is updated by calling nextStep() on it.
      * Then, if the player is pressing the key to fire the ship's weapon, a new bullet should spawn.
+     * On the host, the clients' ships are moved the same way, with the buttons that their clients pressed. Clients
+     * don't spawn bullets themselves; they receive the bullets of every ship from the host.
      * Then, once all objects' positions are updated, we check for any collisions between them.
      * And finally, any objects which are destroyed by collisions are removed from the game.
      * <p>
-     * Also, every 200 game ticks, if possible, a new random asteroid is added to the game.
+     * Also, every 200 game ticks (the spawn interval), if possible, a new random asteroid is added to the game.
+     * <p>
+     * Nothing but the game's state, including its random number generator, and the buttons that are pressed on the
+     * ships decides what happens here.
+     * <p>
+     * Bullets and asteroids are taken from and returned to a pool, and no lambdas or lists are made along the way, so
+     * that once the pool has filled up, a tick doesn't allocate anything. Each of the steps above is timed in the
+     * updater's metrics.
      */
     protected void updatePhysics() {
+        long time = System.nanoTime();
         Spaceship ship = this.game.getSpaceship();
-        Collection<Bullet> bullets = this.game.getBullets();
-        Collection<Asteroid> asteroids = this.game.getAsteroids();
+        List<Bullet> bullets = this.game.getBullets();
+        List<Asteroid> asteroids = this.game.getAsteroids();
+        Collection<Spaceship> clientShips = this.game.getSpaceships();
+        boolean playerPlays = !this.game.isDedicatedServer(); // A dedicated server has no player of its own; only the clients' ships play.
         asteroids.forEach(GameObject::nextStep);
         bullets.forEach(GameObject::nextStep);
-        ship.nextStep();
-        if (ship.canFireWeapon()) {
-            double direction = ship.getDirection();
-            Bullet b = new Bullet(ship.getLocation().getX(), ship.getLocation().getY(), ship.getVelocity().x + Math.sin(direction) * 15, ship.getVelocity().y - Math.cos(direction) * 15);
-            bullets.add(b);
+        if (playerPlays) {
+            ship.nextStep();
+        }
+        if (this.game.isHosting()) {
+            for (Spaceship clientShip : clientShips) {
+                clientShip.nextStep();
+            }
+        }
+        time = this.metrics.record(Phase.INTEGRATE, time);
 
-            ship.setFired();
+        // Every ship fires after all of them have moved, which adds the same bullets in the same order as moving and firing them one by one.
+        if (playerPlays) {
+            this.fireWeapon(ship, bullets);
         }
+        if (this.game.isHosting()) {
+            for (Spaceship clientShip : clientShips) {
+                this.fireWeapon(clientShip, bullets);
+            }
+        }
+        time = this.metrics.record(Phase.FIRE, time);
 
         this.checkCollisions();
+        time = this.metrics.record(Phase.COLLIDE, time);
         this.removeDestroyedObjects();
-        // Every 200 game ticks, try and spawn a new asteroid.
-        if (this.updateCounter % 200 == 0 && asteroids.size() < this.asteroidsLimit && ((game.isHosting() && game.getCurrentGameMode() != GameMode.Deathmatch) || game.getCurrentGameMode() == GameMode.Singleplayer)) {
-            Asteroid newAsteroid = addRandomAsteroid();
-            this.game.getAsteroids().add(newAsteroid);
+        time = this.metrics.record(Phase.CLEANUP, time);
+        // Every spawn interval, try and spawn a new asteroid.
+        if (this.updateCounter % this.spawnInterval == 0 && asteroids.size() < this.asteroidsLimit && ((game.isHosting() && game.getCurrentGameMode() != GameMode.Deathmatch) || game.getCurrentGameMode() == GameMode.Singleplayer)) {
+            asteroids.add(this.addRandomAsteroid());
         }
+        this.metrics.record(Phase.SPAWN, time);
         this.updateCounter++;
+        this.game.advanceTick();
+        this.metrics.countEntities(asteroids.size(), bullets.size(), clientShips.size() + (playerPlays ? 1 : 0));
     }
 
     /**
-     * Adds a random asteroid at least 50 pixels away from the player's spaceship.
+     * Fires a spaceship's weapon, if its player is pressing the key to do so. The bullet is only added to the game if
+     * this game decides where bullets are, which a multiplayer client doesn't.
+     *
+     * @param ship    The spaceship to fire the weapon of. It has already moved this tick.
+     * @param bullets The game's bullets.
+     */
+    private void fireWeapon(Spaceship ship, List<Bullet> bullets) {
+        if (ship.canFireWeapon()) {
+            if (!this.game.isMultiplayer() || this.game.isHosting()) {
+                double direction = ship.getDirection();
+                bullets.add(this.entityPool.obtainBullet(ship.getLocation().getX(), ship.getLocation().getY(), ship.getVelocity().x + StrictMath.sin(direction) * 15, ship.getVelocity().y - StrictMath.cos(direction) * 15));
+            }
+            ship.setFired();
+        }
+    }
+
+    /**
+     * Adds a random asteroid at least 50 pixels away from the player's spaceship, using the game's random number
+     * generator.
      * MULTIPLAYER: Sends the relevent constructor data to Host
      */
     protected Asteroid addRandomAsteroid() {
-        ThreadLocalRandom rng = ThreadLocalRandom.current();
-        Point.Double newAsteroidLocation;
+        Random rng = this.game.getRandom();
         Point.Double shipLocation = this.game.getSpaceship().getLocation();
-        double distanceX, distanceY;
+        double x, y, distanceX, distanceY;
         do { // Iterate until a point is found that is far enough away from the player.
-            newAsteroidLocation = new Point.Double(rng.nextDouble(0.0, 800.0), rng.nextDouble(0.0, 800.0));
-            distanceX = newAsteroidLocation.x - shipLocation.x;
-            distanceY = newAsteroidLocation.y - shipLocation.y;
+            x = rng.nextDouble() * 800.0;
+            y = rng.nextDouble() * 800.0;
+            distanceX = x - shipLocation.x;
+            distanceY = y - shipLocation.y;
         } while (distanceX * distanceX + distanceY * distanceY < 50 * 50); // Pythagorean theorem for distance between two points.
 
         double randomChance = rng.nextDouble();
-        Point.Double randomVelocity = new Point.Double(rng.nextDouble() * 6 - 3, rng.nextDouble() * 6 - 3);
+        double velocityX = rng.nextDouble() * 6 - 3;
+        double velocityY = rng.nextDouble() * 6 - 3;
         AsteroidSize randomSize;
         if (randomChance < 0.333) { // 33% chance of spawning a large asteroid.
             randomSize = AsteroidSize.LARGE;
@@ -168,8 +606,32 @@ public class GameUpdater implements Runnable, GameModeInterface {
         } else { // And finally a 33% chance of spawning a small asteroid.
             randomSize = AsteroidSize.SMALL;
         }
-        Asteroid result = new Asteroid(newAsteroidLocation, randomVelocity, randomSize);
-        return result;
+        return this.entityPool.obtainAsteroid(x, y, velocityX, velocityY, randomSize);
+    }
+
+    /*
+     * The updater's own part of the game's state, which a recording saves and restores along with the game.
+     */
+    int getUpdateCounter() {
+        return this.updateCounter;
+    }
+
+    void setUpdateCounter(int updateCounter) {
+        this.updateCounter = updateCounter;
+    }
+
+    int getAsteroidsLimit() {
+        return this.asteroidsLimit;
+    }
+
+    /**
+     * Changes the number of asteroids above which no new asteroids spawn. The limit still grows by one for every five
+     * points that the player scores.
+     *
+     * @param asteroidsLimit The new limit.
+     */
+    public void setAsteroidsLimit(int asteroidsLimit) {
+        this.asteroidsLimit = asteroidsLimit;
     }
 
     /**
@@ -179,52 +641,90 @@ public class GameUpdater implements Runnable, GameModeInterface {
      * ADDITIONS:
      * GAMEMODE COOP -> DEATH BY BULLET IS EXCLUDED
      * GAMEMODE DEATHMATCH -> PLAUER-TO-PLAYER COLLISION IS ALLOWED, ASTEROID COLLISIONS ARE NOT CHECKED (AS THEY DONT EXIST)
+     * <p>
+     * Asteroids are first sorted into the broadphase, so that each object only has to be checked against the asteroids
+     * that are near it.
+     * <p>
+     * A dedicated server's own spaceship doesn't take part in the game, so it is never checked for collisions. The host
+     * checks the clients' ships as well as its own, since it is the one that moves them. A client doesn't check its own
+     * ship; it only predicts where the ship goes, and learns from the host whether it was hit.
+     * <p>
+     * Package-private so that it can be benchmarked on its own.
      */
-    private void checkCollisions() {
-        // First check collisions between bullets and other objects.
-        this.game.getBullets().forEach(bullet -> {
-            if (this.game.getCurrentGameMode() != GameMode.Deathmatch) {
-                this.game.getAsteroids().forEach(asteroid -> { // Check collision with any of the asteroids.
-                    if (asteroid.collides(bullet)) {
-                        asteroid.destroy();
-                        bullet.destroy();
+    void checkCollisions() {
+        boolean hasPlayer = !this.game.isDedicatedServer() && (!this.game.isMultiplayer() || this.game.isHosting());
+        this.asteroidBroadphase.build(this.game.getAsteroids());
+        // First check collisions between bullets and asteroids.
+        if (this.game.getCurrentGameMode() != GameMode.Deathmatch) {
+            List<Bullet> bullets = this.game.getBullets();
+            for (int i = 0; i < bullets.size(); i++) {
+                this.collidingBullet = bullets.get(i); // Check collision with nearby asteroids.
+                this.asteroidBroadphase.forEachCandidate(this.collidingBullet, this.bulletAsteroidCollision);
+            }
+            this.collidingBullet = null;
+        }
+        // Next check for collisions between the spaceships and bullets or asteroids.
+        if (hasPlayer) {
+            this.checkCollisions(this.game.getSpaceship());
+        }
+        if (this.game.isHosting()) {
+            for (Spaceship clientShip : this.game.getSpaceships()) {
+                this.checkCollisions(clientShip);
+            }
+        }
+        if (this.kesslerSyndrome) { // Only check for asteroid - asteroid collisions if we allow kessler syndrome.
+            this.asteroidBroadphase.forEachCandidatePair((asteroid, secondAsteroid) -> {
+                if (asteroid.collides(secondAsteroid)) {
+                    asteroid.destroy();
+                    secondAsteroid.destroy();
+                }
+            });
+        }
+        if (this.game.isHosting() && this.game.getCurrentGameMode() == GameMode.Deathmatch) {
+            List<Spaceship> ships = this.deathmatchShips;
+            ships.clear();
+            for (Spaceship clientShip : this.game.getSpaceships()) {
+                ships.add(clientShip);
+            }
+            if (hasPlayer) {
+                ships.add(this.game.getSpaceship());
+            }
+            for (int i = 0; i < ships.size(); i++) {
+                for (int j = i + 1; j < ships.size(); j++) {
+                    if (ships.get(i).collides(ships.get(j))) {
+                        //We have a collision between two spaceships, decrease the health of both
+                        ships.get(i).decreaseHealth(50);
+                        ships.get(j).decreaseHealth(50);
                     }
-                });
+                }
             }
-            if (this.game.getCurrentGameMode() != GameMode.COOP) {
-                if (this.game.getSpaceship().collides(bullet)) { // Check collision with ship.
+            ships.clear();
+        }
+    }
+
+    /**
+     * Checks a single spaceship for collisions with bullets (unless friendly fire is off) and asteroids.
+     *
+     * @param ship The spaceship to check.
+     */
+    private void checkCollisions(Spaceship ship) {
+        if (this.game.getCurrentGameMode() != GameMode.COOP) {
+            List<Bullet> bullets = this.game.getBullets();
+            for (int i = 0; i < bullets.size(); i++) {
+                Bullet bullet = bullets.get(i);
+                if (ship.collides(bullet)) { // Check collision with ship.
                     bullet.destroy();
                     if (this.game.getCurrentGameMode() == GameMode.Deathmatch) {
-                        this.game.getSpaceship().decreaseHealth(10);
+                        ship.decreaseHealth(10);
                     } else {
-                        this.game.getSpaceship().destroy();
+                        ship.destroy();
                     }
                 }
             }
-        });
-        // Next check for collisions between asteroids and the spaceship.
-        this.game.getAsteroids().forEach(asteroid -> {
-            if (asteroid.collides(this.game.getSpaceship())) {
-                asteroid.destroy();
-                this.game.getSpaceship().destroy();
-            }
-            if (KESSLER_SYNDROME) { // Only check for asteroid - asteroid collisions if we allow kessler syndrome.
-                this.game.getAsteroids().forEach(secondAsteroid -> {
-                    if (!asteroid.equals(secondAsteroid) && asteroid.collides(secondAsteroid)) {
-                        asteroid.destroy();
-                        secondAsteroid.destroy();
-                    }
-                });
-            }
-        });
-        if (this.game.getCurrentGameMode() == GameMode.Deathmatch) {
-            this.game.getSpaceships().forEach(ship -> {
-                if (ship.collides(this.game.getSpaceship())) {
-                    //We have a collision with a connected spaceship Decrease health
-                    this.game.getSpaceship().decreaseHealth(50);
-                }
-            });
         }
+        this.collidingShip = ship;
+        this.asteroidBroadphase.forEachCandidate(ship, this.shipAsteroidCollision);
+        this.collidingShip = null;
     }
 
     /**
@@ -242,11 +742,13 @@ public class GameUpdater implements Runnable, GameModeInterface {
      * Removes all destroyed objects (those which have collided with another object).
      * <p>
      * When an asteroid is destroyed, it may spawn some smaller successor asteroids, and these are added to the game's
-     * list of asteroids.
+     * list of asteroids. Destroyed bullets and asteroids go back to the pool.
      */
     private void removeDestroyedObjects() {
-        Collection<Asteroid> newAsteroids = new ArrayList<>(this.game.getAsteroids().size() * 2); // Avoid reallocation and assume every asteroid spawns successors.
-        this.game.getAsteroids().forEach(asteroid -> {
+        List<Asteroid> asteroids = this.game.getAsteroids();
+        int count = asteroids.size(); // Successors are added to the end, and are never destroyed yet.
+        for (int i = 0; i < count; i++) {
+            Asteroid asteroid = asteroids.get(i);
             if (asteroid.isDestroyed()) {
                 if (this.game.getCurrentGameMode() == GameMode.Singleplayer) {
                     //If single player, increment the local score
@@ -256,15 +758,42 @@ public class GameUpdater implements Runnable, GameModeInterface {
                     //this.increaseCOOPScore();
                     this.increaseScore();
                 }
-                newAsteroids.addAll(asteroid.getSuccessors());
+                asteroid.spawnSuccessors(this.entityPool, this.game.getRandom(), asteroids);
             }
-        });
-        this.game.getAsteroids().addAll(newAsteroids);
+        }
         // Remove all asteroids that are destroyed.
-        this.game.getAsteroids().removeIf(GameObject::isDestroyed);
+        this.removeDestroyed(asteroids);
         // Remove any bullets that are destroyed.
-        this.game.getBullets().removeIf(GameObject::isDestroyed);
+        this.removeDestroyed(this.game.getBullets());
         //Remove any players that are destroyed
         this.game.getSpaceships().removeIf(GameObject::isDestroyed);
     }
+
+    /**
+     * Removes the destroyed objects from a list, and returns them to the pool. Each destroyed object is replaced by the
+     * last object in the list, so nothing has to be shifted along, at the cost of not keeping the objects in order.
+     * <p>
+     * A multiplayer client doesn't return them: its objects are the host's, which the client still finds by the host's
+     * ids until the next snapshot arrives, so they must not be turned into something else in the meantime.
+     *
+     * @param objects The list to remove destroyed objects from.
+     */
+    private void removeDestroyed(List<? extends GameObject> objects) {
+        boolean recycle = !this.game.isMultiplayer() || this.game.isHosting();
+        int size = objects.size();
+        int i = 0;
+        while (i < size) {
+            GameObject object = objects.get(i);
+            if (object.isDestroyed()) {
+                size--;
+                Collections.swap(objects, i, size);
+                objects.remove(size);
+                if (recycle) {
+                    this.entityPool.recycle(object);
+                }
+            } else {
+                i++;
+            }
+        }
+    }
 }
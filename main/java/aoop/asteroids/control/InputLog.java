@@ -0,0 +1,129 @@
+package aoop.asteroids.control;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Everything that is needed to play a game again: the seed of the game's random number generator, and the buttons that
+ * the player pressed on every game tick, in order.
+ * <p>
+ * A game updater records the inputs while a game is played, see {@link GameUpdater#recordInputs(InputLog)}. Another
+ * updater can then replay them, see {@link GameUpdater#replayInputs(InputLog)}, and since the simulation only depends
+ * on the seed and the inputs, the replayed game plays out exactly like the original one. That makes it possible to
+ * watch a game again, or to reproduce a bug that only happened in one particular game, from just one byte per tick.
+ */
+public class InputLog {
+    private final long seed;
+
+    /**
+     * The inputs of every tick so far, as bitmasks of the Spaceship.INPUT_ constants. Only the first {@link #length}
+     * are used.
+     */
+    private byte[] inputs = new byte[1024];
+
+    private int length;
+
+    /**
+     * The index of the next input to replay.
+     */
+    private int position;
+
+    /**
+     * @param seed The seed of the game's random number generator, see {@link aoop.asteroids.model.Game#getSeed()}.
+     */
+    public InputLog(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Adds the inputs of the next tick.
+     *
+     * @param inputs The buttons that were pressed, as a bitmask of the Spaceship.INPUT_ constants.
+     */
+    public void record(int inputs) {
+        if (this.length == this.inputs.length) {
+            this.inputs = Arrays.copyOf(this.inputs, this.length * 2);
+        }
+        this.inputs[this.length++] = (byte) inputs;
+    }
+
+    /**
+     * @return True if there are inputs left to replay.
+     */
+    public boolean hasNext() {
+        return this.position < this.length;
+    }
+
+    /**
+     * @return The inputs of the next tick to replay, as a bitmask of the Spaceship.INPUT_ constants.
+     * @throws IllegalStateException If every input has been replayed already.
+     */
+    public int next() {
+        if (!this.hasNext()) {
+            throw new IllegalStateException("Every input has been replayed already");
+        }
+        return this.inputs[this.position++];
+    }
+
+    /**
+     * Starts replaying from the first tick again.
+     */
+    public void rewind() {
+        this.position = 0;
+    }
+
+    /**
+     * @param tick The index of a tick, counting from the first recorded one.
+     * @return The inputs of that tick, as a bitmask of the Spaceship.INPUT_ constants.
+     */
+    public int get(int tick) {
+        if (tick < 0 || tick >= this.length) {
+            throw new IndexOutOfBoundsException("No inputs for tick " + tick + " of " + this.length);
+        }
+        return this.inputs[tick];
+    }
+
+    /**
+     * @return The number of ticks that were recorded.
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Writes the seed and every input.
+     *
+     * @param out Where to write the log to.
+     * @throws IOException If the log could not be written.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(this.seed);
+        out.writeInt(this.length);
+        out.write(this.inputs, 0, this.length);
+    }
+
+    /**
+     * Reads a log that was written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in Where to read the log from.
+     * @return The log, ready to be replayed from the first tick.
+     * @throws IOException If the log could not be read.
+     */
+    public static InputLog readFrom(DataInput in) throws IOException {
+        InputLog log = new InputLog(in.readLong());
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Not a valid number of inputs: " + length);
+        }
+        log.inputs = new byte[Math.max(length, 1)];
+        in.readFully(log.inputs, 0, length);
+        log.length = length;
+        return log;
+    }
+}
@@ -0,0 +1,280 @@
+package aoop.asteroids.control;
+
+import aoop.asteroids.model.Asteroid;
+import aoop.asteroids.model.Bullet;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.Spaceship;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records a game to a file while it is played, so that it can be watched again later from any tick, see
+ * {@link MatchRecording}.
+ * <p>
+ * Since the simulation is deterministic (see {@link GameUpdater}), the game can be played again from just the player's
+ * inputs, which take one byte per tick. To be able to start watching at any tick without playing the whole game again
+ * up to there, a keyframe with the full state of the game is also written every {@link #KEYFRAME_INTERVAL} ticks.
+ * Seeking to a tick then means restoring the keyframe before it and playing at most that many ticks from there.
+ * <p>
+ * The file is only ever appended to. It is written through memory-mapped regions of a few megabytes, so that recording
+ * a tick is a handful of writes to memory, without any system calls or allocations on the game updater's thread; only
+ * when a region is full is the next one mapped. The number of recorded ticks is kept up to date in the file's header,
+ * so a recording that was never closed (because the game crashed, say) can still be read up to the last tick. Closing
+ * the recorder adds an index of where every keyframe starts to the end of the file.
+ * <p>
+ * The file starts with a header of {@link #HEADER_SIZE} bytes:
+ * <pre>
+ * int magic, int version, long seed, int game mode, int keyframe interval, int kessler syndrome (0 or 1),
+ * int number of ticks, long offset of the index (0 until the recorder is closed), int spawn interval
+ * </pre>
+ * Then, for every tick, a keyframe if the tick is a multiple of the keyframe interval, followed by the tick's inputs as
+ * one byte. A keyframe holds the state of the game at the start of its tick:
+ * <pre>
+ * int tick, long random state, int update counter, int asteroids limit,
+ * ship: double x, y, velocity x, y, direction, energy, health, int score, weapon cooldown, steps until collision,
+ *       byte destroyed,
+ * int number of asteroids, each: double x, y, velocity x, y, byte size, int steps until collision,
+ * int number of bullets, each: double x, y, velocity x, y, int steps left, int steps until collision
+ * </pre>
+ * The index at the end is the number of keyframes, followed by the offset of each as a long.
+ */
+public class MatchRecorder implements AutoCloseable {
+    /**
+     * The number of ticks between two keyframes: five seconds at the default tick rate.
+     */
+    public static final int KEYFRAME_INTERVAL = 150;
+
+    static final int MAGIC = 0x41535452; // "ASTR"
+    static final int VERSION = 1;
+
+    /*
+     * Where the fields of the header are.
+     */
+    static final int SEED_POSITION = 8;
+    static final int GAME_MODE_POSITION = 16;
+    static final int KEYFRAME_INTERVAL_POSITION = 20;
+    static final int KESSLER_SYNDROME_POSITION = 24;
+    static final int TICKS_POSITION = 28;
+    static final int INDEX_POSITION = 32;
+    static final int SPAWN_INTERVAL_POSITION = 40;
+    static final int HEADER_SIZE = 44;
+
+    /*
+     * The sizes of the parts of a keyframe, in bytes.
+     */
+    static final int KEYFRAME_FIXED_SIZE = 4 + 8 + 4 + 4 + 7 * 8 + 3 * 4 + 1 + 4 + 4;
+    static final int ASTEROID_SIZE = 4 * 8 + 1 + 4;
+    static final int BULLET_SIZE = 4 * 8 + 4 + 4;
+
+    /**
+     * The size of the regions of the file that are mapped into memory at a time.
+     */
+    private static final int REGION_SIZE = 4 << 20;
+
+    private final Game game;
+
+    private final FileChannel channel;
+
+    /**
+     * The header of the file, mapped on its own so that the number of ticks can be updated in place.
+     */
+    private final MappedByteBuffer header;
+
+    /**
+     * The region of the file that is being written to, and where in the file it starts.
+     */
+    private MappedByteBuffer region;
+    private long regionStart;
+
+    /**
+     * Where every keyframe starts in the file. Only the first {@link #keyframes} are used.
+     */
+    private long[] keyframeOffsets = new long[256];
+    private int keyframes;
+
+    private int ticks;
+
+    /**
+     * Set if writing to the file failed, after which nothing more is recorded.
+     */
+    private boolean failed;
+
+    private boolean closed;
+
+    /**
+     * Creates the file and writes its header. Should be made before the first tick of the game that is recorded.
+     *
+     * @param file    The file to record to. Anything that is in it already is overwritten.
+     * @param game    The game to record.
+     * @param updater The updater of the game, whose settings are recorded.
+     * @throws IOException If the file could not be created.
+     */
+    MatchRecorder(Path file, Game game, GameUpdater updater) throws IOException {
+        this.game = game;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            this.header = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            this.header.putInt(0, MAGIC);
+            this.header.putInt(4, VERSION);
+            this.header.putLong(SEED_POSITION, game.getSeed());
+            this.header.putInt(GAME_MODE_POSITION, game.getCurrentGameMode().ordinal());
+            this.header.putInt(KEYFRAME_INTERVAL_POSITION, KEYFRAME_INTERVAL);
+            this.header.putInt(KESSLER_SYNDROME_POSITION, updater.isKesslerSyndrome() ? 1 : 0);
+            this.header.putInt(TICKS_POSITION, 0);
+            this.header.putLong(INDEX_POSITION, 0);
+            this.header.putInt(SPAWN_INTERVAL_POSITION, updater.getSpawnInterval());
+            this.regionStart = HEADER_SIZE;
+            this.region = this.channel.map(FileChannel.MapMode.READ_WRITE, this.regionStart, REGION_SIZE);
+        }
+        catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Records a tick: a keyframe of the game as it is now, if one is due, and the inputs of the tick. Called by the game
+     * updater at the start of every tick, before anything in the game has moved.
+     *
+     * @param updater The updater of the game, whose own state goes into keyframes.
+     * @param inputs  The buttons that the player's ship presses during the tick.
+     */
+    void record(GameUpdater updater, int inputs) {
+        if (this.failed || this.closed) {
+            return;
+        }
+        try {
+            if (this.ticks % KEYFRAME_INTERVAL == 0) {
+                this.writeKeyframe(updater);
+            }
+            this.ensureCapacity(1);
+            this.region.put((byte) inputs);
+            this.ticks++;
+            this.header.putInt(TICKS_POSITION, this.ticks);
+        }
+        catch (IOException e) {
+            System.err.println("Could not record the game any further");
+            e.printStackTrace();
+            this.failed = true;
+        }
+    }
+
+    /**
+     * @return The number of ticks that have been recorded.
+     */
+    public int getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Writes the index of keyframes to the end of the file, and closes it. Nothing is recorded after this.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            if (!this.failed) {
+                this.ensureCapacity(4 + this.keyframes * 8);
+                long indexOffset = this.position();
+                this.region.putInt(this.keyframes);
+                for (int i = 0; i < this.keyframes; i++) {
+                    this.region.putLong(this.keyframeOffsets[i]);
+                }
+                this.region.force();
+                this.header.putLong(INDEX_POSITION, indexOffset);
+            }
+            this.header.force();
+            long end = this.position();
+            try {
+                this.channel.truncate(end); // Drop the unused rest of the last region.
+            }
+            catch (IOException e) {
+                // Some systems don't allow truncating a file while it is mapped. The rest is zeros, which readers skip.
+            }
+            this.channel.close();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the full state of the game, see the layout above.
+     */
+    private void writeKeyframe(GameUpdater updater) throws IOException {
+        List<Asteroid> asteroids = this.game.getAsteroids();
+        List<Bullet> bullets = this.game.getBullets();
+        this.ensureCapacity(KEYFRAME_FIXED_SIZE + asteroids.size() * ASTEROID_SIZE + bullets.size() * BULLET_SIZE);
+        if (this.keyframes == this.keyframeOffsets.length) {
+            this.keyframeOffsets = Arrays.copyOf(this.keyframeOffsets, this.keyframes * 2); // Every few hours of play.
+        }
+        this.keyframeOffsets[this.keyframes++] = this.position();
+
+        MappedByteBuffer out = this.region;
+        out.putInt(this.ticks);
+        out.putLong(this.game.getRandom().getState());
+        out.putInt(updater.getUpdateCounter());
+        out.putInt(updater.getAsteroidsLimit());
+
+        Spaceship ship = this.game.getSpaceship();
+        out.putDouble(ship.getLocation().x);
+        out.putDouble(ship.getLocation().y);
+        out.putDouble(ship.getVelocity().x);
+        out.putDouble(ship.getVelocity().y);
+        out.putDouble(ship.getDirection());
+        out.putDouble(ship.getEnergy());
+        out.putDouble(ship.getHealth());
+        out.putInt(ship.getScore());
+        out.putInt(ship.getWeaponCooldownRemaining());
+        out.putInt(ship.getStepsUntilCollisionPossible());
+        out.put((byte) (ship.isDestroyed() ? 1 : 0));
+
+        out.putInt(asteroids.size());
+        for (int i = 0; i < asteroids.size(); i++) {
+            Asteroid asteroid = asteroids.get(i);
+            out.putDouble(asteroid.getLocation().x);
+            out.putDouble(asteroid.getLocation().y);
+            out.putDouble(asteroid.getVelocity().x);
+            out.putDouble(asteroid.getVelocity().y);
+            out.put((byte) asteroid.getSize().ordinal());
+            out.putInt(asteroid.getStepsUntilCollisionPossible());
+        }
+        out.putInt(bullets.size());
+        for (int i = 0; i < bullets.size(); i++) {
+            Bullet bullet = bullets.get(i);
+            out.putDouble(bullet.getLocation().x);
+            out.putDouble(bullet.getLocation().y);
+            out.putDouble(bullet.getVelocity().x);
+            out.putDouble(bullet.getVelocity().y);
+            out.putInt(bullet.getStepsLeft());
+            out.putInt(bullet.getStepsUntilCollisionPossible());
+        }
+    }
+
+    /**
+     * Makes sure that the given number of bytes can be written to the current region, by mapping the next region of
+     * the file if there isn't enough room left.
+     */
+    private void ensureCapacity(int bytes) throws IOException {
+        if (this.region.remaining() < bytes) {
+            this.regionStart = this.position();
+            this.region = this.channel.map(FileChannel.MapMode.READ_WRITE, this.regionStart, Math.max(REGION_SIZE, bytes));
+        }
+    }
+
+    /**
+     * @return Where in the file the next byte is written.
+     */
+    private long position() {
+        return this.regionStart + this.region.position();
+    }
+}
@@ -0,0 +1,197 @@
+package aoop.asteroids.control;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Asteroid;
+import aoop.asteroids.model.AsteroidSize;
+import aoop.asteroids.model.Bullet;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.Spaceship;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A game that was recorded by a {@link MatchRecorder}, which can be played again from any tick.
+ * <p>
+ * The file is mapped into memory as a whole. Finding the keyframe before a tick is a lookup in the index of keyframes,
+ * after which at most {@link MatchRecorder#KEYFRAME_INTERVAL} ticks are simulated again to get to the tick itself. A
+ * recording that was never closed has no index; the keyframes are then found by reading through the file once.
+ */
+public class MatchRecording implements GameModeInterface {
+    private final ByteBuffer buffer;
+    private final long seed;
+    private final GameMode gameMode;
+    private final int keyframeInterval;
+    private final boolean kesslerSyndrome;
+    private final int spawnInterval;
+    private final int ticks;
+
+    /**
+     * Where every keyframe starts, and where the inputs after it start.
+     */
+    private final int[] keyframeOffsets;
+    private final int[] inputOffsets;
+
+    private MatchRecording(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < MatchRecorder.HEADER_SIZE || buffer.getInt(0) != MatchRecorder.MAGIC) {
+            throw new IOException("Not a recorded game");
+        }
+        if (buffer.getInt(4) != MatchRecorder.VERSION) {
+            throw new IOException("Unknown version of recorded game: " + buffer.getInt(4));
+        }
+        this.seed = buffer.getLong(MatchRecorder.SEED_POSITION);
+        this.gameMode = GameMode.values()[buffer.getInt(MatchRecorder.GAME_MODE_POSITION)];
+        this.keyframeInterval = buffer.getInt(MatchRecorder.KEYFRAME_INTERVAL_POSITION);
+        this.kesslerSyndrome = buffer.getInt(MatchRecorder.KESSLER_SYNDROME_POSITION) != 0;
+        this.ticks = buffer.getInt(MatchRecorder.TICKS_POSITION);
+        this.spawnInterval = buffer.getInt(MatchRecorder.SPAWN_INTERVAL_POSITION);
+
+        int keyframes = (this.ticks + this.keyframeInterval - 1) / this.keyframeInterval;
+        this.keyframeOffsets = new int[keyframes];
+        this.inputOffsets = new int[keyframes];
+        long indexOffset = buffer.getLong(MatchRecorder.INDEX_POSITION);
+        int offset = MatchRecorder.HEADER_SIZE;
+        for (int i = 0; i < keyframes; i++) {
+            if (indexOffset != 0) {
+                offset = (int) buffer.getLong((int) indexOffset + 4 + i * 8);
+            }
+            this.keyframeOffsets[i] = offset;
+            this.inputOffsets[i] = offset + this.keyframeSize(offset);
+            // Without an index, the next keyframe comes right after this one's inputs.
+            offset = this.inputOffsets[i] + this.keyframeInterval;
+        }
+    }
+
+    /**
+     * Opens a recorded game.
+     *
+     * @param file The file that the game was recorded to.
+     * @return The recording.
+     * @throws IOException If the file could not be read, or is not a recorded game.
+     */
+    public static MatchRecording open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Recording is too large: " + channel.size() + " bytes");
+            }
+            return new MatchRecording(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @return The number of recorded ticks.
+     */
+    public int getLength() {
+        return this.ticks;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public GameMode getGameMode() {
+        return this.gameMode;
+    }
+
+    public boolean isKesslerSyndrome() {
+        return this.kesslerSyndrome;
+    }
+
+    /**
+     * @param tick A recorded tick, counting from 0.
+     * @return The buttons that the player pressed during the tick, as a bitmask of the Spaceship.INPUT_ constants.
+     */
+    public int getInputs(int tick) {
+        if (tick < 0 || tick >= this.ticks) {
+            throw new IndexOutOfBoundsException("No inputs for tick " + tick + " of " + this.ticks);
+        }
+        return this.buffer.get(this.inputOffsets[tick / this.keyframeInterval] + tick % this.keyframeInterval);
+    }
+
+    /**
+     * Puts a game in the state it was in at the start of the given tick, and makes an updater that plays the rest of
+     * the recording from there.
+     *
+     * @param game The game to put in the recorded state. Whatever was in it is replaced. It should not be running.
+     * @param tick The tick to go to, counting from 0. The length of the recording means the end of the game.
+     * @return An updater for the game, which replays the recorded inputs from the tick on.
+     */
+    public GameUpdater seek(Game game, int tick) {
+        if (tick < 0 || tick > this.ticks || this.ticks == 0) {
+            throw new IllegalArgumentException("Not a recorded tick: " + tick + " of " + this.ticks);
+        }
+        int keyframe = Math.min(tick / this.keyframeInterval, this.keyframeOffsets.length - 1);
+        int first = keyframe * this.keyframeInterval;
+        game.initializeGameData(false, false, this.gameMode);
+        GameUpdater updater = new GameUpdater(game);
+        updater.setKesslerSyndrome(this.kesslerSyndrome);
+        updater.setSpawnInterval(this.spawnInterval);
+        this.restore(this.keyframeOffsets[keyframe], game, updater);
+
+        InputLog inputs = new InputLog(this.seed);
+        for (int i = first; i < this.ticks; i++) {
+            inputs.record(this.getInputs(i));
+        }
+        updater.replayInputs(inputs);
+        for (int i = first; i < tick; i++) {
+            updater.tick();
+        }
+        return updater;
+    }
+
+    /**
+     * Puts the game and its updater in the state of a keyframe, see {@link MatchRecorder} for the layout.
+     */
+    private void restore(int offset, Game game, GameUpdater updater) {
+        ByteBuffer in = this.buffer.duplicate();
+        in.position(offset + 4); // Skip the tick.
+        game.getRandom().setState(in.getLong());
+        updater.setUpdateCounter(in.getInt());
+        updater.setAsteroidsLimit(in.getInt());
+
+        Spaceship ship = game.getSpaceship();
+        ship.setLocation(in.getDouble(), in.getDouble());
+        ship.setVelocity(in.getDouble(), in.getDouble());
+        ship.setDirection(in.getDouble());
+        ship.setEnergy(in.getDouble());
+        ship.setHealth(in.getDouble());
+        ship.setScore(in.getInt());
+        ship.setWeaponCooldownRemaining(in.getInt());
+        ship.setStepsUntilCollisionPossible(in.getInt());
+        if (in.get() != 0) {
+            ship.destroy();
+        }
+
+        AsteroidSize[] sizes = AsteroidSize.values();
+        int asteroids = in.getInt();
+        for (int i = 0; i < asteroids; i++) {
+            Point.Double location = new Point.Double(in.getDouble(), in.getDouble());
+            Point.Double velocity = new Point.Double(in.getDouble(), in.getDouble());
+            Asteroid asteroid = new Asteroid(location, velocity, sizes[in.get()]);
+            asteroid.setStepsUntilCollisionPossible(in.getInt());
+            game.getAsteroids().add(asteroid);
+        }
+        int bullets = in.getInt();
+        for (int i = 0; i < bullets; i++) {
+            Bullet bullet = new Bullet(in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble());
+            bullet.setStepsLeft(in.getInt());
+            bullet.setStepsUntilCollisionPossible(in.getInt());
+            game.getBullets().add(bullet);
+        }
+    }
+
+    /**
+     * @return The size in bytes of the keyframe at the given offset.
+     */
+    private int keyframeSize(int offset) {
+        int asteroidsOffset = offset + MatchRecorder.KEYFRAME_FIXED_SIZE - 8;
+        int asteroids = this.buffer.getInt(asteroidsOffset);
+        int bullets = this.buffer.getInt(asteroidsOffset + 4 + asteroids * MatchRecorder.ASTEROID_SIZE);
+        return MatchRecorder.KEYFRAME_FIXED_SIZE + asteroids * MatchRecorder.ASTEROID_SIZE + bullets * MatchRecorder.BULLET_SIZE;
+    }
+}
@@ -1,138 +1,310 @@
 package aoop.asteroids.control;
 
 import aoop.asteroids.game_observer.GameModeInterface;
-import aoop.asteroids.model.Bullet;
-import aoop.asteroids.model.Game;
-import aoop.asteroids.model.Spaceship;
-import aoop.asteroids.multiplayer.DataPacket_Client;
-import aoop.asteroids.multiplayer.DataPacket_Game;
-import aoop.asteroids.multiplayer.PacketSender;
-import aoop.asteroids.multiplayer.ListenerThread;
+import aoop.asteroids.model.*;
+import aoop.asteroids.multiplayer.*;
+import aoop.asteroids.util.IntObjectMap;
 
 import javax.swing.*;
-import javax.xml.crypto.Data;
-import java.net.InetAddress;
-import java.util.ArrayList;
+import java.awt.*;
+import java.net.InetSocketAddress;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 /**
  * A specialized updater for Multiplayer games. Depending on HOST/CLIENT variable, it will transmit it's relevant data after game actions
  * This classes intention is to add multiplayer functionality on top of the Game Updater
+ * <p>
+ * All of its methods are called by the Game Updater thread, in between game ticks, so it is the only thread that
+ * changes the game. Packets are passed to and from the network thread through lock-free queues.
  */
-public class MultiplayerGameUpdater extends Thread implements GameModeInterface {
+public class MultiplayerGameUpdater implements GameModeInterface {
     private boolean isHosting;
     private final Game currentGame;
-    private final PacketSender packetSender;
-    private final ListenerThread recieverThread;
-    private final Thread gameUpdater;
 
-    public MultiplayerGameUpdater(Game game, Thread gameUpdater) {
-        ;
+    /**
+     * The network thread, which sends the packets that are published to it and publishes the packets it receives.
+     */
+    private final DatagramTransport transport;
+
+    /**
+     * The game's room on the network thread, through which packets are passed.
+     */
+    private final DatagramTransport.Room room;
+
+    /**
+     * Whether the network thread was started for this game alone, and should be stopped along with it.
+     */
+    private final boolean ownsTransport;
+
+    /**
+     * All asteroid sizes, indexed by ordinal, for turning received sizes back into an AsteroidSize.
+     */
+    private static final AsteroidSize[] ASTEROID_SIZES = AsteroidSize.values();
+
+    /**
+     * The number of ticks between two snapshots sent by the host. Clients draw the other objects between snapshots, so
+     * the host doesn't have to send one every tick [HOST].
+     */
+    private static final int SNAPSHOT_INTERVAL = Math.max(1, Integer.getInteger("asteroids.snapshotInterval", 1));
+
+    /**
+     * The number of ticks that a client may be silent before the host drops it, which is as long as the network thread
+     * remembers it [HOST].
+     */
+    static final int CLIENT_TIMEOUT_TICKS = (int) (DatagramTransport.PEER_TIMEOUT_MILLIS / GameUpdater.MILLISECONDS_PER_TICK);
+
+    /**
+     * The number of the newest game snapshot received from the host, which is sent back so the host knows what the
+     * client already has [CLIENT].
+     */
+    private int lastSnapshot = SnapshotHistory.NO_SNAPSHOT;
+
+    /**
+     * The buttons that the player pressed on every recent tick, which are sent to the host, and replayed on top of the
+     * host's state of the ship [CLIENT].
+     */
+    private final InputHistory inputs = new InputHistory();
+
+    /**
+     * Whether the host has sent the state of the client's own ship yet. Once it has, the ship disappearing from the
+     * host's snapshots means that it was destroyed [CLIENT].
+     */
+    private boolean joinedHost;
+
+    /**
+     * The id that the host gave the client's own ship, or {@link DataPacket_Game#NO_SHIP} until the host has sent it
+     * [CLIENT].
+     */
+    private int ownShip = DataPacket_Game.NO_SHIP;
+
+    /**
+     * Every client that the host has heard from recently, by the address and port that its packets come from. A client
+     * is dropped once it has been silent for {@link #CLIENT_TIMEOUT_TICKS} [HOST].
+     */
+    private final Map<InetSocketAddress, RemoteClient> clients = new HashMap<>();
+
+    /*
+     * The host's asteroids and bullets that the client has, by id, as of the last snapshot. A snapshot contains all of
+     * them, so merging one moves every object that is still there into the other map, and whatever is left behind was
+     * removed by the host. The two maps then swap places, so no map is made for every snapshot [CLIENT].
+     * An object that the client destroyed in the meantime is replaced by a new one. The client never returns these
+     * objects to its pool, so one that is found by an id is never something else that was reused under that id.
+     */
+    private IntObjectMap<Asteroid> asteroidsById = new IntObjectMap<>();
+    private IntObjectMap<Asteroid> mergedAsteroids = new IntObjectMap<>();
+    private IntObjectMap<Bullet> bulletsById = new IntObjectMap<>();
+    private IntObjectMap<Bullet> mergedBullets = new IntObjectMap<>();
+    private IntObjectMap<Spaceship> shipsById = new IntObjectMap<>();
+    private IntObjectMap<Spaceship> mergedShips = new IntObjectMap<>();
+
+    /**
+     * Starts a network thread of its own for the given game.
+     *
+     * @param game The game to exchange.
+     */
+    public MultiplayerGameUpdater(Game game) {
         this.currentGame = game;
-        this.gameUpdater = gameUpdater;
         this.isHosting = game.isHosting();
-        this.hostAddress = game.getHostAddress();
-        this.destPort = game.getHostPort();
 
         if (!isHosting) {
-            //Not a Host means Packet Sender  host IP and Port
-            this.packetSender = new PacketSender(game, game.getHostAddress(), game.getHostPort());
-            this.packetSender.start();
+            //Not a Host means the transport needs host IP and Port; the host replies to whichever port it receives on
+            this.transport = new DatagramTransport(0, game.getHostAddress(), game.getHostPort());
         } else {
-            //Hosting means Packet Sender requires just game
-            this.packetSender = new PacketSender(game);
-            this.packetSender.start();
+            //Hosting means clients are sent to on the port that their packets come from
+            this.transport = new DatagramTransport(game.getHostPort());
         }
-        this.recieverThread = new ListenerThread(game.isHosting(), this);
-        this.recieverThread.start();
+        this.room = this.transport.openRoom(game.getRoomId());
+        this.ownsTransport = true;
+        this.transport.start();
+        this.createInterpolationBuffer();
     }
 
     /**
-     * Called on every game update in synchronization with the Game Updater Thread
-     * and the Game Thread
+     * Exchanges the given game over a network thread that is shared with other games, in the game's own room.
+     *
+     * @param game      The game to exchange.
+     * @param transport The shared network thread, which is already running.
+     */
+    public MultiplayerGameUpdater(Game game, DatagramTransport transport) {
+        this.currentGame = game;
+        this.isHosting = game.isHosting();
+        this.transport = transport;
+        this.room = transport.openRoom(game.getRoomId());
+        this.ownsTransport = false;
+        this.createInterpolationBuffer();
+    }
+
+    /**
+     * Gives a client's game somewhere to keep the snapshots it receives, to draw the other objects from.
+     */
+    private void createInterpolationBuffer() {
+        if (!isHosting) {
+            this.currentGame.setInterpolationBuffer(new InterpolationBuffer(GameUpdater.MILLISECONDS_PER_TICK));
+        }
+    }
+
+    /**
+     * @return The game's room on the network thread. Package-private so that tests can look at the packets that are
+     * passed through it.
+     */
+    DatagramTransport.Room getRoom() {
+        return this.room;
+    }
+
+    /**
+     * Handles every packet that the network thread has received since the last time.
+     * HOST: Adds new clients, queues their inputs, and presses the buttons of the next input on every client's ship
+     * CLIENT: Updates the game with the snapshots sent by the host, then records the buttons that the player is pressing
+     * for the coming tick
+     */
+    public void receivePackets() {
+        if (isHosting) {
+            PacketQueue<DataPacket_Client> received = room.getReceivedClientPackets();
+            DataPacket_Client packet;
+            while ((packet = received.poll()) != null) {
+                addClient(packet.player.getGameMode(), packet.sender);
+                acceptClientInfo(packet);
+                received.release(packet);
+            }
+            dropSilentClients();
+            applyClientInputs();
+        } else {
+            PacketQueue<DataPacket_Game> received = room.getReceivedSnapshots();
+            DataPacket_Game packet;
+            InterpolationBuffer interpolationBuffer = currentGame.getInterpolationBuffer();
+            while ((packet = received.poll()) != null) {
+                updateGameSnapshot(packet);
+                if (interpolationBuffer != null) {
+                    interpolationBuffer.add(currentGame, packet.tick, packet.receivedNanos);
+                }
+                received.release(packet);
+            }
+            inputs.record(currentGame.getSpaceship().getInputs());
+        }
+    }
+
+    /**
+     * Called by the Game Updater Thread after every game tick, once the tick's world snapshot has been published
      * SENDS GAME INFO
      */
     public void onGameUpdate() {
-        //Access all GameObjects, Retrieve Required Information and send to Packet Sender
-        synchronized (this.currentGame) {
-            if (this.currentGame.getCurrentGameMode() != GameMode.Spectate) {
-                if (isHosting) {
-                    packetSender.setGameSnapshot(new DataPacket_Game(currentGame));
-                    sendData();
-                } else {
-                    DataPacket_Client clientSnapshot = new DataPacket_Client();
-                    clientSnapshot.player = this.currentGame.getSpaceship();
-                    clientSnapshot.bulletList = this.currentGame.getBullets();
-                    packetSender.setClientSnapshot(clientSnapshot);
-                    sendData();
+        //Read the latest world snapshot rather than the live GameObjects, and hand it to the network thread
+        WorldSnapshot world = currentGame.getWorldSnapshot();
+        if (isHosting) {
+            if (world.getTick() % SNAPSHOT_INTERVAL != 0) {
+                return;
+            }
+            DataPacket_Game gameSnapshot = room.getOutgoingSnapshots().acquire();
+            if (gameSnapshot != null) { // Otherwise the network thread is still busy with earlier snapshots.
+                gameSnapshot.capture(world);
+                gameSnapshot.clearRecipients();
+                for (InetSocketAddress client : currentGame.getClients()) {
+                    RemoteClient remoteClient = this.clients.get(client);
+                    Spaceship clientShip = remoteClient != null ? remoteClient.ship : null;
+                    gameSnapshot.addRecipient(client, clientShip != null ? clientShip.getMultiplayerID() : DataPacket_Game.NO_SHIP);
                 }
+                room.getOutgoingSnapshots().publish(gameSnapshot);
             }
-            else{
-                DataPacket_Client emptySnapshot = new DataPacket_Client();
-                emptySnapshot.player=this.currentGame.getSpaceship();
-                packetSender.setClientSnapshot(emptySnapshot);
-                sendData();
+        } else {
+            DataPacket_Client clientSnapshot = room.getOutgoingClientPackets().acquire();
+            if (clientSnapshot != null) {
+                clientSnapshot.capture(world, inputs);
+                clientSnapshot.acknowledgedSnapshot = lastSnapshot;
+                room.getOutgoingClientPackets().publish(clientSnapshot);
             }
-            this.currentGame.notify();
         }
+        transport.flush();
     }
 
     /**
      * @param gameSnapshot CLIENT CALLS THIS METHOD TO UPDATE ITS GAME
      *                     DEATHMATCH: Will not need to recieve Asteroids
      */
-    public synchronized void updateGameSnapshot(DataPacket_Game gameSnapshot) {
-        synchronized (this.currentGame) {
-            if (this.currentGame.getCurrentGameMode() != GameMode.Deathmatch) {
-                this.currentGame.setAsteroids(gameSnapshot.gameSnapshot.getAsteroids());
-            }
-            Iterator<Bullet> iterator = gameSnapshot.gameSnapshot.getBullets().iterator();
-            Bullet newBullet;
-            while (iterator.hasNext()) {
-                newBullet = iterator.next();
-                this.currentGame.addBullet(newBullet);
-            }
-            Collection<Spaceship> emptyList = new ArrayList<>();
-            this.currentGame.setSpaceships(emptyList);
-            Iterator<Spaceship> connectedShips = gameSnapshot.gameSnapshot.getSpaceships().iterator();
-            while (connectedShips.hasNext()) {
-                Spaceship nextShip = connectedShips.next();
-                if (nextShip.getMultiplayerID() != currentGame.getSpaceship().getMultiplayerID()) {
-                    //As long as the recieve spaceship is NOT our spaceship, add it to the list
-                    this.currentGame.addSpaceship(nextShip);
-                }
-            }
-            Spaceship hostSpaceship = gameSnapshot.gameSnapshot.getSpaceship();
-            this.currentGame.addSpaceship(hostSpaceship);
-            //Set Client COOP Score to Host's score (Host increments its score with clients score and returns it
-            if (this.currentGame.getCurrentGameMode() == GameMode.COOP) {
-                this.currentGame.getSpaceship().setCOOPScore(hostSpaceship.getCOOPScore());
+    public void updateGameSnapshot(DataPacket_Game gameSnapshot) {
+        this.lastSnapshot = gameSnapshot.sequence;
+        if (this.currentGame.getCurrentGameMode() != GameMode.Deathmatch) {
+            this.mergeAsteroids(gameSnapshot.asteroids);
+        }
+        this.mergeBullets(gameSnapshot.bullets);
+        if (gameSnapshot.ownShip != DataPacket_Game.NO_SHIP) { //The host decides the id of our spaceship
+            this.ownShip = gameSnapshot.ownShip;
+            this.currentGame.getSpaceship().setMultiplayerID(this.ownShip);
+        }
+        Collection<Spaceship> gameShips = this.currentGame.getSpaceships();
+        gameShips.clear();
+        boolean ownShipReceived = false;
+        for (int i = 0; i < gameSnapshot.getShipCount(); i++) {
+            ShipState nextShip = gameSnapshot.getShip(i);
+            if (nextShip.getId() != this.ownShip) {
+                //As long as the recieve spaceship is NOT our spaceship, add it to the list
+                gameShips.add(this.mergeShip(nextShip));
+            } else {
+                ownShipReceived = true;
+                this.reconcile(nextShip);
             }
-            // this.currentGame.getSpaceship().increaseCOOPScore(hostSpaceship.getCOOPScore());
         }
+        if (ownShipReceived) {
+            this.joinedHost = true;
+        } else if (this.joinedHost && this.currentGame.getCurrentGameMode() != GameMode.Spectate) {
+            //The host removes ships that were destroyed
+            this.currentGame.getSpaceship().destroy();
+        }
+        if (!gameSnapshot.host.isSpectator()) { //A dedicated server's host ship doesn't play, so it isn't shown
+            gameShips.add(this.mergeShip(gameSnapshot.host));
+        }
+        this.shipsById.clear();
+        IntObjectMap<Spaceship> swap = this.shipsById;
+        this.shipsById = this.mergedShips;
+        this.mergedShips = swap;
+        //Set Client COOP Score to Host's score (Host increments its score with clients score and returns it
+        if (this.currentGame.getCurrentGameMode() == GameMode.COOP) {
+            this.currentGame.getSpaceship().setCOOPScore(gameSnapshot.host.getCOOPScore());
+        }
+        // this.currentGame.getSpaceship().increaseCOOPScore(hostSpaceship.getCOOPScore());
     }
 
-    @Override
-    public synchronized void run() {
-        while (currentGame.isRunning()) {
-            synchronized (this.gameUpdater) {
-                try {
-                    wait(100);
-                    onGameUpdate();
-                }
-                catch (InterruptedException ex) {
-                    ex.printStackTrace();
-                    System.err.println("MultiplayerGame Thread was interrupted while waiting for GameUpdater");
-                }
-            }
-            try {
-                sleep(10);
-            }
-            catch (InterruptedException ex) {
-                ex.printStackTrace();
+    /**
+     * Corrects the prediction of the client's own ship. The ship is put back in the state that the host sent, which
+     * includes the client's inputs up to some point, and then every input since that point is applied again, so that
+     * the ship ends up where it would be if the host had already received all of them. If the prediction was right,
+     * nothing visibly changes.
+     *
+     * @param state The state of the client's ship, as sent by the host.
+     */
+    private void reconcile(ShipState state) {
+        int acknowledged = state.getInputSequence();
+        if (!this.inputs.contains(acknowledged)) {
+            return; // The host hasn't applied any input yet, or so long ago that the inputs since then are forgotten.
+        }
+        Spaceship ship = this.currentGame.getSpaceship();
+        int pressed = ship.getInputs();
+        state.applyMotionTo(ship);
+        for (int sequence = acknowledged + 1; sequence - this.inputs.getLatestSequence() <= 0; sequence++) {
+            ship.setInputs(this.inputs.get(sequence));
+            ship.nextStep();
+            if (ship.canFireWeapon()) {
+                ship.setFired();
             }
         }
+        ship.setInputs(pressed);
+    }
+
+    /**
+     * Called by the Game Updater Thread once the game has ended. Stops the network thread (or leaves the room, if the
+     * thread is shared) and shows the final score, unless this is a dedicated server, which has no one to show it to.
+     */
+    public void onGameEnd() {
+        if (ownsTransport) {
+            transport.close();
+        } else {
+            transport.closeRoom(room);
+        }
+        if (currentGame.isDedicatedServer()) {
+            return;
+        }
         int score = 0;
         switch (currentGame.getCurrentGameMode()) {
             case Singleplayer:
@@ -144,25 +316,15 @@ public class MultiplayerGameUpdater extends Thread implements GameModeInterface
         JOptionPane.showConfirmDialog(null, "You died! Final score:" + score);
     }
 
-    private InetAddress hostAddress;
-    private int destPort;
-
-    private void sendData() {
-        if (isHosting) {
-            packetSender.relayPacket();
-        } else {
-            packetSender.sendPacket(hostAddress, destPort);
-        }
-    }
-
     /** Passes the recieved client only if it's in the correct game mode OR
      * it is spectating
      * @param clientGameMode The current game mode of the client
-     * @param ip Client IP
+     * @param ip Client IP and port
      */
-    public void addClient(GameMode clientGameMode, InetAddress ip) {
+    public void addClient(GameMode clientGameMode, InetSocketAddress ip) {
         if (clientGameMode == GameMode.Spectate || clientGameMode == this.currentGame.getCurrentGameMode()) {
             this.currentGame.addClient(ip);
+            this.heardFrom(ip);
         } else {
             System.err.println("Client attempting to connect with incorrect GameMode type. (MGU(165))\n");
         }
@@ -170,48 +332,205 @@ public class MultiplayerGameUpdater extends Thread implements GameModeInterface
 
     /** Handles the recieved packet
      * SPECTATOR: Host does not need to handle this packet
+     * NEW CLIENT: Host adds a ship for it in the middle of the world, which the host moves from then on
      * COOP: Host needs to increment the score as it is shared
      * @param newData The recieved DataPacket (assured to be not null)
      */
-    public synchronized void acceptClientInfo(DataPacket_Client newData) {
-        synchronized (this.currentGame) {
-                if (newData.player != null) {
-                    Spaceship newShip = newData.player;
-                    GameMode newShipGameMode = newShip.getCurrentGameMode();
-                    boolean newShipexists = false;
-                    if (newShip.getCurrentGameMode() != GameMode.Spectate) {
-                    for (Spaceship s : this.currentGame.getSpaceships()) {
-                        if(s.isDestroyed()){ //Player Died
-                            handleClientDeath(s);
-                        }
-                        if (s.getMultiplayerID() == newShip.getMultiplayerID()) {
-                            s.setLocation(newShip.getLocation().x, newShip.getLocation().y);
-                            s.setVelocity(newShip.getVelocity().x, newShip.getVelocity().y);
-                            s.setDirection(newShip.getDirection());
-                            newShipexists = true;
-                            if (this.currentGame.getCurrentGameMode() == GameMode.COOP) {
-                                //Set the Master Game COOP Score to the sum of Host + Client Score
-                                this.currentGame.getSpaceship().setCOOPScore(currentGame.getSpaceship().getScore() + s.getScore());
-                                // s.setCOOPScore(0);
-                            }
-                            break;
-                        }
-                    }
-                    if (!newShipexists) {
-                        this.currentGame.addSpaceship(newShip);
-                    }
-                }
-                if (newData.bulletList != null) {
-                    Iterator<Bullet> iterator = newData.bulletList.iterator();
-                    Bullet newBullet;
-                    while (iterator.hasNext()) {
-                        newBullet = iterator.next();
-                        this.currentGame.addBullet(newBullet);
-                    }
+    public void acceptClientInfo(DataPacket_Client newData) {
+        ShipState newShip = newData.player;
+        if (newShip.getGameMode() == GameMode.Spectate) {
+            return;
+        }
+        RemoteClient client = this.heardFrom(newData.sender);
+        Spaceship spaceship = client.ship;
+        if (spaceship == null) { //The client's ship keeps the id that the host gives it here, whatever the client sent
+            spaceship = new Spaceship();
+            newShip.applyIdentityTo(spaceship);
+            client.ship = spaceship;
+            this.currentGame.addSpaceship(spaceship);
+        }
+        client.inputs.receive(newData);
+        for (Spaceship s : this.currentGame.getSpaceships()) {
+            if (s.isDestroyed()) { //Player Died
+                handleClientDeath(s);
+            }
+            if (s == spaceship && this.currentGame.getCurrentGameMode() == GameMode.COOP) {
+                //Set the Master Game COOP Score to the sum of Host + Client Score
+                this.currentGame.getSpaceship().setCOOPScore(currentGame.getSpaceship().getScore() + s.getScore());
+            }
+        }
+    }
+
+    /**
+     * Notes that a packet of a client arrived on this tick.
+     *
+     * @param address The address and port that the client's packets come from.
+     * @return The client, which is new if the host hadn't heard from it recently.
+     */
+    private RemoteClient heardFrom(InetSocketAddress address) {
+        RemoteClient client = this.clients.computeIfAbsent(address, RemoteClient::new);
+        client.lastHeard = this.currentGame.getTick();
+        return client;
+    }
+
+    /**
+     * Drops every client that has been silent for {@link #CLIENT_TIMEOUT_TICKS}: it is no longer sent snapshots, and its
+     * ship is removed from the game.
+     */
+    private void dropSilentClients() {
+        if (this.clients.isEmpty()) {
+            return;
+        }
+        int tick = this.currentGame.getTick();
+        Iterator<RemoteClient> clients = this.clients.values().iterator();
+        while (clients.hasNext()) {
+            RemoteClient client = clients.next();
+            if (tick - client.lastHeard > CLIENT_TIMEOUT_TICKS) {
+                clients.remove();
+                this.currentGame.removeClient(client.address);
+                if (client.ship != null) {
+                    this.currentGame.getSpaceships().remove(client.ship);
                 }
             }
         }
     }
+
+    /**
+     * Presses the buttons of the next received input on every client's ship, just before the host moves the ships in
+     * the next tick. A ship that was destroyed is no longer in the game, and its client's inputs are ignored.
+     */
+    private void applyClientInputs() {
+        for (RemoteClient client : this.clients.values()) {
+            Spaceship s = client.ship;
+            if (s != null && !s.isDestroyed()) {
+                s.setInputs(client.inputs.next());
+                s.setInputSequence(client.inputs.getCurrentSequence());
+            }
+        }
+    }
+
+    /**
+     * Makes the game's asteroids the same as the received ones. Asteroids that the game already has are moved to their
+     * received state, new ones are added, and the ones that the host no longer has are removed.
+     *
+     * @param asteroids The received asteroids.
+     */
+    private void mergeAsteroids(EntityStateTable asteroids) {
+        Collection<Asteroid> gameAsteroids = this.currentGame.getAsteroids();
+        gameAsteroids.clear();
+        for (int row = 0; row < asteroids.size(); row++) {
+            int id = asteroids.getId(row);
+            Asteroid asteroid = this.asteroidsById.remove(id);
+            if (asteroid == null || asteroid.isDestroyed()) {
+                asteroid = this.createAsteroid(asteroids, row);
+            } else {
+                asteroid.setLocation(asteroids.getLocationX(row), asteroids.getLocationY(row));
+                asteroid.setVelocity(asteroids.getVelocityX(row), asteroids.getVelocityY(row));
+                asteroid.setStepsUntilCollisionPossible(asteroids.getStepsUntilCollisionPossible(row));
+            }
+            this.mergedAsteroids.put(id, asteroid);
+            gameAsteroids.add(asteroid);
+        }
+        this.asteroidsById.clear();
+        IntObjectMap<Asteroid> swap = this.asteroidsById;
+        this.asteroidsById = this.mergedAsteroids;
+        this.mergedAsteroids = swap;
+    }
+
+    /**
+     * Makes the game's bullets the same as the received ones, like {@link #mergeAsteroids(EntityStateTable)}. Only the
+     * host fires bullets, so the client has no bullets of its own to keep.
+     *
+     * @param bullets The received bullets.
+     */
+    private void mergeBullets(EntityStateTable bullets) {
+        Collection<Bullet> gameBullets = this.currentGame.getBullets();
+        gameBullets.clear();
+        for (int row = 0; row < bullets.size(); row++) {
+            int id = bullets.getId(row);
+            Bullet bullet = this.bulletsById.remove(id);
+            if (bullet == null || bullet.isDestroyed()) {
+                bullet = new Bullet(bullets.getLocationX(row), bullets.getLocationY(row), bullets.getVelocityX(row), bullets.getVelocityY(row));
+                bullet.setMultiplayerID(id);
+            } else {
+                bullet.setLocation(bullets.getLocationX(row), bullets.getLocationY(row));
+                bullet.setVelocity(bullets.getVelocityX(row), bullets.getVelocityY(row));
+            }
+            bullet.setStepsLeft(bullets.getStepsLeft(row));
+            bullet.setStepsUntilCollisionPossible(bullets.getStepsUntilCollisionPossible(row));
+            this.mergedBullets.put(id, bullet);
+            gameBullets.add(bullet);
+        }
+        this.bulletsById.clear();
+        IntObjectMap<Bullet> swap = this.bulletsById;
+        this.bulletsById = this.mergedBullets;
+        this.mergedBullets = swap;
+    }
+
+    /**
+     * @param asteroids A table of received asteroids.
+     * @param row       The row of the asteroid to create.
+     * @return A new asteroid with the received state.
+     */
+    private Asteroid createAsteroid(EntityStateTable asteroids, int row) {
+        Asteroid asteroid = new Asteroid(
+                new Point.Double(asteroids.getLocationX(row), asteroids.getLocationY(row)),
+                new Point.Double(asteroids.getVelocityX(row), asteroids.getVelocityY(row)),
+                ASTEROID_SIZES[asteroids.getSize(row)]);
+        asteroid.setMultiplayerID(asteroids.getId(row));
+        asteroid.setStepsUntilCollisionPossible(asteroids.getStepsUntilCollisionPossible(row));
+        return asteroid;
+    }
+
+    /**
+     * Finds the spaceship of a received state among the ones of the last snapshot, like
+     * {@link #mergeAsteroids(EntityStateTable)} does for asteroids, and brings it up to date. A new spaceship is only
+     * made for a ship that is new, or that was destroyed.
+     *
+     * @param state A received spaceship state.
+     * @return The spaceship, with that state.
+     */
+    private Spaceship mergeShip(ShipState state) {
+        Spaceship spaceship = this.shipsById.remove(state.getId());
+        if (spaceship == null || spaceship.isDestroyed()) {
+            spaceship = new Spaceship();
+        }
+        state.applyTo(spaceship);
+        this.mergedShips.put(state.getId(), spaceship);
+        return spaceship;
+    }
+    /**
+     * A client of the host [HOST].
+     */
+    private static class RemoteClient {
+        /**
+         * The address and port that the client's packets come from.
+         */
+        final InetSocketAddress address;
+
+        /**
+         * The client's ship, or null for a spectator. The host makes the ship when the client's first packet arrives,
+         * with an id of the host's own, so that no two ships can get the same id. Once the ship is destroyed and removed
+         * from the game, it is kept here until the client is dropped, so that packets that were already on their way
+         * don't give the client a new one.
+         */
+        Spaceship ship;
+
+        /**
+         * The received inputs of the client's ship, that are applied one per tick.
+         */
+        final InputBuffer inputs = new InputBuffer();
+
+        /**
+         * The tick on which the client's newest packet arrived.
+         */
+        int lastHeard;
+
+        RemoteClient(InetSocketAddress address) {
+            this.address = address;
+        }
+    }
+
     private void handleClientDeath(Spaceship deadClient){
         GameMode newShipGameMode=deadClient.getCurrentGameMode();
             //Player has died
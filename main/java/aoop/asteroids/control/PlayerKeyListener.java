@@ -44,7 +44,7 @@ public class PlayerKeyListener implements KeyListener {
     }
 
     /**
-     * This method is invoked when a key is pressed and sets the corresponding fields in the spaceship to true.
+     * This method is invoked when a key is pressed and marks the corresponding key of the spaceship as pressed.
      *
      * @param event Key event that triggered the method.
      */
@@ -52,21 +52,21 @@ public class PlayerKeyListener implements KeyListener {
     public void keyPressed(KeyEvent event) {
         switch (event.getKeyCode()) {
             case ACCELERATION_KEY:
-                this.ship.setAccelerateKeyPressed(true);
+                this.ship.setKeyPressed(Spaceship.INPUT_ACCELERATE, true);
                 break;
             case LEFT_KEY:
-                this.ship.setTurnLeftKeyPressed(true);
+                this.ship.setKeyPressed(Spaceship.INPUT_TURN_LEFT, true);
                 break;
             case RIGHT_KEY:
-                this.ship.setTurnRightKeyPressed(true);
+                this.ship.setKeyPressed(Spaceship.INPUT_TURN_RIGHT, true);
                 break;
             case FIRE_WEAPON_KEY:
-                this.ship.setIsFiring(true);
+                this.ship.setKeyPressed(Spaceship.INPUT_FIRE, true);
         }
     }
 
     /**
-     * This method is invoked when a key is released and sets the corresponding fields in the spaceship to false.
+     * This method is invoked when a key is released and marks the corresponding key of the spaceship as released.
      *
      * @param event Key event that triggered the method.
      */
@@ -74,16 +74,16 @@ public class PlayerKeyListener implements KeyListener {
     public void keyReleased(KeyEvent event) {
         switch (event.getKeyCode()) {
             case ACCELERATION_KEY:
-                this.ship.setAccelerateKeyPressed(false);
+                this.ship.setKeyPressed(Spaceship.INPUT_ACCELERATE, false);
                 break;
             case LEFT_KEY:
-                this.ship.setTurnLeftKeyPressed(false);
+                this.ship.setKeyPressed(Spaceship.INPUT_TURN_LEFT, false);
                 break;
             case RIGHT_KEY:
-                this.ship.setTurnRightKeyPressed(false);
+                this.ship.setKeyPressed(Spaceship.INPUT_TURN_RIGHT, false);
                 break;
             case FIRE_WEAPON_KEY:
-                this.ship.setIsFiring(false);
+                this.ship.setKeyPressed(Spaceship.INPUT_FIRE, false);
         }
     }
 
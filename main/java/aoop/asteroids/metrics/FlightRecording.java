@@ -0,0 +1,68 @@
+package aoop.asteroids.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Starts a continuous Flight Recorder recording with the settings that come with the game, so that a dump of the last
+ * while can be taken when a hitch happens, with {@code jcmd <pid> JFR.dump name=asteroids filename=hitch.jfr}.
+ * <p>
+ * The settings are read from the class path, so they are found wherever the game is installed.
+ */
+public final class FlightRecording {
+    /**
+     * The settings on the class path: the game's own events, with the garbage collections and safepoints around them.
+     */
+    public static final String SETTINGS = "/asteroids-server.jfc";
+
+    /**
+     * The name of the recording, by which it can be dumped.
+     */
+    public static final String NAME = "asteroids";
+
+    /**
+     * How much of the recording is kept on disk.
+     */
+    private static final Duration MAX_AGE = Duration.ofHours(1);
+
+    private FlightRecording() {
+    }
+
+    /**
+     * Starts recording.
+     *
+     * @return The recording, or null if it could not be started.
+     */
+    public static Recording start() {
+        try (InputStream in = FlightRecording.class.getResourceAsStream(SETTINGS)) {
+            if (in == null) {
+                throw new FileNotFoundException(SETTINGS + " is not on the class path");
+            }
+            Configuration configuration;
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                configuration = Configuration.create(reader);
+            }
+            Recording recording = new Recording(configuration);
+            recording.setName(NAME);
+            recording.setToDisk(true);
+            recording.setMaxAge(MAX_AGE);
+            recording.start();
+            System.out.println("Flight recording started; dump it with: jcmd " + ProcessHandle.current().pid() + " JFR.dump name=" + NAME + " filename=<file>.jfr");
+            return recording;
+        }
+        catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            System.err.println("Could not start the flight recording");
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
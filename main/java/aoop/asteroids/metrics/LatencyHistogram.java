@@ -0,0 +1,164 @@
+package aoop.asteroids.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how long something took, in buckets, so that percentiles can be read off at any time without keeping every
+ * duration.
+ * <p>
+ * The buckets are log-linear: every power of two is split into {@link #SUB_BUCKETS} buckets of equal width, so a
+ * percentile is never off by more than about 6%, from nanoseconds up to minutes, in a fixed number of buckets. Longer
+ * durations are counted in the last bucket.
+ * <p>
+ * Recording a duration only increments a counter, without allocating or locking, so it can be done on every tick.
+ * Durations must be recorded by one thread at a time; any thread may read the histogram meanwhile, and sees the counts
+ * of a moment ago.
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Durations of this many bits or more are counted in the last bucket. 2^40 nanoseconds is about 18 minutes.
+     */
+    private static final int MAX_BITS = 40;
+
+    private static final int BUCKETS = (MAX_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /*
+     * Only written by the recording thread, so they don't need to be updated atomically.
+     */
+    private volatile long count;
+    private volatile long sum;
+    private volatile long max;
+
+    /**
+     * @param nanos The duration of one occurrence, in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0; // The clock can't go backwards, but better safe than sorry.
+        }
+        int bucket = bucketOf(nanos);
+        this.counts.lazySet(bucket, this.counts.get(bucket) + 1);
+        this.count = this.count + 1;
+        this.sum = this.sum + nanos;
+        if (nanos > this.max) {
+            this.max = nanos;
+        }
+    }
+
+    /**
+     * @param percentile A percentile, from 0 to 100.
+     * @return The duration that the given percentage of occurrences took at most, in nanoseconds, rounded up to the end
+     * of its bucket. Zero if nothing has been recorded yet.
+     */
+    public long getPercentileNanos(double percentile) {
+        long total = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            total += this.counts.get(bucket);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += this.counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(bucket), this.max);
+            }
+        }
+        return this.max;
+    }
+
+    @Override
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * @return The sum of all recorded durations, in nanoseconds.
+     */
+    public long getSumNanos() {
+        return this.sum;
+    }
+
+    @Override
+    public double getMeanNanos() {
+        long count = this.count;
+        return count == 0 ? 0 : (double) this.sum / count;
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return this.getPercentileNanos(50);
+    }
+
+    @Override
+    public long getP90Nanos() {
+        return this.getPercentileNanos(90);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return this.getPercentileNanos(99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return this.getPercentileNanos(99.9);
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return this.max;
+    }
+
+    /**
+     * Writes the percentiles, count, sum and maximum of the histogram in the text format of {@link Metrics#scrape()}, in
+     * seconds.
+     *
+     * @param out    The text to write to.
+     * @param name   The name of the metric.
+     * @param labels The labels of the histogram, without braces.
+     */
+    void writeMetrics(StringBuilder out, String name, String labels) {
+        String separator = labels.isEmpty() ? "" : ",";
+        for (double quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            Metrics.write(out, name, labels + separator + "quantile=\"" + quantile + "\"", this.getPercentileNanos(quantile * 100) / 1e9);
+        }
+        Metrics.write(out, name + "_count", labels, this.count);
+        Metrics.write(out, name + "_sum", labels, this.sum / 1e9);
+        Metrics.write(out, name + "_max", labels, this.max / 1e9);
+    }
+
+    /**
+     * @return The bucket that a duration is counted in.
+     */
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int bits = 63 - Long.numberOfLeadingZeros(nanos);
+        if (bits >= MAX_BITS) {
+            return BUCKETS - 1;
+        }
+        int shift = bits - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @return The longest duration that is counted in a bucket.
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
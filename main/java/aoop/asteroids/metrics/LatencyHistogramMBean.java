@@ -0,0 +1,20 @@
+package aoop.asteroids.metrics;
+
+/**
+ * What a {@link LatencyHistogram} shows through JMX. All durations are in nanoseconds.
+ */
+public interface LatencyHistogramMBean {
+    long getCount();
+
+    double getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP90Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    long getMaxNanos();
+}
@@ -0,0 +1,173 @@
+package aoop.asteroids.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Where the game's metrics are published: every registered MBean is shown through JMX under the
+ * {@value #DOMAIN} domain, and every registered source is shown in plain text by {@link #scrape()}, which is what
+ * {@link MetricsServer} serves.
+ * <p>
+ * Registering is cheap and done whether anyone looks or not. The metrics themselves are kept by the parts of the game
+ * that they are about, see {@link TickMetrics} and {@link TransportMetrics}.
+ */
+public final class Metrics {
+    /**
+     * The JMX domain of all of the game's MBeans.
+     */
+    public static final String DOMAIN = "aoop.asteroids";
+
+    /**
+     * The local port that the plain text metrics are served on, or 0 if they aren't served. Can be set with the
+     * asteroids.metricsPort system property.
+     */
+    public static final int PORT = Integer.getInteger("asteroids.metricsPort", 0);
+
+    private static final List<MetricsSource> sources = new CopyOnWriteArrayList<>();
+
+    /**
+     * The MBeans that were registered here, so that an MBean is only unregistered by whoever registered it, even if
+     * another one took over its name in the meantime.
+     */
+    private static final Map<ObjectName, Object> mbeans = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * @param type       The type of the MBean.
+     * @param properties The other properties of the name, as pairs of keys and values.
+     * @return The JMX name of an MBean in the game's domain.
+     */
+    public static ObjectName objectName(String type, String... properties) {
+        StringBuilder name = new StringBuilder(DOMAIN).append(":type=").append(type);
+        for (int i = 0; i < properties.length; i += 2) {
+            name.append(',').append(properties[i]).append('=').append(quote(properties[i + 1]));
+        }
+        try {
+            return new ObjectName(name.toString());
+        }
+        catch (JMException e) {
+            throw new IllegalArgumentException("Not a valid MBean name: " + name, e);
+        }
+    }
+
+    /**
+     * @param properties Pairs of keys and values.
+     * @return The labels of a metric in the text format, without braces.
+     */
+    public static String labels(String... properties) {
+        StringBuilder labels = new StringBuilder();
+        for (int i = 0; i < properties.length; i += 2) {
+            if (labels.length() > 0) {
+                labels.append(',');
+            }
+            labels.append(properties[i]).append("=\"").append(properties[i + 1].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        return labels.toString();
+    }
+
+    /**
+     * Shows an MBean through JMX. An MBean that was registered under the same name before is replaced.
+     *
+     * @param name  The name of the MBean.
+     * @param mbean The MBean.
+     */
+    public static void register(ObjectName name, Object mbean) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(mbean, name);
+            mbeans.put(name, mbean);
+        }
+        catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops showing an MBean through JMX, unless another one has taken over its name.
+     *
+     * @param name  The name of the MBean.
+     * @param mbean The MBean.
+     */
+    public static void unregister(ObjectName name, Object mbean) {
+        if (!mbeans.remove(name, mbean)) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+        catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param source Metrics to show on the text endpoint from now on.
+     */
+    public static void addSource(MetricsSource source) {
+        sources.add(source);
+    }
+
+    /**
+     * @param source Metrics to no longer show on the text endpoint.
+     */
+    public static void removeSource(MetricsSource source) {
+        sources.remove(source);
+    }
+
+    /**
+     * @return The current value of every metric of every source, as lines of the form {@code name{labels} value}, which
+     * is the text format that Prometheus and most other collectors can read. Durations are in seconds.
+     */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder();
+        for (MetricsSource source : sources) {
+            source.writeMetrics(out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes a single line of metrics text.
+     *
+     * @param out    The text to write to.
+     * @param name   The name of the metric.
+     * @param labels The labels of the metric, without braces, see {@link #labels(String...)}.
+     * @param value  The value of the metric.
+     */
+    public static void write(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (value == (long) value) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * @return The value, quoted if it has characters that aren't allowed in a JMX name as they are.
+     */
+    private static String quote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (",=:\"*?\n".indexOf(value.charAt(i)) >= 0) {
+                return ObjectName.quote(value);
+            }
+        }
+        return value;
+    }
+}
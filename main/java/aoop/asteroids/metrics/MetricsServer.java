@@ -0,0 +1,106 @@
+package aoop.asteroids.metrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The thread that serves {@link Metrics#scrape()} on a local port, for collectors to scrape. Every connection gets the
+ * current metrics as a plain HTTP response, whatever it asks for, so they can be read with a browser, curl or any
+ * collector. Only the loopback address is listened on, so the metrics can't be read from other machines.
+ */
+public class MetricsServer extends Thread implements AutoCloseable {
+    private final ServerSocket serverSocket;
+
+    /**
+     * Opens the port. The metrics are served once the thread is started.
+     *
+     * @param port The local port to serve the metrics on, or 0 for any free port.
+     * @throws IOException If the port could not be opened.
+     */
+    public MetricsServer(int port) throws IOException {
+        super("MetricsServer");
+        this.serverSocket = new ServerSocket(port, 8, InetAddress.getLoopbackAddress());
+        this.setDaemon(true);
+    }
+
+    /**
+     * Starts serving the metrics, if a port is given.
+     *
+     * @param port The local port to serve the metrics on, usually {@link Metrics#PORT}, or 0 to not serve them.
+     * @return The server, or null if the metrics aren't served or the port could not be opened.
+     */
+    public static MetricsServer start(int port) {
+        if (port == 0) {
+            return null;
+        }
+        try {
+            MetricsServer server = new MetricsServer(port);
+            server.start();
+            System.out.println("Serving metrics on http://localhost:" + server.getPort() + "/metrics");
+            return server;
+        }
+        catch (IOException e) {
+            System.err.println("Could not serve metrics on port " + port);
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Override
+    public void run() {
+        while (!this.serverSocket.isClosed()) {
+            try (Socket socket = this.serverSocket.accept()) {
+                socket.setSoTimeout(1000);
+                this.serve(socket);
+            }
+            catch (IOException e) {
+                if (!this.serverSocket.isClosed()) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the request up to the blank line that ends its headers, and answers it with the metrics.
+     */
+    private void serve(Socket socket) throws IOException {
+        BufferedReader request = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        String line;
+        while ((line = request.readLine()) != null && !line.isEmpty()) {
+            // Whatever was asked for, the answer is the same.
+        }
+        byte[] body = Metrics.scrape().getBytes(StandardCharsets.UTF_8);
+        String headers = "HTTP/1.0 200 OK\r\n"
+                + "Content-Type: text/plain; version=0.0.4; charset=utf-8\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + "Connection: close\r\n\r\n";
+        OutputStream out = socket.getOutputStream();
+        out.write(headers.getBytes(StandardCharsets.US_ASCII));
+        out.write(body);
+        out.flush();
+    }
+
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops serving the metrics.
+     */
+    @Override
+    public void close() {
+        try {
+            this.serverSocket.close();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
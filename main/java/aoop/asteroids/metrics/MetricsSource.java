@@ -0,0 +1,14 @@
+package aoop.asteroids.metrics;
+
+/**
+ * Something that has metrics to show on the text endpoint, see {@link Metrics#scrape()}.
+ */
+public interface MetricsSource {
+    /**
+     * Writes the current value of every metric, one per line, with {@link Metrics#write(StringBuilder, String, String,
+     * double)}. Called on the thread that asks for the metrics, while the values may be changing.
+     *
+     * @param out The text to write to.
+     */
+    void writeMetrics(StringBuilder out);
+}
@@ -0,0 +1,83 @@
+package aoop.asteroids.metrics;
+
+/**
+ * Counts the packets and bytes that were sent to and received from someone, and the packets that were dropped on the
+ * way.
+ * <p>
+ * A received packet is dropped if it can't be decoded, is for a room that isn't open, is older than one that was
+ * already received, or if the game is too far behind to take it. A packet to be sent is dropped if it doesn't fit in a
+ * datagram, or if a newer one replaced it before it could be sent.
+ * <p>
+ * The counters are only changed by the network thread, so counting needs no locks; any thread may read them.
+ */
+public class PacketCounters implements PacketCountersMBean {
+    private volatile long packetsSent;
+    private volatile long bytesSent;
+    private volatile long packetsReceived;
+    private volatile long bytesReceived;
+    private volatile long packetsDroppedOnReceive;
+    private volatile long packetsDroppedOnSend;
+
+    public void sent(int bytes) {
+        this.packetsSent = this.packetsSent + 1;
+        this.bytesSent = this.bytesSent + bytes;
+    }
+
+    public void received(int bytes) {
+        this.packetsReceived = this.packetsReceived + 1;
+        this.bytesReceived = this.bytesReceived + bytes;
+    }
+
+    public void droppedOnReceive() {
+        this.packetsDroppedOnReceive = this.packetsDroppedOnReceive + 1;
+    }
+
+    public void droppedOnSend() {
+        this.packetsDroppedOnSend = this.packetsDroppedOnSend + 1;
+    }
+
+    @Override
+    public long getPacketsSent() {
+        return this.packetsSent;
+    }
+
+    @Override
+    public long getBytesSent() {
+        return this.bytesSent;
+    }
+
+    @Override
+    public long getPacketsReceived() {
+        return this.packetsReceived;
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return this.bytesReceived;
+    }
+
+    @Override
+    public long getPacketsDroppedOnReceive() {
+        return this.packetsDroppedOnReceive;
+    }
+
+    @Override
+    public long getPacketsDroppedOnSend() {
+        return this.packetsDroppedOnSend;
+    }
+
+    /**
+     * Writes every counter in the text format of {@link Metrics#scrape()}.
+     *
+     * @param out    The text to write to.
+     * @param labels The labels of the counters, without braces.
+     */
+    void writeMetrics(StringBuilder out, String labels) {
+        Metrics.write(out, "asteroids_packets_sent_total", labels, this.packetsSent);
+        Metrics.write(out, "asteroids_bytes_sent_total", labels, this.bytesSent);
+        Metrics.write(out, "asteroids_packets_received_total", labels, this.packetsReceived);
+        Metrics.write(out, "asteroids_bytes_received_total", labels, this.bytesReceived);
+        Metrics.write(out, "asteroids_packets_dropped_total", labels + ",direction=\"receive\"", this.packetsDroppedOnReceive);
+        Metrics.write(out, "asteroids_packets_dropped_total", labels + ",direction=\"send\"", this.packetsDroppedOnSend);
+    }
+}
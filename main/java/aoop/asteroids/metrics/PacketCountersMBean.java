@@ -0,0 +1,18 @@
+package aoop.asteroids.metrics;
+
+/**
+ * What {@link PacketCounters} shows through JMX.
+ */
+public interface PacketCountersMBean {
+    long getPacketsSent();
+
+    long getBytesSent();
+
+    long getPacketsReceived();
+
+    long getBytesReceived();
+
+    long getPacketsDroppedOnReceive();
+
+    long getPacketsDroppedOnSend();
+}
@@ -0,0 +1,37 @@
+package aoop.asteroids.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for decoding a world snapshot received from the host, on a client's network thread.
+ */
+@Name("aoop.asteroids.SnapshotDecode")
+@Label("Snapshot Decode")
+@Category({"Asteroids", "Network"})
+@Description("A world snapshot received from the host and decoded")
+@StackTrace(false)
+@Threshold("1 ms")
+public class SnapshotDecodeEvent extends jdk.jfr.Event {
+    @Label("Room")
+    public int room;
+
+    @Label("Sequence")
+    public int sequence;
+
+    @Label("New")
+    @Description("Whether the snapshot was newer than the ones received before, and handed to the game")
+    public boolean isNew;
+
+    @Label("Entities")
+    public int entities;
+
+    @Label("Size")
+    @DataAmount
+    public int bytes;
+}
@@ -0,0 +1,40 @@
+package aoop.asteroids.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for encoding a world snapshot for one client, on the host's network thread.
+ */
+@Name("aoop.asteroids.SnapshotEncode")
+@Label("Snapshot Encode")
+@Category({"Asteroids", "Network"})
+@Description("A world snapshot encoded for a client")
+@StackTrace(false)
+@Threshold("1 ms")
+public class SnapshotEncodeEvent extends jdk.jfr.Event {
+    @Label("Room")
+    public int room;
+
+    @Label("Sequence")
+    public int sequence;
+
+    @Label("Recipient")
+    public String recipient;
+
+    @Label("Delta")
+    @Description("Whether the client had acknowledged an earlier snapshot, which this one may be encoded as a difference from")
+    public boolean delta;
+
+    @Label("Entities")
+    public int entities;
+
+    @Label("Size")
+    @DataAmount
+    public int bytes;
+}
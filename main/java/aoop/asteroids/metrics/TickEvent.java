@@ -0,0 +1,40 @@
+package aoop.asteroids.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for one game tick, from reading the inputs to publishing the snapshot, so that slow ticks can
+ * be lined up with garbage collections and safepoints in a recording. Only ticks that take longer than the threshold
+ * are recorded; without a recording, the event costs next to nothing.
+ */
+@Name("aoop.asteroids.Tick")
+@Label("Game Tick")
+@Category({"Asteroids", "Game"})
+@Description("A game tick, from reading the inputs to publishing the world snapshot")
+@StackTrace(false)
+@Threshold("5 ms")
+public class TickEvent extends jdk.jfr.Event {
+    @Label("Room")
+    public int room;
+
+    @Label("Tick")
+    public int tick;
+
+    @Label("Overrun")
+    @Description("Whether the tick took longer than the time between two ticks")
+    public boolean overrun;
+
+    @Label("Asteroids")
+    public int asteroids;
+
+    @Label("Bullets")
+    public int bullets;
+
+    @Label("Spaceships")
+    public int spaceships;
+}
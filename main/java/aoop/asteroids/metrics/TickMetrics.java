@@ -0,0 +1,188 @@
+package aoop.asteroids.metrics;
+
+import javax.management.ObjectName;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The metrics of a running game: how long every phase of its ticks takes, and how many objects are in it.
+ * <p>
+ * The updater times the phases of a tick as it goes, by passing the time at which each phase started:
+ * <pre>
+ *     long time = System.nanoTime();
+ *     ... // Move everything.
+ *     time = metrics.record(Phase.INTEGRATE, time);
+ *     ... // Check for collisions.
+ *     time = metrics.record(Phase.COLLIDE, time);
+ * </pre>
+ * Nothing is allocated or locked to do so. The metrics are kept whether or not they are registered, so registering only
+ * decides whether anyone else can see them.
+ */
+public class TickMetrics implements TickMetricsMBean, MetricsSource {
+    /**
+     * The parts of a tick that are timed separately.
+     */
+    public enum Phase {
+        /**
+         * The whole tick, including handling packets and taking the snapshot.
+         */
+        TICK,
+
+        /**
+         * Moving every object.
+         */
+        INTEGRATE,
+
+        /**
+         * Firing the bullets of the ships that fire.
+         */
+        FIRE,
+
+        /**
+         * Checking for collisions.
+         */
+        COLLIDE,
+
+        /**
+         * Removing destroyed objects.
+         */
+        CLEANUP,
+
+        /**
+         * Spawning a new asteroid.
+         */
+        SPAWN
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    /**
+     * Numbers the games, so that games with the same room get different names.
+     */
+    private static final AtomicInteger games = new AtomicInteger();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+
+    private volatile int asteroids;
+    private volatile int bullets;
+    private volatile int spaceships;
+
+    /*
+     * The names under which these metrics are registered, or null if they aren't.
+     */
+    private ObjectName name;
+    private ObjectName[] phaseNames;
+
+    /*
+     * The labels of the metrics in the text format: of the game as a whole, and of each phase.
+     */
+    private String gameLabels;
+    private String[] phaseLabels;
+
+    public TickMetrics() {
+        for (int i = 0; i < this.histograms.length; i++) {
+            this.histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records the duration of a phase of a tick.
+     *
+     * @param phase The phase that just ended.
+     * @param start The value of {@link System#nanoTime()} when the phase started.
+     * @return The value of {@link System#nanoTime()} now, which is when the next phase starts.
+     */
+    public long record(Phase phase, long start) {
+        long now = System.nanoTime();
+        this.histograms[phase.ordinal()].record(now - start);
+        return now;
+    }
+
+    /**
+     * Records the number of objects in the game at the end of a tick.
+     */
+    public void countEntities(int asteroids, int bullets, int spaceships) {
+        this.asteroids = asteroids;
+        this.bullets = bullets;
+        this.spaceships = spaceships;
+    }
+
+    /**
+     * @param phase A phase of a tick.
+     * @return The durations of the phase.
+     */
+    public LatencyHistogram getHistogram(Phase phase) {
+        return this.histograms[phase.ordinal()];
+    }
+
+    @Override
+    public long getTicks() {
+        return this.getHistogram(Phase.TICK).getCount();
+    }
+
+    @Override
+    public long getTickP99Nanos() {
+        return this.getHistogram(Phase.TICK).getP99Nanos();
+    }
+
+    @Override
+    public int getAsteroids() {
+        return this.asteroids;
+    }
+
+    @Override
+    public int getBullets() {
+        return this.bullets;
+    }
+
+    @Override
+    public int getSpaceships() {
+        return this.spaceships;
+    }
+
+    /**
+     * Shows these metrics through JMX and the text endpoint, until they are unregistered.
+     *
+     * @param room The room of the game.
+     */
+    public void register(int room) {
+        String game = Integer.toString(games.incrementAndGet());
+        String roomId = Integer.toString(room);
+        this.name = Metrics.objectName("Game", "game", game, "room", roomId);
+        Metrics.register(this.name, this);
+        this.gameLabels = Metrics.labels("game", game, "room", roomId);
+        this.phaseNames = new ObjectName[PHASES.length];
+        this.phaseLabels = new String[PHASES.length];
+        for (Phase phase : PHASES) {
+            String phaseName = phase.name().toLowerCase();
+            this.phaseNames[phase.ordinal()] = Metrics.objectName("TickPhase", "game", game, "room", roomId, "phase", phaseName);
+            this.phaseLabels[phase.ordinal()] = Metrics.labels("game", game, "room", roomId, "phase", phaseName);
+            Metrics.register(this.phaseNames[phase.ordinal()], this.getHistogram(phase));
+        }
+        Metrics.addSource(this);
+    }
+
+    /**
+     * Stops showing these metrics, if they are registered.
+     */
+    public void unregister() {
+        if (this.name == null) {
+            return;
+        }
+        Metrics.removeSource(this);
+        Metrics.unregister(this.name, this);
+        for (Phase phase : PHASES) {
+            Metrics.unregister(this.phaseNames[phase.ordinal()], this.getHistogram(phase));
+        }
+        this.name = null;
+    }
+
+    @Override
+    public void writeMetrics(StringBuilder out) {
+        for (Phase phase : PHASES) {
+            this.getHistogram(phase).writeMetrics(out, "asteroids_tick_phase_seconds", this.phaseLabels[phase.ordinal()]);
+        }
+        Metrics.write(out, "asteroids_entities", this.gameLabels + ",kind=\"asteroid\"", this.asteroids);
+        Metrics.write(out, "asteroids_entities", this.gameLabels + ",kind=\"bullet\"", this.bullets);
+        Metrics.write(out, "asteroids_entities", this.gameLabels + ",kind=\"spaceship\"", this.spaceships);
+    }
+}
@@ -0,0 +1,17 @@
+package aoop.asteroids.metrics;
+
+/**
+ * What {@link TickMetrics} shows through JMX. The duration of each phase of a tick is a separate MBean, see
+ * {@link LatencyHistogramMBean}.
+ */
+public interface TickMetricsMBean {
+    long getTicks();
+
+    long getTickP99Nanos();
+
+    int getAsteroids();
+
+    int getBullets();
+
+    int getSpaceships();
+}
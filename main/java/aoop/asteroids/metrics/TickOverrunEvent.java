@@ -0,0 +1,33 @@
+package aoop.asteroids.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event for when a game falls so far behind that it gives up on catching up, and the game visibly
+ * slows down for a moment.
+ */
+@Name("aoop.asteroids.TickOverrun")
+@Label("Game Tick Overrun")
+@Category({"Asteroids", "Game"})
+@Description("The game fell too far behind to catch up, and skipped time")
+@StackTrace(false)
+public class TickOverrunEvent extends jdk.jfr.Event {
+    @Label("Room")
+    public int room;
+
+    @Label("Tick")
+    public int tick;
+
+    @Label("Dropped Ticks")
+    @Description("The number of whole ticks that were skipped")
+    public long droppedTicks;
+
+    @Label("Dropped Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long droppedTime;
+}
@@ -0,0 +1,182 @@
+package aoop.asteroids.metrics;
+
+import javax.management.ObjectName;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The metrics of a network thread: the packets that it sent, received and dropped, in total and for every peer that it
+ * exchanges packets with. For a host, those are its clients; for a client, that is the host.
+ * <p>
+ * A peer is an address and a port, so that several clients behind one address are counted apart. Anyone can send a
+ * packet, so packets are only counted for a peer once the network thread has accepted it with
+ * {@link #addPeer(InetSocketAddress)}, until it is forgotten again with {@link #removePeer(InetSocketAddress)}. Until
+ * then, they are only counted in the total. Counting a packet allocates nothing. Only the network thread counts
+ * packets, and adds and removes peers.
+ */
+public class TransportMetrics implements MetricsSource {
+    private final String port;
+
+    private final PacketCounters total = new PacketCounters();
+
+    private final Map<InetSocketAddress, PacketCounters> peers = new ConcurrentHashMap<>();
+
+    /**
+     * The labels of every peer in the text format.
+     */
+    private final Map<PacketCounters, String> peerLabels = new ConcurrentHashMap<>();
+
+    private boolean registered;
+
+    /**
+     * @param port The port that the network thread receives on.
+     */
+    public TransportMetrics(int port) {
+        this.port = Integer.toString(port);
+    }
+
+    /**
+     * Starts counting the packets of a peer separately, and shows its counters if these metrics are shown. Does nothing
+     * if the peer is already counted.
+     *
+     * @param address The address of the peer.
+     */
+    public void addPeer(InetSocketAddress address) {
+        if (this.peers.containsKey(address)) {
+            return;
+        }
+        PacketCounters counters = new PacketCounters();
+        this.peers.put(address, counters);
+        this.peerLabels.put(counters, Metrics.labels("port", this.port, "peer", label(address)));
+        if (this.registered) {
+            Metrics.register(this.peerName(address), counters);
+        }
+    }
+
+    /**
+     * Stops counting the packets of a peer separately, and stops showing its counters.
+     *
+     * @param address The address of the peer.
+     */
+    public void removePeer(InetSocketAddress address) {
+        PacketCounters counters = this.peers.remove(address);
+        if (counters != null) {
+            this.peerLabels.remove(counters);
+            if (this.registered) {
+                Metrics.unregister(this.peerName(address), counters);
+            }
+        }
+    }
+
+    /**
+     * @param address The address that a packet was exchanged with, or null if it isn't known.
+     * @return The counters of the peer, or null if the address isn't one of a peer.
+     */
+    private PacketCounters peer(InetSocketAddress address) {
+        return address != null ? this.peers.get(address) : null;
+    }
+
+    /**
+     * Counts a packet that was sent.
+     *
+     * @param address The address that the packet was sent to.
+     * @param bytes   The size of the packet.
+     */
+    public void sent(InetSocketAddress address, int bytes) {
+        this.total.sent(bytes);
+        PacketCounters peer = this.peer(address);
+        if (peer != null) {
+            peer.sent(bytes);
+        }
+    }
+
+    /**
+     * Counts a packet that was received, whether or not it is dropped afterwards.
+     *
+     * @param address The address that the packet came from.
+     * @param bytes   The size of the packet.
+     */
+    public void received(InetSocketAddress address, int bytes) {
+        this.total.received(bytes);
+        PacketCounters peer = this.peer(address);
+        if (peer != null) {
+            peer.received(bytes);
+        }
+    }
+
+    /**
+     * Counts a received packet that was dropped.
+     *
+     * @param address The address that the packet came from.
+     */
+    public void droppedOnReceive(InetSocketAddress address) {
+        this.total.droppedOnReceive();
+        PacketCounters peer = this.peer(address);
+        if (peer != null) {
+            peer.droppedOnReceive();
+        }
+    }
+
+    /**
+     * Counts a packet that was dropped instead of being sent.
+     *
+     * @param address The address that the packet was for, or null if it was for no one in particular.
+     */
+    public void droppedOnSend(InetSocketAddress address) {
+        this.total.droppedOnSend();
+        PacketCounters peer = this.peer(address);
+        if (peer != null) {
+            peer.droppedOnSend();
+        }
+    }
+
+    public PacketCounters getTotal() {
+        return this.total;
+    }
+
+    /**
+     * @param address An address.
+     * @return The counters of the address, or null if it isn't the address of a peer.
+     */
+    public PacketCounters getPeer(InetSocketAddress address) {
+        return this.peers.get(address);
+    }
+
+    /**
+     * Shows these metrics through JMX and the text endpoint, until they are unregistered. Called by the network thread.
+     */
+    public void register() {
+        this.registered = true;
+        Metrics.register(Metrics.objectName("Transport", "port", this.port), this.total);
+        this.peers.forEach((address, counters) -> Metrics.register(this.peerName(address), counters));
+        Metrics.addSource(this);
+    }
+
+    /**
+     * Stops showing these metrics. Called by the network thread.
+     */
+    public void unregister() {
+        this.registered = false;
+        Metrics.removeSource(this);
+        Metrics.unregister(Metrics.objectName("Transport", "port", this.port), this.total);
+        this.peers.forEach((address, counters) -> Metrics.unregister(this.peerName(address), counters));
+    }
+
+    @Override
+    public void writeMetrics(StringBuilder out) {
+        this.total.writeMetrics(out, Metrics.labels("port", this.port));
+        this.peerLabels.forEach((counters, labels) -> counters.writeMetrics(out, labels));
+    }
+
+    private ObjectName peerName(InetSocketAddress address) {
+        return Metrics.objectName("Peer", "port", this.port, "peer", label(address));
+    }
+
+    /**
+     * @return The host and port of an address, as in 127.0.0.1:25665.
+     */
+    private static String label(InetSocketAddress address) {
+        return address.getAddress().getHostAddress() + ":" + address.getPort();
+    }
+}
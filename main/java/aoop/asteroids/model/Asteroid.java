@@ -3,6 +3,8 @@ package aoop.asteroids.model;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -17,6 +19,11 @@ public class Asteroid extends GameObject {
      */
     public static final double SUCCESSOR_VELOCITY_DIFFERENCE = 5.0;
 
+    /**
+     * The number of game ticks after spawning that an asteroid is immune from collisions.
+     */
+    static final int STEPS_UNTIL_COLLISION_POSSIBLE = 30;
+
     /**
      * The size of this asteroid.
      */
@@ -31,10 +38,31 @@ public class Asteroid extends GameObject {
      * @param size     The size of the asteroid.
      */
     public Asteroid(Point.Double location, Point.Double velocity, AsteroidSize size) {
-        super(location, velocity, (int) size.getRadius());
+        this(location.getX(), location.getY(), velocity.getX(), velocity.getY(), size);
+    }
+
+    /**
+     * Constructs a new asteroid from coordinates, without needing points for them.
+     */
+    Asteroid(double locationX, double locationY, double velocityX, double velocityY, AsteroidSize size) {
+        super(locationX, locationY, velocityX, velocityY, (int) size.getRadius());
         this.size = size;
+    }
 
+    /**
+     * Reuses this destroyed asteroid as a newly spawned one, see {@link EntityPool}.
+     */
+    void reset(double locationX, double locationY, double velocityX, double velocityY, AsteroidSize size) {
+        this.respawn(locationX, locationY, velocityX, velocityY);
+        this.size = size;
+        this.radius = (int) size.getRadius();
+    }
 
+    /**
+     * @return The size of this asteroid.
+     */
+    public AsteroidSize getSize() {
+        return this.size;
     }
 
     /**
@@ -44,30 +72,33 @@ public class Asteroid extends GameObject {
      * @return A collection of the successors.
      */
     public Collection<Asteroid> getSuccessors() {
-        Collection<Asteroid> successors = new ArrayList<>(2); // Initialize the array to a fixed capacity to improve performance.
-        AsteroidSize successorSize = this.size.getSuccessorSize();
-        if (successorSize != null) {
-            successors.add(this.generateSuccessor());
-            successors.add(this.generateSuccessor());
-        }
-
+        List<Asteroid> successors = new ArrayList<>(2); // Initialize the array to a fixed capacity to improve performance.
+        this.spawnSuccessors(new EntityPool(), ThreadLocalRandom.current(), successors);
         return successors;
     }
 
     /**
-     * Generates a new asteroid that should be spawned when this one is destroyed.
+     * Generates the successors of this asteroid like {@link #getSuccessors()}, but takes them from a pool and adds them
+     * straight to the given list, so that nothing has to be allocated once the pool has asteroids to spare.
      * <p>
-     * The asteroid is created at the same location as the current one, and is one size smaller. The new asteroid's
-     * velocity is set to the current asteroid's velocity, with some random speed adjustments.
+     * The successors are created at the same location as the current one, and are one size smaller. Their velocity is
+     * set to the current asteroid's velocity, with some random speed adjustments.
      *
-     * @return A newly created asteroid, if the size of this asteroid allows for successors. Otherwise null.
+     * @param pool       The pool to take the successors from.
+     * @param random     The random number generator of the game, which decides the speed adjustments.
+     * @param successors The list to add the successors to.
      */
-    private Asteroid generateSuccessor() {
-        if (this.size.getSuccessorSize() == null) {
-            return null;
+    public void spawnSuccessors(EntityPool pool, Random random, List<? super Asteroid> successors) {
+        AsteroidSize successorSize = this.size.getSuccessorSize();
+        if (successorSize == null) {
+            return;
+        }
+        for (int i = 0; i < 2; i++) {
+            successors.add(pool.obtainAsteroid(this.location.x, this.location.y,
+                    this.velocity.x + (random.nextDouble() * 2 - 1) * SUCCESSOR_VELOCITY_DIFFERENCE,
+                    this.velocity.y + (random.nextDouble() * 2 - 1) * SUCCESSOR_VELOCITY_DIFFERENCE,
+                    successorSize));
         }
-        ThreadLocalRandom rng = ThreadLocalRandom.current();
-        return new Asteroid(this.getLocation(), new Point.Double(this.getVelocity().getX() + rng.nextDouble(-SUCCESSOR_VELOCITY_DIFFERENCE, SUCCESSOR_VELOCITY_DIFFERENCE), this.getVelocity().getY() + rng.nextDouble(-SUCCESSOR_VELOCITY_DIFFERENCE, SUCCESSOR_VELOCITY_DIFFERENCE)), this.size.getSuccessorSize());
     }
 
     @Override
@@ -80,6 +111,6 @@ public class Asteroid extends GameObject {
      */
     @Override
     protected int getDefaultStepsUntilCollisionPossible() {
-        return 30;
+        return STEPS_UNTIL_COLLISION_POSSIBLE;
     }
 }
@@ -12,6 +12,11 @@ public class Bullet extends GameObject {
      */
     public static final int DEFAULT_BULLET_STEP_LIFETIME = 45;
 
+    /**
+     * The number of game ticks after being fired that a bullet is immune from collisions.
+     */
+    static final int STEPS_UNTIL_COLLISION_POSSIBLE = 3;
+
     /**
      * The amount of steps this bullet still is allowed to live. When this value drops below 0, the bullet is removed
      * from the game model.
@@ -45,6 +50,14 @@ public class Bullet extends GameObject {
         this.stepsLeft = stepsLeft;
     }
 
+    /**
+     * Reuses this destroyed bullet as a newly fired one, see {@link EntityPool}.
+     */
+    void reset(double locationX, double locationY, double velocityX, double velocityY) {
+        this.respawn(locationX, locationY, velocityX, velocityY);
+        this.stepsLeft = DEFAULT_BULLET_STEP_LIFETIME;
+    }
+
     /**
      * Updates the bullet. First calls the parent's nextStep() method to update the object's location, and specifically
      * for the bullet class, there is a lifetime to the bullet, indicated by the number of steps left until it should be
@@ -60,12 +73,26 @@ public class Bullet extends GameObject {
         }
     }
 
+    /**
+     * @return The amount of steps this bullet is still allowed to live.
+     */
+    public int getStepsLeft() {
+        return this.stepsLeft;
+    }
+
+    /**
+     * @param stepsLeft The amount of steps this bullet is still allowed to live.
+     */
+    public void setStepsLeft(int stepsLeft) {
+        this.stepsLeft = stepsLeft;
+    }
+
     /**
      * @return The number of steps, or game ticks, for which this object is immune from collisions.
      */
     @Override
     protected int getDefaultStepsUntilCollisionPossible() {
-        return 3;
+        return STEPS_UNTIL_COLLISION_POSSIBLE;
     }
 
     @Override
@@ -0,0 +1,99 @@
+package aoop.asteroids.model;
+
+import java.util.Arrays;
+
+/**
+ * Keeps destroyed bullets and asteroids around, so that the next ones that are fired or spawned can reuse them instead
+ * of being allocated. Once the game has been running for a bit, the pool holds enough objects for the busiest moments,
+ * and a game tick no longer creates any garbage, however many bullets are flying around.
+ * <p>
+ * A reused object is a new object as far as the game is concerned: it gets a new multiplayer id, and its
+ * {@link GameObject#getGeneration() generation} goes up by one, so anything that held on to the object from before it
+ * was destroyed can tell that it is now something else.
+ * <p>
+ * A pool belongs to the thread that updates its game, and is not safe to use from several threads at once.
+ */
+public class EntityPool {
+    /**
+     * The number of free objects of each kind that the pool has room for when it first has to store one.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Bullet[] freeBullets = new Bullet[0];
+    private int freeBulletCount;
+
+    private Asteroid[] freeAsteroids = new Asteroid[0];
+    private int freeAsteroidCount;
+
+    /**
+     * @param locationX The location of the bullet on the x-axis.
+     * @param locationY The location of the bullet on the y-axis.
+     * @param velocityX Velocity of the bullet as projected on the X-axis.
+     * @param velocityY Velocity of the bullet as projected on the Y-axis.
+     * @return A bullet with the default lifetime, reused if possible.
+     */
+    public Bullet obtainBullet(double locationX, double locationY, double velocityX, double velocityY) {
+        if (this.freeBulletCount == 0) {
+            return new Bullet(locationX, locationY, velocityX, velocityY);
+        }
+        Bullet bullet = this.freeBullets[--this.freeBulletCount];
+        this.freeBullets[this.freeBulletCount] = null;
+        bullet.reset(locationX, locationY, velocityX, velocityY);
+        return bullet;
+    }
+
+    /**
+     * @param locationX The location of the asteroid on the x-axis.
+     * @param locationY The location of the asteroid on the y-axis.
+     * @param velocityX Velocity of the asteroid as projected on the X-axis.
+     * @param velocityY Velocity of the asteroid as projected on the Y-axis.
+     * @param size      The size of the asteroid.
+     * @return An asteroid, reused if possible.
+     */
+    public Asteroid obtainAsteroid(double locationX, double locationY, double velocityX, double velocityY, AsteroidSize size) {
+        if (this.freeAsteroidCount == 0) {
+            return new Asteroid(locationX, locationY, velocityX, velocityY, size);
+        }
+        Asteroid asteroid = this.freeAsteroids[--this.freeAsteroidCount];
+        this.freeAsteroids[this.freeAsteroidCount] = null;
+        asteroid.reset(locationX, locationY, velocityX, velocityY, size);
+        return asteroid;
+    }
+
+    /**
+     * Takes back an object that was removed from the game, so that it can be reused. Objects other than bullets and
+     * asteroids are not pooled, and are left alone.
+     *
+     * @param object A destroyed object that nothing in the game refers to anymore.
+     */
+    public void recycle(GameObject object) {
+        if (!object.isDestroyed()) {
+            throw new IllegalArgumentException("Only destroyed objects can be recycled.");
+        }
+        if (object instanceof Bullet) {
+            if (this.freeBulletCount == this.freeBullets.length) {
+                this.freeBullets = Arrays.copyOf(this.freeBullets, Math.max(INITIAL_CAPACITY, this.freeBulletCount * 2));
+            }
+            this.freeBullets[this.freeBulletCount++] = (Bullet) object;
+        } else if (object instanceof Asteroid) {
+            if (this.freeAsteroidCount == this.freeAsteroids.length) {
+                this.freeAsteroids = Arrays.copyOf(this.freeAsteroids, Math.max(INITIAL_CAPACITY, this.freeAsteroidCount * 2));
+            }
+            this.freeAsteroids[this.freeAsteroidCount++] = (Asteroid) object;
+        }
+    }
+
+    /**
+     * @return The number of bullets waiting to be reused.
+     */
+    public int getFreeBulletCount() {
+        return this.freeBulletCount;
+    }
+
+    /**
+     * @return The number of asteroids waiting to be reused.
+     */
+    public int getFreeAsteroidCount() {
+        return this.freeAsteroidCount;
+    }
+}
@@ -5,13 +5,21 @@ import aoop.asteroids.control.MultiplayerGameUpdater;
 import aoop.asteroids.game_observer.GameDeathListener;
 import aoop.asteroids.game_observer.GameModeInterface;
 import aoop.asteroids.game_observer.ObservableGame;
+import aoop.asteroids.multiplayer.DatagramTransport;
+import aoop.asteroids.multiplayer.InterpolationBuffer;
 
 import java.awt.*;
+import java.io.IOException;
 import java.io.Serializable;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This class is the main model for the Asteroids game. It contains all game objects, and has methods to start and stop
@@ -21,6 +29,18 @@ import java.util.Iterator;
  * {@link GameUpdater}, which runs in its own thread, and manages the main game loop and physics updates.
  */
 public class Game extends ObservableGame implements Serializable, GameModeInterface {
+    /**
+     * The width and height of the playing field, which objects wrap around. The window is made the same size.
+     */
+    public static final int WORLD_WIDTH = 800;
+    public static final int WORLD_HEIGHT = 800;
+
+    /**
+     * The seed of every game's random number generator, if set with the asteroids.seed system property. Otherwise
+     * every game gets a random seed.
+     */
+    public static final Long SEED = Long.getLong("asteroids.seed");
+
     /**
      * The spaceship object that the player is in control of.
      */
@@ -29,12 +49,52 @@ public class Game extends ObservableGame implements Serializable, GameModeInterf
     /**
      * The list of all bullets currently active in the game.
      */
-    private Collection<Bullet> bullets;
+    private List<Bullet> bullets;
 
     /**
      * The list of all asteroids in the game.
      */
-    protected Collection<Asteroid> asteroids;
+    protected List<Asteroid> asteroids;
+
+    /**
+     * The number of game ticks that have been done since the game was started.
+     */
+    private int tick;
+
+    /**
+     * The seed that the game's random number generator started from.
+     */
+    private long seed;
+
+    /**
+     * The only source of randomness in the game's simulation, such as where asteroids spawn and how they break apart.
+     * Together with the players' inputs on every tick, the seed decides everything that happens in the game, so a game
+     * that is started from the same seed and given the same inputs plays out exactly the same.
+     */
+    private GameRandom random;
+
+    /**
+     * The seed that every new game starts from, or null if every new game gets a random seed.
+     */
+    transient private Long fixedSeed = SEED;
+
+    /**
+     * The state of the game at the end of the latest game tick, or null before the first tick. Replaced by the game
+     * updater after every tick, and read by anything that only needs to look at the game.
+     */
+    transient private volatile WorldSnapshot worldSnapshot;
+
+    /**
+     * Every snapshot that the game updater has published so far, which it writes into again once nobody reads them.
+     * Only used by the thread that updates the game.
+     */
+    transient private WorldSnapshot[] publishedSnapshots = new WorldSnapshot[0];
+
+    /**
+     * The recently received states of the host's game, from which the other players' ships, the asteroids and the
+     * bullets are drawn [CLIENT]. Null if the game is not a multiplayer client.
+     */
+    transient private volatile InterpolationBuffer interpolationBuffer;
 
     /**
      * Indicates whether or not the game is running. Setting this to false causes the game to exit its loop and quit.
@@ -45,7 +105,7 @@ public class Game extends ObservableGame implements Serializable, GameModeInterf
      * The game updater thread, which is responsible for updating the game's state as time goes on.
      */
     transient Thread gameUpdaterThread;
-    private ArrayList<InetAddress> clientList = new ArrayList<>();
+    private ArrayList<InetSocketAddress> clientList = new ArrayList<>();
 
     /**
      * Constructs a new game, with a new spaceship and all other model data in its default starting state.
@@ -60,6 +120,8 @@ public class Game extends ObservableGame implements Serializable, GameModeInterf
      * default starting state before beginning a new game.
      */
     public void initializeGameData() {
+        this.seed = this.fixedSeed != null ? this.fixedSeed : ThreadLocalRandom.current().nextLong();
+        this.random = new GameRandom(this.seed);
         this.bullets = new ArrayList<>();
         this.asteroids = new ArrayList<>();
         this.ship.reset();
@@ -77,6 +139,40 @@ public class Game extends ObservableGame implements Serializable, GameModeInterf
     transient private boolean hosting;
     private GameMode currentGameMode;
 
+    /**
+     * The room of the host's game [CLIENT], or the room that this game is hosted in [HOSTING]. A host can serve many
+     * games in different rooms on the same port.
+     */
+    transient private int roomId = DatagramTransport.DEFAULT_ROOM;
+
+    public int getRoomId() {
+        return this.roomId;
+    }
+
+    public void setRoomId(int roomId) {
+        this.roomId = roomId;
+    }
+
+    /**
+     * Whether this game is run by a dedicated server, which hosts the game for its clients without playing along.
+     */
+    transient private boolean dedicatedServer;
+
+    /**
+     * Makes this game a dedicated server [HOSTING]: its own spaceship is a spectator that is never moved, hit or drawn,
+     * and the game keeps running no matter which ships are destroyed, until it is quit.
+     *
+     * @param dedicatedServer Whether this game is run by a dedicated server.
+     */
+    public void setDedicatedServer(boolean dedicatedServer) {
+        this.dedicatedServer = dedicatedServer;
+        this.ship.setSpectator(dedicatedServer);
+    }
+
+    public boolean isDedicatedServer() {
+        return this.dedicatedServer;
+    }
+
     /**
      * @return The Current Game Mode Type
      */
@@ -123,6 +219,22 @@ public class Game extends ObservableGame implements Serializable, GameModeInterf
         this.hostPort = port;
     }
 
+    /**
+     * @param port Set Host Port (Input String -> int), optionally followed by a slash and the room to join on a
+     *             dedicated server, like "25665/3". Without a room, the default room is joined.
+     * @throws NumberFormatException If the port or room is not a number.
+     */
+    public void setHostPort(String port) {
+        int slash = port.indexOf('/');
+        if (slash < 0) {
+            this.setHostPort(Integer.parseInt(port.trim()));
+            this.setRoomId(DatagramTransport.DEFAULT_ROOM);
+        } else {
+            this.setHostPort(Integer.parseInt(port.substring(0, slash).trim()));
+            this.setRoomId(Integer.parseInt(port.substring(slash + 1).trim()));
+        }
+    }
+
     /**
      * @return The game's spaceship.
      */
@@ -133,28 +245,133 @@ public class Game extends ObservableGame implements Serializable, GameModeInterf
     /**
      * @return The collection of asteroids in the game.
      */
-    public Collection<Asteroid> getAsteroids() {
+    public List<Asteroid> getAsteroids() {
         return this.asteroids;
     }
 
     /**
      * @return The collection of bullets in the game.
      */
-    public Collection<Bullet> getBullets() {
+    public List<Bullet> getBullets() {
         return this.bullets;
     }
 
+    /**
+     * @return The seed that the game's random number generator started from, with which the game can be played again.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Makes this game, and every new game after it, start from the given seed instead of a random one, and restarts
+     * the game's random number generator from it.
+     *
+     * @param seed The seed of the random number generator.
+     */
+    public void setSeed(long seed) {
+        this.fixedSeed = seed;
+        this.seed = seed;
+        this.random = new GameRandom(seed);
+    }
+
+    /**
+     * @return The game's random number generator. Should only be used by the thread that updates the game.
+     */
+    public GameRandom getRandom() {
+        return this.random;
+    }
+
+    /**
+     * @return The number of game ticks that have been done since the game was started.
+     */
+    public int getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Called by the game updater after every game tick.
+     */
+    public void advanceTick() {
+        this.tick++;
+    }
+
+    /**
+     * @return The state of the game at the end of the latest game tick, or null if no tick has been done yet. Should
+     * only be used by the thread that updates the game: other threads use {@link #acquireWorldSnapshot()}, since the
+     * game updater may write into a snapshot again as soon as it has been replaced.
+     */
+    public WorldSnapshot getWorldSnapshot() {
+        return this.worldSnapshot;
+    }
+
+    /**
+     * Takes the state of the game at the end of the latest game tick, and holds it so that the game updater doesn't
+     * write into it while it is read. Every snapshot that is taken this way must be given back with
+     * {@link WorldSnapshot#release()} once it has been read. Can be used from any thread without locking the game.
+     *
+     * @return The latest snapshot, or null if no tick has been done yet.
+     */
+    public WorldSnapshot acquireWorldSnapshot() {
+        while (true) {
+            WorldSnapshot snapshot = this.worldSnapshot;
+            if (snapshot == null) {
+                return null;
+            }
+            snapshot.hold();
+            if (snapshot == this.worldSnapshot) { // Otherwise it was replaced in the meantime, and may be written into.
+                return snapshot;
+            }
+            snapshot.release();
+        }
+    }
+
+    /**
+     * Called by the game updater after every game tick, to publish the new state of the game. The state is copied into
+     * a snapshot that is neither the latest one nor held by a reader, so a tick allocates nothing once there are enough
+     * snapshots for the readers and they are large enough for the game. Without any readers, that is two snapshots: the
+     * latest one, and the one that the next tick is copied into.
+     */
+    public void publishWorldSnapshot() {
+        WorldSnapshot latest = this.worldSnapshot;
+        for (WorldSnapshot snapshot : this.publishedSnapshots) {
+            if (snapshot != latest && !snapshot.isHeld()) {
+                this.worldSnapshot = WorldSnapshot.capture(this, snapshot);
+                return;
+            }
+        }
+        WorldSnapshot snapshot = WorldSnapshot.capture(this);
+        this.publishedSnapshots = Arrays.copyOf(this.publishedSnapshots, this.publishedSnapshots.length + 1);
+        this.publishedSnapshots[this.publishedSnapshots.length - 1] = snapshot;
+        this.worldSnapshot = snapshot;
+    }
+
+    /**
+     * @return The recently received states of the host's game, or null if this is not a multiplayer client. Can be used
+     * from any thread without locking the game.
+     */
+    public InterpolationBuffer getInterpolationBuffer() {
+        return this.interpolationBuffer;
+    }
+
+    public void setInterpolationBuffer(InterpolationBuffer interpolationBuffer) {
+        this.interpolationBuffer = interpolationBuffer;
+    }
+
     /**
      * @return Whether or not the game is running.
      */
-    public synchronized boolean isRunning() {
+    public boolean isRunning() {
         return this.running;
     }
 
     /**
-     * @return True if the player's ship has been destroyed, or false otherwise.
+     * @return True if the player's ship has been destroyed, or false otherwise. Always false for a dedicated server.
      */
     public boolean isGameOver() {
+        if (this.dedicatedServer) {
+            return false;
+        }
         boolean result = this.ship.isDestroyed();
         if (currentGameMode == GameMode.Singleplayer && result) {
             quit();
@@ -165,26 +382,51 @@ public class Game extends ObservableGame implements Serializable, GameModeInterf
     /**
      * Using this game's current model, spools up a new game updater thread to begin a game loop and start processing
      * * user input and physics updates. Only if the game isn't currently running, that is. If the game is multiplayer,
-     * the multiplayer game updater is started.
+     * the game updater is given a multiplayer game updater, which it uses to exchange the game with the other players.
      */
     public void start() {
         if (!this.running) {
             this.running = true;
-            this.gameUpdaterThread = new Thread(new GameUpdater(this));
-            this.gameUpdaterThread.start();
-            announceStart();
+            GameUpdater gameUpdater = new GameUpdater(this);
+            if (this.dedicatedServer) { // Nothing is displayed, so the updater only needs to wake up for ticks.
+                gameUpdater.setRates(GameUpdater.PHYSICS_FPS, 0);
+            }
             if (isMultiplayer) {
-                MultiplayerGameUpdater multiplayerGameUpdater = new MultiplayerGameUpdater(this, this.gameUpdaterThread);
-                this.multiplayerGameUpdater = new Thread(multiplayerGameUpdater);
-                this.multiplayerGameUpdater.start();
+                gameUpdater.setMultiplayerGameUpdater(new MultiplayerGameUpdater(this));
+            } else if (GameUpdater.RECORD_MATCH != null) {
+                try {
+                    gameUpdater.recordMatch(Paths.get(GameUpdater.RECORD_MATCH));
+                }
+                catch (IOException e) {
+                    System.err.println("Could not record the game to " + GameUpdater.RECORD_MATCH);
+                    e.printStackTrace();
+                }
             }
+            this.gameUpdaterThread = new Thread(gameUpdater);
+            this.gameUpdaterThread.start();
+            announceStart();
         }
     }
 
     /**
-     * The Thread used for all Game Updates which are non-physics and multiplayer related
+     * Starts the game like {@link #start()}, but instead of giving it a thread of its own, its ticks are scheduled on the
+     * given scheduler, which can be shared by many games. If the game is multiplayer, it is exchanged over the given
+     * network thread, in the room given by {@link #getRoomId()}. Nothing is displayed.
+     *
+     * @param scheduler The scheduler to run the game's ticks on.
+     * @param transport The network thread that is shared by the games, which must already be running.
      */
-    private transient Thread multiplayerGameUpdater;
+    public void start(ScheduledExecutorService scheduler, DatagramTransport transport) {
+        if (!this.running) {
+            this.running = true;
+            GameUpdater gameUpdater = new GameUpdater(this);
+            if (isMultiplayer) {
+                gameUpdater.setMultiplayerGameUpdater(new MultiplayerGameUpdater(this, transport));
+            }
+            gameUpdater.schedule(scheduler);
+            announceStart();
+        }
+    }
 
     /**
      * Tries to quit the game, if it is running.
@@ -192,9 +434,8 @@ public class Game extends ObservableGame implements Serializable, GameModeInterf
     public void quit() {
         if (this.running) {
             try { // Attempt to wait for the game updater to exit its game loop.
-                this.gameUpdaterThread.join(100);
-                if(isMultiplayer) {
-                    this.multiplayerGameUpdater.join(100);
+                if (this.gameUpdaterThread != null) { // Scheduled games stop at their next tick by themselves.
+                    this.gameUpdaterThread.join(100);
                 }
                 announceDeath();
             }
@@ -251,52 +492,27 @@ public class Game extends ObservableGame implements Serializable, GameModeInterf
     }
 
     /**
-     * @param bullet Bullet recieved via UDP
-     *               Update the existing objects physics,
-     *               otherwise add.
+     * @param ip Recieved IP Address and port (Extracted from incoming packets)
+     *           Check if IP is already connected or not, add appropiately
      */
-    public void addBullet(Bullet bullet) {
-        Iterator<Bullet> bulletIterator = bullets.iterator();
-        Bullet temp;
-        boolean exists = false;
-        while (bulletIterator.hasNext()) {
-            temp = bulletIterator.next();
-            if (temp.getMultiplayerID() == bullet.getMultiplayerID()) {
-                temp.setVelocity(bullet.velocity.x, bullet.velocity.y);
-                temp.setLocation(bullet.location.x, bullet.location.y);
-                exists = true;
-            }
-        }
-        if (!exists) {
-            bullets.add(bullet);
+    public void addClient(InetSocketAddress ip) {
+        if (!clientList.contains(ip)) {
+            clientList.add(ip);
         }
     }
 
     /**
-     * @param list Recieves a list of Asteroids
-     *             Clears current asteroids list, replaces it with the recieved one
-     *             Utilised in Networking on CLIENT side
-     */
-    public void setAsteroids(Collection<Asteroid> list) {
-        this.asteroids.clear();
-        this.asteroids = list;
-    }
-
-    /**
-     * @param ip Recieved IP Address (Extracted from incoming packets)
-     *           Check if IP is already connected or not, add appropiately
+     * @param ip The address and port of a client that has stopped sending, which is no longer sent snapshots.
      */
-    public void addClient(InetAddress ip) {
-        if (!clientList.contains(ip)) {
-            clientList.add(ip);
-        }
+    public void removeClient(InetSocketAddress ip) {
+        clientList.remove(ip);
     }
 
     /**
      * @return The list of connected clients.
      * Utilised by Packet Sender whilst Relaying Packets to all connected clients [HOSTING]
      */
-    public ArrayList<InetAddress> getClients() {
+    public ArrayList<InetSocketAddress> getClients() {
         return this.clientList;
     }
     public void setColour(int i){
@@ -1,10 +1,8 @@
 package aoop.asteroids.model;
 
-import aoop.asteroids.view.AsteroidsFrame;
-
 import java.awt.*;
 import java.io.Serializable;
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class represents any object that is present in a game, such as a bullet, asteroid, or a player's ship. As an
@@ -16,7 +14,19 @@ public abstract class GameObject implements Serializable {
      * An x and y value pair indicating the object's current location.
      */
     protected Point.Double location;
+
+    /**
+     * The number that identifies this object in multiplayer games, so that the same object can be found on every
+     * machine. Every object gets the next number from a shared counter, so no two objects of one game share an id. Only
+     * the host's ids are used in a multiplayer game: clients take over the ids of the objects that the host sends, and
+     * the host gives each client's ship an id of its own, so ids made on different machines never get mixed up.
+     */
     protected int multiplayerID;
+
+    /**
+     * The id that is given to the next object that is made.
+     */
+    private static final AtomicInteger NEXT_MULTIPLAYER_ID = new AtomicInteger();
     /**
      * An x and y value pair indicating the object's current velocity, in pixels per game tick.
      */
@@ -39,6 +49,11 @@ public abstract class GameObject implements Serializable {
      */
     private int stepsUntilCollisionPossible;
 
+    /**
+     * The number of times this object has been reused by an {@link EntityPool}.
+     */
+    private int generation;
+
     /**
      * Constructs a new game object with the specified location, velocity and radius.
      *
@@ -53,8 +68,7 @@ public abstract class GameObject implements Serializable {
         this.velocity = new Point.Double(velocityX, velocityY);
         this.radius = radius;
         this.stepsUntilCollisionPossible = this.getDefaultStepsUntilCollisionPossible();
-        Random r = new Random();
-        this.multiplayerID = r.nextInt(500);
+        this.multiplayerID = NEXT_MULTIPLAYER_ID.getAndIncrement();
     }
 
     /**
@@ -68,14 +82,32 @@ public abstract class GameObject implements Serializable {
         this(location.getX(), location.getY(), velocity.getX(), velocity.getY(), radius);
     }
 
+    /**
+     * Turns a destroyed object into a new one at the given location, for reuse by an {@link EntityPool}. It gets a new
+     * multiplayer id and a new generation, as if it had just been constructed.
+     *
+     * @param locationX The object's new location on the x-axis.
+     * @param locationY The object's new location on the y-axis.
+     * @param velocityX The object's new velocity in X direction.
+     * @param velocityY The object's new velocity in Y direction.
+     */
+    void respawn(double locationX, double locationY, double velocityX, double velocityY) {
+        this.setLocation(locationX, locationY);
+        this.setVelocity(velocityX, velocityY);
+        this.destroyed = false;
+        this.stepsUntilCollisionPossible = this.getDefaultStepsUntilCollisionPossible();
+        this.multiplayerID = NEXT_MULTIPLAYER_ID.getAndIncrement();
+        this.generation++;
+    }
+
     /**
      * Child classes should implement this method to define what happens to an object when the game advances by one game
      * tick in the main loop. The amount of time that passes with each step should be the same, so that movement is
      * uniform even when performance may suffer.
      */
     public void nextStep() {
-        this.location.x = (AsteroidsFrame.WINDOW_SIZE.width + this.location.x + this.velocity.x) % AsteroidsFrame.WINDOW_SIZE.width;
-        this.location.y = (AsteroidsFrame.WINDOW_SIZE.height + this.location.y + this.velocity.y) % AsteroidsFrame.WINDOW_SIZE.height;
+        this.location.x = (Game.WORLD_WIDTH + this.location.x + this.velocity.x) % Game.WORLD_WIDTH;
+        this.location.y = (Game.WORLD_HEIGHT + this.location.y + this.velocity.y) % Game.WORLD_HEIGHT;
         if (this.stepsUntilCollisionPossible > 0) {
             this.stepsUntilCollisionPossible--;
         }
@@ -157,6 +189,20 @@ public abstract class GameObject implements Serializable {
      */
     protected abstract int getDefaultStepsUntilCollisionPossible();
 
+    /**
+     * @return The number of steps, or game ticks, that are left before this object is allowed to collide.
+     */
+    public int getStepsUntilCollisionPossible() {
+        return this.stepsUntilCollisionPossible;
+    }
+
+    /**
+     * @param steps The number of steps, or game ticks, before this object is allowed to collide.
+     */
+    public void setStepsUntilCollisionPossible(int steps) {
+        this.stepsUntilCollisionPossible = steps;
+    }
+
     public String getType() {
         return "GAMEOBJECT";
     }
@@ -169,4 +215,12 @@ public abstract class GameObject implements Serializable {
         return this.multiplayerID;
     }
 
+    /**
+     * @return The number of times this object has been reused. Something that keeps a reference to an object across
+     * game ticks can compare this to tell whether the object is still the one it was given.
+     */
+    public int getGeneration() {
+        return this.generation;
+    }
+
 }
@@ -0,0 +1,58 @@
+package aoop.asteroids.model;
+
+import java.util.Random;
+
+/**
+ * The random number generator of a game. It gives exactly the same numbers as {@link Random} with the same seed, but
+ * its state can also be read and restored, so that a game can be saved in the middle and continued from there with the
+ * same random numbers as the original, see {@link aoop.asteroids.control.MatchRecorder}.
+ * <p>
+ * Only the numbers that are made from {@link #next(int)} are covered, which is all of them except
+ * {@link #nextGaussian()}, which the game doesn't use.
+ */
+public class GameRandom extends Random {
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    /**
+     * The same 48 bits of state that {@link Random} keeps. Set by {@link #setSeed(long)}, which the constructor of
+     * {@link Random} calls.
+     */
+    private long state;
+
+    /**
+     * @param seed The seed to start from.
+     */
+    public GameRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        this.state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        this.state = (this.state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (this.state >>> (48 - bits));
+    }
+
+    /**
+     * @return The current state of the generator, from which it can be continued with {@link #setState(long)}.
+     */
+    public long getState() {
+        return this.state;
+    }
+
+    /**
+     * Continues the generator from a state that was read with {@link #getState()}.
+     *
+     * @param state The state to continue from.
+     */
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+}
@@ -1,7 +1,7 @@
 package aoop.asteroids.model;
 
 import aoop.asteroids.game_observer.GameModeInterface;
-import aoop.asteroids.view.AsteroidsFrame;
+import aoop.asteroids.multiplayer.InputHistory;
 
 import java.awt.*;
 import java.io.Serializable;
@@ -18,6 +18,14 @@ import java.io.Serializable;
  * to perform some action, the spaceship will simply remain idle until it has recharged its batteries.
  */
 public class Spaceship extends GameObject implements Serializable, GameModeInterface {
+    /*
+     * Bits of the input bitmask, see {@link #getInputs()}.
+     */
+    public static final int INPUT_ACCELERATE = 1;
+    public static final int INPUT_TURN_LEFT = 1 << 1;
+    public static final int INPUT_TURN_RIGHT = 1 << 2;
+    public static final int INPUT_FIRE = 1 << 3;
+
     /**
      * The maximum speed that the spaceship is allowed to reach before extra acceleration will not do anything.
      */
@@ -89,6 +97,10 @@ public class Spaceship extends GameObject implements Serializable, GameModeInter
         return health;
     }
 
+    public void setHealth(double health) {
+        this.health = health;
+    }
+
     public void decreaseHealth(double health) {
         this.health -= health;
         if (this.health <= 0) {
@@ -125,8 +137,21 @@ public class Spaceship extends GameObject implements Serializable, GameModeInter
      */
     private boolean turnLeftKeyPressed;
 
+    /**
+     * The keys that the player is holding down on the keyboard, as a bitmask of the INPUT_ constants. Only changed by
+     * the key listener, and only read by the game updater at the start of a tick, which then presses the same buttons
+     * for the whole tick, so that a key that is pressed halfway through a tick can't change the tick's outcome.
+     */
+    private volatile int pressedKeys;
+
     private int coopPointsToAdd;
 
+    /**
+     * The number of the last input that the ship's client sent and the host applied [HOST]. Sent back to the client, so
+     * that it knows which of its inputs the ship's state already includes.
+     */
+    private int inputSequence = InputHistory.NO_INPUT;
+
     private String username = "";
 
     /**
@@ -134,7 +159,7 @@ public class Spaceship extends GameObject implements Serializable, GameModeInter
      * with no velocity.
      */
     public Spaceship() {
-        super(AsteroidsFrame.WINDOW_SIZE.width / 2, AsteroidsFrame.WINDOW_SIZE.height / 2, 0, 0, 15);
+        super(Game.WORLD_WIDTH / 2, Game.WORLD_HEIGHT / 2, 0, 0, 15);
         this.reset();
     }
 
@@ -142,8 +167,8 @@ public class Spaceship extends GameObject implements Serializable, GameModeInter
      * Resets all parameters to default values, so a new game can be started.
      */
     public void reset() {
-        this.getLocation().x = AsteroidsFrame.WINDOW_SIZE.width / 2;
-        this.getLocation().y = AsteroidsFrame.WINDOW_SIZE.height / 2;
+        this.getLocation().x = Game.WORLD_WIDTH / 2;
+        this.getLocation().y = Game.WORLD_HEIGHT / 2;
         this.getVelocity().x = 0;
         this.getVelocity().y = 0;
         this.direction = 0;
@@ -151,6 +176,7 @@ public class Spaceship extends GameObject implements Serializable, GameModeInter
         this.accelerateKeyPressed = false;
         this.turnLeftKeyPressed = false;
         this.turnRightKeyPressed = false;
+        this.pressedKeys = 0;
         this.destroyed = false;
         this.weaponCooldownRemaining = 0;
         this.score = 0;
@@ -217,6 +243,48 @@ public class Spaceship extends GameObject implements Serializable, GameModeInter
         this.accelerateKeyPressed = b;
     }
 
+    /**
+     * @return The buttons that the player is pressing, as a bitmask of the INPUT_ constants. This is all that a client
+     * sends to the host about its ship.
+     */
+    public int getInputs() {
+        int inputs = 0;
+        inputs |= this.accelerateKeyPressed ? INPUT_ACCELERATE : 0;
+        inputs |= this.turnLeftKeyPressed ? INPUT_TURN_LEFT : 0;
+        inputs |= this.turnRightKeyPressed ? INPUT_TURN_RIGHT : 0;
+        inputs |= this.isFiring ? INPUT_FIRE : 0;
+        return inputs;
+    }
+
+    /**
+     * Remembers that the player pressed or released a key, which takes effect at the start of the next tick.
+     *
+     * @param input   The button that the key controls, as one of the INPUT_ constants.
+     * @param pressed Whether the key was pressed, or released.
+     */
+    public void setKeyPressed(int input, boolean pressed) {
+        this.pressedKeys = pressed ? this.pressedKeys | input : this.pressedKeys & ~input;
+    }
+
+    /**
+     * @return The keys that the player is holding down on the keyboard, as a bitmask of the INPUT_ constants.
+     */
+    public int getPressedKeys() {
+        return this.pressedKeys;
+    }
+
+    /**
+     * Presses and releases buttons, as if the player did.
+     *
+     * @param inputs The buttons to press, as a bitmask of the INPUT_ constants. All others are released.
+     */
+    public void setInputs(int inputs) {
+        this.accelerateKeyPressed = (inputs & INPUT_ACCELERATE) != 0;
+        this.turnLeftKeyPressed = (inputs & INPUT_TURN_LEFT) != 0;
+        this.turnRightKeyPressed = (inputs & INPUT_TURN_RIGHT) != 0;
+        this.isFiring = (inputs & INPUT_FIRE) != 0;
+    }
+
     /**
      * Defines how the spaceship moves. This includes rotating the ship if the user is pressing the key to turn the
      * ship, or accelerating the ship, or firing the weapon.
@@ -267,8 +335,9 @@ public class Spaceship extends GameObject implements Serializable, GameModeInter
      */
     private void attemptToAccelerate() {
         if (this.accelerateKeyPressed && this.energy >= ACCELERATION_ENERGY_COST && this.getSpeed() < MAXIMUM_SPEED) {
-            this.getVelocity().x += Math.sin(direction) * ACCELERATION_PER_TICK;
-            this.getVelocity().y -= Math.cos(direction) * ACCELERATION_PER_TICK; // Note that we subtract here, because the y-axis on the screen is flipped, compared to normal math.
+            // StrictMath gives the same result on every machine, which a replayed or reproduced game relies on.
+            this.getVelocity().x += StrictMath.sin(direction) * ACCELERATION_PER_TICK;
+            this.getVelocity().y -= StrictMath.cos(direction) * ACCELERATION_PER_TICK; // Note that we subtract here, because the y-axis on the screen is flipped, compared to normal math.
             this.energy -= ACCELERATION_ENERGY_COST;
         }
     }
@@ -314,6 +383,43 @@ public class Spaceship extends GameObject implements Serializable, GameModeInter
         this.direction = direction;
     }
 
+    /**
+     * @return The amount of energy stored on the ship.
+     */
+    public double getEnergy() {
+        return this.energy;
+    }
+
+    /**
+     * @param energy The new amount of energy. Used when a spaceship's state is received over the network.
+     */
+    public void setEnergy(double energy) {
+        this.energy = energy;
+    }
+
+    /**
+     * @return The number of game ticks left until the weapon can fire again.
+     */
+    public int getWeaponCooldownRemaining() {
+        return this.weaponCooldownRemaining;
+    }
+
+    /**
+     * @param weaponCooldownRemaining The new number of ticks until the weapon can fire again. Used when a spaceship's
+     *                                state is received over the network.
+     */
+    public void setWeaponCooldownRemaining(int weaponCooldownRemaining) {
+        this.weaponCooldownRemaining = weaponCooldownRemaining;
+    }
+
+    public int getInputSequence() {
+        return this.inputSequence;
+    }
+
+    public void setInputSequence(int inputSequence) {
+        this.inputSequence = inputSequence;
+    }
+
     /**
      * @return The percentage of energy that is available on the ship, out of the total capacity.
      */
@@ -364,6 +470,13 @@ public class Spaceship extends GameObject implements Serializable, GameModeInter
         return this.score;
     }
 
+    /**
+     * @param score The new score. Used when a spaceship's state is received over the network.
+     */
+    public void setScore(int score) {
+        this.score = score;
+    }
+
     public Color getShipColour() {
         return this.shipColour;
     }
@@ -0,0 +1,509 @@
+package aoop.asteroids.model;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A copy of the state of a game at the end of one game tick.
+ * <p>
+ * The game updater takes a snapshot after every tick and publishes it with {@link Game#publishWorldSnapshot()}.
+ * Everything that only needs to look at the game, such as the panel that draws it or the code that sends it to other
+ * players, reads the latest snapshot instead of the live game objects, without taking a lock. A slow reader never holds
+ * up the next game tick: the updater simply publishes a new snapshot next to the old one, and the reader moves on to it
+ * the next time it asks.
+ * <p>
+ * The updater doesn't make a new snapshot every tick, but writes into the ones it made before with
+ * {@link #capture(Game, WorldSnapshot)}, so that a tick allocates nothing once the arrays are large enough. A reader on
+ * another thread therefore takes the latest snapshot with {@link Game#acquireWorldSnapshot()}, which holds it until the
+ * reader calls {@link #release()}. The updater never writes into a snapshot that is held, so it doesn't change while it
+ * is read, however many ticks the updater does in the meantime; if every snapshot is held, the updater makes another
+ * one.
+ * <p>
+ * Every property of the asteroids, bullets and spaceships is kept in its own array, where row i of each array belongs
+ * to the same object.
+ */
+public final class WorldSnapshot implements GameModeInterface {
+    private int tick;
+    private GameMode gameMode;
+    private final ObjectTable asteroids = new ObjectTable();
+    private final ObjectTable bullets = new ObjectTable();
+
+    /**
+     * The spaceships of the other players.
+     */
+    private final ShipTable ships = new ShipTable();
+
+    /**
+     * The player's own spaceship, as the only row of the table.
+     */
+    private final ShipTable player = new ShipTable();
+
+    /**
+     * The value of System.nanoTime() when the snapshot was taken.
+     */
+    private long capturedNanos;
+
+    /**
+     * The number of readers that currently hold this snapshot.
+     */
+    private final AtomicInteger readers = new AtomicInteger();
+
+    private WorldSnapshot() {
+    }
+
+    /**
+     * Copies the current state of the given game into a new snapshot, which is never changed afterwards. Should only be
+     * called by the thread that updates the game, or while holding its lock.
+     *
+     * @param game The game to take a snapshot of.
+     * @return A new snapshot.
+     */
+    public static WorldSnapshot capture(Game game) {
+        return capture(game, null);
+    }
+
+    /**
+     * Copies the current state of the given game into a snapshot that was taken before, reusing its arrays if they are
+     * large enough. Nothing may be reading that snapshot anymore, so it must not be {@link #isHeld() held}. Should only
+     * be called by the thread that updates the game, or while holding its lock.
+     *
+     * @param game   The game to take a snapshot of.
+     * @param reused The snapshot to write into, or null to make a new one.
+     * @return The snapshot that was written into.
+     */
+    public static WorldSnapshot capture(Game game, WorldSnapshot reused) {
+        WorldSnapshot snapshot = reused != null ? reused : new WorldSnapshot();
+        snapshot.tick = game.getTick();
+        snapshot.gameMode = game.getCurrentGameMode();
+        snapshot.asteroids.copy(game.getAsteroids());
+        snapshot.bullets.copy(game.getBullets());
+        snapshot.ships.copy(game.getSpaceships());
+        snapshot.player.copy(game.getSpaceship());
+        snapshot.capturedNanos = System.nanoTime();
+        return snapshot;
+    }
+
+    /**
+     * Holds on to this snapshot for a reader, so that it is not written into until the reader releases it again. A
+     * reader should only hold a snapshot while it is still published by whoever writes into it, which it has to check
+     * after holding it; see {@link Game#acquireWorldSnapshot()}.
+     */
+    public void hold() {
+        this.readers.incrementAndGet();
+    }
+
+    /**
+     * Lets go of this snapshot once a reader is done with it, so that it can be written into again.
+     */
+    public void release() {
+        this.readers.decrementAndGet();
+    }
+
+    /**
+     * @return Whether any reader holds this snapshot.
+     */
+    public boolean isHeld() {
+        return this.readers.get() != 0;
+    }
+
+    /**
+     * @return The game tick at which the snapshot was taken.
+     */
+    public int getTick() {
+        return this.tick;
+    }
+
+    /**
+     * @return The value of System.nanoTime() when the snapshot was taken, from which a renderer that doesn't run along
+     * with the game updater can tell how long ago the tick was.
+     */
+    public long getCapturedNanos() {
+        return this.capturedNanos;
+    }
+
+    public GameMode getGameMode() {
+        return this.gameMode;
+    }
+
+    public ObjectTable getAsteroids() {
+        return this.asteroids;
+    }
+
+    public ObjectTable getBullets() {
+        return this.bullets;
+    }
+
+    /**
+     * @return The spaceships of the other players. For the host, these are the clients' ships, and for a client, these
+     * are the host's ship and the ships of the other clients.
+     */
+    public ShipTable getShips() {
+        return this.ships;
+    }
+
+    /**
+     * @return The player's own spaceship, in row 0 of the table.
+     */
+    public ShipTable getPlayer() {
+        return this.player;
+    }
+
+    /**
+     * Sums up the state of the simulation in one number, so that two runs of the same game can be compared tick by tick
+     * to find the first tick at which they went apart. Multiplayer ids and anything that is only drawn, such as names
+     * and colours, are left out, since they don't influence what happens in the game.
+     *
+     * @return A hash of the positions, velocities and other simulated properties of every object.
+     */
+    public long checksum() {
+        long hash = this.asteroids.checksum(17);
+        hash = this.bullets.checksum(hash);
+        hash = this.ships.checksum(hash);
+        return this.player.checksum(hash);
+    }
+
+    /**
+     * The state of a number of asteroids or bullets.
+     */
+    public static class ObjectTable {
+        private int size;
+        private int[] ids = new int[0];
+        private double[] locationX = new double[0], locationY = new double[0];
+        private double[] velocityX = new double[0], velocityY = new double[0];
+        private double[] radii = new double[0];
+        /**
+         * The ordinal of the AsteroidSize, for asteroids. Zero for anything else.
+         */
+        private int[] sizes = new int[0];
+        private int[] stepsUntilCollisionPossible = new int[0];
+        /**
+         * The remaining lifetime, for bullets. Zero for anything else.
+         */
+        private int[] stepsLeft = new int[0];
+        private boolean[] destroyed = new boolean[0];
+
+        /**
+         * The row of every id, plus one, so that zero marks a free slot. Ids are found the same way as in an
+         * {@link aoop.asteroids.util.IntObjectMap}: an id goes in the first free slot at or after its hash. The index is
+         * built while the table is copied, so that looking up a row never changes the table, and can be done by any
+         * number of threads at once.
+         */
+        private int[] index = new int[2];
+
+        ObjectTable() {
+        }
+
+        /**
+         * Copies a number of objects into this table, replacing what it held before.
+         */
+        void copy(Collection<? extends GameObject> objects) {
+            this.resize(objects.size());
+            if (objects instanceof List && objects instanceof RandomAccess) { // Not even an iterator is allocated.
+                List<? extends GameObject> list = (List<? extends GameObject>) objects;
+                for (int row = 0; row < this.size; row++) {
+                    this.copyRow(list.get(row), row);
+                }
+            } else {
+                int row = 0;
+                for (GameObject object : objects) {
+                    this.copyRow(object, row++);
+                }
+            }
+            this.buildIndex();
+        }
+
+        /**
+         * Copies a single object into this table, replacing what it held before.
+         */
+        void copy(GameObject object) {
+            this.resize(1);
+            this.copyRow(object, 0);
+            this.buildIndex();
+        }
+
+        /**
+         * Sets the number of rows, and makes the arrays larger if they can't hold that many. Arrays are never made
+         * smaller, so that a table that is copied into over and over again stops allocating once the game stops growing.
+         */
+        void resize(int size) {
+            if (size > this.ids.length) {
+                this.grow(Math.max(size, this.ids.length * 2));
+            }
+            this.size = size;
+        }
+
+        /**
+         * Replaces every array by an empty one of the given length.
+         */
+        void grow(int capacity) {
+            this.ids = new int[capacity];
+            this.locationX = new double[capacity];
+            this.locationY = new double[capacity];
+            this.velocityX = new double[capacity];
+            this.velocityY = new double[capacity];
+            this.radii = new double[capacity];
+            this.sizes = new int[capacity];
+            this.stepsUntilCollisionPossible = new int[capacity];
+            this.stepsLeft = new int[capacity];
+            this.destroyed = new boolean[capacity];
+        }
+
+        void copyRow(GameObject object, int row) {
+            this.ids[row] = object.getMultiplayerID();
+            this.locationX[row] = object.getLocation().x;
+            this.locationY[row] = object.getLocation().y;
+            this.velocityX[row] = object.getVelocity().x;
+            this.velocityY[row] = object.getVelocity().y;
+            this.radii[row] = object.getRadius();
+            this.sizes[row] = object instanceof Asteroid ? ((Asteroid) object).getSize().ordinal() : 0;
+            this.stepsLeft[row] = object instanceof Bullet ? ((Bullet) object).getStepsLeft() : 0;
+            this.stepsUntilCollisionPossible[row] = object.getStepsUntilCollisionPossible();
+            this.destroyed[row] = object.isDestroyed();
+        }
+
+        /**
+         * Puts the row of every id in the index. The index is at most half full.
+         */
+        private void buildIndex() {
+            int capacity = Integer.highestOneBit(Math.max(2, this.size) * 2 - 1) << 1;
+            if (capacity > this.index.length) {
+                this.index = new int[capacity];
+            } else {
+                Arrays.fill(this.index, 0);
+            }
+            int mask = this.index.length - 1;
+            for (int row = 0; row < this.size; row++) {
+                int slot = slotOf(this.ids[row], mask);
+                while (this.index[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                this.index[slot] = row + 1;
+            }
+        }
+
+        private static int slotOf(int id, int mask) {
+            int hash = id * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * @param hash The hash so far.
+         * @return The hash, combined with the simulated properties of every row.
+         */
+        long checksum(long hash) {
+            hash = mix(hash, this.size);
+            for (int row = 0; row < this.size; row++) {
+                hash = mix(hash, Double.doubleToLongBits(this.locationX[row]));
+                hash = mix(hash, Double.doubleToLongBits(this.locationY[row]));
+                hash = mix(hash, Double.doubleToLongBits(this.velocityX[row]));
+                hash = mix(hash, Double.doubleToLongBits(this.velocityY[row]));
+                hash = mix(hash, this.sizes[row]);
+                hash = mix(hash, this.stepsUntilCollisionPossible[row]);
+                hash = mix(hash, this.stepsLeft[row]);
+                hash = mix(hash, this.destroyed[row] ? 1 : 0);
+            }
+            return hash;
+        }
+
+        static long mix(long hash, long value) {
+            return hash * 31 + value;
+        }
+
+        public int getId(int row) {
+            return this.ids[row];
+        }
+
+        /**
+         * @param id The multiplayer id of an object.
+         * @return The row of the object with that id, or -1 if it isn't in this table.
+         */
+        public int rowOf(int id) {
+            int mask = this.index.length - 1;
+            for (int slot = slotOf(id, mask); this.index[slot] != 0; slot = (slot + 1) & mask) {
+                int row = this.index[slot] - 1;
+                if (this.ids[row] == id) {
+                    return row;
+                }
+            }
+            return -1;
+        }
+
+        public double getLocationX(int row) {
+            return this.locationX[row];
+        }
+
+        public double getLocationY(int row) {
+            return this.locationY[row];
+        }
+
+        public double getVelocityX(int row) {
+            return this.velocityX[row];
+        }
+
+        public double getVelocityY(int row) {
+            return this.velocityY[row];
+        }
+
+        public double getRadius(int row) {
+            return this.radii[row];
+        }
+
+        public int getSize(int row) {
+            return this.sizes[row];
+        }
+
+        public int getStepsUntilCollisionPossible(int row) {
+            return this.stepsUntilCollisionPossible[row];
+        }
+
+        public int getStepsLeft(int row) {
+            return this.stepsLeft[row];
+        }
+
+        public boolean isDestroyed(int row) {
+            return this.destroyed[row];
+        }
+    }
+
+    /**
+     * The state of a number of spaceships.
+     */
+    public static class ShipTable extends ObjectTable {
+        private double[] directions;
+        private boolean[] accelerating;
+        private boolean[] spectators;
+        private GameMode[] gameModes;
+        /**
+         * The colour of each ship, which may be null if it was never chosen.
+         */
+        private Color[] colours;
+        private String[] usernames;
+        private int[] scores;
+        private int[] coopScores;
+        private double[] health;
+        private double[] energyPercentages;
+        private double[] energies;
+        private int[] weaponCooldowns;
+        /**
+         * The number of the last client input that the host applied to each ship.
+         */
+        private int[] inputSequences;
+
+        ShipTable() {
+            this.grow(0);
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            this.directions = new double[capacity];
+            this.accelerating = new boolean[capacity];
+            this.spectators = new boolean[capacity];
+            this.gameModes = new GameMode[capacity];
+            this.colours = new Color[capacity];
+            this.usernames = new String[capacity];
+            this.scores = new int[capacity];
+            this.coopScores = new int[capacity];
+            this.health = new double[capacity];
+            this.energyPercentages = new double[capacity];
+            this.energies = new double[capacity];
+            this.weaponCooldowns = new int[capacity];
+            this.inputSequences = new int[capacity];
+        }
+
+        @Override
+        void copyRow(GameObject object, int row) {
+            super.copyRow(object, row);
+            Spaceship ship = (Spaceship) object;
+            this.directions[row] = ship.getDirection();
+            this.accelerating[row] = ship.isAccelerating();
+            this.spectators[row] = ship.isSpectator();
+            this.gameModes[row] = ship.getCurrentGameMode();
+            this.colours[row] = ship.getShipColour();
+            this.usernames[row] = ship.getUsername();
+            this.scores[row] = ship.getScore();
+            this.coopScores[row] = ship.getCOOPScore();
+            this.health[row] = ship.getHealth();
+            this.energyPercentages[row] = ship.getEnergyPercentage();
+            this.energies[row] = ship.getEnergy();
+            this.weaponCooldowns[row] = ship.getWeaponCooldownRemaining();
+            this.inputSequences[row] = ship.getInputSequence();
+        }
+
+        public double getDirection(int row) {
+            return this.directions[row];
+        }
+
+        public boolean isAccelerating(int row) {
+            return this.accelerating[row];
+        }
+
+        public boolean isSpectator(int row) {
+            return this.spectators[row];
+        }
+
+        public GameMode getGameMode(int row) {
+            return this.gameModes[row];
+        }
+
+        public Color getColour(int row) {
+            return this.colours[row];
+        }
+
+        public String getUsername(int row) {
+            return this.usernames[row];
+        }
+
+        public int getScore(int row) {
+            return this.scores[row];
+        }
+
+        public int getCOOPScore(int row) {
+            return this.coopScores[row];
+        }
+
+        public double getHealth(int row) {
+            return this.health[row];
+        }
+
+        public double getEnergyPercentage(int row) {
+            return this.energyPercentages[row];
+        }
+
+        public double getEnergy(int row) {
+            return this.energies[row];
+        }
+
+        public int getWeaponCooldown(int row) {
+            return this.weaponCooldowns[row];
+        }
+
+        public int getInputSequence(int row) {
+            return this.inputSequences[row];
+        }
+
+        @Override
+        long checksum(long hash) {
+            hash = super.checksum(hash);
+            for (int row = 0; row < this.size(); row++) {
+                hash = mix(hash, Double.doubleToLongBits(this.directions[row]));
+                hash = mix(hash, this.scores[row]);
+                hash = mix(hash, this.coopScores[row]);
+                hash = mix(hash, Double.doubleToLongBits(this.health[row]));
+                hash = mix(hash, Double.doubleToLongBits(this.energies[row]));
+                hash = mix(hash, this.weaponCooldowns[row]);
+            }
+            return hash;
+        }
+    }
+}
@@ -1,12 +1,81 @@
 package aoop.asteroids.multiplayer;
 
-import aoop.asteroids.model.Bullet;
-import aoop.asteroids.model.Spaceship;
+import aoop.asteroids.model.WorldSnapshot;
 
-import java.io.Serializable;
-import java.util.Collection;
+import java.net.InetSocketAddress;
 
-public class DataPacket_Client implements Serializable {
-    public Collection<Bullet> bulletList;
-    public Spaceship player;
+/**
+ * What a client sends to the host: which ship it plays, and which buttons its player pressed on the last few ticks.
+ * The host simulates the client's ship itself from these inputs, so the ship's location, velocity and bullets are not
+ * sent. Like the game snapshot, the same object is filled again for every packet.
+ */
+public class DataPacket_Client {
+    /**
+     * The number of most recent inputs that every packet holds. An input is only lost if this many packets in a row
+     * are lost.
+     */
+    public static final int INPUT_REDUNDANCY = 8;
+
+    /**
+     * The number of the newest game snapshot that the client has received, so that the host knows what it can send
+     * the differences from. {@link SnapshotHistory#NO_SNAPSHOT} if none has been received yet.
+     */
+    public int acknowledgedSnapshot = SnapshotHistory.NO_SNAPSHOT;
+    /**
+     * The room of the host's game that the client plays in, filled in by the transport that sends the packet.
+     */
+    public int room;
+    /**
+     * The client's ship. Only its identity is sent: id, game mode, colour and username.
+     */
+    public final ShipState player = new ShipState();
+
+    /**
+     * The sequence number of the newest input in this packet, or {@link InputHistory#NO_INPUT}.
+     */
+    public int inputSequence = InputHistory.NO_INPUT;
+
+    /**
+     * The inputs, newest first, as bitmasks of the Spaceship.INPUT_ constants. Input i has sequence number
+     * inputSequence - i.
+     */
+    final byte[] inputs = new byte[INPUT_REDUNDANCY];
+    int inputCount;
+
+    /**
+     * The address and port that the packet was received from [HOSTING], which is where the client receives snapshots.
+     * Not sent over the network.
+     */
+    public InetSocketAddress sender;
+
+    /**
+     * Overwrites this packet with the client's ship in the given state of its game, and its most recent inputs.
+     *
+     * @param world  The state of the client's game at the end of a tick.
+     * @param inputs The client's inputs, up to and including the tick of the world.
+     */
+    public void capture(WorldSnapshot world, InputHistory inputs) {
+        this.player.capture(world.getPlayer(), 0);
+        this.inputSequence = inputs.getLatestSequence();
+        this.inputCount = 0;
+        while (this.inputCount < INPUT_REDUNDANCY && inputs.contains(this.inputSequence - this.inputCount)) {
+            this.inputs[this.inputCount] = (byte) inputs.get(this.inputSequence - this.inputCount);
+            this.inputCount++;
+        }
+    }
+
+    /**
+     * @return The number of inputs in this packet.
+     */
+    public int getInputCount() {
+        return this.inputCount;
+    }
+
+    /**
+     * @param index The index of an input, where 0 is the newest.
+     * @return The input with sequence number inputSequence - index.
+     */
+    public int getInput(int index) {
+        return this.inputs[index];
+    }
 }
@@ -1,13 +1,151 @@
 package aoop.asteroids.multiplayer;
 
+import aoop.asteroids.game_observer.GameModeInterface;
 import aoop.asteroids.model.Game;
+import aoop.asteroids.model.WorldSnapshot;
 
-import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
-public class DataPacket_Game implements Serializable {
-    public Game gameSnapshot;
+/**
+ * A snapshot of the host's game, as it is sent to every client. The same snapshot object is filled again for every
+ * packet, so that sending and receiving the world doesn't create new objects every time.
+ */
+public class DataPacket_Game implements GameModeInterface {
+    /**
+     * The own ship of a client that has no ship (yet), such as a spectator.
+     */
+    public static final int NO_SHIP = -1;
 
-    public DataPacket_Game(Game snapshot) {
-        this.gameSnapshot = snapshot;
+    /**
+     * The number of this snapshot, given by the host's {@link SnapshotHistory}.
+     */
+    public int sequence = SnapshotHistory.NO_SNAPSHOT;
+    /**
+     * The room of the host's game, filled in by the transport that sends the snapshot.
+     */
+    public int room;
+    /**
+     * The host's game tick at which the snapshot was taken.
+     */
+    public int tick;
+    public GameMode gameMode;
+    /**
+     * The id that the host gave the receiving client's own ship, or {@link #NO_SHIP}. Every client is sent its own id,
+     * so that it can tell which of the ships is its own [CLIENT].
+     */
+    public int ownShip = NO_SHIP;
+    /**
+     * The host's own spaceship.
+     */
+    public final ShipState host = new ShipState();
+    public final EntityStateTable asteroids = new EntityStateTable();
+    public final EntityStateTable bullets = new EntityStateTable();
+
+    /**
+     * The spaceships of the connected clients. Only the first shipCount states are in use; the rest are kept around to
+     * be filled by later snapshots.
+     */
+    private final List<ShipState> ships = new ArrayList<>();
+    private int shipCount;
+
+    /**
+     * The clients that the host sends this snapshot to, and the id of each client's own ship, which is sent to that
+     * client only. Not sent over the network [HOSTING].
+     */
+    private final List<InetSocketAddress> recipients = new ArrayList<>();
+    private int[] recipientShips = new int[8];
+
+    /**
+     * The value of System.nanoTime() when the client received this snapshot [CLIENT]. Not sent over the network.
+     */
+    public long receivedNanos;
+
+    /**
+     * Overwrites this snapshot with the current state of the given game.
+     *
+     * @param game The game to take a snapshot of.
+     */
+    public void capture(Game game) {
+        this.capture(WorldSnapshot.capture(game));
+    }
+
+    /**
+     * Overwrites this snapshot with the given state of the host's game.
+     *
+     * @param world The state of the game at the end of a tick.
+     */
+    public void capture(WorldSnapshot world) {
+        this.tick = world.getTick();
+        this.gameMode = world.getGameMode();
+        this.host.capture(world.getPlayer(), 0);
+        this.clearShips();
+        for (int row = 0; row < world.getShips().size(); row++) {
+            this.addShip().capture(world.getShips(), row);
+        }
+        this.asteroids.capture(world.getAsteroids(), this.tick);
+        this.bullets.capture(world.getBullets(), this.tick);
+    }
+
+    /**
+     * Removes all client spaceships from the snapshot.
+     */
+    public void clearShips() {
+        this.shipCount = 0;
+    }
+
+    /**
+     * @return A ship state that has been added to the end of the list of client spaceships, to be filled in.
+     */
+    public ShipState addShip() {
+        if (this.shipCount == this.ships.size()) {
+            this.ships.add(new ShipState());
+        }
+        return this.ships.get(this.shipCount++);
+    }
+
+    /**
+     * Removes all recipients from the snapshot.
+     */
+    public void clearRecipients() {
+        this.recipients.clear();
+    }
+
+    /**
+     * @param address The address and port of a client to send the snapshot to.
+     * @param ownShip The id of the client's own ship, or {@link #NO_SHIP}.
+     */
+    public void addRecipient(InetSocketAddress address, int ownShip) {
+        if (this.recipients.size() == this.recipientShips.length) {
+            this.recipientShips = Arrays.copyOf(this.recipientShips, this.recipientShips.length * 2);
+        }
+        this.recipientShips[this.recipients.size()] = ownShip;
+        this.recipients.add(address);
+    }
+
+    public int getRecipientCount() {
+        return this.recipients.size();
+    }
+
+    public InetSocketAddress getRecipient(int index) {
+        return this.recipients.get(index);
+    }
+
+    /**
+     * @param index The index of a recipient.
+     * @return The id of the recipient's own ship, or {@link #NO_SHIP}.
+     */
+    public int getRecipientShip(int index) {
+        return this.recipientShips[index];
+    }
+
+    public int getShipCount() {
+        return this.shipCount;
+    }
+
+    public ShipState getShip(int index) {
+        return this.ships.get(index);
     }
 }
@@ -0,0 +1,612 @@
+package aoop.asteroids.multiplayer;
+
+import aoop.asteroids.metrics.SnapshotDecodeEvent;
+import aoop.asteroids.metrics.SnapshotEncodeEvent;
+import aoop.asteroids.metrics.TransportMetrics;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The thread that does all of the networking of a multiplayer game, for the host and for clients alike. It uses a
+ * single non-blocking channel, and a selector to wait until there is something to receive or to send, so one thread can
+ * serve any number of clients.
+ * <p>
+ * A host's transport can serve several games at once, each in its own {@link Room}. Every packet carries the id of its
+ * room, and received packets are passed on to the room they belong to, so all of the games share one port. A client's
+ * transport has a single room, the one of the game it joined.
+ * <p>
+ * Received packets are decoded on this thread, and handed to the game through a {@link PacketQueue}. Packets to be sent
+ * are handed to this thread in the same way. If several are waiting, only the newest one is sent, since it replaces
+ * the others anyway.
+ * <p>
+ * Every datagram is received into and sent from direct buffers, so that the data doesn't need to be copied between the
+ * Java heap and the operating system.
+ * <p>
+ * A host only remembers a client for as long as it keeps sending: one that has been silent for
+ * {@link #PEER_TIMEOUT_MILLIS} is forgotten, so addresses that sent a single packet don't pile up. A client only accepts
+ * snapshots that come from the host's address.
+ * <p>
+ * Every packet that is sent, received or dropped is counted, see {@link TransportMetrics}. Packets are also counted
+ * for the peer they were exchanged with: the host of a client, or a client that the host has heard from recently.
+ * Packets from anywhere else only count towards the total. The counts are shown through JMX while the thread runs. Encoding and decoding snapshots is
+ * recorded as Flight Recorder events, see {@link SnapshotEncodeEvent} and {@link SnapshotDecodeEvent}.
+ */
+public class DatagramTransport extends Thread {
+    /**
+     * The port that the host receives packets on.
+     */
+    public static final int DEFAULT_PORT = 25665;
+
+    /**
+     * The room of a host that only hosts a single game.
+     */
+    public static final int DEFAULT_ROOM = 0;
+
+    /**
+     * How long a client may be silent before the host forgets it, in milliseconds.
+     */
+    public static final long PEER_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * The number of packets in every queue.
+     */
+    private static final int QUEUE_CAPACITY = 8;
+
+    private final boolean isHosting;
+    private final int listenPort;
+
+    /**
+     * The host's address [CLIENT].
+     */
+    private final InetSocketAddress hostAddress;
+
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(PacketCodec.MAX_PACKET_SIZE);
+    private final PacketCodec codec = new PacketCodec(ByteBuffer.allocateDirect(PacketCodec.MAX_PACKET_SIZE));
+
+    /**
+     * The open rooms, by id. Rooms are opened and closed by the games, while this thread is using them.
+     */
+    private final Map<Integer, Room> rooms = new ConcurrentHashMap<>();
+
+    /**
+     * Rooms that were closed, whose clients this thread still has to forget.
+     */
+    private final Queue<Room> closedRooms = new ConcurrentLinkedQueue<>();
+
+    private final TransportMetrics metrics;
+
+    /**
+     * How long a client may be silent before it is forgotten, and when silent clients were last looked for [HOSTING].
+     */
+    private long peerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(PEER_TIMEOUT_MILLIS);
+    private long lastExpiry;
+
+    private volatile boolean running = true;
+    private volatile Selector selector;
+
+    /**
+     * Constructor called by Host
+     *
+     * @param port The port to receive on. Every client is sent to on the port that its packets come from.
+     */
+    public DatagramTransport(int port) {
+        this(true, port, null);
+    }
+
+    /**
+     * Constructor called by Clients joining a Game
+     *
+     * @param listenPort The port to receive on, or 0 for any free port. The host replies to the port that is used.
+     * @param hostIP     HOST IP ADDRESS
+     * @param hostPort   HOST PORT
+     */
+    public DatagramTransport(int listenPort, InetAddress hostIP, int hostPort) {
+        this(false, listenPort, new InetSocketAddress(hostIP, hostPort));
+    }
+
+    /**
+     * @param isHosting   Whether this is the host's transport.
+     * @param listenPort  The port to receive on.
+     * @param hostAddress The host's address [CLIENT], or null [HOSTING].
+     */
+    private DatagramTransport(boolean isHosting, int listenPort, InetSocketAddress hostAddress) {
+        super("DatagramTransport");
+        this.isHosting = isHosting;
+        this.listenPort = listenPort;
+        this.hostAddress = hostAddress;
+        this.metrics = new TransportMetrics(listenPort);
+        if (hostAddress != null) {
+            this.metrics.addPeer(hostAddress);
+        }
+        this.setDaemon(true);
+    }
+
+    /**
+     * Opens a room, through which a game exchanges packets with this thread. May be called from any thread.
+     *
+     * @param id The id of the room, which every packet of the room carries. A client should use the id of the room it
+     *           wants to join on the host.
+     * @return The new room.
+     * @throws IllegalStateException If a room with this id is already open, or this is a client's transport which
+     *                               already has a room.
+     */
+    public Room openRoom(int id) {
+        if (!this.isHosting && !this.rooms.isEmpty()) {
+            throw new IllegalStateException("A client can only be in one room.");
+        }
+        Room room = new Room(id, this.isHosting);
+        if (this.rooms.putIfAbsent(id, room) != null) {
+            throw new IllegalStateException("Room " + id + " is already open.");
+        }
+        return room;
+    }
+
+    /**
+     * Closes a room. Packets for it are dropped from now on. May be called from any thread.
+     *
+     * @param room The room to close.
+     */
+    public void closeRoom(Room room) {
+        if (this.rooms.remove(room.id, room)) {
+            this.closedRooms.add(room);
+            this.flush();
+        }
+    }
+
+    /**
+     * Changes how long a client may be silent before the host forgets it. Package-private so that tests don't have to
+     * wait for {@link #PEER_TIMEOUT_MILLIS}. Should be called before the thread is started.
+     *
+     * @param millis The timeout, in milliseconds.
+     */
+    void setPeerTimeout(long millis) {
+        this.peerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Override
+    public void run() {
+        try (DatagramChannel channel = DatagramChannel.open(); Selector selector = Selector.open()) {
+            channel.configureBlocking(false);
+            channel.bind(new InetSocketAddress(this.listenPort));
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            this.selector = selector;
+            System.out.println("Network Thread (PORT)" + this.listenPort);
+            this.metrics.register();
+            this.lastExpiry = System.nanoTime();
+            long expiryInterval = Math.max(1, TimeUnit.NANOSECONDS.toMillis(this.peerTimeoutNanos) / 2);
+            while (this.running) {
+                selector.select(expiryInterval);
+                selector.selectedKeys().clear();
+                this.receive(channel);
+                this.forgetPeers();
+                boolean blocked = this.send(channel);
+                key.interestOps(blocked ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            }
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+        finally {
+            this.metrics.unregister();
+        }
+    }
+
+    /**
+     * Wakes this thread, so that packets that were just published are sent right away.
+     */
+    public void flush() {
+        Selector selector = this.selector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Stops this thread and closes its channel.
+     */
+    public void close() {
+        this.running = false;
+        this.flush();
+    }
+
+    /**
+     * @return The counts of the packets that this thread sent, received and dropped.
+     */
+    public TransportMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Receives and handles every datagram that is waiting on the channel.
+     */
+    private void receive(DatagramChannel channel) throws IOException {
+        SocketAddress sender;
+        long now = System.nanoTime();
+        this.receiveBuffer.clear();
+        while ((sender = channel.receive(this.receiveBuffer)) != null) {
+            this.receiveBuffer.flip();
+            InetSocketAddress address = (InetSocketAddress) sender;
+            int bytes = this.receiveBuffer.remaining();
+            boolean handled;
+            try {
+                Room room = this.rooms.get(PacketCodec.peekRoom(this.receiveBuffer));
+                if (room == null) {
+                    throw new ProtocolException("No such room.");
+                }
+                handled = this.isHosting ? this.receiveClientPacket(room, address, now) : this.receiveSnapshot(room, address);
+            }
+            catch (IOException e) { // Malformed; anyone can send those, so they are only counted, never logged.
+                handled = false;
+            }
+            // Counted once handled, so that the first packet of a new client already counts for it.
+            this.metrics.received(address, bytes);
+            if (!handled) {
+                this.metrics.droppedOnReceive(address);
+            }
+            this.receiveBuffer.clear();
+        }
+    }
+
+    /**
+     * Forgets the clients of closed rooms, and the clients that have been silent for too long [HOSTING]. Silent clients
+     * are only looked for every so often, as that means going through all of them.
+     */
+    private void forgetPeers() {
+        Room closed;
+        while ((closed = this.closedRooms.poll()) != null) {
+            for (InetSocketAddress address : closed.peers.keySet()) {
+                this.forgetPeer(address);
+            }
+            closed.peers.clear();
+        }
+        long now = System.nanoTime();
+        if (now - this.lastExpiry < this.peerTimeoutNanos / 2) {
+            return;
+        }
+        this.lastExpiry = now;
+        for (Room room : this.rooms.values()) {
+            Iterator<Peer> peers = room.peers.values().iterator();
+            while (peers.hasNext()) {
+                Peer peer = peers.next();
+                if (now - peer.lastHeard > this.peerTimeoutNanos) {
+                    peers.remove();
+                    this.forgetPeer(peer.address);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops counting packets for an address that was removed from a room, unless it is still a client in another room
+     * [HOSTING].
+     */
+    private void forgetPeer(InetSocketAddress address) {
+        for (Room room : this.rooms.values()) {
+            if (room.peers.containsKey(address)) {
+                return;
+            }
+        }
+        this.metrics.removePeer(address);
+    }
+
+    /**
+     * @return Whether the packet was handed to the game, rather than dropped.
+     */
+    private boolean receiveClientPacket(Room room, InetSocketAddress sender, long now) throws IOException {
+        DataPacket_Client packet = room.receivedClientPackets.acquire();
+        if (packet == null) { // The game is behind on handling packets; drop this one.
+            return false;
+        }
+        try {
+            this.codec.decode(this.receiveBuffer, packet);
+        }
+        catch (IOException e) {
+            room.receivedClientPackets.discard(packet);
+            throw e;
+        }
+        packet.sender = sender;
+        Peer peer = room.getPeer(sender);
+        peer.lastHeard = now;
+        peer.acknowledge(packet.acknowledgedSnapshot);
+        room.receivedClientPackets.publish(packet);
+        return true;
+    }
+
+    /**
+     * @param sender Where the snapshot came from. Snapshots that don't come from the host are dropped.
+     * @return Whether the snapshot was handed to the game, rather than dropped.
+     */
+    private boolean receiveSnapshot(Room room, InetSocketAddress sender) throws IOException {
+        if (!sender.equals(this.hostAddress)) {
+            return false;
+        }
+        DataPacket_Game packet = room.receivedSnapshots.acquire();
+        if (packet == null) { // The game is behind on handling packets; drop this one.
+            return false;
+        }
+        SnapshotDecodeEvent event = new SnapshotDecodeEvent();
+        event.begin();
+        int bytes = this.receiveBuffer.remaining();
+        boolean isNew;
+        try {
+            isNew = this.codec.decode(this.receiveBuffer, packet, room.history);
+        }
+        catch (IOException e) {
+            room.receivedSnapshots.discard(packet);
+            throw e;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.room = room.id;
+            event.sequence = packet.sequence;
+            event.isNew = isNew;
+            event.entities = entityCount(packet);
+            event.bytes = bytes;
+            event.commit();
+        }
+        if (isNew) {
+            packet.receivedNanos = System.nanoTime();
+            room.receivedSnapshots.publish(packet);
+        } else {
+            room.receivedSnapshots.discard(packet);
+        }
+        return isNew;
+    }
+
+    /**
+     * Sends the newest published packets of every room.
+     *
+     * @return True if the channel couldn't take all of the data, and sending has to continue later.
+     */
+    private boolean send(DatagramChannel channel) throws IOException {
+        for (Room room : this.rooms.values()) {
+            if (this.isHosting ? this.sendSnapshots(channel, room) : this.sendClientPackets(channel, room)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sends the newest published game snapshot of a room to each of its recipients.
+     *
+     * @return True if the channel couldn't take all of the data, and sending has to continue later.
+     */
+    private boolean sendSnapshots(DatagramChannel channel, Room room) throws IOException {
+        DataPacket_Game newest;
+        while ((newest = room.outgoingSnapshots.poll()) != null) {
+            if (room.pendingSnapshot != null) {
+                for (int i = room.nextRecipient; i < room.pendingSnapshot.getRecipientCount(); i++) {
+                    this.metrics.droppedOnSend(room.pendingSnapshot.getRecipient(i));
+                }
+                room.outgoingSnapshots.release(room.pendingSnapshot);
+            }
+            room.history.record(newest);
+            newest.room = room.id;
+            room.pendingSnapshot = newest;
+            room.nextRecipient = 0;
+        }
+        while (room.pendingSnapshot != null && room.nextRecipient < room.pendingSnapshot.getRecipientCount()) {
+            InetSocketAddress recipient = room.pendingSnapshot.getRecipient(room.nextRecipient);
+            Peer peer = room.peers.get(recipient); // Null if it was forgotten, in which case it gets a full snapshot.
+            int acknowledged = peer != null ? peer.acknowledgedSnapshot : SnapshotHistory.NO_SNAPSHOT;
+            int ownShip = room.pendingSnapshot.getRecipientShip(room.nextRecipient);
+            try {
+                SnapshotEncodeEvent event = new SnapshotEncodeEvent();
+                event.begin();
+                ByteBuffer encoded = this.codec.encode(room.pendingSnapshot, room.history, acknowledged, ownShip);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.room = room.id;
+                    event.sequence = room.pendingSnapshot.sequence;
+                    event.recipient = recipient.toString();
+                    event.delta = acknowledged != SnapshotHistory.NO_SNAPSHOT;
+                    event.entities = entityCount(room.pendingSnapshot);
+                    event.bytes = encoded.remaining();
+                    event.commit();
+                }
+                int sent = channel.send(encoded, recipient);
+                if (sent == 0) {
+                    return true;
+                }
+                this.metrics.sent(recipient, sent);
+            }
+            catch (BufferOverflowException e) {
+                this.metrics.droppedOnSend(recipient);
+                System.err.println("UDP Packet Overload. \n");
+            }
+            room.nextRecipient++;
+        }
+        if (room.pendingSnapshot != null) {
+            room.outgoingSnapshots.release(room.pendingSnapshot);
+            room.pendingSnapshot = null;
+        }
+        return false;
+    }
+
+    /**
+     * Sends the newest published client packet to the host.
+     *
+     * @return True if the channel couldn't take the packet, and sending has to be tried again later.
+     */
+    private boolean sendClientPackets(DatagramChannel channel, Room room) throws IOException {
+        DataPacket_Client newest;
+        while ((newest = room.outgoingClientPackets.poll()) != null) {
+            if (room.pendingClientPacket != null) {
+                this.metrics.droppedOnSend(this.hostAddress);
+                room.outgoingClientPackets.release(room.pendingClientPacket);
+            }
+            newest.room = room.id;
+            room.pendingClientPacket = newest;
+        }
+        if (room.pendingClientPacket != null) {
+            try {
+                int sent = channel.send(this.codec.encode(room.pendingClientPacket), this.hostAddress);
+                if (sent == 0) {
+                    return true;
+                }
+                this.metrics.sent(this.hostAddress, sent);
+            }
+            catch (BufferOverflowException e) {
+                this.metrics.droppedOnSend(this.hostAddress);
+                System.err.println("UDP Packet Overload. \n");
+            }
+            room.outgoingClientPackets.release(room.pendingClientPacket);
+            room.pendingClientPacket = null;
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of objects in a snapshot.
+     */
+    private static int entityCount(DataPacket_Game packet) {
+        return packet.asteroids.size() + packet.bullets.size() + packet.getShipCount() + 1; // The host's own ship as well.
+    }
+
+    /**
+     * One game served by a transport. Holds the packets passed between the game and the transport, along with
+     * everything the transport remembers about the game's packets. Only the two queues that fit the role (host or
+     * client) are used.
+     */
+    public class Room {
+        private final int id;
+
+        private final PacketQueue<DataPacket_Client> receivedClientPackets;
+        private final PacketQueue<DataPacket_Game> outgoingSnapshots;
+        private final PacketQueue<DataPacket_Game> receivedSnapshots;
+        private final PacketQueue<DataPacket_Client> outgoingClientPackets;
+
+        /*
+         * The rest is only used by the transport thread.
+         */
+
+        /**
+         * The snapshots that were recently sent [HOSTING], or received [CLIENT], which later snapshots are sent as
+         * differences from.
+         */
+        private final SnapshotHistory history = new SnapshotHistory();
+
+        /**
+         * Every client that the host has heard from in this room recently, by address and port [HOSTING]. Clients
+         * behind the same address are told apart by their ports.
+         */
+        private final Map<InetSocketAddress, Peer> peers = new HashMap<>();
+
+        /**
+         * The snapshot that is being sent to every client [HOSTING], and the index of the next client to send it to.
+         * Sending stops early if the channel can't take any more data, and continues once it can.
+         */
+        private DataPacket_Game pendingSnapshot;
+        private int nextRecipient;
+
+        /**
+         * The client packet that is waiting to be sent to the host [CLIENT].
+         */
+        private DataPacket_Client pendingClientPacket;
+
+        private Room(int id, boolean isHosting) {
+            this.id = id;
+            this.receivedClientPackets = isHosting ? new PacketQueue<>(QUEUE_CAPACITY, DataPacket_Client::new) : null;
+            this.outgoingSnapshots = isHosting ? new PacketQueue<>(QUEUE_CAPACITY, DataPacket_Game::new) : null;
+            this.receivedSnapshots = isHosting ? null : new PacketQueue<>(QUEUE_CAPACITY, DataPacket_Game::new);
+            this.outgoingClientPackets = isHosting ? null : new PacketQueue<>(QUEUE_CAPACITY, DataPacket_Client::new);
+        }
+
+        /**
+         * @return The client with the given address, which is made, and counted in the metrics from then on, if the host
+         * hasn't heard from it recently.
+         */
+        private Peer getPeer(InetSocketAddress address) {
+            Peer peer = this.peers.get(address);
+            if (peer == null) {
+                peer = new Peer(address);
+                this.peers.put(address, peer);
+                DatagramTransport.this.metrics.addPeer(address);
+            }
+            return peer;
+        }
+
+        public int getId() {
+            return this.id;
+        }
+
+        /**
+         * @return Packets received from clients, to be handled by the game [HOSTING].
+         */
+        public PacketQueue<DataPacket_Client> getReceivedClientPackets() {
+            return this.receivedClientPackets;
+        }
+
+        /**
+         * @return Game snapshots to be sent to the clients listed in each snapshot [HOSTING].
+         */
+        public PacketQueue<DataPacket_Game> getOutgoingSnapshots() {
+            return this.outgoingSnapshots;
+        }
+
+        /**
+         * @return Game snapshots received from the host, to be handled by the game [CLIENT].
+         */
+        public PacketQueue<DataPacket_Game> getReceivedSnapshots() {
+            return this.receivedSnapshots;
+        }
+
+        /**
+         * @return Packets to be sent to the host [CLIENT].
+         */
+        public PacketQueue<DataPacket_Client> getOutgoingClientPackets() {
+            return this.outgoingClientPackets;
+        }
+    }
+
+    /**
+     * A client, as seen by the host.
+     */
+    private static class Peer {
+        /**
+         * Where packets for this client are sent: the address and port that its packets come from.
+         */
+        final InetSocketAddress address;
+
+        /**
+         * The newest snapshot that this client has received.
+         */
+        int acknowledgedSnapshot = SnapshotHistory.NO_SNAPSHOT;
+
+        /**
+         * When the last packet of this client arrived, in {@link System#nanoTime()}.
+         */
+        long lastHeard;
+
+        Peer(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        /**
+         * @param sequence A snapshot that the client reports to have received. Reports can arrive out of order, so
+         *                 older ones are ignored.
+         */
+        void acknowledge(int sequence) {
+            if (this.acknowledgedSnapshot == SnapshotHistory.NO_SNAPSHOT || sequence - this.acknowledgedSnapshot > 0) {
+                this.acknowledgedSnapshot = sequence;
+            }
+        }
+    }
+}
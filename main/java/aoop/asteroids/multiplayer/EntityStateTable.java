@@ -0,0 +1,280 @@
+package aoop.asteroids.multiplayer;
+
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.WorldSnapshot;
+
+import java.util.Arrays;
+
+/**
+ * A table holding the state of a list of simple game objects (asteroids or bullets) as they are sent over the network.
+ * Every property is stored in its own primitive array, and the arrays only ever grow, so the same table can be filled
+ * and read again for every packet without creating any new objects.
+ * <p>
+ * Every row remembers the game tick at which it was sampled. Since asteroids and bullets fly in a straight line, their
+ * state at any later tick can be predicted from that, which is what allows snapshots to leave out objects that are
+ * still exactly where they are expected to be.
+ */
+public class EntityStateTable {
+    private int[] ids = new int[16];
+    private double[] locationX = new double[16];
+    private double[] locationY = new double[16];
+    private double[] velocityX = new double[16];
+    private double[] velocityY = new double[16];
+    /**
+     * The ordinal of the AsteroidSize, for asteroids. Unused for bullets.
+     */
+    private int[] sizes = new int[16];
+    private int[] stepsUntilCollisionPossible = new int[16];
+    /**
+     * The remaining lifetime, for bullets. Unused for asteroids.
+     */
+    private int[] stepsLeft = new int[16];
+    /**
+     * The game tick at which each row was sampled.
+     */
+    private int[] ticks = new int[16];
+
+    /**
+     * The number of rows currently in the table.
+     */
+    private int size;
+
+    /**
+     * Empties the table, without giving up its memory.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Adds a row to the table.
+     *
+     * @return The index of the new row.
+     */
+    public int add(int id, double x, double y, double vx, double vy, int size, int stepsUntilCollisionPossible, int stepsLeft, int tick) {
+        if (this.size == this.ids.length) {
+            this.grow();
+        }
+        int row = this.size++;
+        this.ids[row] = id;
+        this.locationX[row] = x;
+        this.locationY[row] = y;
+        this.velocityX[row] = vx;
+        this.velocityY[row] = vy;
+        this.sizes[row] = size;
+        this.stepsUntilCollisionPossible[row] = stepsUntilCollisionPossible;
+        this.stepsLeft[row] = stepsLeft;
+        this.ticks[row] = tick;
+        return row;
+    }
+
+    /**
+     * Adds a copy of a row of another table to this table.
+     *
+     * @param other The table to copy from.
+     * @param row   The row to copy.
+     */
+    public void addRow(EntityStateTable other, int row) {
+        this.add(other.ids[row], other.locationX[row], other.locationY[row], other.velocityX[row], other.velocityY[row], other.sizes[row], other.stepsUntilCollisionPossible[row], other.stepsLeft[row], other.ticks[row]);
+    }
+
+    /**
+     * Replaces the contents of the table with the asteroids or bullets of a world snapshot, sorted by id.
+     *
+     * @param objects The objects to copy.
+     * @param tick    The current game tick.
+     */
+    public void capture(WorldSnapshot.ObjectTable objects, int tick) {
+        this.clear();
+        for (int row = 0; row < objects.size(); row++) {
+            this.add(objects.getId(row), objects.getLocationX(row), objects.getLocationY(row), objects.getVelocityX(row), objects.getVelocityY(row), objects.getSize(row), objects.getStepsUntilCollisionPossible(row), objects.getStepsLeft(row), tick);
+        }
+        this.sortById();
+    }
+
+    /**
+     * Replaces the contents of the table with the rows of another table, moved forward to the given tick.
+     *
+     * @param other The table to copy from.
+     * @param tick  The tick to move every row to.
+     */
+    public void copyPredicted(EntityStateTable other, int tick) {
+        this.clear();
+        for (int row = 0; row < other.size; row++) {
+            this.add(other.ids[row], other.predictLocationX(row, tick), other.predictLocationY(row, tick), other.velocityX[row], other.velocityY[row], other.sizes[row], other.predictStepsUntilCollisionPossible(row, tick), other.predictStepsLeft(row, tick), tick);
+        }
+    }
+
+    /**
+     * Sorts the rows by id, so that two tables can be compared by walking through both at once. Objects are usually
+     * already in order of creation, and so in order of id, so this is an insertion sort. If an id appears more than
+     * once, only its first row is kept, since ids are used to tell rows apart.
+     */
+    void sortById() {
+        for (int i = 1; i < this.size; i++) {
+            for (int j = i; j > 0 && this.ids[j - 1] > this.ids[j]; j--) {
+                this.swap(j - 1, j);
+            }
+        }
+        int kept = 0;
+        for (int row = 0; row < this.size; row++) {
+            if (kept == 0 || this.ids[kept - 1] != this.ids[row]) {
+                if (kept != row) {
+                    this.swap(kept, row);
+                }
+                kept++;
+            }
+        }
+        this.size = kept;
+    }
+
+    /**
+     * @param row  A row of this table.
+     * @param tick A game tick at or after the one at which the row was sampled.
+     * @return The location on the x-axis that the object will have at the given tick, if it keeps flying straight.
+     */
+    public double predictLocationX(int row, int tick) {
+        return wrap(this.locationX[row] + (tick - this.ticks[row]) * this.velocityX[row], Game.WORLD_WIDTH);
+    }
+
+    /**
+     * @param row  A row of this table.
+     * @param tick A game tick at or after the one at which the row was sampled.
+     * @return The location on the y-axis that the object will have at the given tick, if it keeps flying straight.
+     */
+    public double predictLocationY(int row, int tick) {
+        return wrap(this.locationY[row] + (tick - this.ticks[row]) * this.velocityY[row], Game.WORLD_HEIGHT);
+    }
+
+    /**
+     * @param row  A row of this table.
+     * @param tick A game tick at or after the one at which the row was sampled.
+     * @return The remaining collision immunity that the object will have at the given tick.
+     */
+    public int predictStepsUntilCollisionPossible(int row, int tick) {
+        return Math.max(0, this.stepsUntilCollisionPossible[row] - (tick - this.ticks[row]));
+    }
+
+    /**
+     * @param row  A row of this table.
+     * @param tick A game tick at or after the one at which the row was sampled.
+     * @return The remaining lifetime that the object will have at the given tick.
+     */
+    public int predictStepsLeft(int row, int tick) {
+        return Math.max(0, this.stepsLeft[row] - (tick - this.ticks[row]));
+    }
+
+    /**
+     * @param row      A row of this table.
+     * @param other    Another table.
+     * @param otherRow A row of the other table.
+     * @return True if both rows hold exactly the same values.
+     */
+    boolean rowEquals(int row, EntityStateTable other, int otherRow) {
+        return this.ids[row] == other.ids[otherRow]
+                && this.locationX[row] == other.locationX[otherRow]
+                && this.locationY[row] == other.locationY[otherRow]
+                && this.velocityX[row] == other.velocityX[otherRow]
+                && this.velocityY[row] == other.velocityY[otherRow]
+                && this.sizes[row] == other.sizes[otherRow]
+                && this.stepsUntilCollisionPossible[row] == other.stepsUntilCollisionPossible[otherRow]
+                && this.stepsLeft[row] == other.stepsLeft[otherRow]
+                && this.ticks[row] == other.ticks[otherRow];
+    }
+
+    /**
+     * @param value A coordinate.
+     * @param size  The size of the world along the coordinate's axis.
+     * @return The coordinate wrapped around to lie within the world, the same way that game objects wrap around.
+     */
+    static double wrap(double value, double size) {
+        double wrapped = value % size;
+        return wrapped < 0 ? wrapped + size : wrapped;
+    }
+
+    private void swap(int first, int second) {
+        int id = this.ids[first];
+        this.ids[first] = this.ids[second];
+        this.ids[second] = id;
+        double x = this.locationX[first];
+        this.locationX[first] = this.locationX[second];
+        this.locationX[second] = x;
+        double y = this.locationY[first];
+        this.locationY[first] = this.locationY[second];
+        this.locationY[second] = y;
+        double vx = this.velocityX[first];
+        this.velocityX[first] = this.velocityX[second];
+        this.velocityX[second] = vx;
+        double vy = this.velocityY[first];
+        this.velocityY[first] = this.velocityY[second];
+        this.velocityY[second] = vy;
+        int size = this.sizes[first];
+        this.sizes[first] = this.sizes[second];
+        this.sizes[second] = size;
+        int grace = this.stepsUntilCollisionPossible[first];
+        this.stepsUntilCollisionPossible[first] = this.stepsUntilCollisionPossible[second];
+        this.stepsUntilCollisionPossible[second] = grace;
+        int steps = this.stepsLeft[first];
+        this.stepsLeft[first] = this.stepsLeft[second];
+        this.stepsLeft[second] = steps;
+        int tick = this.ticks[first];
+        this.ticks[first] = this.ticks[second];
+        this.ticks[second] = tick;
+    }
+
+    /**
+     * Doubles the capacity of every column.
+     */
+    private void grow() {
+        int capacity = this.ids.length * 2;
+        this.ids = Arrays.copyOf(this.ids, capacity);
+        this.locationX = Arrays.copyOf(this.locationX, capacity);
+        this.locationY = Arrays.copyOf(this.locationY, capacity);
+        this.velocityX = Arrays.copyOf(this.velocityX, capacity);
+        this.velocityY = Arrays.copyOf(this.velocityY, capacity);
+        this.sizes = Arrays.copyOf(this.sizes, capacity);
+        this.stepsUntilCollisionPossible = Arrays.copyOf(this.stepsUntilCollisionPossible, capacity);
+        this.stepsLeft = Arrays.copyOf(this.stepsLeft, capacity);
+        this.ticks = Arrays.copyOf(this.ticks, capacity);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int getId(int row) {
+        return this.ids[row];
+    }
+
+    public double getLocationX(int row) {
+        return this.locationX[row];
+    }
+
+    public double getLocationY(int row) {
+        return this.locationY[row];
+    }
+
+    public double getVelocityX(int row) {
+        return this.velocityX[row];
+    }
+
+    public double getVelocityY(int row) {
+        return this.velocityY[row];
+    }
+
+    public int getSize(int row) {
+        return this.sizes[row];
+    }
+
+    public int getStepsUntilCollisionPossible(int row) {
+        return this.stepsUntilCollisionPossible[row];
+    }
+
+    public int getStepsLeft(int row) {
+        return this.stepsLeft[row];
+    }
+
+    public int getTick(int row) {
+        return this.ticks[row];
+    }
+}
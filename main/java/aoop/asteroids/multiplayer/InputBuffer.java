@@ -0,0 +1,85 @@
+package aoop.asteroids.multiplayer;
+
+/**
+ * The inputs that the host has received from one client but not yet applied to the client's ship. Every client packet
+ * repeats the last few inputs, so the same input usually arrives several times; only the ones that are newer than
+ * anything received before are queued. The host then takes one input off the queue on every tick.
+ * <p>
+ * If a client falls silent for a moment, its last input is simply repeated. If packets arrive in a burst, the queue
+ * is kept short by dropping the oldest inputs, so that a client's ship never lags far behind what the client did.
+ */
+public class InputBuffer {
+    /**
+     * The most inputs that are queued.
+     */
+    static final int CAPACITY = 8;
+
+    private final byte[] queue = new byte[CAPACITY];
+    private final int[] sequences = new int[CAPACITY];
+    private int head;
+    private int size;
+
+    /**
+     * The number of the newest input that was received.
+     */
+    private int latestSequence = InputHistory.NO_INPUT;
+
+    /**
+     * The input that was taken off the queue last, and its sequence number.
+     */
+    private int current;
+    private int currentSequence = InputHistory.NO_INPUT;
+
+    /**
+     * Queues the inputs of a received client packet that weren't received before.
+     *
+     * @param packet The received packet.
+     */
+    public void receive(DataPacket_Client packet) {
+        for (int i = packet.getInputCount() - 1; i >= 0; i--) { // Oldest first.
+            int sequence = packet.inputSequence - i;
+            if (sequence < 0 || (this.latestSequence != InputHistory.NO_INPUT && sequence - this.latestSequence <= 0)) {
+                continue;
+            }
+            if (this.size == CAPACITY) {
+                this.head = (this.head + 1) % CAPACITY;
+                this.size--;
+            }
+            this.queue[(this.head + this.size) % CAPACITY] = (byte) packet.getInput(i);
+            this.sequences[(this.head + this.size) % CAPACITY] = sequence;
+            this.size++;
+            this.latestSequence = sequence;
+        }
+    }
+
+    /**
+     * Takes the input for the next tick off the queue.
+     *
+     * @return The buttons to press, as a bitmask of the Spaceship.INPUT_ constants. If no new input was received, this is
+     * the same as the previous input.
+     */
+    public int next() {
+        if (this.size > 0) {
+            this.current = this.queue[this.head];
+            this.currentSequence = this.sequences[this.head];
+            this.head = (this.head + 1) % CAPACITY;
+            this.size--;
+        }
+        return this.current;
+    }
+
+    /**
+     * @return The number of the input that was taken off the queue last, or {@link InputHistory#NO_INPUT}. If an input
+     * is repeated because nothing new arrived, this stays the same.
+     */
+    public int getCurrentSequence() {
+        return this.currentSequence;
+    }
+
+    /**
+     * @return The number of the newest input that was received, or {@link InputHistory#NO_INPUT}.
+     */
+    public int getLatestSequence() {
+        return this.latestSequence;
+    }
+}
@@ -0,0 +1,63 @@
+package aoop.asteroids.multiplayer;
+
+/**
+ * The buttons that a client's player pressed on each of the most recent game ticks, numbered in order. Every client
+ * packet holds the newest few of these, so that the host still gets every input if some packets are lost.
+ */
+public class InputHistory {
+    /**
+     * The number of inputs that are remembered.
+     */
+    public static final int CAPACITY = 64;
+
+    /**
+     * Means "no input", for example before the first tick.
+     */
+    public static final int NO_INPUT = -1;
+
+    private final byte[] inputs = new byte[CAPACITY];
+
+    /**
+     * The number of the newest input.
+     */
+    private int latestSequence = NO_INPUT;
+
+    /**
+     * Adds the input of a new tick, giving it the next sequence number.
+     *
+     * @param inputs The buttons that were pressed, as a bitmask of the Spaceship.INPUT_ constants.
+     * @return The sequence number of the input.
+     */
+    public int record(int inputs) {
+        this.latestSequence++;
+        this.inputs[this.slot(this.latestSequence)] = (byte) inputs;
+        return this.latestSequence;
+    }
+
+    /**
+     * @param sequence The number of an input.
+     * @return True if the input is still remembered.
+     */
+    public boolean contains(int sequence) {
+        return this.latestSequence != NO_INPUT && sequence >= 0 && this.latestSequence - sequence >= 0 && this.latestSequence - sequence < CAPACITY;
+    }
+
+    /**
+     * @param sequence The number of an input that is still remembered.
+     * @return The buttons that were pressed, as a bitmask of the Spaceship.INPUT_ constants.
+     */
+    public int get(int sequence) {
+        return this.inputs[this.slot(sequence)];
+    }
+
+    /**
+     * @return The number of the newest input, or {@link #NO_INPUT} if nothing was recorded yet.
+     */
+    public int getLatestSequence() {
+        return this.latestSequence;
+    }
+
+    private int slot(int sequence) {
+        return Math.floorMod(sequence, CAPACITY);
+    }
+}
@@ -0,0 +1,303 @@
+package aoop.asteroids.multiplayer;
+
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.WorldSnapshot;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The game states that a client received from the host most recently, kept for a short while so that the other ships,
+ * the asteroids and the bullets can be drawn part of the way between two received states, instead of jumping to every
+ * new one as it arrives. The client's own ship is not drawn from here; it is predicted instead, see
+ * {@link aoop.asteroids.control.MultiplayerGameUpdater}.
+ * <p>
+ * To always have a newer state to move towards, the client draws the world as it was a little while ago: the playout
+ * delay. The delay is the usual time between two snapshots plus a margin for jitter, the variation in how long
+ * snapshots take to arrive, which is measured the same way as in RTP (RFC 3550). On a steady connection the delay stays
+ * close to a single snapshot interval; on a jittery one it grows, so that late snapshots still arrive in time. If no
+ * snapshot arrives in time after all, objects keep moving in a straight line from the newest state for a few ticks.
+ * <p>
+ * States are added by the game updater thread and drawn by the event dispatch thread, and neither thread ever waits for
+ * the other. The states are kept in a fixed ring of world snapshots, which are captured into again once they drop out
+ * of the ring, so adding a state allocates nothing. The ring is changed under a version number, which is odd while the
+ * ring is being changed: a reader that sees the same even version before and after reading the ring has read it as a
+ * whole. The two states that a reader draws between are held until it releases its {@link Frame}, and a snapshot that
+ * is held is never captured into.
+ */
+public class InterpolationBuffer {
+    /**
+     * The number of states that are kept.
+     */
+    public static final int CAPACITY = 32;
+
+    /**
+     * How fast the jitter estimate follows new measurements.
+     */
+    private static final double JITTER_GAIN = 1.0 / 16;
+
+    /**
+     * How many times the measured jitter is added to the playout delay.
+     */
+    private static final double JITTER_MARGIN = 3.0;
+
+    /**
+     * The longest playout delay, in ticks, no matter how bad the connection is.
+     */
+    private static final double MAX_DELAY_TICKS = 15.0;
+
+    /**
+     * The longest that objects are moved along in a straight line when no newer state has arrived, in ticks.
+     */
+    static final double MAX_EXTRAPOLATION_TICKS = 3.0;
+
+    private final double nanosecondsPerTick;
+
+    /*
+     * The kept states, as a ring that starts at the oldest one: the client's world right after applying each snapshot,
+     * and the host's tick at which the snapshot was taken. Only changed under the version below.
+     */
+    private final AtomicReferenceArray<WorldSnapshot> worlds = new AtomicReferenceArray<>(CAPACITY);
+    private final AtomicIntegerArray ticks = new AtomicIntegerArray(CAPACITY);
+    private volatile int oldest;
+    private volatile int count;
+
+    /**
+     * The average difference between the client's clock and the time at which a tick happened on the host, in
+     * nanoseconds, as of the newest state. Only changed under the version below.
+     */
+    private volatile double renderOffset;
+
+    /**
+     * How far behind the average arrival of snapshots the world is drawn, in nanoseconds. Only changed under the
+     * version below.
+     */
+    private volatile double delay;
+
+    /**
+     * Goes up by one right before and right after the ring is changed, so that it is odd while it is being changed.
+     */
+    private volatile int version;
+
+    /**
+     * Every snapshot that states have been captured into, in the ring or not. Only used by the thread that adds states.
+     */
+    private WorldSnapshot[] snapshots = new WorldSnapshot[0];
+
+    /*
+     * The estimates behind the ring, only used by the thread that adds states.
+     */
+    private double transitOffset;
+    private double lastTransit;
+    private double jitter;
+    private double spacingTicks = 1;
+
+    /**
+     * @param millisecondsPerTick The duration of a game tick on the host.
+     */
+    public InterpolationBuffer(double millisecondsPerTick) {
+        this.nanosecondsPerTick = millisecondsPerTick * 1_000_000;
+    }
+
+    /**
+     * Adds a newly received state of the host's game, by capturing the client's game into one of the buffer's own
+     * snapshots. States that are older than the newest one are ignored. Should only be called by the thread that
+     * updates the game.
+     *
+     * @param game          The client's game, right after applying the snapshot.
+     * @param tick          The host's tick at which the snapshot was taken.
+     * @param receivedNanos The value of System.nanoTime() when the snapshot was received.
+     */
+    public void add(Game game, int tick, long receivedNanos) {
+        int count = this.count;
+        // How late the snapshot is, compared to when its tick happened on the host. Only differences between these
+        // matter, since the client's and the host's clocks have nothing to do with each other.
+        double transit = receivedNanos - tick * this.nanosecondsPerTick;
+        if (count == 0) {
+            this.transitOffset = transit;
+        } else {
+            int newestTick = this.ticks.get((this.oldest + count - 1) % CAPACITY);
+            if (tick <= newestTick) {
+                return;
+            }
+            this.jitter += (Math.abs(transit - this.lastTransit) - this.jitter) * JITTER_GAIN;
+            this.transitOffset += (transit - this.transitOffset) * JITTER_GAIN;
+            this.spacingTicks += (tick - newestTick - this.spacingTicks) * JITTER_GAIN;
+        }
+        this.lastTransit = transit;
+        WorldSnapshot world = this.captureIntoFreeSnapshot(game);
+        double delay = this.spacingTicks * this.nanosecondsPerTick + JITTER_MARGIN * this.jitter;
+
+        int version = this.version;
+        this.version = version + 1;
+        if (count < CAPACITY) {
+            int slot = (this.oldest + count) % CAPACITY;
+            this.worlds.set(slot, world);
+            this.ticks.set(slot, tick);
+            this.count = count + 1;
+        } else { // The oldest state makes room.
+            int slot = this.oldest;
+            this.worlds.set(slot, world);
+            this.ticks.set(slot, tick);
+            this.oldest = (slot + 1) % CAPACITY;
+        }
+        this.renderOffset = this.transitOffset;
+        this.delay = Math.min(delay, MAX_DELAY_TICKS * this.nanosecondsPerTick);
+        this.version = version + 2;
+    }
+
+    /**
+     * Copies the game into a snapshot that is neither in the ring nor held by a reader. A new snapshot is only made while
+     * the ring is filling up, or when the reader holds on to the ones that dropped out of it.
+     */
+    private WorldSnapshot captureIntoFreeSnapshot(Game game) {
+        for (WorldSnapshot snapshot : this.snapshots) {
+            if (!snapshot.isHeld() && !this.isInRing(snapshot)) {
+                return WorldSnapshot.capture(game, snapshot);
+            }
+        }
+        WorldSnapshot snapshot = WorldSnapshot.capture(game);
+        this.snapshots = Arrays.copyOf(this.snapshots, this.snapshots.length + 1);
+        this.snapshots[this.snapshots.length - 1] = snapshot;
+        return snapshot;
+    }
+
+    private boolean isInRing(WorldSnapshot snapshot) {
+        for (int i = 0; i < this.count; i++) {
+            if (this.worlds.get((this.oldest + i) % CAPACITY) == snapshot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the two states to draw between at the given time, and holds them until the frame is released.
+     *
+     * @param nowNanos The current value of System.nanoTime().
+     * @param frame    The frame to fill in, which must not hold any states yet.
+     * @return Whether there are states to draw; false if nothing was received yet, in which case the frame is left
+     * empty.
+     */
+    public boolean sample(long nowNanos, Frame frame) {
+        while (true) {
+            int version = this.version;
+            int count = this.count;
+            if (count == 0) {
+                return false;
+            }
+            if ((version & 1) != 0) { // A state is being added right now.
+                Thread.onSpinWait();
+                continue;
+            }
+            int oldest = this.oldest;
+            double renderTick = (nowNanos - this.renderOffset - this.delay) / this.nanosecondsPerTick;
+            int previous;
+            int next;
+            double fraction = 0;
+            double extrapolated = 0;
+            int newest = count - 1;
+            if (renderTick <= this.tickAt(oldest, 0)) {
+                previous = 0;
+                next = 0;
+            } else if (renderTick >= this.tickAt(oldest, newest)) {
+                previous = newest;
+                next = newest;
+                extrapolated = Math.min(renderTick - this.tickAt(oldest, newest), MAX_EXTRAPOLATION_TICKS);
+            } else {
+                next = newest;
+                while (next > 1 && this.tickAt(oldest, next - 1) > renderTick) {
+                    next--;
+                }
+                previous = next - 1;
+                fraction = (renderTick - this.tickAt(oldest, previous)) / (this.tickAt(oldest, next) - this.tickAt(oldest, previous));
+            }
+            WorldSnapshot previousWorld = this.worlds.get((oldest + previous) % CAPACITY);
+            WorldSnapshot nextWorld = this.worlds.get((oldest + next) % CAPACITY);
+            if (previousWorld == null || nextWorld == null) { // Only possible if the ring changed in the meantime.
+                continue;
+            }
+            previousWorld.hold();
+            nextWorld.hold();
+            if (this.version == version) { // Otherwise either of them may have dropped out, and be captured into.
+                frame.set(previousWorld, nextWorld, fraction, extrapolated);
+                return true;
+            }
+            previousWorld.release();
+            nextWorld.release();
+        }
+    }
+
+    /**
+     * @return The host's tick of the state at the given position in the ring, counted from the oldest one.
+     */
+    private int tickAt(int oldest, int position) {
+        return this.ticks.get((oldest + position) % CAPACITY);
+    }
+
+    /**
+     * @return The current playout delay, in milliseconds.
+     */
+    public double getDelayMilliseconds() {
+        return this.delay / 1_000_000;
+    }
+
+    /**
+     * Two received states of the game, and how far along from the first to the second the world should be drawn. A
+     * frame is filled in by {@link #sample(long, Frame)}, and holds its states until it is released, so that the buffer
+     * doesn't capture anything into them while they are drawn. A frame can be filled in again once it is released.
+     */
+    public static class Frame {
+        private WorldSnapshot previous;
+        private WorldSnapshot next;
+        private double fraction;
+        private double extrapolatedTicks;
+
+        void set(WorldSnapshot previous, WorldSnapshot next, double fraction, double extrapolatedTicks) {
+            this.previous = previous;
+            this.next = next;
+            this.fraction = fraction;
+            this.extrapolatedTicks = extrapolatedTicks;
+        }
+
+        /**
+         * Lets go of the frame's states once they have been drawn.
+         */
+        public void release() {
+            this.previous.release();
+            this.next.release();
+            this.previous = null;
+            this.next = null;
+        }
+
+        /**
+         * @return The older of the two states.
+         */
+        public WorldSnapshot getPrevious() {
+            return this.previous;
+        }
+
+        /**
+         * @return The newer of the two states, which decides which objects exist.
+         */
+        public WorldSnapshot getNext() {
+            return this.next;
+        }
+
+        /**
+         * @return How far along from the previous to the next state to draw objects, from 0 to 1.
+         */
+        public double getFraction() {
+            return this.fraction;
+        }
+
+        /**
+         * @return The number of ticks that objects should be moved along in a straight line from the next state,
+         * because nothing newer has arrived yet. Zero if the world is drawn between two states.
+         */
+        public double getExtrapolatedTicks() {
+            return this.extrapolatedTicks;
+        }
+    }
+}
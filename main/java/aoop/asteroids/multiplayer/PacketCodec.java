@@ -0,0 +1,663 @@
+package aoop.asteroids.multiplayer;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.AsteroidSize;
+
+import java.net.ProtocolException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Turns data packets into bytes and back, using a compact binary format instead of Java serialization.
+ * <p>
+ * Every packet starts with the protocol version and the type of packet, so that incompatible or unexpected packets can
+ * be rejected, followed by the room that the packet belongs to, so that one server can host many games on one port.
+ * After that, all values are written with a fixed width. Locations and velocities are sent as 16 bit fixed
+ * point numbers, and angles as a 16 bit fraction of a full turn, which is more than precise enough to draw the game,
+ * and a lot smaller than sending doubles.
+ * <p>
+ * Packets are written into a single buffer that belongs to the codec, and read directly into existing data packet
+ * objects, so neither direction creates new objects for every packet.
+ * <p>
+ * Game snapshots are numbered, and clients send back the number of the last one they received. The host then only
+ * sends the asteroids and bullets that changed since that snapshot, see {@link SnapshotHistory}. A snapshot that holds
+ * every object is called a keyframe; one is sent whenever the client's last snapshot is unknown or too old.
+ */
+public class PacketCodec implements GameModeInterface {
+    /**
+     * The version of the format written by this codec. Increase this whenever the format changes.
+     */
+    public static final byte PROTOCOL_VERSION = 6;
+
+    /**
+     * The largest amount of data that fits in a single UDP datagram.
+     */
+    public static final int MAX_PACKET_SIZE = 65507;
+
+    /**
+     * Packet type of a game snapshot sent by the host.
+     */
+    static final byte TYPE_GAME = 1;
+
+    /**
+     * Packet type of a client's inputs sent to the host.
+     */
+    static final byte TYPE_CLIENT = 2;
+
+    /**
+     * The number of bytes in front of every packet: version, type and room.
+     */
+    private static final int HEADER_SIZE = 6;
+
+    /*
+     * Kinds of change in a snapshot that only holds the differences from its baseline.
+     */
+    private static final byte CHANGE_REMOVE = 0;
+    private static final byte CHANGE_SET = 1;
+
+    /**
+     * Locations are multiplied by this before being rounded, giving a precision of 1/16th of a pixel.
+     */
+    private static final double POSITION_SCALE = 16.0;
+
+    /**
+     * Velocities are multiplied by this before being rounded, giving a precision of 1/256th of a pixel per tick.
+     */
+    private static final double VELOCITY_SCALE = 256.0;
+
+    /**
+     * Health is multiplied by this before being rounded.
+     */
+    private static final double HEALTH_SCALE = 16.0;
+
+    /**
+     * Energy is multiplied by this before being rounded. Energy only changes by whole amounts, so it arrives exactly.
+     */
+    private static final double ENERGY_SCALE = 16.0;
+
+    /**
+     * The number of steps that a full turn is divided into when sending an angle.
+     */
+    private static final double ANGLE_STEPS = 65536.0;
+
+    /*
+     * Bits of the flags byte of a ship.
+     */
+    private static final int FLAG_ACCELERATING = 1;
+    private static final int FLAG_DESTROYED = 1 << 1;
+    private static final int FLAG_SPECTATOR = 1 << 2;
+    private static final int FLAG_HAS_COLOUR = 1 << 3;
+
+    /**
+     * All game modes, indexed by ordinal. Kept so that decoding doesn't need to call values(), which copies the array.
+     */
+    private static final GameMode[] GAME_MODES = GameMode.values();
+
+    /**
+     * The number of different asteroid sizes.
+     */
+    private static final int ASTEROID_SIZE_COUNT = AsteroidSize.values().length;
+
+    /**
+     * The buffer that packets are written into.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Where received anchors are read into when decoding without a history.
+     */
+    private final EntityStateTable asteroidAnchors = new EntityStateTable();
+    private final EntityStateTable bulletAnchors = new EntityStateTable();
+
+    /**
+     * Creates a codec that writes packets into a buffer of its own.
+     */
+    public PacketCodec() {
+        this(ByteBuffer.allocate(MAX_PACKET_SIZE));
+    }
+
+    /**
+     * Creates a codec that writes packets into the given buffer, for example a direct buffer that can be handed to a
+     * channel without copying.
+     *
+     * @param buffer The buffer to write packets into. It should be able to hold {@link #MAX_PACKET_SIZE} bytes.
+     */
+    public PacketCodec(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Writes a full game snapshot (a keyframe) into this codec's buffer.
+     *
+     * @param packet The snapshot to write.
+     * @return The buffer, ready to be read from position zero up to its limit. It is only valid until the next call to
+     * encode.
+     * @throws java.nio.BufferOverflowException If the snapshot does not fit in a single datagram.
+     */
+    public ByteBuffer encode(DataPacket_Game packet) {
+        return this.encode(packet, null, SnapshotHistory.NO_SNAPSHOT);
+    }
+
+    /**
+     * Writes a game snapshot for a receiver without a ship of its own, see
+     * {@link #encode(DataPacket_Game, SnapshotHistory, int, int)}.
+     */
+    public ByteBuffer encode(DataPacket_Game packet, SnapshotHistory history, int baseline) {
+        return this.encode(packet, history, baseline, DataPacket_Game.NO_SHIP);
+    }
+
+    /**
+     * Writes a game snapshot into this codec's buffer. If the baseline is still in the history, only the asteroids and
+     * bullets that were added, removed or changed since the baseline are written. Otherwise the snapshot is written in
+     * full, as a keyframe.
+     *
+     * @param packet   The snapshot to write.
+     * @param history  The host's snapshot history, in which the packet has already been recorded, or null to always
+     *                 write a keyframe.
+     * @param baseline The number of the last snapshot that the receiver has acknowledged, or
+     *                 {@link SnapshotHistory#NO_SNAPSHOT}.
+     * @param ownShip  The id of the receiver's own ship, or {@link DataPacket_Game#NO_SHIP}.
+     * @return The buffer, ready to be read from position zero up to its limit. It is only valid until the next call to
+     * encode.
+     * @throws java.nio.BufferOverflowException If the snapshot does not fit in a single datagram.
+     */
+    public ByteBuffer encode(DataPacket_Game packet, SnapshotHistory history, int baseline, int ownShip) {
+        EntityStateTable asteroids = packet.asteroids;
+        EntityStateTable bullets = packet.bullets;
+        if (history != null && history.contains(packet.sequence)) {
+            asteroids = history.getAsteroids(packet.sequence);
+            bullets = history.getBullets(packet.sequence);
+        } else {
+            history = null;
+        }
+        int age = packet.sequence - baseline;
+        if (history == null || !history.contains(baseline) || age <= 0 || age >= SnapshotHistory.CAPACITY) {
+            baseline = SnapshotHistory.NO_SNAPSHOT;
+        }
+
+        this.buffer.clear();
+        this.writeHeader(TYPE_GAME, packet.room);
+        this.buffer.putInt(packet.sequence);
+        this.buffer.putInt(baseline);
+        this.buffer.putInt(packet.tick);
+        this.buffer.putInt(ownShip);
+        this.writeGameMode(packet.gameMode);
+        this.writeShip(packet.host);
+        this.buffer.putChar((char) packet.getShipCount());
+        for (int i = 0; i < packet.getShipCount(); i++) {
+            this.writeShip(packet.getShip(i));
+        }
+        if (baseline == SnapshotHistory.NO_SNAPSHOT) {
+            this.writeEntities(asteroids, packet.tick, true);
+            this.writeEntities(bullets, packet.tick, false);
+        } else {
+            this.writeChanges(asteroids, history.getAsteroids(baseline), packet.tick, true);
+            this.writeChanges(bullets, history.getBullets(baseline), packet.tick, false);
+        }
+        this.buffer.flip();
+        return this.buffer;
+    }
+
+    /**
+     * Writes a client's ship identity and recent inputs into this codec's buffer. This is only a few dozen bytes.
+     *
+     * @param packet The client packet to write.
+     * @return The buffer, ready to be read from position zero up to its limit. It is only valid until the next call to
+     * encode.
+     * @throws java.nio.BufferOverflowException If the packet does not fit in a single datagram.
+     */
+    public ByteBuffer encode(DataPacket_Client packet) {
+        this.buffer.clear();
+        this.writeHeader(TYPE_CLIENT, packet.room);
+        this.buffer.putInt(packet.acknowledgedSnapshot);
+        this.writeIdentity(packet.player);
+        this.buffer.putInt(packet.inputSequence);
+        this.buffer.put((byte) packet.inputCount);
+        this.buffer.put(packet.inputs, 0, packet.inputCount);
+        this.buffer.flip();
+        return this.buffer;
+    }
+
+    /**
+     * Reads a full game snapshot (a keyframe), overwriting the contents of the given packet.
+     *
+     * @param in     The received bytes, from the buffer's position up to its limit.
+     * @param packet The packet to read into.
+     * @throws ProtocolException If the bytes are not a full game snapshot of this protocol version.
+     */
+    public void decode(ByteBuffer in, DataPacket_Game packet) throws ProtocolException {
+        this.decode(in, packet, null);
+    }
+
+    /**
+     * Reads a game snapshot, overwriting the contents of the given packet. If the snapshot only holds the changes since
+     * a baseline, the baseline is looked up in the history. Every snapshot that is read is added to the history, so it
+     * can be the baseline of later ones.
+     *
+     * @param in      The received bytes, from the buffer's position up to its limit.
+     * @param packet  The packet to read into.
+     * @param history The client's snapshot history, or null to only accept keyframes.
+     * @return False if the snapshot was ignored because it is not newer than the newest snapshot in the history, which
+     * happens when packets arrive out of order or twice. True otherwise.
+     * @throws ProtocolException If the bytes are not a game snapshot of this protocol version, or the snapshot's
+     *                           baseline is not in the history.
+     */
+    public boolean decode(ByteBuffer in, DataPacket_Game packet, SnapshotHistory history) throws ProtocolException {
+        try {
+            packet.room = this.readHeader(in, TYPE_GAME);
+            int sequence = in.getInt();
+            int baseline = in.getInt();
+            int tick = in.getInt();
+            int ownShip = in.getInt();
+            if (history != null && history.getLatestSequence() != SnapshotHistory.NO_SNAPSHOT && sequence - history.getLatestSequence() <= 0) {
+                return false;
+            }
+            if (baseline != SnapshotHistory.NO_SNAPSHOT) {
+                int age = sequence - baseline;
+                if (history == null || !history.contains(baseline) || age <= 0 || age >= SnapshotHistory.CAPACITY) {
+                    throw new ProtocolException("Baseline snapshot " + baseline + " of snapshot " + sequence + " is not available.");
+                }
+            }
+            packet.gameMode = this.readGameMode(in);
+            this.readShip(in, packet.host);
+            packet.clearShips();
+            int shipCount = in.getChar();
+            for (int i = 0; i < shipCount; i++) {
+                this.readShip(in, packet.addShip());
+            }
+
+            EntityStateTable asteroids = this.asteroidAnchors;
+            EntityStateTable bullets = this.bulletAnchors;
+            if (history != null) {
+                history.prepare(sequence);
+                asteroids = history.getAsteroids(sequence);
+                bullets = history.getBullets(sequence);
+            }
+            if (baseline == SnapshotHistory.NO_SNAPSHOT) {
+                this.readEntities(in, asteroids, tick, true);
+                this.readEntities(in, bullets, tick, false);
+            } else {
+                this.readChanges(in, history.getAsteroids(baseline), asteroids, tick, true);
+                this.readChanges(in, history.getBullets(baseline), bullets, tick, false);
+            }
+            packet.asteroids.copyPredicted(asteroids, tick);
+            packet.bullets.copyPredicted(bullets, tick);
+            packet.sequence = sequence;
+            packet.tick = tick;
+            packet.ownShip = ownShip;
+            if (history != null) {
+                history.commit(sequence, tick);
+            }
+            return true;
+        }
+        catch (BufferUnderflowException e) {
+            throw new ProtocolException("Game snapshot was cut short.");
+        }
+    }
+
+    /**
+     * Reads a client's ship identity and inputs, overwriting the contents of the given packet.
+     *
+     * @param in     The received bytes, from the buffer's position up to its limit.
+     * @param packet The packet to read into.
+     * @throws ProtocolException If the bytes are not a client packet of this protocol version.
+     */
+    public void decode(ByteBuffer in, DataPacket_Client packet) throws ProtocolException {
+        try {
+            packet.room = this.readHeader(in, TYPE_CLIENT);
+            packet.acknowledgedSnapshot = in.getInt();
+            this.readIdentity(in, packet.player);
+            packet.inputSequence = in.getInt();
+            int inputCount = Byte.toUnsignedInt(in.get());
+            if (inputCount > DataPacket_Client.INPUT_REDUNDANCY) {
+                throw new ProtocolException("Too many inputs: " + inputCount + ".");
+            }
+            in.get(packet.inputs, 0, inputCount);
+            packet.inputCount = inputCount;
+        }
+        catch (BufferUnderflowException e) {
+            throw new ProtocolException("Client packet was cut short.");
+        }
+    }
+
+    /**
+     * Looks up which room a received packet belongs to, without reading the packet.
+     *
+     * @param in The received bytes, from the buffer's position up to its limit. The position is left unchanged.
+     * @return The room of the packet.
+     * @throws ProtocolException If the bytes are too short to be a packet.
+     */
+    public static int peekRoom(ByteBuffer in) throws ProtocolException {
+        if (in.remaining() < HEADER_SIZE) {
+            throw new ProtocolException("Packet is too short to have a header.");
+        }
+        return in.getInt(in.position() + 2);
+    }
+
+    private void writeHeader(byte type, int room) {
+        this.buffer.put(PROTOCOL_VERSION);
+        this.buffer.put(type);
+        this.buffer.putInt(room);
+    }
+
+    /**
+     * @return The room of the packet.
+     */
+    private int readHeader(ByteBuffer in, byte expectedType) throws ProtocolException {
+        byte version = in.get();
+        if (version != PROTOCOL_VERSION) {
+            throw new ProtocolException("Unsupported protocol version " + version + ", expected " + PROTOCOL_VERSION + ".");
+        }
+        byte type = in.get();
+        if (type != expectedType) {
+            throw new ProtocolException("Unexpected packet type " + type + ", expected " + expectedType + ".");
+        }
+        return in.getInt();
+    }
+
+    private void writeGameMode(GameMode gameMode) {
+        this.buffer.put(gameMode == null ? -1 : (byte) gameMode.ordinal());
+    }
+
+    private GameMode readGameMode(ByteBuffer in) throws ProtocolException {
+        byte ordinal = in.get();
+        if (ordinal == -1) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal >= GAME_MODES.length) {
+            throw new ProtocolException("Unknown game mode " + ordinal + ".");
+        }
+        return GAME_MODES[ordinal];
+    }
+
+    private void writeShip(ShipState ship) {
+        this.buffer.putInt(ship.id);
+        this.writePosition(ship.locationX);
+        this.writePosition(ship.locationY);
+        this.writeVelocity(ship.velocityX);
+        this.writeVelocity(ship.velocityY);
+        this.writeAngle(ship.direction);
+        int flags = 0;
+        flags |= ship.accelerating ? FLAG_ACCELERATING : 0;
+        flags |= ship.destroyed ? FLAG_DESTROYED : 0;
+        flags |= ship.spectator ? FLAG_SPECTATOR : 0;
+        flags |= ship.hasColour ? FLAG_HAS_COLOUR : 0;
+        this.buffer.put((byte) flags);
+        this.writeGameMode(ship.gameMode);
+        this.buffer.putInt(ship.colour);
+        this.buffer.putInt(ship.score);
+        this.buffer.putInt(ship.coopScore);
+        this.buffer.putShort(quantize(ship.health, HEALTH_SCALE));
+        this.buffer.putShort(quantize(ship.energy, ENERGY_SCALE));
+        this.buffer.put((byte) roundCounter(ship.weaponCooldown));
+        this.buffer.putInt(ship.inputSequence);
+        this.writeUsername(ship);
+    }
+
+    private void readShip(ByteBuffer in, ShipState ship) throws ProtocolException {
+        ship.id = in.getInt();
+        ship.locationX = this.readPosition(in);
+        ship.locationY = this.readPosition(in);
+        ship.velocityX = this.readVelocity(in);
+        ship.velocityY = this.readVelocity(in);
+        ship.direction = this.readAngle(in);
+        int flags = in.get();
+        ship.accelerating = (flags & FLAG_ACCELERATING) != 0;
+        ship.destroyed = (flags & FLAG_DESTROYED) != 0;
+        ship.spectator = (flags & FLAG_SPECTATOR) != 0;
+        ship.hasColour = (flags & FLAG_HAS_COLOUR) != 0;
+        ship.gameMode = this.readGameMode(in);
+        ship.colour = in.getInt();
+        ship.score = in.getInt();
+        ship.coopScore = in.getInt();
+        ship.health = in.getShort() / HEALTH_SCALE;
+        ship.energy = in.getShort() / ENERGY_SCALE;
+        ship.weaponCooldown = Byte.toUnsignedInt(in.get());
+        ship.inputSequence = in.getInt();
+        this.readUsername(in, ship);
+    }
+
+    /**
+     * Writes only what identifies a ship and doesn't change while playing: its id, game mode, colour and username.
+     */
+    private void writeIdentity(ShipState ship) {
+        this.buffer.putInt(ship.id);
+        this.writeGameMode(ship.gameMode);
+        this.buffer.put((byte) (ship.hasColour ? FLAG_HAS_COLOUR : 0));
+        this.buffer.putInt(ship.colour);
+        this.writeUsername(ship);
+    }
+
+    private void readIdentity(ByteBuffer in, ShipState ship) throws ProtocolException {
+        ship.id = in.getInt();
+        ship.gameMode = this.readGameMode(in);
+        ship.hasColour = (in.get() & FLAG_HAS_COLOUR) != 0;
+        ship.colour = in.getInt();
+        this.readUsername(in, ship);
+    }
+
+    private void writeUsername(ShipState ship) {
+        this.buffer.put((byte) ship.usernameLength);
+        this.buffer.put(ship.usernameBytes, 0, ship.usernameLength);
+    }
+
+    private void readUsername(ByteBuffer in, ShipState ship) {
+        int usernameLength = Byte.toUnsignedInt(in.get());
+        in.get(ship.usernameBytes, 0, usernameLength);
+        ship.usernameBytesChanged(usernameLength);
+    }
+
+    /**
+     * Writes every row of a table.
+     *
+     * @param table     The table to write.
+     * @param tick      The tick of the packet, which the age of every row is measured against.
+     * @param asteroids True if the table holds asteroids, false if it holds bullets.
+     */
+    private void writeEntities(EntityStateTable table, int tick, boolean asteroids) {
+        this.buffer.putChar((char) table.size());
+        for (int row = 0; row < table.size(); row++) {
+            this.buffer.putInt(table.getId(row));
+            this.writeEntity(table, row, tick, asteroids);
+        }
+    }
+
+    /**
+     * Reads a table written by {@link #writeEntities(EntityStateTable, int, boolean)}.
+     *
+     * @param in        The received bytes.
+     * @param table     The table to fill.
+     * @param tick      The tick of the packet.
+     * @param asteroids True if the table holds asteroids, false if it holds bullets.
+     * @throws ProtocolException If the rows are invalid or out of order.
+     */
+    private void readEntities(ByteBuffer in, EntityStateTable table, int tick, boolean asteroids) throws ProtocolException {
+        table.clear();
+        int count = in.getChar();
+        for (int i = 0; i < count; i++) {
+            int id = in.getInt();
+            if (table.size() > 0 && id <= table.getId(table.size() - 1)) {
+                throw new ProtocolException("Object " + id + " is out of order.");
+            }
+            this.readEntity(in, id, table, tick, asteroids);
+        }
+    }
+
+    /**
+     * Writes the rows that differ between a table and a baseline as a list of changes, sorted by id. A change either
+     * removes an object that is in the baseline but not in the table, or adds or replaces a row of the table.
+     *
+     * @param table     The rows to send, sorted by id.
+     * @param baseline  The rows that the receiver already has, sorted by id.
+     * @param tick      The tick of the packet.
+     * @param asteroids True if the tables hold asteroids, false if they hold bullets.
+     */
+    private void writeChanges(EntityStateTable table, EntityStateTable baseline, int tick, boolean asteroids) {
+        int countPosition = this.buffer.position();
+        this.buffer.putChar((char) 0);
+        int changes = 0;
+        int row = 0;
+        int baselineRow = 0;
+        while (row < table.size() || baselineRow < baseline.size()) {
+            if (row == table.size() || (baselineRow < baseline.size() && baseline.getId(baselineRow) < table.getId(row))) {
+                this.buffer.put(CHANGE_REMOVE);
+                this.buffer.putInt(baseline.getId(baselineRow++));
+                changes++;
+            } else {
+                boolean unchanged = baselineRow < baseline.size() && baseline.getId(baselineRow) == table.getId(row) && table.rowEquals(row, baseline, baselineRow);
+                if (baselineRow < baseline.size() && baseline.getId(baselineRow) == table.getId(row)) {
+                    baselineRow++;
+                }
+                if (!unchanged) {
+                    this.buffer.put(CHANGE_SET);
+                    this.buffer.putInt(table.getId(row));
+                    this.writeEntity(table, row, tick, asteroids);
+                    changes++;
+                }
+                row++;
+            }
+        }
+        this.buffer.putChar(countPosition, (char) changes);
+    }
+
+    /**
+     * Reads a list of changes written by {@link #writeChanges(EntityStateTable, EntityStateTable, int, boolean)}, and
+     * applies them to a copy of the baseline.
+     *
+     * @param in        The received bytes.
+     * @param baseline  The rows that the changes are relative to.
+     * @param table     The table to fill with the baseline plus the changes.
+     * @param tick      The tick of the packet.
+     * @param asteroids True if the tables hold asteroids, false if they hold bullets.
+     * @throws ProtocolException If a change is invalid or out of order.
+     */
+    private void readChanges(ByteBuffer in, EntityStateTable baseline, EntityStateTable table, int tick, boolean asteroids) throws ProtocolException {
+        table.clear();
+        int count = in.getChar();
+        int baselineRow = 0;
+        int previousId = 0;
+        for (int i = 0; i < count; i++) {
+            byte change = in.get();
+            int id = in.getInt();
+            if (i > 0 && id <= previousId) {
+                throw new ProtocolException("Change to object " + id + " is out of order.");
+            }
+            previousId = id;
+            while (baselineRow < baseline.size() && baseline.getId(baselineRow) < id) {
+                table.addRow(baseline, baselineRow++);
+            }
+            if (baselineRow < baseline.size() && baseline.getId(baselineRow) == id) {
+                baselineRow++; // Either removed or replaced.
+            }
+            if (change == CHANGE_SET) {
+                this.readEntity(in, id, table, tick, asteroids);
+            } else if (change != CHANGE_REMOVE) {
+                throw new ProtocolException("Unknown change " + change + ".");
+            }
+        }
+        while (baselineRow < baseline.size()) {
+            table.addRow(baseline, baselineRow++);
+        }
+    }
+
+    /**
+     * Writes the fields of a row, except its id. The tick at which the row was sampled is sent as its age, relative to
+     * the tick of the packet.
+     */
+    private void writeEntity(EntityStateTable table, int row, int tick, boolean asteroids) {
+        this.writePosition(table.getLocationX(row));
+        this.writePosition(table.getLocationY(row));
+        this.writeVelocity(table.getVelocityX(row));
+        this.writeVelocity(table.getVelocityY(row));
+        this.buffer.putChar((char) Math.max(0, Math.min(SnapshotHistory.MAX_ANCHOR_AGE, tick - table.getTick(row))));
+        this.buffer.put((byte) roundCounter(table.getStepsUntilCollisionPossible(row)));
+        this.buffer.put((byte) (asteroids ? table.getSize(row) : roundCounter(table.getStepsLeft(row))));
+    }
+
+    /**
+     * Reads the fields of a row written by {@link #writeEntity(EntityStateTable, int, int, boolean)}, and adds it to the
+     * given table.
+     */
+    private void readEntity(ByteBuffer in, int id, EntityStateTable table, int tick, boolean asteroids) throws ProtocolException {
+        double x = this.readPosition(in);
+        double y = this.readPosition(in);
+        double vx = this.readVelocity(in);
+        double vy = this.readVelocity(in);
+        int age = in.getChar();
+        int stepsUntilCollisionPossible = Byte.toUnsignedInt(in.get());
+        int last = Byte.toUnsignedInt(in.get());
+        if (asteroids) {
+            if (last >= ASTEROID_SIZE_COUNT) {
+                throw new ProtocolException("Unknown asteroid size " + last + ".");
+            }
+            table.add(id, x, y, vx, vy, last, stepsUntilCollisionPossible, 0, tick - age);
+        } else {
+            table.add(id, x, y, vx, vy, 0, stepsUntilCollisionPossible, last, tick - age);
+        }
+    }
+
+    private void writePosition(double position) {
+        this.buffer.putShort(quantize(position, POSITION_SCALE));
+    }
+
+    private double readPosition(ByteBuffer in) {
+        return in.getShort() / POSITION_SCALE;
+    }
+
+    private void writeVelocity(double velocity) {
+        this.buffer.putShort(quantize(velocity, VELOCITY_SCALE));
+    }
+
+    private double readVelocity(ByteBuffer in) {
+        return in.getShort() / VELOCITY_SCALE;
+    }
+
+    /**
+     * Writes an angle as a fraction of a full turn. Any angle is accepted; it is normalized first.
+     */
+    private void writeAngle(double angle) {
+        double turns = angle / (2 * Math.PI);
+        turns -= Math.floor(turns);
+        this.buffer.putChar((char) Math.round(turns * ANGLE_STEPS));
+    }
+
+    private double readAngle(ByteBuffer in) {
+        return in.getChar() / ANGLE_STEPS * 2 * Math.PI;
+    }
+
+    /**
+     * @param position A location.
+     * @return The location exactly as it is received after being sent.
+     */
+    static double roundPosition(double position) {
+        return quantize(position, POSITION_SCALE) / POSITION_SCALE;
+    }
+
+    /**
+     * @param velocity A velocity.
+     * @return The velocity exactly as it is received after being sent.
+     */
+    static double roundVelocity(double velocity) {
+        return quantize(velocity, VELOCITY_SCALE) / VELOCITY_SCALE;
+    }
+
+    /**
+     * @param counter A number of steps, such as the remaining lifetime of a bullet.
+     * @return The number exactly as it is received after being sent in a single unsigned byte.
+     */
+    static int roundCounter(int counter) {
+        return Math.max(0, Math.min(255, counter));
+    }
+
+    /**
+     * Converts a value to a 16 bit fixed point number, clamping it if it doesn't fit.
+     *
+     * @param value The value to convert.
+     * @param scale What the value is multiplied by before rounding.
+     * @return The fixed point number.
+     */
+    private static short quantize(double value, double scale) {
+        long scaled = Math.round(value * scale);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, scaled));
+    }
+}
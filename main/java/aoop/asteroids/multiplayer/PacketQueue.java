@@ -0,0 +1,102 @@
+package aoop.asteroids.multiplayer;
+
+import aoop.asteroids.util.SpscRingBuffer;
+
+import java.util.function.Supplier;
+
+/**
+ * Passes packets from one thread to another, using a fixed number of packet objects that are used over and over.
+ * <p>
+ * The producing thread acquires a free packet, fills it in and publishes it. The consuming thread polls published
+ * packets, and releases each one once it is done with it, so that it can be filled again. If every packet is in use,
+ * the producer doesn't get one and has to drop what it wanted to pass on, so a slow consumer never causes an ever
+ * growing backlog.
+ * <p>
+ * Packets travel in a circle through two lock-free ring buffers, one in each direction, so neither thread ever waits
+ * for the other. Because of that, each method may only be called from the thread it is meant for.
+ *
+ * @param <T> The type of packet.
+ */
+public class PacketQueue<T> {
+    /**
+     * Packets that can be filled in by the producer. Filled by the consumer.
+     */
+    private final SpscRingBuffer<T> free;
+
+    /**
+     * Packets that are waiting to be handled by the consumer, oldest first. Filled by the producer.
+     */
+    private final SpscRingBuffer<T> published;
+
+    /**
+     * A packet that the producer acquired but then discarded, which it gets back on its next acquire. Only touched by
+     * the producer.
+     */
+    private T spare;
+
+    /**
+     * @param capacity The number of packets.
+     * @param factory  Creates the packets.
+     */
+    public PacketQueue(int capacity, Supplier<T> factory) {
+        this.free = new SpscRingBuffer<>(capacity);
+        this.published = new SpscRingBuffer<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.free.offer(factory.get());
+        }
+    }
+
+    /**
+     * Called by the producer.
+     *
+     * @return A packet to be filled in, or null if all packets are in use.
+     */
+    public T acquire() {
+        if (this.spare != null) {
+            T packet = this.spare;
+            this.spare = null;
+            return packet;
+        }
+        return this.free.poll();
+    }
+
+    /**
+     * Called by the producer to hand a packet that it acquired to the consumer.
+     *
+     * @param packet The filled in packet.
+     */
+    public void publish(T packet) {
+        if (!this.published.offer(packet)) {
+            throw new IllegalStateException("Published a packet that was not acquired from this queue.");
+        }
+    }
+
+    /**
+     * Called by the producer for a packet that it acquired but isn't going to publish after all.
+     *
+     * @param packet The packet.
+     */
+    public void discard(T packet) {
+        this.spare = packet;
+    }
+
+    /**
+     * Called by the consumer.
+     *
+     * @return The oldest published packet, or null if there is none.
+     */
+    public T poll() {
+        return this.published.poll();
+    }
+
+    /**
+     * Called by the consumer to give a packet back once it is done with it, so that it can be filled in again.
+     *
+     * @param packet The packet.
+     */
+    public void release(T packet) {
+        if (!this.free.offer(packet)) {
+            throw new IllegalStateException("Released a packet that was not acquired from this queue.");
+        }
+    }
+}
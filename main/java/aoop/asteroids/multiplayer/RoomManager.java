@@ -0,0 +1,125 @@
+package aoop.asteroids.multiplayer;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Game;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many independent games, called rooms, in one process, as a dedicated server.
+ * <p>
+ * Instead of a thread per game, the ticks of every room are scheduled on a fixed number of worker threads, and all
+ * rooms share a single network thread and port. Every packet carries the id of its room, which is how the network
+ * thread knows which game a packet is for. Clients pick a room when they join.
+ */
+public class RoomManager implements GameModeInterface {
+    private final int port;
+
+    /**
+     * The network thread that all rooms share.
+     */
+    private final DatagramTransport transport;
+
+    /**
+     * The worker threads that run the ticks of all rooms.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * The open rooms, by id.
+     */
+    private final Map<Integer, Game> rooms = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextRoomId = new AtomicInteger(DatagramTransport.DEFAULT_ROOM);
+
+    /**
+     * Starts the network thread and the worker threads, without any rooms yet.
+     *
+     * @param port    The port that all rooms are hosted on.
+     * @param workers The number of threads that run the rooms' ticks.
+     */
+    public RoomManager(int port, int workers) {
+        this.port = port;
+        this.transport = new DatagramTransport(port);
+        this.scheduler = Executors.newScheduledThreadPool(workers, new WorkerThreadFactory());
+        this.transport.start();
+    }
+
+    /**
+     * Opens a new room, and starts its game.
+     *
+     * @param mode The game mode of the room.
+     * @return The game of the new room, which can be found again by its room id.
+     */
+    public Game openRoom(GameMode mode) {
+        Game game = new Game();
+        game.initializeGameData(true, true, mode);
+        game.setDedicatedServer(true);
+        game.setUsername("Server");
+        game.setHostPort(this.port);
+        game.setRoomId(this.nextRoomId.getAndIncrement());
+        this.rooms.put(game.getRoomId(), game);
+        game.start(this.scheduler, this.transport);
+        return game;
+    }
+
+    /**
+     * Stops the game of a room. The room is closed at what would have been its next tick.
+     *
+     * @param roomId The id of the room.
+     */
+    public void closeRoom(int roomId) {
+        Game game = this.rooms.remove(roomId);
+        if (game != null) {
+            game.quit();
+        }
+    }
+
+    /**
+     * @param roomId The id of a room.
+     * @return The game of the room, or null if there is no open room with that id.
+     */
+    public Game getRoom(int roomId) {
+        return this.rooms.get(roomId);
+    }
+
+    /**
+     * @return The games of all open rooms.
+     */
+    public Collection<Game> getRooms() {
+        return Collections.unmodifiableCollection(this.rooms.values());
+    }
+
+    public int getPort() {
+        return this.port;
+    }
+
+    /**
+     * Stops every room, the worker threads and the network thread.
+     */
+    public void close() {
+        this.rooms.values().forEach(Game::quit);
+        this.rooms.clear();
+        this.scheduler.shutdown();
+        this.transport.close();
+    }
+
+    /**
+     * Gives the worker threads recognisable names.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, "RoomWorker-" + this.count.incrementAndGet());
+        }
+    }
+}
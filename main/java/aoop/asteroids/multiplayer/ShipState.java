@@ -0,0 +1,208 @@
+package aoop.asteroids.multiplayer;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Spaceship;
+import aoop.asteroids.model.WorldSnapshot;
+
+import java.awt.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The state of a spaceship as it is sent over the network. Unlike a Spaceship, this is a plain holder of values that
+ * can be filled again and again, so sending and receiving ships doesn't create new objects every time.
+ */
+public class ShipState implements GameModeInterface {
+    /**
+     * The longest username, in UTF-8 bytes, that is sent. Longer names are cut off.
+     */
+    static final int MAX_USERNAME_BYTES = 255;
+
+    int id;
+    double locationX, locationY;
+    double velocityX, velocityY;
+    double direction;
+    boolean accelerating;
+    boolean destroyed;
+    boolean spectator;
+    GameMode gameMode;
+    /**
+     * The ship's colour as an RGB value, only meaningful if hasColour is set.
+     */
+    int colour;
+    boolean hasColour;
+    int score;
+    int coopScore;
+    double health;
+    double energy;
+    int weaponCooldown;
+    /**
+     * The number of the last client input that the host applied to the ship, or {@link InputHistory#NO_INPUT}.
+     */
+    int inputSequence;
+
+    /**
+     * The username, encoded as UTF-8. Only the first usernameLength bytes are used.
+     */
+    final byte[] usernameBytes = new byte[MAX_USERNAME_BYTES];
+    int usernameLength;
+
+    /**
+     * The last username that was converted to or from usernameBytes, along with its encoded form. Usernames hardly
+     * ever change, so keeping these around avoids converting between strings and bytes for every single packet.
+     */
+    private String username = "";
+    private final byte[] lastUsernameBytes = new byte[MAX_USERNAME_BYTES];
+    private int lastUsernameLength;
+
+    /**
+     * Copies the state of a spaceship in a world snapshot.
+     *
+     * @param ships The ships of the snapshot.
+     * @param row   The row of the ship to copy.
+     */
+    public void capture(WorldSnapshot.ShipTable ships, int row) {
+        this.id = ships.getId(row);
+        this.locationX = ships.getLocationX(row);
+        this.locationY = ships.getLocationY(row);
+        this.velocityX = ships.getVelocityX(row);
+        this.velocityY = ships.getVelocityY(row);
+        this.direction = ships.getDirection(row);
+        this.accelerating = ships.isAccelerating(row);
+        this.destroyed = ships.isDestroyed(row);
+        this.spectator = ships.isSpectator(row);
+        this.gameMode = ships.getGameMode(row);
+        this.hasColour = ships.getColour(row) != null;
+        this.colour = this.hasColour ? ships.getColour(row).getRGB() : 0;
+        this.score = ships.getScore(row);
+        this.coopScore = ships.getCOOPScore(row);
+        this.health = ships.getHealth(row);
+        this.energy = ships.getEnergy(row);
+        this.weaponCooldown = ships.getWeaponCooldown(row);
+        this.inputSequence = ships.getInputSequence(row);
+        if (!ships.getUsername(row).equals(this.username)) {
+            this.username = ships.getUsername(row);
+            byte[] encoded = this.username.getBytes(StandardCharsets.UTF_8);
+            this.usernameLength = Math.min(encoded.length, MAX_USERNAME_BYTES);
+            System.arraycopy(encoded, 0, this.usernameBytes, 0, this.usernameLength);
+            System.arraycopy(encoded, 0, this.lastUsernameBytes, 0, this.usernameLength);
+            this.lastUsernameLength = this.usernameLength;
+        }
+    }
+
+    /**
+     * Overwrites the given spaceship with this state.
+     *
+     * @param ship The ship to update.
+     */
+    public void applyTo(Spaceship ship) {
+        ship.setMultiplayerID(this.id);
+        ship.setLocation(this.locationX, this.locationY);
+        ship.setVelocity(this.velocityX, this.velocityY);
+        ship.setDirection(this.direction);
+        ship.setAccelerateKeyPressed(this.accelerating);
+        if (this.destroyed) {
+            ship.destroy();
+        }
+        ship.setSpectator(this.spectator);
+        ship.setGameMode(this.gameMode);
+        if (!this.hasColour) {
+            ship.setColour(null);
+        } else if (ship.getShipColour() == null || ship.getShipColour().getRGB() != this.colour) {
+            ship.setColour(new Color(this.colour, true));
+        }
+        ship.setScore(this.score);
+        ship.setCOOPScore(this.coopScore);
+        ship.setHealth(this.health);
+        ship.setEnergy(this.energy);
+        ship.setWeaponCooldownRemaining(this.weaponCooldown);
+        ship.setUsername(this.getUsername());
+    }
+
+    /**
+     * Overwrites only what changes as a ship moves: its location, velocity, direction, energy, weapon cooldown and
+     * health. Used by a client to reset its own ship to the state that the host sent, before replaying the inputs that
+     * the host hadn't applied yet.
+     *
+     * @param ship The ship to update.
+     */
+    public void applyMotionTo(Spaceship ship) {
+        ship.setLocation(this.locationX, this.locationY);
+        ship.setVelocity(this.velocityX, this.velocityY);
+        ship.setDirection(this.direction);
+        ship.setEnergy(this.energy);
+        ship.setWeaponCooldownRemaining(this.weaponCooldown);
+        ship.setHealth(this.health);
+    }
+
+    /**
+     * Gives a new ship the identity of this state: game mode, colour and username. Used by the host for the ships of
+     * clients, which only send their identity. The ship keeps the id that the host gave it.
+     *
+     * @param ship The ship to update.
+     */
+    public void applyIdentityTo(Spaceship ship) {
+        ship.setGameMode(this.gameMode);
+        ship.setColour(this.hasColour ? new Color(this.colour, true) : null);
+        ship.setUsername(this.getUsername());
+    }
+
+    /**
+     * Called after usernameBytes has been overwritten by a received packet. Only decodes a new string if the name is
+     * different from the previous one.
+     *
+     * @param length The number of bytes of the received username.
+     */
+    void usernameBytesChanged(int length) {
+        this.usernameLength = length;
+        if (!Arrays.equals(this.lastUsernameBytes, 0, this.lastUsernameLength, this.usernameBytes, 0, length)) {
+            this.username = new String(this.usernameBytes, 0, length, StandardCharsets.UTF_8);
+            System.arraycopy(this.usernameBytes, 0, this.lastUsernameBytes, 0, length);
+            this.lastUsernameLength = length;
+        }
+    }
+
+    public int getId() {
+        return this.id;
+    }
+
+    public GameMode getGameMode() {
+        return this.gameMode;
+    }
+
+    public double getLocationX() {
+        return this.locationX;
+    }
+
+    public double getLocationY() {
+        return this.locationY;
+    }
+
+    public double getVelocityX() {
+        return this.velocityX;
+    }
+
+    public double getVelocityY() {
+        return this.velocityY;
+    }
+
+    public double getDirection() {
+        return this.direction;
+    }
+
+    public boolean isSpectator() {
+        return this.spectator;
+    }
+
+    public int getInputSequence() {
+        return this.inputSequence;
+    }
+
+    public int getCOOPScore() {
+        return this.coopScore;
+    }
+
+    public String getUsername() {
+        return this.username;
+    }
+}
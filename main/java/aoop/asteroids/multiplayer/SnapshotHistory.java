@@ -0,0 +1,206 @@
+package aoop.asteroids.multiplayer;
+
+import aoop.asteroids.model.Game;
+
+/**
+ * The most recent game snapshots, numbered in the order they were made, that both the host and the clients remember so
+ * that a snapshot can be sent as only the differences from an earlier one (its baseline).
+ * <p>
+ * What is remembered for every snapshot is not the exact state of each asteroid and bullet, but its last "anchor": the
+ * state at the tick where it was last sent in full. Objects fly in a straight line, so as long as an object is still
+ * where its anchor predicts, the anchor is simply carried over to the next snapshot, and the object doesn't need to be
+ * sent again. Because a client rebuilds exactly the same anchors from the packets it receives, predictions on both sides
+ * agree to the last bit, and errors can't build up over a long chain of snapshots.
+ * <p>
+ * Only the last {@link #CAPACITY} snapshots are remembered. If a client's last acknowledged snapshot is older than
+ * that, it is sent a full snapshot (a keyframe) instead.
+ */
+public class SnapshotHistory {
+    /**
+     * The number of snapshots that are remembered.
+     */
+    public static final int CAPACITY = 32;
+
+    /**
+     * Means "no snapshot", for example when a client hasn't received anything yet.
+     */
+    public static final int NO_SNAPSHOT = -1;
+
+    /**
+     * How far, in pixels, an object may drift from where its anchor predicts it to be before it is sent again.
+     */
+    private static final double POSITION_TOLERANCE = 0.5;
+
+    /**
+     * The oldest an anchor may get, in ticks, since the age is sent as an unsigned 16 bit number.
+     */
+    static final int MAX_ANCHOR_AGE = Character.MAX_VALUE;
+
+    private final int[] sequences = new int[CAPACITY];
+    private final int[] ticks = new int[CAPACITY];
+    private final EntityStateTable[] asteroids = new EntityStateTable[CAPACITY];
+    private final EntityStateTable[] bullets = new EntityStateTable[CAPACITY];
+
+    /**
+     * The number of the newest snapshot in the history.
+     */
+    private int latestSequence = NO_SNAPSHOT;
+
+    public SnapshotHistory() {
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            this.sequences[slot] = NO_SNAPSHOT;
+            this.asteroids[slot] = new EntityStateTable();
+            this.bullets[slot] = new EntityStateTable();
+        }
+    }
+
+    /**
+     * Adds a newly captured snapshot to the history, giving it the next sequence number. Used by the host.
+     *
+     * @param snapshot The snapshot, holding the current state of the game. Its sequence number is set by this method.
+     * @return The snapshot's sequence number.
+     */
+    public int record(DataPacket_Game snapshot) {
+        int previous = this.latestSequence;
+        int sequence = previous + 1;
+        int slot = this.slot(sequence);
+        this.sequences[slot] = NO_SNAPSHOT;
+        this.anchor(snapshot.asteroids, previous == NO_SNAPSHOT ? null : this.asteroids[this.slot(previous)], this.asteroids[slot], snapshot.tick);
+        this.anchor(snapshot.bullets, previous == NO_SNAPSHOT ? null : this.bullets[this.slot(previous)], this.bullets[slot], snapshot.tick);
+        this.ticks[slot] = snapshot.tick;
+        this.sequences[slot] = sequence;
+        this.latestSequence = sequence;
+        snapshot.sequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Empties the slot for a snapshot that is about to be received, so that it can be filled by the packet codec. Used
+     * by clients. The snapshot only counts as part of the history once {@link #commit(int, int)} is called.
+     *
+     * @param sequence The number of the snapshot.
+     */
+    void prepare(int sequence) {
+        int slot = this.slot(sequence);
+        this.sequences[slot] = NO_SNAPSHOT;
+        this.asteroids[slot].clear();
+        this.bullets[slot].clear();
+    }
+
+    /**
+     * Marks a snapshot that was filled in after {@link #prepare(int)} as complete.
+     *
+     * @param sequence The number of the snapshot.
+     * @param tick     The game tick at which the snapshot was made.
+     */
+    void commit(int sequence, int tick) {
+        int slot = this.slot(sequence);
+        this.ticks[slot] = tick;
+        this.sequences[slot] = sequence;
+        if (this.latestSequence == NO_SNAPSHOT || sequence - this.latestSequence > 0) {
+            this.latestSequence = sequence;
+        }
+    }
+
+    /**
+     * @param sequence The number of a snapshot.
+     * @return True if the snapshot is still in the history.
+     */
+    public boolean contains(int sequence) {
+        return sequence != NO_SNAPSHOT && this.sequences[this.slot(sequence)] == sequence;
+    }
+
+    /**
+     * @return The number of the newest snapshot in the history, or {@link #NO_SNAPSHOT} if it is empty.
+     */
+    public int getLatestSequence() {
+        return this.latestSequence;
+    }
+
+    /**
+     * @param sequence The number of a snapshot in the history.
+     * @return The anchors of the asteroids in that snapshot.
+     */
+    EntityStateTable getAsteroids(int sequence) {
+        return this.asteroids[this.slot(sequence)];
+    }
+
+    /**
+     * @param sequence The number of a snapshot in the history.
+     * @return The anchors of the bullets in that snapshot.
+     */
+    EntityStateTable getBullets(int sequence) {
+        return this.bullets[this.slot(sequence)];
+    }
+
+    /**
+     * @param sequence The number of a snapshot in the history.
+     * @return The game tick at which that snapshot was made.
+     */
+    int getTick(int sequence) {
+        return this.ticks[this.slot(sequence)];
+    }
+
+    /**
+     * Works out the anchors of a new snapshot. Objects that are still where their previous anchor predicts keep that
+     * anchor; all other objects get a new anchor at the current tick.
+     *
+     * @param current  The current state of the objects, sorted by id.
+     * @param previous The anchors of the previous snapshot, sorted by id, or null if there is none.
+     * @param anchors  The table to write the new anchors into.
+     * @param tick     The current tick.
+     */
+    private void anchor(EntityStateTable current, EntityStateTable previous, EntityStateTable anchors, int tick) {
+        anchors.clear();
+        int previousRow = 0;
+        for (int row = 0; row < current.size(); row++) {
+            int id = current.getId(row);
+            while (previous != null && previousRow < previous.size() && previous.getId(previousRow) < id) {
+                previousRow++;
+            }
+            if (previous != null && previousRow < previous.size() && previous.getId(previousRow) == id && this.stillPredicts(previous, previousRow, current, row, tick)) {
+                anchors.addRow(previous, previousRow);
+            } else {
+                anchors.add(id,
+                        PacketCodec.roundPosition(current.getLocationX(row)),
+                        PacketCodec.roundPosition(current.getLocationY(row)),
+                        PacketCodec.roundVelocity(current.getVelocityX(row)),
+                        PacketCodec.roundVelocity(current.getVelocityY(row)),
+                        current.getSize(row),
+                        PacketCodec.roundCounter(current.getStepsUntilCollisionPossible(row)),
+                        PacketCodec.roundCounter(current.getStepsLeft(row)),
+                        tick);
+            }
+        }
+    }
+
+    /**
+     * @return True if the anchor in the given row of the previous snapshot still describes the current state of the
+     * object closely enough.
+     */
+    private boolean stillPredicts(EntityStateTable previous, int previousRow, EntityStateTable current, int row, int tick) {
+        if (tick - previous.getTick(previousRow) > MAX_ANCHOR_AGE
+                || previous.getSize(previousRow) != current.getSize(row)
+                || previous.getVelocityX(previousRow) != PacketCodec.roundVelocity(current.getVelocityX(row))
+                || previous.getVelocityY(previousRow) != PacketCodec.roundVelocity(current.getVelocityY(row))
+                || previous.predictStepsUntilCollisionPossible(previousRow, tick) != PacketCodec.roundCounter(current.getStepsUntilCollisionPossible(row))
+                || previous.predictStepsLeft(previousRow, tick) != PacketCodec.roundCounter(current.getStepsLeft(row))) {
+            return false;
+        }
+        double errorX = this.wrappedDistance(previous.predictLocationX(previousRow, tick), current.getLocationX(row), Game.WORLD_WIDTH);
+        double errorY = this.wrappedDistance(previous.predictLocationY(previousRow, tick), current.getLocationY(row), Game.WORLD_HEIGHT);
+        return errorX <= POSITION_TOLERANCE && errorY <= POSITION_TOLERANCE;
+    }
+
+    /**
+     * @return The distance between two coordinates on an axis that wraps around.
+     */
+    private double wrappedDistance(double first, double second, double size) {
+        double distance = Math.abs(first - second) % size;
+        return Math.min(distance, size - distance);
+    }
+
+    private int slot(int sequence) {
+        return Math.floorMod(sequence, CAPACITY);
+    }
+}
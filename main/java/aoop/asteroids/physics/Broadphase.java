@@ -0,0 +1,43 @@
+package aoop.asteroids.physics;
+
+import aoop.asteroids.model.GameObject;
+
+import java.util.Collection;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A broadphase quickly narrows down which game objects could possibly be colliding, so that the (comparatively
+ * expensive) exact check in {@link GameObject#collides(GameObject)} only has to be done for a handful of candidates,
+ * instead of for every possible pair of objects in the game.
+ * <p>
+ * A broadphase may report pairs that do not actually collide, but it must never leave out a pair that does. Callers
+ * should therefore always confirm a candidate using {@link GameObject#collides(GameObject)}.
+ *
+ * @param <T> The type of game object that is stored in this broadphase.
+ */
+public interface Broadphase<T extends GameObject> {
+    /**
+     * Throws away whatever was stored previously, and stores the given objects instead. This should be called once per
+     * game tick, after all objects have moved.
+     *
+     * @param objects The objects that later queries should be run against.
+     */
+    void build(Collection<? extends T> objects);
+
+    /**
+     * Passes every stored object that could possibly collide with the given probe to the given action.
+     *
+     * @param probe  The object to find collision candidates for. It does not need to be stored in this broadphase.
+     * @param action What to do with every candidate.
+     */
+    void forEachCandidate(GameObject probe, Consumer<? super T> action);
+
+    /**
+     * Passes every unordered pair of distinct stored objects that could possibly collide with each other to the given
+     * action. Each pair is reported at most once.
+     *
+     * @param action What to do with every candidate pair.
+     */
+    void forEachCandidatePair(BiConsumer<? super T, ? super T> action);
+}
@@ -0,0 +1,46 @@
+package aoop.asteroids.physics;
+
+import aoop.asteroids.model.GameObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The simplest possible broadphase: every stored object is a candidate for everything. This is what the game did
+ * before there was any broadphase at all, and it is still the fastest option when there are only a few objects around.
+ *
+ * @param <T> The type of game object that is stored in this broadphase.
+ */
+public class BruteForceBroadphase<T extends GameObject> implements Broadphase<T> {
+    /**
+     * The objects that were given in the last call to build().
+     */
+    private final List<T> objects = new ArrayList<>();
+
+    @Override
+    public void build(Collection<? extends T> objects) {
+        this.objects.clear();
+        this.objects.addAll(objects);
+    }
+
+    @Override
+    public void forEachCandidate(GameObject probe, Consumer<? super T> action) {
+        for (T object : this.objects) {
+            if (object != probe) {
+                action.accept(object);
+            }
+        }
+    }
+
+    @Override
+    public void forEachCandidatePair(BiConsumer<? super T, ? super T> action) {
+        for (int i = 0; i < this.objects.size(); i++) {
+            for (int j = i + 1; j < this.objects.size(); j++) {
+                action.accept(this.objects.get(i), this.objects.get(j));
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package aoop.asteroids.physics;
+
+import aoop.asteroids.model.AsteroidSize;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.GameObject;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A broadphase that divides the playing field into a grid of equally sized cells, and sorts every object into the cell
+ * that its center lies in. To find the candidates for an object, only the cells around it have to be searched, so the
+ * cost of a query no longer depends on how many objects there are in the whole game.
+ * <p>
+ * Since objects wrap around the edges of the screen, the grid does too: the cells on the right edge are neighbours of
+ * the ones on the left edge, and the same goes for top and bottom. This way an object which is slightly outside of
+ * the screen (e.g. a location that was just received over the network) still ends up next to the objects it is
+ * actually close to.
+ * <p>
+ * The grid is stored as a flat array of object indices sorted by cell (a counting sort), so rebuilding it every tick
+ * does not allocate anything once the arrays are large enough.
+ *
+ * @param <T> The type of game object that is stored in this broadphase.
+ */
+public class UniformGridBroadphase<T extends GameObject> implements Broadphase<T> {
+    /**
+     * Number of cells along the x-axis.
+     */
+    private final int columns;
+
+    /**
+     * Number of cells along the y-axis.
+     */
+    private final int rows;
+
+    /**
+     * Width of a single cell, in pixels.
+     */
+    private final double cellWidth;
+
+    /**
+     * Height of a single cell, in pixels.
+     */
+    private final double cellHeight;
+
+    /**
+     * For every cell, the index in sortedIndices where that cell's objects start. The last element marks the end of the
+     * final cell, so the objects of cell c are found at sortedIndices[cellStart[c]] up to sortedIndices[cellStart[c+1]].
+     */
+    private final int[] cellStart;
+
+    /**
+     * Scratch array used while sorting objects into cells.
+     */
+    private final int[] cellFill;
+
+    /**
+     * The objects given in the last call to build(), in the order they were given.
+     */
+    private GameObject[] objects = new GameObject[64];
+
+    /**
+     * The cell that every object in the objects array was sorted into.
+     */
+    private int[] cellOf = new int[64];
+
+    /**
+     * Object indices, sorted by the cell they are in.
+     */
+    private int[] sortedIndices = new int[64];
+
+    /**
+     * The number of objects currently stored.
+     */
+    private int count;
+
+    /**
+     * The radius of the largest object currently stored. Used to figure out how far away from a probe we have to look.
+     */
+    private double maxRadius;
+
+    /*
+     * The neighbourhood of cells computed by the last call to selectNeighbourhood(). These are kept as fields rather
+     * than returned, so that no small objects have to be created for every query.
+     */
+    private int firstColumn, columnCount, firstRow, rowCount;
+
+    /**
+     * Constructs a grid that covers the game's window, with cells that are large enough that two of the largest
+     * asteroids can only ever collide if they are in neighbouring cells.
+     */
+    public UniformGridBroadphase() {
+        this(Game.WORLD_WIDTH, Game.WORLD_HEIGHT, 2 * largestAsteroidRadius());
+    }
+
+    /**
+     * Constructs a new grid. The field is divided into as many cells as possible, with each cell being at least the
+     * given size in both directions.
+     *
+     * @param width           Width of the playing field.
+     * @param height          Height of the playing field.
+     * @param minimumCellSize The smallest that the width or height of a cell may be.
+     */
+    public UniformGridBroadphase(double width, double height, double minimumCellSize) {
+        this.columns = Math.max(1, (int) (width / minimumCellSize));
+        this.rows = Math.max(1, (int) (height / minimumCellSize));
+        this.cellWidth = width / this.columns;
+        this.cellHeight = height / this.rows;
+        this.cellStart = new int[this.columns * this.rows + 1];
+        this.cellFill = new int[this.columns * this.rows];
+    }
+
+    /**
+     * @return The radius of the largest possible asteroid.
+     */
+    private static double largestAsteroidRadius() {
+        double largest = 0;
+        for (AsteroidSize size : AsteroidSize.values()) {
+            largest = Math.max(largest, size.getRadius());
+        }
+        return largest;
+    }
+
+    @Override
+    public void build(Collection<? extends T> objects) {
+        this.ensureCapacity(objects.size());
+        this.count = 0;
+        this.maxRadius = 0;
+        Arrays.fill(this.cellStart, 0);
+        for (T object : objects) {
+            int cell = this.row(object.getLocation().y) * this.columns + this.column(object.getLocation().x);
+            this.objects[this.count] = object;
+            this.cellOf[this.count] = cell;
+            this.cellStart[cell + 1]++;
+            this.maxRadius = Math.max(this.maxRadius, object.getRadius());
+            this.count++;
+        }
+        // Turn the number of objects per cell into the position at which each cell starts.
+        for (int cell = 1; cell < this.cellStart.length; cell++) {
+            this.cellStart[cell] += this.cellStart[cell - 1];
+        }
+        System.arraycopy(this.cellStart, 0, this.cellFill, 0, this.cellFill.length);
+        for (int i = 0; i < this.count; i++) {
+            this.sortedIndices[this.cellFill[this.cellOf[i]]++] = i;
+        }
+        // Clear the references past the end, so objects that are gone can be garbage collected.
+        Arrays.fill(this.objects, this.count, this.objects.length, null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachCandidate(GameObject probe, Consumer<? super T> action) {
+        if (this.count == 0) {
+            return;
+        }
+        this.selectNeighbourhood(probe);
+        for (int r = 0; r < this.rowCount; r++) {
+            int rowOffset = Math.floorMod(this.firstRow + r, this.rows) * this.columns;
+            for (int c = 0; c < this.columnCount; c++) {
+                int cell = rowOffset + Math.floorMod(this.firstColumn + c, this.columns);
+                for (int k = this.cellStart[cell]; k < this.cellStart[cell + 1]; k++) {
+                    GameObject candidate = this.objects[this.sortedIndices[k]];
+                    if (candidate != probe) {
+                        action.accept((T) candidate);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachCandidatePair(BiConsumer<? super T, ? super T> action) {
+        for (int i = 0; i < this.count; i++) {
+            GameObject first = this.objects[i];
+            this.selectNeighbourhood(first);
+            for (int r = 0; r < this.rowCount; r++) {
+                int rowOffset = Math.floorMod(this.firstRow + r, this.rows) * this.columns;
+                for (int c = 0; c < this.columnCount; c++) {
+                    int cell = rowOffset + Math.floorMod(this.firstColumn + c, this.columns);
+                    for (int k = this.cellStart[cell]; k < this.cellStart[cell + 1]; k++) {
+                        int j = this.sortedIndices[k];
+                        if (j > i) { // Only report every pair once, and never pair an object with itself.
+                            action.accept((T) first, (T) this.objects[j]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Determines which cells have to be searched to find every stored object that could touch the given probe. This
+     * is every cell within reach of the probe's radius plus the largest stored radius. If that reach covers the whole
+     * grid along an axis, every cell along that axis is searched exactly once.
+     *
+     * @param probe The object to search around.
+     */
+    private void selectNeighbourhood(GameObject probe) {
+        double reach = probe.getRadius() + this.maxRadius;
+        int reachColumns = (int) Math.ceil(reach / this.cellWidth);
+        int reachRows = (int) Math.ceil(reach / this.cellHeight);
+        if (2 * reachColumns + 1 >= this.columns) {
+            this.firstColumn = 0;
+            this.columnCount = this.columns;
+        } else {
+            this.firstColumn = this.column(probe.getLocation().x) - reachColumns;
+            this.columnCount = 2 * reachColumns + 1;
+        }
+        if (2 * reachRows + 1 >= this.rows) {
+            this.firstRow = 0;
+            this.rowCount = this.rows;
+        } else {
+            this.firstRow = this.row(probe.getLocation().y) - reachRows;
+            this.rowCount = 2 * reachRows + 1;
+        }
+    }
+
+    /**
+     * @param x A location on the x-axis. This may lie outside of the playing field.
+     * @return The column of the grid that the location falls into, wrapping around the edges.
+     */
+    private int column(double x) {
+        return Math.floorMod((int) Math.floor(x / this.cellWidth), this.columns);
+    }
+
+    /**
+     * @param y A location on the y-axis. This may lie outside of the playing field.
+     * @return The row of the grid that the location falls into, wrapping around the edges.
+     */
+    private int row(double y) {
+        return Math.floorMod((int) Math.floor(y / this.cellHeight), this.rows);
+    }
+
+    /**
+     * Grows the per-object arrays, if needed, so that they can hold at least the given number of objects.
+     *
+     * @param capacity The number of objects that must fit.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.objects.length) {
+            int newCapacity = Math.max(capacity, this.objects.length * 2);
+            this.objects = Arrays.copyOf(this.objects, newCapacity);
+            this.cellOf = new int[newCapacity];
+            this.sortedIndices = new int[newCapacity];
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package aoop.asteroids.util;
+
+import java.util.Arrays;
+
+/**
+ * A map from int keys to objects, for looking up game objects by their multiplayer id.
+ * <p>
+ * Unlike a {@code HashMap<Integer, V>}, the keys are kept in a plain int array, so neither looking up nor adding an
+ * entry boxes the key or allocates a node. Entries are stored in the arrays themselves (open addressing): a key goes in
+ * the first free slot at or after its hash, so a lookup is usually a single array read. Removing an entry moves the
+ * entries after it back into the hole, instead of leaving a marker behind, so lookups stay short no matter how many
+ * entries have come and gone. The arrays are at most half full, and double when they get fuller than that.
+ * <p>
+ * Null values are not allowed, since a null value marks a free slot.
+ *
+ * @param <V> The type of the values.
+ */
+public class IntObjectMap<V> {
+    private int[] keys;
+    private Object[] values;
+
+    /**
+     * The capacity is a power of two, so that a hash can be turned into an index with this mask.
+     */
+    private int mask;
+
+    /**
+     * The number of entries in the map.
+     */
+    private int size;
+
+    /**
+     * Constructs an empty map with room for a few entries.
+     */
+    public IntObjectMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize The number of entries that the map should be able to hold before it has to grow.
+     */
+    public IntObjectMap(int expectedSize) {
+        if (expectedSize < 0 || expectedSize > 1 << 29) {
+            throw new IllegalArgumentException("Expected size must be between 0 and 2^29, but was " + expectedSize + ".");
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @param key A key.
+     * @return The value of the key, or null if the map doesn't contain the key.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        for (int index = this.indexOf(key); this.values[index] != null; index = (index + 1) & this.mask) {
+            if (this.keys[index] == key) {
+                return (V) this.values[index];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param key A key.
+     * @return Whether the map contains the key.
+     */
+    public boolean containsKey(int key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * Sets the value of a key, adding the key if the map doesn't contain it yet.
+     *
+     * @param key   The key.
+     * @param value The new value of the key.
+     * @return The previous value of the key, or null if the key was added.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not allowed.");
+        }
+        int index = this.indexOf(key);
+        for (; this.values[index] != null; index = (index + 1) & this.mask) {
+            if (this.keys[index] == key) {
+                V previous = (V) this.values[index];
+                this.values[index] = value;
+                return previous;
+            }
+        }
+        this.keys[index] = key;
+        this.values[index] = value;
+        if (++this.size > this.values.length / 2) {
+            this.resize(this.values.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Removes a key from the map.
+     *
+     * @param key The key.
+     * @return The value that the key had, or null if the map didn't contain the key.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int index = this.indexOf(key);
+        while (this.values[index] != null && this.keys[index] != key) {
+            index = (index + 1) & this.mask;
+        }
+        V removed = (V) this.values[index];
+        if (removed == null) {
+            return null;
+        }
+        this.size--;
+        // Move back every following entry that would no longer be found once there is a hole before it.
+        int hole = index;
+        for (index = (index + 1) & this.mask; this.values[index] != null; index = (index + 1) & this.mask) {
+            int home = this.indexOf(this.keys[index]);
+            // The entry can fill the hole if the hole lies between where it belongs and where it is now.
+            if (((index - home) & this.mask) >= ((index - hole) & this.mask)) {
+                this.keys[hole] = this.keys[index];
+                this.values[hole] = this.values[index];
+                hole = index;
+            }
+        }
+        this.values[hole] = null;
+        return removed;
+    }
+
+    /**
+     * Removes every entry, keeping the arrays for reuse.
+     */
+    public void clear() {
+        if (this.size > 0) {
+            Arrays.fill(this.values, null);
+            this.size = 0;
+        }
+    }
+
+    /**
+     * @return The number of entries in the map.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @return The slot where the key belongs, if nothing else is there already.
+     */
+    private int indexOf(int key) {
+        // Multiplying by the golden ratio spreads consecutive ids, which is what keys usually are, over the whole table.
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & this.mask;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = this.indexOf(oldKeys[i]);
+                while (this.values[index] != null) {
+                    index = (index + 1) & this.mask;
+                }
+                this.keys[index] = oldKeys[i];
+                this.values[index] = oldValues[i];
+            }
+        }
+    }
+}
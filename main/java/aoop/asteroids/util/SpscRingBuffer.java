@@ -0,0 +1,118 @@
+package aoop.asteroids.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded first-in-first-out queue for passing objects from exactly one producing thread to exactly one consuming
+ * thread, without any locks.
+ * <p>
+ * The producer only ever writes the tail counter and the consumer only ever writes the head counter, so the two never
+ * wait for each other. Each side also keeps its own copy of the other side's counter, and only reads the shared one
+ * when its copy says the buffer is full (or empty), which keeps the two threads from constantly invalidating each
+ * other's caches.
+ * <p>
+ * Using this from more than one producer or more than one consumer at the same time is not safe.
+ *
+ * @param <T> The type of the elements.
+ */
+public class SpscRingBuffer<T> {
+    private final Object[] elements;
+
+    /**
+     * The capacity is a power of two, so that a counter can be turned into an index with this mask.
+     */
+    private final int mask;
+
+    /**
+     * The number of elements that have been taken out, written only by the consumer.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * The number of elements that have been put in, written only by the producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The producer's last reading of the head.
+     */
+    private long cachedHead;
+
+    /**
+     * The consumer's last reading of the tail.
+     */
+    private long cachedTail;
+
+    /**
+     * @param capacity The least number of elements that the buffer should be able to hold. It is rounded up to a power
+     *                 of two.
+     */
+    public SpscRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30, but was " + capacity + ".");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.elements = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Called by the producer to add an element to the end of the queue.
+     *
+     * @param element The element to add. May not be null.
+     * @return True if the element was added, or false if the buffer is full.
+     */
+    public boolean offer(T element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        long tail = this.tail.get();
+        if (tail - this.cachedHead >= this.elements.length) {
+            this.cachedHead = this.head.get();
+            if (tail - this.cachedHead >= this.elements.length) {
+                return false;
+            }
+        }
+        this.elements[(int) tail & this.mask] = element;
+        this.tail.lazySet(tail + 1); // Publishes the element; the consumer reads the tail before reading the element.
+        return true;
+    }
+
+    /**
+     * Called by the consumer to take the element at the front of the queue.
+     *
+     * @return The element, or null if the buffer is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long head = this.head.get();
+        if (head >= this.cachedTail) {
+            this.cachedTail = this.tail.get();
+            if (head >= this.cachedTail) {
+                return null;
+            }
+        }
+        int index = (int) head & this.mask;
+        T element = (T) this.elements[index];
+        this.elements[index] = null;
+        this.head.lazySet(head + 1); // Frees the slot; the producer reads the head before writing the slot again.
+        return element;
+    }
+
+    /**
+     * @return The number of elements in the buffer. Only an estimate if the other thread is busy with the buffer.
+     */
+    public int size() {
+        return (int) Math.max(0, this.tail.get() - this.head.get());
+    }
+
+    /**
+     * @return The number of elements that the buffer can hold.
+     */
+    public int capacity() {
+        return this.elements.length;
+    }
+}
@@ -0,0 +1,178 @@
+package aoop.asteroids.view;
+
+import aoop.asteroids.control.GameUpdater;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.WorldSnapshot;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A display for the game that draws its frames itself, on a render thread of its own, instead of asking Swing to
+ * repaint a panel (active rendering).
+ * <p>
+ * Swing merges repaint requests and runs them on the event dispatch thread whenever it gets to them, so with
+ * {@link AsteroidsPanel} the time between two frames depends on whatever else the event dispatch thread is doing. This
+ * canvas draws into the back buffer of a {@link BufferStrategy} and shows it at a fixed rate of
+ * {@link GameUpdater#DISPLAY_FPS} frames per second, which keeps frame times steady on slow machines. When a frame
+ * takes so long that the next one is already due, the frames in between are skipped rather than drawn late, and the
+ * number of skipped frames is reported once a second.
+ * <p>
+ * The game updater doesn't have to tell this canvas when to refresh: every frame draws the latest published
+ * {@link WorldSnapshot}, moved along by however long ago it was taken. Turned on with the asteroids.activeRendering
+ * system property.
+ */
+public class AsteroidsCanvas extends Canvas {
+    /**
+     * The number of buffers to draw into and show in turn.
+     */
+    private static final int BUFFERS = 2;
+
+    /**
+     * The game that this canvas shows.
+     */
+    private final Game game;
+
+    /**
+     * Draws the frames of the game. Only used by the render thread.
+     */
+    private final GameRenderer renderer;
+
+    /**
+     * The number of nanoseconds between two frames.
+     */
+    private final long nanosecondsPerFrame;
+
+    /**
+     * The thread that draws the frames, while the canvas is on the screen.
+     */
+    private Thread renderThread;
+
+    /**
+     * The total number of frames that were drawn, and that were skipped because drawing was behind.
+     */
+    private volatile long renderedFrames;
+    private volatile long missedFrames;
+
+    /**
+     * @param game The game to show.
+     */
+    AsteroidsCanvas(Game game) {
+        this.game = game;
+        this.renderer = new GameRenderer(game);
+        this.nanosecondsPerFrame = TimeUnit.SECONDS.toNanos(1) / Math.max(1, GameUpdater.DISPLAY_FPS);
+        this.setBackground(Color.BLACK);
+        this.setIgnoreRepaint(true); // Every frame is drawn by the render thread, so there is nothing for Swing to paint.
+        this.setFocusable(false); // Leave the keyboard to the window, which controls the spaceship.
+    }
+
+    /**
+     * Starts the render thread once the canvas is on the screen, since only then can it have a buffer strategy.
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        this.createBufferStrategy(BUFFERS);
+        this.renderThread = new Thread(this::renderLoop, "AsteroidsRenderer");
+        this.renderThread.setDaemon(true);
+        this.renderThread.start();
+    }
+
+    /**
+     * Stops the render thread before the canvas is taken off the screen, along with its buffers.
+     */
+    @Override
+    public void removeNotify() {
+        Thread thread = this.renderThread;
+        this.renderThread = null;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(1));
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        super.removeNotify();
+    }
+
+    /**
+     * @return The total number of frames that were drawn.
+     */
+    public long getRenderedFrames() {
+        return this.renderedFrames;
+    }
+
+    /**
+     * @return The total number of frames that were skipped, because drawing an earlier frame took too long.
+     */
+    public long getMissedFrames() {
+        return this.missedFrames;
+    }
+
+    /**
+     * Draws frames until the render thread is interrupted. Every frame has a deadline, one frame duration after the
+     * previous one, and the thread sleeps until that deadline instead of for a fixed time, so the time spent drawing
+     * doesn't add up into drift.
+     */
+    private void renderLoop() {
+        BufferStrategy bufferStrategy = this.getBufferStrategy();
+        long nextFrame = System.nanoTime();
+        long nextReport = nextFrame + TimeUnit.SECONDS.toNanos(1);
+        long missedSinceReport = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            this.renderFrame(bufferStrategy);
+            this.renderedFrames++;
+
+            long now = System.nanoTime();
+            nextFrame += this.nanosecondsPerFrame;
+            if (now - nextFrame >= this.nanosecondsPerFrame) { // One or more frames are already overdue; skip them.
+                long missed = (now - nextFrame) / this.nanosecondsPerFrame;
+                this.missedFrames += missed;
+                missedSinceReport += missed;
+                nextFrame += missed * this.nanosecondsPerFrame;
+            }
+            if (now - nextReport >= 0) {
+                if (missedSinceReport > 0) {
+                    System.err.println("Renderer missed " + missedSinceReport + " frame(s) in the last second");
+                    missedSinceReport = 0;
+                }
+                nextReport = now + TimeUnit.SECONDS.toNanos(1);
+            }
+            LockSupport.parkNanos(nextFrame - now);
+        }
+    }
+
+    /**
+     * Draws the game into the back buffer and shows it. If the buffer's contents were lost along the way (which can
+     * happen with buffers kept in video memory, when the screen changes), the frame is drawn again.
+     */
+    private void renderFrame(BufferStrategy bufferStrategy) {
+        do {
+            do {
+                Graphics2D graphics2D = (Graphics2D) bufferStrategy.getDrawGraphics();
+                WorldSnapshot snapshot = this.game.acquireWorldSnapshot();
+                try {
+                    graphics2D.setColor(Color.BLACK);
+                    graphics2D.fillRect(0, 0, this.getWidth(), this.getHeight());
+                    if (this.renderer.canRender(snapshot)) {
+                        long timeSinceLastTick = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - snapshot.getCapturedNanos());
+                        // Never move objects further than a tick ahead, in case the game updater is stalled.
+                        this.renderer.render(graphics2D, snapshot, Math.min(timeSinceLastTick, (long) GameUpdater.MILLISECONDS_PER_TICK));
+                    }
+                }
+                finally {
+                    if (snapshot != null) {
+                        snapshot.release();
+                    }
+                    graphics2D.dispose();
+                }
+            } while (bufferStrategy.contentsRestored());
+            bufferStrategy.show();
+        } while (bufferStrategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync(); // Some window systems buffer drawing, which would make frames arrive unevenly.
+    }
+}
@@ -1,6 +1,7 @@
 package aoop.asteroids.view;
 
 import aoop.asteroids.control.Action_Spectate;
+import aoop.asteroids.control.GameUpdater;
 import aoop.asteroids.control.NewGameAction;
 import aoop.asteroids.control.PlayerKeyListener;
 import aoop.asteroids.control.QuitAction;
@@ -22,7 +23,7 @@ public class AsteroidsFrame extends JFrame implements GameDeathListener {
     /**
      * The size that the window should be.
      */
-    public static final Dimension WINDOW_SIZE = new Dimension(800, 800);
+    public static final Dimension WINDOW_SIZE = new Dimension(Game.WORLD_WIDTH, Game.WORLD_HEIGHT);
 
     /**
      * The game model.
@@ -59,8 +60,12 @@ public class AsteroidsFrame extends JFrame implements GameDeathListener {
         this.setVisible(true);
         menu.setVisible(true);
         menuBar.setVisible(true);
-        // Add the custom panel that the game will be drawn to.
-        this.add(new AsteroidsPanel(this.game));
+        // Add the custom panel that the game will be drawn to, or the canvas that draws the game by itself.
+        if (GameUpdater.ACTIVE_RENDERING) {
+            this.add(new AsteroidsCanvas(this.game));
+        } else {
+            this.add(new AsteroidsPanel(this.game));
+        }
     }
 
     /**
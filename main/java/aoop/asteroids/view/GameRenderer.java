@@ -0,0 +1,247 @@
+package aoop.asteroids.view;
+
+import aoop.asteroids.control.GameUpdater;
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.WorldSnapshot;
+import aoop.asteroids.multiplayer.InterpolationBuffer;
+import aoop.asteroids.view.view_models.AsteroidViewModel;
+import aoop.asteroids.view.view_models.BulletViewModel;
+import aoop.asteroids.view.view_models.GameObjectViewModel;
+import aoop.asteroids.view.view_models.SpaceshipViewModel;
+
+import java.awt.*;
+
+/**
+ * Draws a frame of the game: its objects and the player's information. This is shared by the two ways the game can be
+ * displayed, {@link AsteroidsPanel}, which Swing repaints, and {@link AsteroidsCanvas}, which draws frames on a thread
+ * of its own.
+ * <p>
+ * Everything is drawn from the game's latest {@link WorldSnapshot}, so drawing never locks the game, and a slow frame
+ * can't hold up the game updater. A multiplayer client draws the objects that the host simulates from the game's
+ * {@link InterpolationBuffer} instead, a little while behind the host, so that they move smoothly however unevenly the
+ * host's snapshots arrive.
+ * <p>
+ * A renderer reuses its view models from frame to frame, so it must only be used by one thread.
+ */
+class GameRenderer implements GameModeInterface {
+    /**
+     * The x- and y-coordinates of the score indicator.
+     */
+    private static final Point SCORE_INDICATOR_POSITION = new Point(20, 20);
+    private static final Point COOP_SCORE_INDICATOR_POSITION = new Point(200, 20);
+    private static final Point DEATHMATCH_BANNER_POSITION = new Point(500, 20);
+    private static final Point USERNAME_LOCATION = new Point(20,100);
+
+    /**
+     * The game model that this renderer draws.
+     */
+    private final Game game;
+
+    /*
+     * The view models that every object is drawn with, one after the other.
+     */
+    private final SpaceshipViewModel spaceshipViewModel = new SpaceshipViewModel();
+    private final AsteroidViewModel asteroidViewModel = new AsteroidViewModel();
+    private final BulletViewModel bulletViewModel = new BulletViewModel();
+
+    /**
+     * The received states that remote objects are drawn between, filled in again for every frame.
+     */
+    private final InterpolationBuffer.Frame frame = new InterpolationBuffer.Frame();
+
+    /**
+     * Number of milliseconds since the snapshot that is being drawn was taken, set for the duration of a frame.
+     */
+    private long timeSinceLastTick;
+
+    /**
+     * @param game The game to draw.
+     */
+    GameRenderer(Game game) {
+        this.game = game;
+    }
+
+    /**
+     * @param snapshot The game's latest snapshot, held by the caller.
+     * @return Whether there is a game to draw: it has ticked, is running, and the player's ship is still there.
+     */
+    boolean canRender(WorldSnapshot snapshot) {
+        return snapshot != null && this.game.isRunning() && !snapshot.getPlayer().isDestroyed(0);
+    }
+
+    /**
+     * Draws a frame of the game on a black background, which the caller has already filled in.
+     *
+     * @param graphics2D        The graphics object that provides the drawing methods.
+     * @param snapshot          The game's latest snapshot, for which {@link #canRender(WorldSnapshot)} is true.
+     * @param timeSinceLastTick The number of milliseconds since the snapshot was taken. This is used to allow objects to
+     *                          continue to appear animated between each game tick.
+     */
+    void render(Graphics2D graphics2D, WorldSnapshot snapshot, long timeSinceLastTick) {
+        this.timeSinceLastTick = timeSinceLastTick;
+        // Set some key-value options for the graphics object. In this case, this just sets antialiasing to true.
+        graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        //Draw the username in his current colour
+        graphics2D.setColor(snapshot.getPlayer().getColour(0));
+        graphics2D.drawString(snapshot.getPlayer().getUsername(0),USERNAME_LOCATION.x,USERNAME_LOCATION.y);
+        InterpolationBuffer interpolationBuffer = this.game.getInterpolationBuffer();
+        if (interpolationBuffer != null && interpolationBuffer.sample(System.nanoTime(), this.frame)) {
+            try {
+                this.drawRemoteObjects(graphics2D, snapshot, this.frame);
+            } finally {
+                this.frame.release();
+            }
+        } else {
+            this.drawGameObjects(graphics2D, snapshot);
+        }
+        this.drawShipInformation(graphics2D, snapshot);
+    }
+
+    /**
+     * Draws the ship's score and energy.
+     *
+     * @param graphics2D The graphics object that provides the drawing methods.
+     * @param snapshot   The state of the game to draw.
+     */
+    private void drawShipInformation(Graphics2D graphics2D, WorldSnapshot snapshot) {
+        switch (snapshot.getGameMode()) {
+            case Singleplayer:
+                drawScore(graphics2D, snapshot);
+                drawEnergyBar(graphics2D, snapshot);
+                break;
+            case COOP:
+                drawCOOPScore(graphics2D, snapshot);
+                drawEnergyBar(graphics2D, snapshot);
+                break;
+            case Deathmatch:
+                drawDeathMatchBanner(graphics2D);
+                drawHealthBar(graphics2D, snapshot);
+                break;
+            case Spectate:
+                break;
+        }
+
+    }
+
+    /**
+     * @param graphics2D Shares the same Graphics
+     *                   Draw the Energy Bar
+     */
+    private void drawEnergyBar(Graphics2D graphics2D, WorldSnapshot snapshot) {
+        graphics2D.setColor(Color.GREEN);
+        graphics2D.drawRect(SCORE_INDICATOR_POSITION.x, SCORE_INDICATOR_POSITION.y + 20, 100, 15);
+        graphics2D.fillRect(SCORE_INDICATOR_POSITION.x, SCORE_INDICATOR_POSITION.y + 20, (int) snapshot.getPlayer().getEnergyPercentage(0), 15);
+    }
+
+    /**
+     * @param graphics2D Shares the same Graphics
+     *                   Draw the Health Bar
+     */
+    private void drawHealthBar(Graphics2D graphics2D, WorldSnapshot snapshot) {
+        graphics2D.setColor(Color.RED);
+        graphics2D.drawRect(SCORE_INDICATOR_POSITION.x, SCORE_INDICATOR_POSITION.y + 20, 100, 15);
+        graphics2D.fillRect(SCORE_INDICATOR_POSITION.x, SCORE_INDICATOR_POSITION.y + 20, (int) snapshot.getPlayer().getHealth(0), 15);
+    }
+
+    /**
+     * Draws all of the game's objects. Points a view model at each object, then uses that to draw the object.
+     *
+     * @param graphics2D The graphics object that provides the drawing methods.
+     * @param snapshot   The state of the game to draw. Since the snapshot is held while it is drawn, it doesn't change,
+     *                   and no lock on the game is needed, even though the game engine is running concurrently in its
+     *                   own thread.
+     */
+    private void drawGameObjects(Graphics2D graphics2D, WorldSnapshot snapshot) {
+        WorldSnapshot.ShipTable clients = snapshot.getShips();
+        int i = 5;
+        //Draw all client ships and their usernames + score in their ship colour, with a difference of i units on the Y-Axis
+        for (int row = 0; row < clients.size(); row++) {
+            this.spaceshipViewModel.show(clients, row).drawObject(graphics2D, this.timeSinceLastTick);
+            graphics2D.setColor(clients.getColour(row));
+            graphics2D.drawString(clients.getUsername(row) + ":",USERNAME_LOCATION.x,USERNAME_LOCATION.y + i);
+            if(snapshot.getGameMode() != GameMode.COOP) { //COOP Players see a collective score
+                graphics2D.drawString(Integer.toString(clients.getScore(row)), USERNAME_LOCATION.x + 2, USERNAME_LOCATION.y + i);
+            }
+            i+=15;
+        }
+        if(!snapshot.getPlayer().isSpectator(0)) {
+            this.spaceshipViewModel.show(snapshot.getPlayer(), 0).drawObject(graphics2D, this.timeSinceLastTick);
+        }
+        WorldSnapshot.ObjectTable asteroids = snapshot.getAsteroids();
+        for (int row = 0; row < asteroids.size(); row++) {
+            this.asteroidViewModel.show(asteroids, row).drawObject(graphics2D, this.timeSinceLastTick);
+        }
+        WorldSnapshot.ObjectTable bullets = snapshot.getBullets();
+        for (int row = 0; row < bullets.size(); row++) {
+            this.bulletViewModel.show(bullets, row).drawObject(graphics2D, this.timeSinceLastTick);
+        }
+    }
+
+    /**
+     * Draws the game's objects as a multiplayer client. The player's own ship is drawn from the game's latest snapshot,
+     * since it is predicted rather than received, and everything else is drawn between two of the host's states.
+     *
+     * @param graphics2D The graphics object that provides the drawing methods.
+     * @param snapshot   The latest state of the client's own game.
+     * @param frame      The two received states of the host's game to draw between.
+     */
+    private void drawRemoteObjects(Graphics2D graphics2D, WorldSnapshot snapshot, InterpolationBuffer.Frame frame) {
+        WorldSnapshot previous = frame.getPrevious();
+        WorldSnapshot next = frame.getNext();
+        // When no newer state has arrived in time, objects keep moving like they do in between ticks.
+        long extrapolation = Math.round(frame.getExtrapolatedTicks() * GameUpdater.MILLISECONDS_PER_TICK);
+        WorldSnapshot.ShipTable clients = next.getShips();
+        int i = 5;
+        for (int row = 0; row < clients.size(); row++) {
+            GameObjectViewModel<WorldSnapshot.ShipTable> viewModel = this.spaceshipViewModel.show(clients, row);
+            if (extrapolation > 0) {
+                viewModel.drawObject(graphics2D, extrapolation);
+            } else {
+                viewModel.drawObject(graphics2D, previous.getShips(), previous.getShips().rowOf(clients.getId(row)), frame.getFraction());
+            }
+            graphics2D.setColor(clients.getColour(row));
+            graphics2D.drawString(clients.getUsername(row) + ":",USERNAME_LOCATION.x,USERNAME_LOCATION.y + i);
+            if(snapshot.getGameMode() != GameMode.COOP) {
+                graphics2D.drawString(Integer.toString(clients.getScore(row)), USERNAME_LOCATION.x + 2, USERNAME_LOCATION.y + i);
+            }
+            i+=15;
+        }
+        if(!snapshot.getPlayer().isSpectator(0)) {
+            this.spaceshipViewModel.show(snapshot.getPlayer(), 0).drawObject(graphics2D, this.timeSinceLastTick);
+        }
+        WorldSnapshot.ObjectTable asteroids = next.getAsteroids();
+        for (int row = 0; row < asteroids.size(); row++) {
+            GameObjectViewModel<WorldSnapshot.ObjectTable> viewModel = this.asteroidViewModel.show(asteroids, row);
+            if (extrapolation > 0) {
+                viewModel.drawObject(graphics2D, extrapolation);
+            } else {
+                viewModel.drawObject(graphics2D, previous.getAsteroids(), previous.getAsteroids().rowOf(asteroids.getId(row)), frame.getFraction());
+            }
+        }
+        WorldSnapshot.ObjectTable bullets = next.getBullets();
+        for (int row = 0; row < bullets.size(); row++) {
+            GameObjectViewModel<WorldSnapshot.ObjectTable> viewModel = this.bulletViewModel.show(bullets, row);
+            if (extrapolation > 0) {
+                viewModel.drawObject(graphics2D, extrapolation);
+            } else {
+                viewModel.drawObject(graphics2D, previous.getBullets(), previous.getBullets().rowOf(bullets.getId(row)), frame.getFraction());
+            }
+        }
+    }
+
+    private void drawScore(Graphics2D graphics2D, WorldSnapshot snapshot) {
+        graphics2D.setColor(Color.WHITE);
+        graphics2D.drawString(String.valueOf(snapshot.getPlayer().getScore(0)), SCORE_INDICATOR_POSITION.x, SCORE_INDICATOR_POSITION.y);
+    }
+
+    private void drawCOOPScore(Graphics2D graphics2D, WorldSnapshot snapshot) {
+        graphics2D.setColor(Color.MAGENTA);
+        graphics2D.drawString("COOP SCORE: " + snapshot.getPlayer().getCOOPScore(0), COOP_SCORE_INDICATOR_POSITION.x, COOP_SCORE_INDICATOR_POSITION.y);
+    }
+
+    private void drawDeathMatchBanner(Graphics2D graphics2D) {
+        graphics2D.setColor(Color.RED);
+        graphics2D.drawString("PURE 1 V 1 (NO SCORES, JUST PURE DEATH)", DEATHMATCH_BANNER_POSITION.x, DEATHMATCH_BANNER_POSITION.y);
+    }
+}
@@ -4,7 +4,8 @@ import aoop.asteroids.control.*;
 import aoop.asteroids.game_observer.GameDeathListener;
 import aoop.asteroids.model.Game;
 import aoop.asteroids.view.AsteroidsFrame;
-import database.AsteroidsDAO;
+import database.Leaderboard;
+import database.Player;
 
 import javax.swing.*;
 import java.awt.*;
@@ -12,8 +13,13 @@ import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.net.InetAddress;
+import java.util.List;
 
 public class MainMenu extends JFrame implements GameDeathListener {
+    /**
+     * The number of results shown of a leaderboard.
+     */
+    private static final int LEADERBOARD_PAGE_SIZE = 10;
 
     private JFrame frame = this;
     public Game game;
@@ -26,8 +32,8 @@ public class MainMenu extends JFrame implements GameDeathListener {
     private JPanel spDataPanel = new JPanel();
     private JPanel coopDataPanel = new JPanel();
     private JPanel dmDataPanel = new JPanel();
-    private AsteroidsDAO dataSP;
-    private AsteroidsDAO dataMP;
+    private Leaderboard dataSP;
+    private Leaderboard dataMP;
 
 /*    public void newBackground(){
         JLabel background = new JLabel();
@@ -97,7 +103,7 @@ public class MainMenu extends JFrame implements GameDeathListener {
             public void mouseClicked(MouseEvent e) {
                 AsteroidsFrame frm = new AsteroidsFrame(game);
                 String ip = JOptionPane.showInputDialog("Enter host ip");
-                String port = JOptionPane.showInputDialog("Enter desired port");
+                String port = JOptionPane.showInputDialog("Enter desired port (add /room to join a room on a server, e.g. 25665/3)");
                 if(checkInput(ip,port)) {
                     new Action_JoinGameCOOP(game, ip, port).actionPerformed(new ActionEvent(frm, ActionEvent.ACTION_PERFORMED, null));
                     frm.setVisible(true);
@@ -135,7 +141,7 @@ public class MainMenu extends JFrame implements GameDeathListener {
             public void mouseClicked(MouseEvent e) {
                 AsteroidsFrame frm = new AsteroidsFrame(game);
                 String ip = JOptionPane.showInputDialog("Enter host ip");
-                String port = JOptionPane.showInputDialog("Enter desired port");
+                String port = JOptionPane.showInputDialog("Enter desired port (add /room to join a room on a server, e.g. 25665/3)");
                 if(checkInput(ip,port)) {
                     new Action_JoinGameDeathMatch(game, ip, port).actionPerformed(new ActionEvent(frm, ActionEvent.ACTION_PERFORMED, null));
                     frm.setVisible(true);
@@ -152,7 +158,11 @@ public class MainMenu extends JFrame implements GameDeathListener {
             InetAddress testIP=null;
             try {
                 testIP = InetAddress.getByName(ip);
-                Integer.parseInt(port);
+                String[] portAndRoom = port.split("/", 2);
+                Integer.parseInt(portAndRoom[0].trim());
+                if (portAndRoom.length > 1) {
+                    Integer.parseInt(portAndRoom[1].trim());
+                }
             }catch(Exception e){
                 System.err.println("Invalid input. " + testIP.toString() + " \n");
                 return false;
@@ -168,10 +178,7 @@ public class MainMenu extends JFrame implements GameDeathListener {
         coopDataPanel.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                dataMP.openDataSource();
-                dataMP.getAllPlayers();
-                dataMP.closeDataSource();
-
+                printLeaderboard(dataMP);
             }
         });
         JLabel coopDataName = textLabel("COOP Leaderboard");
@@ -186,7 +193,7 @@ public class MainMenu extends JFrame implements GameDeathListener {
             public void mouseClicked(MouseEvent e) {
                 AsteroidsFrame frm = new AsteroidsFrame(game);
                 String ip = JOptionPane.showInputDialog("Enter host ip");
-                String port = JOptionPane.showInputDialog("Enter desired port");
+                String port = JOptionPane.showInputDialog("Enter desired port (add /room to join a room on a server, e.g. 25665/3)");
                 if(checkInput(ip,port)) {
                     new Action_Spectate(game, ip, port).actionPerformed(new ActionEvent(frm, ActionEvent.ACTION_PERFORMED, null));
                     frm.setVisible(true);
@@ -206,9 +213,7 @@ public class MainMenu extends JFrame implements GameDeathListener {
         spDataPanel.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                dataSP.openDataSource();
-                dataSP.getAllPlayers();
-                dataSP.closeDataSource();
+                printLeaderboard(dataSP);
             }
         });
         JLabel spDataName = textLabel("SinglePlayer Leaderboard");
@@ -217,6 +222,19 @@ public class MainMenu extends JFrame implements GameDeathListener {
     }
 
 
+    /**
+     * Prints the top of a leaderboard, and the rank of the current player.
+     */
+    private void printLeaderboard(Leaderboard leaderboard) {
+        List<Player> page = leaderboard.getPage(1, LEADERBOARD_PAGE_SIZE);
+        System.out.println();
+        for (int i = 0; i < page.size(); i++) {
+            System.out.println((i + 1) + ". " + page.get(i));
+        }
+        long rank = leaderboard.getRank(game.getUsername());
+        System.out.println(game.getUsername() + ": " + (rank == 0 ? "no results yet" : "rank " + rank + " of " + leaderboard.size()));
+    }
+
     private void MenuItem(JPanel upPanel, int posY) {
         upPanel.setBounds(200, posY, 400, 30);
         upPanel.setSize(400, 30);
@@ -233,7 +251,7 @@ public class MainMenu extends JFrame implements GameDeathListener {
     }
 
 
-    public MainMenu(Game game, AsteroidsDAO dataSP, AsteroidsDAO dataMP) {
+    public MainMenu(Game game, Leaderboard dataSP, Leaderboard dataMP) {
         this.dataMP = dataMP;
         this.dataSP = dataSP;
         this.game = game;
@@ -1,21 +1,39 @@
 package aoop.asteroids.view.view_models;
 
-import aoop.asteroids.model.Asteroid;
+import aoop.asteroids.model.AsteroidSize;
+import aoop.asteroids.model.WorldSnapshot;
 
 import java.awt.*;
 import java.awt.geom.Ellipse2D;
 
 /**
  * View model for displaying an asteroid object.
+ * <p>
+ * Every asteroid of the same size looks the same, so each size is drawn once, and copied to the screen from then on.
  */
-public class AsteroidViewModel extends GameObjectViewModel<Asteroid> {
+public class AsteroidViewModel extends GameObjectViewModel<WorldSnapshot.ObjectTable> {
+    private static final AsteroidSize[] SIZES = AsteroidSize.values();
+
+    /**
+     * The image of each size of asteroid, by ordinal, made when an asteroid of that size is first drawn.
+     */
+    private static final Sprite[] SPRITES = new Sprite[SIZES.length];
+
+    /**
+     * Constructs a view model that can be pointed at any asteroid with {@link #show(WorldSnapshot.ObjectTable, int)}.
+     */
+    public AsteroidViewModel() {
+        super();
+    }
+
     /**
      * Constructs a new view model with the given game object.
      *
-     * @param gameObject The object that will be displayed when this view model is drawn.
+     * @param asteroids The asteroids of a snapshot.
+     * @param row       The row of the asteroid that will be displayed when this view model is drawn.
      */
-    public AsteroidViewModel(Asteroid gameObject) {
-        super(gameObject);
+    public AsteroidViewModel(WorldSnapshot.ObjectTable asteroids, int row) {
+        super(asteroids, row);
     }
 
     /**
@@ -26,9 +44,16 @@ public class AsteroidViewModel extends GameObjectViewModel<Asteroid> {
      */
     @Override
     public void draw(Graphics2D graphics2D, Point.Double location) {
-        double radius = this.getGameObject().getRadius();
-        graphics2D.setColor(Color.GRAY);
-        Ellipse2D.Double asteroidEllipse = new Ellipse2D.Double(location.getX() - radius, location.getY() - radius, 2 * radius, 2 * radius);
-        graphics2D.fill(asteroidEllipse);
+        int size = this.getObjects().getSize(this.getRow());
+        Sprite sprite = SPRITES[size];
+        if (sprite == null) {
+            double radius = SIZES[size].getRadius();
+            sprite = Sprite.render(graphics2D.getDeviceConfiguration(), radius, g -> {
+                g.setColor(Color.GRAY);
+                g.fill(new Ellipse2D.Double(-radius, -radius, 2 * radius, 2 * radius));
+            });
+            SPRITES[size] = sprite;
+        }
+        sprite.draw(graphics2D, location.x, location.y);
     }
 }
@@ -1,6 +1,6 @@
 package aoop.asteroids.view.view_models;
 
-import aoop.asteroids.model.Bullet;
+import aoop.asteroids.model.WorldSnapshot;
 
 import java.awt.*;
 import java.awt.geom.Ellipse2D;
@@ -8,14 +8,27 @@ import java.awt.geom.Ellipse2D;
 /**
  * View model for displaying bullet objects.
  */
-public class BulletViewModel extends GameObjectViewModel<Bullet> {
+public class BulletViewModel extends GameObjectViewModel<WorldSnapshot.ObjectTable> {
+    /**
+     * The image of a bullet, made when the first bullet is drawn.
+     */
+    private static Sprite sprite;
+
+    /**
+     * Constructs a view model that can be pointed at any bullet with {@link #show(WorldSnapshot.ObjectTable, int)}.
+     */
+    public BulletViewModel() {
+        super();
+    }
+
     /**
      * Constructs the view model.
      *
-     * @param gameObject The bullet to be displayed.
+     * @param bullets The bullets of a snapshot.
+     * @param row     The row of the bullet to be displayed.
      */
-    public BulletViewModel(Bullet gameObject) {
-        super(gameObject);
+    public BulletViewModel(WorldSnapshot.ObjectTable bullets, int row) {
+        super(bullets, row);
     }
 
     /**
@@ -26,8 +39,12 @@ public class BulletViewModel extends GameObjectViewModel<Bullet> {
      */
     @Override
     public void draw(Graphics2D graphics2D, Point.Double location) {
-        graphics2D.setColor(Color.YELLOW);
-        Ellipse2D.Double bulletEllipse = new Ellipse2D.Double(location.getX() - 2.0, location.getY() - 2.0, 5.0, 5.0);
-        graphics2D.draw(bulletEllipse);
+        if (sprite == null) {
+            sprite = Sprite.render(graphics2D.getDeviceConfiguration(), 3.0, g -> {
+                g.setColor(Color.YELLOW);
+                g.draw(new Ellipse2D.Double(-2.0, -2.0, 5.0, 5.0));
+            });
+        }
+        sprite.draw(graphics2D, location.x, location.y);
     }
 }
@@ -1,38 +1,82 @@
 package aoop.asteroids.view.view_models;
 
 import aoop.asteroids.control.GameUpdater;
-import aoop.asteroids.model.GameObject;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.WorldSnapshot;
 
 import java.awt.*;
 
 /**
  * A view model for a game object is used to transform a game object into something that can be displayed in the view.
  * Child classes can be made to define custom drawing for different game objects.
+ * <p>
+ * Game objects are drawn from a {@link WorldSnapshot} rather than from the live game, so that drawing never has to
+ * wait for the game to finish a tick. A view model displays one row of one of the snapshot's tables. Since a view model
+ * holds nothing but the table and the row, the same one can be pointed at object after object with
+ * {@link #show(WorldSnapshot.ObjectTable, int)}, so that drawing a frame doesn't need a new view model per object.
  *
- * @param <T> The type of game object that a child class will display.
+ * @param <T> The type of table that a child class will display a row of.
  */
-public abstract class GameObjectViewModel<T extends GameObject> {
+public abstract class GameObjectViewModel<T extends WorldSnapshot.ObjectTable> {
     /**
-     * The object that this view model displays.
+     * The table holding the object that this view model displays.
      */
-    private T gameObject;
+    private T objects;
+
+    /**
+     * The row of the object in the table.
+     */
+    private int row;
+
+    /**
+     * The location at which the object is drawn, reused for every object.
+     */
+    private final Point.Double drawLocation = new Point.Double();
+
+    /**
+     * Constructs a view model that doesn't display anything until it is given an object with
+     * {@link #show(WorldSnapshot.ObjectTable, int)}.
+     */
+    GameObjectViewModel() {
+        this(null, 0);
+    }
 
     /**
      * Constructs a new view model with the given game object.
      *
-     * @param gameObject The object that will be displayed when this view model is drawn.
+     * @param objects The table holding the object that will be displayed when this view model is drawn.
+     * @param row     The row of the object in the table.
      */
-    GameObjectViewModel(T gameObject) {
-        this.gameObject = gameObject;
+    GameObjectViewModel(T objects, int row) {
+        this.objects = objects;
+        this.row = row;
     }
 
     /**
-     * Gets the object that was given to this view model.
+     * Makes this view model display another object.
      *
-     * @return The game object that should be displayed.
+     * @param objects The table holding the object that will be displayed when this view model is drawn.
+     * @param row     The row of the object in the table.
+     * @return This view model.
+     */
+    public GameObjectViewModel<T> show(T objects, int row) {
+        this.objects = objects;
+        this.row = row;
+        return this;
+    }
+
+    /**
+     * @return The table holding the object that should be displayed.
      */
-    T getGameObject() {
-        return this.gameObject;
+    T getObjects() {
+        return this.objects;
+    }
+
+    /**
+     * @return The row of the object that should be displayed.
+     */
+    int getRow() {
+        return this.row;
     }
 
     /**
@@ -62,9 +106,45 @@ public abstract class GameObjectViewModel<T extends GameObject> {
     public void drawObject(Graphics2D graphics2D, long timeSinceLastTick) {
         // What percent of a full game tick has elapsed? Only this percent of the object's velocity will be added.
         double gameTickRatio = timeSinceLastTick / GameUpdater.MILLISECONDS_PER_TICK;
-        Point.Double simulatedLocation = new Point.Double(this.gameObject.getLocation().getX() + this.gameObject.getVelocity().getX() * gameTickRatio, this.gameObject.getLocation().getY() + this.gameObject.getVelocity().getY() * gameTickRatio);
+        this.drawLocation.setLocation(this.objects.getLocationX(this.row) + this.objects.getVelocityX(this.row) * gameTickRatio, this.objects.getLocationY(this.row) + this.objects.getVelocityY(this.row) * gameTickRatio);
 
-        this.draw(graphics2D, simulatedLocation);
+        this.draw(graphics2D, this.drawLocation);
+    }
+
+    /**
+     * Draws the object part of the way between where it was in an older state of the game and where it is now. This is
+     * how a multiplayer client draws the objects that the host simulates, see
+     * {@link aoop.asteroids.multiplayer.InterpolationBuffer}. Since objects wrap around the edges of the world, the
+     * object is moved along the shorter way, so that an object crossing an edge doesn't fly across the whole screen.
+     *
+     * @param graphics2D  The graphics object used to draw the object.
+     * @param previous    The table holding the object in the older state.
+     * @param previousRow The row of the object in the older table, or -1 if the object didn't exist yet.
+     * @param fraction    How far along from the older to the current location to draw the object, from 0 to 1.
+     */
+    public void drawObject(Graphics2D graphics2D, T previous, int previousRow, double fraction) {
+        double x = this.objects.getLocationX(this.row);
+        double y = this.objects.getLocationY(this.row);
+        if (previousRow >= 0) {
+            x = interpolate(previous.getLocationX(previousRow), x, fraction, Game.WORLD_WIDTH);
+            y = interpolate(previous.getLocationY(previousRow), y, fraction, Game.WORLD_HEIGHT);
+        }
+        this.drawLocation.setLocation(x, y);
+        this.draw(graphics2D, this.drawLocation);
+    }
+
+    /**
+     * @return The coordinate the given fraction of the way from one coordinate to another, along the shorter way around
+     * a world of the given size.
+     */
+    private static double interpolate(double from, double to, double fraction, double size) {
+        double difference = to - from;
+        if (difference > size / 2) {
+            difference -= size;
+        } else if (difference < -size / 2) {
+            difference += size;
+        }
+        return (size + from + difference * fraction) % size;
     }
 
     /**
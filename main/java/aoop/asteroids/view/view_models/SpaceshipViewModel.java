@@ -1,24 +1,65 @@
 package aoop.asteroids.view.view_models;
 
-import aoop.asteroids.model.Spaceship;
+import aoop.asteroids.model.WorldSnapshot;
 import aoop.asteroids.util.PolarCoordinate;
 
 import java.awt.*;
 import java.awt.geom.Path2D;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.lang.Math.PI;
 
 /**
  * View model for displaying a spaceship object.
+ * <p>
+ * A ship is drawn from a set of images of the ship facing different directions, one set per colour. Each image is made
+ * the first time a ship of that colour faces that way, and is copied to the screen from then on, so drawing a ship
+ * costs no trigonometry and no shapes.
  */
-public class SpaceshipViewModel extends GameObjectViewModel<Spaceship> {
+public class SpaceshipViewModel extends GameObjectViewModel<WorldSnapshot.ShipTable> {
+    /**
+     * The number of directions that a ship is drawn in. A ship's direction is rounded to the nearest one, which at this
+     * number is never more than about three degrees off.
+     */
+    static final int ROTATIONS = 64;
+
+    /*
+     * The corners of the ship's body and of its exhaust flame, relative to the ship's location and direction.
+     */
+    private static final PolarCoordinate NOSE = new PolarCoordinate(0.0 * PI, 20);
+    private static final PolarCoordinate LEFT_WING = new PolarCoordinate(0.8 * PI, 20);
+    private static final PolarCoordinate RIGHT_WING = new PolarCoordinate(1.2 * PI, 20);
+    private static final PolarCoordinate FLAME_TIP = new PolarCoordinate(1.0 * PI, 25);
+    private static final PolarCoordinate FLAME_LEFT = new PolarCoordinate(0.9 * PI, 15);
+    private static final PolarCoordinate FLAME_RIGHT = new PolarCoordinate(1.1 * PI, 15);
+
+    /**
+     * How far the ship reaches from its location, which is the tip of the exhaust flame.
+     */
+    private static final double REACH = 25;
+
+    /**
+     * The images of ships of each colour, by direction, with the images of accelerating ships after those of ships that
+     * aren't. Shared by every thread that draws the game, see {@link Sprite}.
+     */
+    private static final Map<Color, Sprite[]> SPRITES = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a view model that can be pointed at any spaceship with {@link #show(WorldSnapshot.ObjectTable, int)}.
+     */
+    public SpaceshipViewModel() {
+        super();
+    }
+
     /**
      * Constructs a new view model with the given game object.
      *
-     * @param gameObject The object that will be displayed when this view model is drawn.
+     * @param ships The spaceships of a snapshot.
+     * @param row   The row of the spaceship that will be displayed when this view model is drawn.
      */
-    public SpaceshipViewModel(Spaceship gameObject) {
-        super(gameObject);
+    public SpaceshipViewModel(WorldSnapshot.ShipTable ships, int row) {
+        super(ships, row);
     }
 
     /**
@@ -29,49 +70,65 @@ public class SpaceshipViewModel extends GameObjectViewModel<Spaceship> {
      */
     @Override
     public void draw(Graphics2D graphics2D, Point.Double location) {
-        Spaceship spaceship = this.getGameObject();
-        this.drawMainBody(spaceship, graphics2D, location);
-        if (spaceship.isAccelerating()) {
-            this.drawExhaust(spaceship, graphics2D, location);
+        WorldSnapshot.ShipTable ships = this.getObjects();
+        int row = this.getRow();
+        Color colour = ships.getColour(row);
+        Sprite[] sprites = SPRITES.computeIfAbsent(colour, c -> new Sprite[ROTATIONS * 2]);
+        int rotation = rotationOf(ships.getDirection(row));
+        int index = ships.isAccelerating(row) ? ROTATIONS + rotation : rotation;
+        if (sprites[index] == null) {
+            double direction = rotation * 2 * PI / ROTATIONS;
+            boolean accelerating = ships.isAccelerating(row);
+            sprites[index] = Sprite.render(graphics2D.getDeviceConfiguration(), REACH, g -> {
+                this.drawMainBody(direction, colour, g);
+                if (accelerating) {
+                    this.drawExhaust(direction, g);
+                }
+            });
         }
+        sprites[index].draw(graphics2D, location.x, location.y);
+    }
+
+    /**
+     * @param direction A direction, in radians.
+     * @return The index of the drawn direction that is closest to the given one.
+     */
+    static int rotationOf(double direction) {
+        return Math.floorMod((int) Math.round(direction * ROTATIONS / (2 * PI)), ROTATIONS);
     }
 
     /**
-     * Draws the main body of the spaceship as a white triangle.
+     * Draws the main body of the spaceship as a white triangle, around (0, 0).
      *
-     * @param spaceship  The spaceship object to draw. While we could retrieve this from this.getGameObject(), it is a
-     *                   little easier to read this way.
+     * @param direction  The direction that the spaceship is facing.
+     * @param colour     The colour of the spaceship.
      * @param graphics2D The graphics object to use when drawing.
-     * @param location   The location at which to draw the spaceship.
      */
-    private void drawMainBody(Spaceship spaceship, Graphics2D graphics2D, Point.Double location) {
-        Path2D.Double spaceshipMainBody = this.buildTriangle(location, spaceship.getDirection(), new PolarCoordinate(0.0 * PI, 20), new PolarCoordinate(0.8 * PI, 20), new PolarCoordinate(1.2 * PI, 20));
+    private void drawMainBody(double direction, Color colour, Graphics2D graphics2D) {
+        Path2D.Double spaceshipMainBody = this.buildTriangle(direction, NOSE, LEFT_WING, RIGHT_WING);
         // The area where the spaceship's body goes is first cleared by filling it with black, then the path is drawn.
-        graphics2D.setColor(spaceship.getShipColour());
+        graphics2D.setColor(colour);
         graphics2D.fill(spaceshipMainBody);
         graphics2D.setColor(Color.WHITE);
         graphics2D.draw(spaceshipMainBody);
     }
 
     /**
-     * Draws the exhaust of the spaceship as a small yellow triangle.
+     * Draws the exhaust of the spaceship as a small yellow triangle, around (0, 0).
      *
-     * @param spaceship  The spaceship whose exhaust to draw.
+     * @param direction  The direction that the spaceship is facing.
      * @param graphics2D The graphics object to use when drawing.
-     * @param location   The location at which to draw the spaceship.
      */
-    private void drawExhaust(Spaceship spaceship, Graphics2D graphics2D, Point.Double location) {
-        Path2D.Double exhaustFlame = this.buildTriangle(location, spaceship.getDirection(), new PolarCoordinate(1.0 * PI, 25), new PolarCoordinate(0.9 * PI, 15), new PolarCoordinate(1.1 * PI, 15));
+    private void drawExhaust(double direction, Graphics2D graphics2D) {
+        Path2D.Double exhaustFlame = this.buildTriangle(direction, FLAME_TIP, FLAME_LEFT, FLAME_RIGHT);
         graphics2D.setColor(Color.YELLOW);
         graphics2D.fill(exhaustFlame);
     }
 
     /**
-     * Builds a triangle shape using a starting location, direction, and three polar coordinates that define the corners
-     * of the triangle.
+     * Builds a triangle shape around (0, 0), using a direction and three polar coordinates that define the corners of
+     * the triangle.
      *
-     * @param location        The location at which to center the triangle. This can be treated as the origin for the polar
-     *                        coordinates.
      * @param facingDirection The direction that the triangle is facing, in radians. This essentially works as an offset
      *                        for the angle of every point on the triangle.
      * @param a               The first coordinate.
@@ -79,12 +136,11 @@ public class SpaceshipViewModel extends GameObjectViewModel<Spaceship> {
      * @param c               The third coordinate.
      * @return A path representing the points identified by the three polar coordinates given.
      */
-    private Path2D.Double buildTriangle(
-            Point.Double location, double facingDirection, PolarCoordinate a, PolarCoordinate b, PolarCoordinate c) {
+    private Path2D.Double buildTriangle(double facingDirection, PolarCoordinate a, PolarCoordinate b, PolarCoordinate c) {
         Path2D.Double path = new Path2D.Double();
-        path.moveTo(location.getX() + Math.sin(facingDirection + a.getAngle()) * a.getRadius(), location.getY() - Math.cos(facingDirection + a.getAngle()) * a.getRadius());
-        path.lineTo(location.getX() + Math.sin(facingDirection + b.getAngle()) * b.getRadius(), location.getY() - Math.cos(facingDirection + b.getAngle()) * b.getRadius());
-        path.lineTo(location.getX() + Math.sin(facingDirection + c.getAngle()) * c.getRadius(), location.getY() - Math.cos(facingDirection + c.getAngle()) * c.getRadius());
+        path.moveTo(Math.sin(facingDirection + a.getAngle()) * a.getRadius(), -Math.cos(facingDirection + a.getAngle()) * a.getRadius());
+        path.lineTo(Math.sin(facingDirection + b.getAngle()) * b.getRadius(), -Math.cos(facingDirection + b.getAngle()) * b.getRadius());
+        path.lineTo(Math.sin(facingDirection + c.getAngle()) * c.getRadius(), -Math.cos(facingDirection + c.getAngle()) * c.getRadius());
         path.closePath();
         return path;
     }
@@ -0,0 +1,66 @@
+package aoop.asteroids.view.view_models;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
+
+/**
+ * An image of a game object that is drawn once and then copied to the screen wherever the object is, instead of
+ * filling and stroking its shapes again on every frame. Copying an image that matches the screen's format is about the
+ * cheapest thing Java2D can draw, and it allocates nothing.
+ * <p>
+ * Sprites are made and drawn by whichever thread draws the game: the event dispatch thread for an AsteroidsPanel, or
+ * the render thread of an AsteroidsCanvas. Both may use the same cached sprites. A sprite can't change once it is made,
+ * and its fields are final, so a thread that finds a sprite that another thread made always sees the finished image.
+ * At worst, two threads that need the same sprite at the same moment both make it, and one of them is kept.
+ */
+final class Sprite {
+    private final Image image;
+
+    /**
+     * The distance from the top left corner of the image to the point that is drawn at the object's location.
+     */
+    private final int offset;
+
+    private Sprite(Image image, int offset) {
+        this.image = image;
+        this.offset = offset;
+    }
+
+    /**
+     * Draws a new sprite.
+     *
+     * @param configuration The screen that the sprite will be drawn on, so that the image can be made in the same format.
+     * @param reach         How far the object extends from its location in any direction, in pixels.
+     * @param painter       Draws the object onto the sprite, centered around (0, 0).
+     * @return The sprite.
+     */
+    static Sprite render(GraphicsConfiguration configuration, double reach, Consumer<Graphics2D> painter) {
+        int offset = (int) Math.ceil(reach) + 1; // A pixel to spare for antialiasing.
+        int size = offset * 2 + 1;
+        Image image = configuration != null
+                ? configuration.createCompatibleImage(size, size, Transparency.TRANSLUCENT)
+                : new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics2D = (Graphics2D) image.getGraphics();
+        try {
+            graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics2D.translate(offset, offset);
+            painter.accept(graphics2D);
+        }
+        finally {
+            graphics2D.dispose();
+        }
+        return new Sprite(image, offset);
+    }
+
+    /**
+     * Copies the sprite onto the screen.
+     *
+     * @param graphics2D The graphics object to draw with.
+     * @param x          The x-coordinate of the object's location.
+     * @param y          The y-coordinate of the object's location.
+     */
+    void draw(Graphics2D graphics2D, double x, double y) {
+        graphics2D.drawImage(this.image, (int) Math.round(x) - this.offset, (int) Math.round(y) - this.offset, null);
+    }
+}
@@ -3,14 +3,32 @@ package database;
 
 
 import javax.persistence.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-
+import java.util.function.Consumer;
+
+/**
+ * Stores players and their scores in an ObjectDB database file.
+ * <p>
+ * Opening the database is expensive, so a DAO is meant to be opened once and kept open for as long as the program
+ * runs. Its methods are synchronized, so that the {@link ScoreWriter}'s thread and the menu can share it.
+ * <p>
+ * Transactions and the loading of pages are recorded as {@link DatabaseEvent}s when Flight Recorder is running.
+ */
 public class AsteroidsDAO {
     private EntityManagerFactory emf  ;
     private EntityManager em  ;
     private String filename ;
 
-    public void getAllPlayers() {
+    /**
+     * Told about players after they are stored, while the DAO is still locked.
+     */
+    private final List<Consumer<Collection<Player>>> storeListeners = new ArrayList<>();
+
+    public synchronized void getAllPlayers() {
+        this.openDataSource();
         Query q1 = em.createQuery("SELECT p FROM Player p order by p.score desc ");
         System.out.println();
  //   q1.getr
@@ -20,24 +38,141 @@ public class AsteroidsDAO {
         }
     }
 
-    public void openDataSource() {
+    /**
+     * Opens the database, unless it is open already.
+     */
+    public synchronized void openDataSource() {
+        if (emf != null && emf.isOpen()) {
+            return;
+        }
         System.out.println("open from localhost");
         emf = Persistence.createEntityManagerFactory(filename + ".odb");
         em = emf.createEntityManager();
 
     }
 
-    public void closeDataSource() {
+    public synchronized void closeDataSource() {
+        if (emf == null || !emf.isOpen()) {
+            return;
+        }
         // Close the database connection:
         em.close();
         emf.close();
     }
 
-    public void addPlayer(Player s){
-            em.getTransaction().begin();
-            em.persist(s);
-            em.getTransaction().commit();
+    public synchronized void addPlayer(Player s){
+            DatabaseEvent event = new DatabaseEvent();
+            event.begin();
+            try {
+                this.openDataSource();
+                em.getTransaction().begin();
+                em.persist(s);
+                em.getTransaction().commit();
+            }
+            finally {
+                event.finish(filename, "addPlayer", 1);
+            }
             System.out.println("Stored: " + s);
+            this.notifyStored(Collections.singletonList(s));
+    }
+
+    /**
+     * Stores several players in a single transaction, which is much cheaper than a transaction per player. If the
+     * transaction fails, none of the players are stored.
+     *
+     * @param players The players to store.
+     * @throws PersistenceException If the players could not be stored.
+     */
+    public synchronized void addPlayers(Collection<Player> players) {
+        DatabaseEvent event = new DatabaseEvent();
+        event.begin();
+        try {
+            this.openDataSource();
+            EntityTransaction transaction = em.getTransaction();
+            transaction.begin();
+            try {
+                for (Player player : players) {
+                    em.persist(player);
+                }
+                transaction.commit();
+            }
+            finally {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+            }
+        }
+        finally {
+            event.finish(filename, "addPlayers", players.size());
+        }
+        this.notifyStored(players);
+    }
+
+    /**
+     * @param first The index of the first player to return, in order of score, highest first.
+     * @param count The most players to return.
+     * @return A page of the players, highest score first. Uses the index on the score, so pages are found without
+     * sorting the whole table.
+     */
+    public synchronized List<Player> getPlayers(int first, int count) {
+        DatabaseEvent event = new DatabaseEvent();
+        event.begin();
+        List<Player> players = Collections.emptyList();
+        try {
+            this.openDataSource();
+            players = em.createQuery("SELECT p FROM Player p ORDER BY p.score DESC", Player.class)
+                    .setFirstResult(first)
+                    .setMaxResults(count)
+                    .getResultList();
+            return players;
+        }
+        finally {
+            event.finish(filename, "getPlayers", players.size());
+        }
+    }
+
+    /**
+     * @return The number of stored players.
+     */
+    public synchronized long countPlayers() {
+        this.openDataSource();
+        return em.createQuery("SELECT COUNT(p) FROM Player p", Long.class).getSingleResult();
+    }
+
+    /**
+     * @param score A score.
+     * @return The number of stored players with a higher score.
+     */
+    public synchronized long countPlayersAbove(int score) {
+        this.openDataSource();
+        return em.createQuery("SELECT COUNT(p) FROM Player p WHERE p.score > :score", Long.class)
+                .setParameter("score", score)
+                .getSingleResult();
+    }
+
+    /**
+     * @param username The name of a player.
+     * @return The best score stored for the player, or null if nothing is stored for the player.
+     */
+    public synchronized Integer getBestScore(String username) {
+        this.openDataSource();
+        return em.createQuery("SELECT MAX(p.score) FROM Player p WHERE p.username = :username", Integer.class)
+                .setParameter("username", username)
+                .getSingleResult();
+    }
+
+    /**
+     * @param listener Told about players after they are stored, while the DAO is still locked, so that it can't miss
+     *                 or see twice any players that are stored while it reads from the DAO.
+     */
+    public synchronized void addStoreListener(Consumer<Collection<Player>> listener) {
+        this.storeListeners.add(listener);
+    }
+
+    void notifyStored(Collection<Player> players) {
+        for (Consumer<Collection<Player>> listener : this.storeListeners) {
+            listener.accept(players);
+        }
     }
 
     public AsteroidsDAO(String filename){
@@ -54,7 +189,9 @@ public class AsteroidsDAO {
 		return  results ;*/
 	//}
 
-    public void removeAll () {
+    public synchronized void removeAll () {
+        DatabaseEvent event = new DatabaseEvent();
+        event.begin();
         try {
             em.getTransaction().begin();
             em.createQuery("DELETE FROM Player ").executeUpdate() ;
@@ -64,6 +201,9 @@ public class AsteroidsDAO {
             em.getTransaction().commit();
             System.out.println("exception occured") ;
         }
+        finally {
+            event.finish(filename, "removeAll", 0);
+        }
     }
 
 
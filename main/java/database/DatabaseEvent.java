@@ -0,0 +1,41 @@
+package database;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for a call to the database through an {@link AsteroidsDAO}, including opening the database if
+ * that happens along the way.
+ */
+@Name("aoop.asteroids.Database")
+@Label("Database Call")
+@Category({"Asteroids", "Database"})
+@Description("A transaction or query on the score database")
+@Threshold("10 ms")
+class DatabaseEvent extends jdk.jfr.Event {
+    @Label("Database")
+    String database;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Players")
+    @Description("The number of players stored or read")
+    long players;
+
+    /**
+     * Ends the event, and commits it if it is recorded.
+     */
+    void finish(String database, String operation, long players) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.database = database;
+            this.operation = operation;
+            this.players = players;
+            this.commit();
+        }
+    }
+}
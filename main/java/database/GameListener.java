@@ -4,24 +4,21 @@ import aoop.asteroids.Asteroids;
 import aoop.asteroids.game_observer.GameDeathListener;
 import aoop.asteroids.model.Spaceship;
 
+/**
+ * Stores the player's score at the end of every game. The score is handed to a {@link ScoreWriter}, which stores it in
+ * the background, so the thread that ends the game doesn't wait for the database.
+ */
 public class GameListener implements GameDeathListener {
 
-    Player player;
-    AsteroidsDAO data;
+    ScoreWriter writer;
     Spaceship spaceship;
-    public GameListener(Spaceship spaceship, AsteroidsDAO ast){
-        this.data = ast;
+    public GameListener(Spaceship spaceship, ScoreWriter writer){
+        this.writer = writer;
         this.spaceship=spaceship;
-        player = new Player();
-
     }
     @Override
     public void onGameEnded() {
-        player.setUsername(spaceship.getUsername());
-        player.setScore(spaceship.getScore());
-        data.openDataSource();
-        data.addPlayer(player);
-        data.closeDataSource();
+        writer.submit(new Player(spaceship.getUsername(), spaceship.getScore()));
     }
 
     @Override
@@ -0,0 +1,223 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The leaderboard of one game mode: every stored result, ranked by score, highest first.
+ * <p>
+ * The best {@link #DEFAULT_CAPACITY} results are loaded from the database once, when the leaderboard is first asked
+ * for, and kept in memory in a sorted array, which new results are added to as they are stored. Pages of the leaderboard
+ * and the rank of a player are then found by binary search, without asking the database. Only pages beyond the best
+ * results, and players who aren't among them, fall back to a query, which uses the index on {@link Player}'s score.
+ * <p>
+ * Ranks start at 1. Results with the same score share a rank, so a rank is one more than the number of results with a
+ * higher score.
+ * <p>
+ * The leaderboard locks its database while it is used, and the database tells it about new results while they are
+ * being stored, so results are never missed or counted twice when they are stored while the leaderboard loads.
+ */
+public class Leaderboard {
+    /**
+     * The number of best results that are kept in memory, unless told otherwise.
+     */
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private final AsteroidsDAO dao;
+
+    private final int capacity;
+
+    /**
+     * The best results, sorted by score, highest first. Only the first {@link #size} are used.
+     */
+    private final Player[] best;
+
+    private int size;
+
+    /**
+     * For every player among the best results, their best score and the number of their results among the best.
+     */
+    private final Map<String, int[]> players = new HashMap<>();
+
+    /**
+     * The number of results in the database.
+     */
+    private long total;
+
+    private boolean loaded;
+
+    /**
+     * @param dao The database of the game mode.
+     */
+    public Leaderboard(AsteroidsDAO dao) {
+        this(dao, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param dao      The database of the game mode.
+     * @param capacity The number of best results to keep in memory.
+     */
+    public Leaderboard(AsteroidsDAO dao, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.dao = dao;
+        this.capacity = capacity;
+        this.best = new Player[capacity];
+        dao.addStoreListener(this::addAll);
+    }
+
+    /**
+     * Adds results that have just been stored in the database. Results that don't make it into the best ones are only
+     * counted. Called by the database, which is locked at the time.
+     *
+     * @param results The stored results.
+     */
+    private void addAll(Collection<Player> results) {
+        if (!this.loaded) {
+            return; // They will be loaded along with the rest.
+        }
+        for (Player player : results) {
+            this.total++;
+            this.insert(player);
+        }
+    }
+
+    /**
+     * @param rank  The rank of the first result, starting at 1.
+     * @param count The most results to return.
+     * @return The results from the given rank on, highest score first. Fewer than asked for if the leaderboard ends
+     * earlier.
+     */
+    public List<Player> getPage(int rank, int count) {
+        synchronized (this.dao) {
+            if (rank < 1 || count < 0) {
+                throw new IllegalArgumentException("Not a valid page: " + count + " result(s) from rank " + rank);
+            }
+            this.load();
+            int first = rank - 1;
+            if (first + count <= this.size || this.isComplete()) {
+                int end = Math.min(first + count, this.size);
+                return first < end ? new ArrayList<>(Arrays.asList(this.best).subList(first, end)) : new ArrayList<>();
+            }
+            return this.dao.getPlayers(first, count);
+        }
+    }
+
+    /**
+     * @param username The name of a player.
+     * @return The rank of the player's best result, or 0 if the player has no results.
+     */
+    public long getRank(String username) {
+        synchronized (this.dao) {
+            this.load();
+            int[] entry = this.players.get(username);
+            if (entry != null) {
+                return this.countAbove(entry[0]) + 1;
+            }
+            if (this.isComplete()) {
+                return 0;
+            }
+            Integer score = this.dao.getBestScore(username);
+            return score == null ? 0 : this.dao.countPlayersAbove(score) + 1;
+        }
+    }
+
+    /**
+     * @return The number of results on the leaderboard.
+     */
+    public long size() {
+        synchronized (this.dao) {
+            this.load();
+            return this.total;
+        }
+    }
+
+    /**
+     * Forgets the results in memory, so that they are loaded from the database again when next asked for.
+     */
+    public void reload() {
+        synchronized (this.dao) {
+            Arrays.fill(this.best, 0, this.size, null);
+            this.size = 0;
+            this.players.clear();
+            this.total = 0;
+            this.loaded = false;
+        }
+    }
+
+    /**
+     * Loads the best results from the database, if that hasn't happened yet.
+     */
+    private void load() {
+        if (this.loaded) {
+            return;
+        }
+        this.total = this.dao.countPlayers();
+        for (Player player : this.dao.getPlayers(0, this.capacity)) {
+            this.insert(player);
+        }
+        this.loaded = true;
+    }
+
+    /**
+     * @return Whether every result in the database is in memory.
+     */
+    private boolean isComplete() {
+        return this.total <= this.size;
+    }
+
+    /**
+     * Adds a result to the best ones, if it is good enough, pushing out the lowest if there's no room.
+     */
+    private void insert(Player player) {
+        int index = this.countAbove(player.getScore() - 1); // After any results with the same score.
+        if (index >= this.capacity) {
+            return;
+        }
+        if (this.size == this.capacity) {
+            this.remove(this.best[this.size - 1]);
+            this.size--;
+        }
+        System.arraycopy(this.best, index, this.best, index + 1, this.size - index);
+        this.best[index] = player;
+        this.size++;
+        int[] entry = this.players.computeIfAbsent(player.getUsername(), username -> new int[]{player.getScore(), 0});
+        entry[0] = Math.max(entry[0], player.getScore());
+        entry[1]++;
+    }
+
+    /**
+     * Forgets that a result is among the best, for the player it belongs to.
+     */
+    private void remove(Player player) {
+        int[] entry = this.players.get(player.getUsername());
+        // The lowest result is never better than the player's best, so the best only changes when it was the last one.
+        if (--entry[1] == 0) {
+            this.players.remove(player.getUsername());
+        }
+    }
+
+    /**
+     * @return The number of best results with a score higher than the given one, which is also the index of the first
+     * result that isn't.
+     */
+    private int countAbove(int score) {
+        int low = 0;
+        int high = this.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.best[middle].getScore() > score) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -4,6 +4,7 @@ package database;
         import javax.persistence.*;
 
 @Entity
+@Table(indexes = {@Index(columnList = "score"), @Index(columnList = "username")}) // For the leaderboard's queries.
 public class Player implements Serializable {
     private static final long serialVersionUID = 1L;
     @Id
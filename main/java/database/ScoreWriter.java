@@ -0,0 +1,164 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stores the results of finished games in the background (write-behind), so that the end of a game never has to wait
+ * for the database.
+ * <p>
+ * Results are put in a bounded queue, and a writer thread stores whatever has queued up in one transaction, at most
+ * every {@link #FLUSH_INTERVAL_MILLISECONDS} milliseconds and at most {@link #BATCH_SIZE} at a time. The database stays
+ * open in between. If the queue is ever full, because the database is far slower than results come in, new results are
+ * dropped rather than making the game wait. Closing the writer stores everything that is still queued.
+ */
+public class ScoreWriter implements AutoCloseable {
+    /**
+     * The most results that can wait to be stored.
+     */
+    static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * The most results that are stored in one transaction.
+     */
+    static final int BATCH_SIZE = 256;
+
+    /**
+     * How long the writer collects results before storing them, so that results that come in close together share a
+     * transaction.
+     */
+    static final long FLUSH_INTERVAL_MILLISECONDS = 500;
+
+    /**
+     * The database that results are stored in.
+     */
+    private final AsteroidsDAO dao;
+
+    /**
+     * Put in the queue when the writer is closed, after the last result, to tell the writer thread to stop.
+     */
+    private static final Player END = new Player();
+
+    private final BlockingQueue<Player> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final Thread writerThread;
+
+    private volatile boolean closed;
+
+    /**
+     * Opens the database and starts the writer thread.
+     *
+     * @param dao The database to store results in. The writer opens it, and closes it when the writer is closed.
+     */
+    public ScoreWriter(AsteroidsDAO dao) {
+        this.dao = dao;
+        this.writerThread = new Thread(this::writeLoop, "ScoreWriter");
+        this.writerThread.setDaemon(true); // Closing the writer flushes it; this thread alone shouldn't keep the program alive.
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a result to be stored. Never waits.
+     *
+     * @param player The result to store.
+     * @return Whether the result was queued; false if the writer is closed or the queue is full.
+     */
+    public boolean submit(Player player) {
+        if (this.closed) {
+            System.err.println("Score writer is closed; dropped: " + player);
+            return false;
+        }
+        if (!this.queue.offer(player)) {
+            System.err.println("Score writer is falling behind; dropped: " + player);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of results that are waiting to be stored.
+     */
+    public int getPendingCount() {
+        return this.queue.size();
+    }
+
+    /**
+     * Stops accepting results, waits for the writer thread to store everything that was queued, and closes the
+     * database.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        try {
+            // The writer thread is never interrupted, since that would also break off any file access it is doing.
+            while (!this.queue.offer(END, FLUSH_INTERVAL_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+                if (!this.writerThread.isAlive()) {
+                    return;
+                }
+            }
+            LockSupport.unpark(this.writerThread); // Don't wait for more results to come in.
+            this.writerThread.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stores batches of results until the writer is closed.
+     */
+    private void writeLoop() {
+        List<Player> batch = new ArrayList<>(BATCH_SIZE);
+        boolean ended = false;
+        try {
+            this.dao.openDataSource();
+            while (!ended) {
+                batch.add(this.queue.take());
+                if (!this.closed) {
+                    // Give other results a moment to come in, so they can be stored in the same transaction.
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLISECONDS));
+                }
+                this.queue.drainTo(batch, BATCH_SIZE - batch.size());
+                ended = batch.remove(END);
+                this.store(batch);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+        finally {
+            try {
+                this.dao.closeDataSource();
+            }
+            catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Stores a batch of results in one transaction, and empties the batch. Results that can't be stored are reported
+     * and dropped, so that one bad batch doesn't stop the writer.
+     */
+    private void store(List<Player> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            this.dao.addPlayers(batch);
+            System.out.println("Stored " + batch.size() + " result(s)");
+        }
+        catch (RuntimeException e) {
+            System.err.println("Could not store " + batch.size() + " result(s): " + batch);
+            e.printStackTrace();
+        }
+        batch.clear();
+    }
+}
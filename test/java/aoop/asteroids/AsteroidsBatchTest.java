@@ -0,0 +1,45 @@
+package aoop.asteroids;
+
+import aoop.asteroids.control.BatchRunner;
+import aoop.asteroids.control.GameUpdater;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the configuration of the batch runner.
+ */
+class AsteroidsBatchTest {
+	@Test
+	void testDefaults() {
+		AsteroidsBatch batch = AsteroidsBatch.parse(new String[0]);
+		assertEquals(1000, batch.getMatches());
+		assertEquals(BatchRunner.DEFAULT_MAX_TICKS, batch.getTicks());
+		assertEquals(0, batch.getSeed());
+		assertTrue(batch.getWorkers() >= 1);
+		assertEquals(GameUpdater.SPAWN_INTERVAL_DEFAULT, batch.getSpawnInterval());
+		assertEquals(GameUpdater.ASTEROIDS_LIMIT_DEFAULT, batch.getAsteroidsLimit());
+		assertFalse(batch.isKesslerSyndrome());
+	}
+
+	@Test
+	void testArguments() {
+		AsteroidsBatch batch = AsteroidsBatch.parse(new String[]{"--matches", "50", "--ticks", "600", "--seed", "-12345678901", "--workers", "2", "--spawn-interval", "20", "--asteroids-limit", "10", "--kessler"});
+		assertEquals(50, batch.getMatches());
+		assertEquals(600, batch.getTicks());
+		assertEquals(-12345678901L, batch.getSeed());
+		assertEquals(2, batch.getWorkers());
+		assertEquals(20, batch.getSpawnInterval());
+		assertEquals(10, batch.getAsteroidsLimit());
+		assertTrue(batch.isKesslerSyndrome());
+	}
+
+	@Test
+	void testInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> AsteroidsBatch.parse(new String[]{"--matches"}));
+		assertThrows(IllegalArgumentException.class, () -> AsteroidsBatch.parse(new String[]{"--matches", "0"}));
+		assertThrows(IllegalArgumentException.class, () -> AsteroidsBatch.parse(new String[]{"--seed", "abc"}));
+		assertThrows(IllegalArgumentException.class, () -> AsteroidsBatch.parse(new String[]{"--spawn-interval", "0"}));
+		assertThrows(IllegalArgumentException.class, () -> AsteroidsBatch.parse(new String[]{"--rooms", "4"}));
+	}
+}
@@ -0,0 +1,141 @@
+package aoop.asteroids;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Asteroid;
+import aoop.asteroids.model.AsteroidSize;
+import aoop.asteroids.model.Bullet;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.WorldSnapshot;
+import aoop.asteroids.multiplayer.DatagramTransport;
+import aoop.asteroids.multiplayer.RoomManager;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.IOException;
+import java.net.DatagramSocket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the configuration of the dedicated server, and that its games don't end along with any one ship.
+ */
+class AsteroidsServerTest implements GameModeInterface {
+	/**
+	 * Without arguments, the server should host a single COOP room on the default port.
+	 */
+	@Test
+	void testDefaults() {
+		AsteroidsServer server = AsteroidsServer.parse(new String[0]);
+		assertEquals(DatagramTransport.DEFAULT_PORT, server.getPort());
+		assertEquals(GameMode.COOP, server.getMode());
+		assertEquals(1, server.getRooms());
+		assertTrue(server.getWorkers() >= 1);
+	}
+
+	@Test
+	void testArguments() {
+		AsteroidsServer server = AsteroidsServer.parse(new String[]{"--port", "30000", "--mode", "Deathmatch", "--rooms", "12", "--workers", "3", "--metrics-port", "9100", "--flight-recording"});
+		assertEquals(30000, server.getPort());
+		assertEquals(GameMode.Deathmatch, server.getMode());
+		assertEquals(12, server.getRooms());
+		assertEquals(3, server.getWorkers());
+		assertEquals(9100, server.getMetricsPort());
+		assertTrue(server.isFlightRecording());
+	}
+
+	@Test
+	void testInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> AsteroidsServer.parse(new String[]{"--port"}));
+		assertThrows(IllegalArgumentException.class, () -> AsteroidsServer.parse(new String[]{"--port", "70000"}));
+		assertThrows(IllegalArgumentException.class, () -> AsteroidsServer.parse(new String[]{"--port", "abc"}));
+		assertThrows(IllegalArgumentException.class, () -> AsteroidsServer.parse(new String[]{"--mode", "Singleplayer"}));
+		assertThrows(IllegalArgumentException.class, () -> AsteroidsServer.parse(new String[]{"--rooms", "0"}));
+		assertThrows(IllegalArgumentException.class, () -> AsteroidsServer.parse(new String[]{"--metrics-port", "0"}));
+		assertThrows(IllegalArgumentException.class, () -> AsteroidsServer.parse(new String[]{"--players", "4"}));
+	}
+
+	/**
+	 * The server's own ship doesn't play, so an asteroid flying through it should leave both alone, while a bullet
+	 * flying through another asteroid should still destroy it. The game should keep ticking even if the ship is
+	 * destroyed. New objects can't collide for a while, so that grace period is skipped.
+	 */
+	@Test
+	void testGameKeepsRunning() throws IOException, InterruptedException {
+		int port;
+		try (DatagramSocket socket = new DatagramSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		RoomManager roomManager = AsteroidsServer.parse(new String[]{"--port", Integer.toString(port), "--workers", "1"}).start();
+		try {
+			Game game = roomManager.getRoom(DatagramTransport.DEFAULT_ROOM);
+			assertTrue(game.isDedicatedServer());
+			assertTrue(game.isHosting());
+			assertTrue(game.isMultiplayer());
+			assertTrue(game.getSpaceship().isSpectator());
+
+			Asteroid asteroid;
+			int score;
+			synchronized (game) {
+				Point.Double center = game.getSpaceship().getLocation();
+				asteroid = new Asteroid(new Point.Double(center.x, center.y), new Point.Double(0, 0), AsteroidSize.LARGE);
+				asteroid.setStepsUntilCollisionPossible(0);
+				game.getAsteroids().add(asteroid);
+				Asteroid target = new Asteroid(new Point.Double(center.x + 200, center.y), new Point.Double(0, 0), AsteroidSize.SMALL);
+				target.setStepsUntilCollisionPossible(0);
+				game.getAsteroids().add(target);
+				Bullet bullet = new Bullet(center.x + 200, center.y, 0, 0);
+				bullet.setStepsUntilCollisionPossible(0);
+				game.getBullets().add(bullet);
+				game.getSpaceship().setStepsUntilCollisionPossible(0);
+				score = game.getSpaceship().getScore();
+			}
+			int tick = this.waitForTick(game, 0);
+			this.waitForTick(game, tick + 5);
+			synchronized (game) {
+				// In COOP, every destroyed asteroid scores a point, and only the bullet could have destroyed one.
+				assertTrue(game.getSpaceship().getScore() > score, "The bullet should have destroyed the other asteroid");
+				assertFalse(game.getSpaceship().isDestroyed());
+				assertFalse(asteroid.isDestroyed());
+				assertTrue(game.getAsteroids().contains(asteroid));
+				game.getSpaceship().destroy();
+			}
+			assertFalse(game.isGameOver());
+			tick = this.waitForTick(game, 0);
+			this.waitForTick(game, tick + 5);
+			assertTrue(game.isRunning());
+		}
+		finally {
+			roomManager.close();
+		}
+	}
+
+	/**
+	 * @return The tick of the game's snapshot, once it has reached the given tick.
+	 */
+	private int waitForTick(Game game, int tick) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		int published = this.publishedTick(game);
+		while (published < tick && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+			published = this.publishedTick(game);
+		}
+		assertTrue(published >= tick);
+		return published;
+	}
+
+	/**
+	 * @return The tick of the game's latest snapshot, or -1 if the game hasn't published one yet.
+	 */
+	private int publishedTick(Game game) {
+		WorldSnapshot snapshot = game.acquireWorldSnapshot();
+		if (snapshot == null) {
+			return -1;
+		}
+		try {
+			return snapshot.getTick();
+		}
+		finally {
+			snapshot.release();
+		}
+	}
+}
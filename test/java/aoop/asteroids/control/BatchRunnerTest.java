@@ -0,0 +1,92 @@
+package aoop.asteroids.control;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plays small batches of matches, and checks that their statistics only depend on the settings.
+ */
+class BatchRunnerTest {
+	private static final int MATCHES = 20;
+	private static final int TICKS = 600;
+
+	/**
+	 * The statistics should be the same whether the matches are played on one thread or on several.
+	 */
+	@Test
+	void testIndependentOfWorkers() {
+		BatchStatistics single = this.run(this.runner(7), 1);
+		BatchStatistics parallel = this.run(this.runner(7), 4);
+		assertEquals(MATCHES, single.getMatches());
+		assertEquals(single.toString(), parallel.toString());
+		assertEquals(single.getTicks(), parallel.getTicks());
+		assertEquals(single.getHighestScoreSeed(), parallel.getHighestScoreSeed());
+		assertTrue(single.getTicks() > 0 && single.getTicks() <= (long) MATCHES * TICKS);
+		assertTrue(single.getSurvivors() <= MATCHES);
+	}
+
+	/**
+	 * A match played on its own should go the same as it did in the batch.
+	 */
+	@Test
+	void testMatchesCanBePlayedAgain() {
+		BatchRunner runner = this.runner(100);
+		BatchStatistics batch = this.run(runner, 2);
+		int highest = (int) (batch.getHighestScoreSeed() - 100);
+		BatchStatistics match = runner.play(highest);
+		assertEquals(1, match.getMatches());
+		assertEquals(batch.getHighestScore(), match.getHighestScore());
+		assertEquals(batch.getHighestScoreSeed(), match.getHighestScoreSeed());
+	}
+
+	/**
+	 * Spawning asteroids more often should leave more of them in the game.
+	 */
+	@Test
+	void testSpawnInterval() {
+		BatchRunner rare = this.runner(1);
+		BatchRunner often = this.runner(1);
+		often.setSpawnInterval(10);
+		assertTrue(this.run(often, 2).getMeanAsteroids() > this.run(rare, 2).getMeanAsteroids());
+		BatchRunner never = this.runner(1);
+		never.setSpawnInterval(0);
+		assertThrows(IllegalArgumentException.class, () -> never.play(0));
+	}
+
+	@Test
+	void testMerge() {
+		BatchStatistics low = BatchStatistics.of(1, 100, false, 200, 5, 300);
+		BatchStatistics high = BatchStatistics.of(2, 300, true, 600, 9, 900);
+		BatchStatistics both = BatchStatistics.EMPTY.merge(high).merge(low);
+		assertEquals(2, both.getMatches());
+		assertEquals(400, both.getTicks());
+		assertEquals(1, both.getSurvivors());
+		assertEquals(400, both.getMeanScore(), 1e-9);
+		assertEquals(200, both.getScoreStandardDeviation(), 1e-9);
+		assertEquals(200, both.getLowestScore());
+		assertEquals(1, both.getLowestScoreSeed());
+		assertEquals(600, both.getHighestScore());
+		assertEquals(2, both.getHighestScoreSeed());
+		assertEquals(3, both.getMeanAsteroids(), 1e-9);
+		assertEquals(7, both.getMeanPeakAsteroids(), 1e-9);
+	}
+
+	private BatchRunner runner(long seed) {
+		BatchRunner runner = new BatchRunner(MATCHES, seed);
+		runner.setMaxTicks(TICKS);
+		return runner;
+	}
+
+	private BatchStatistics run(BatchRunner runner, int workers) {
+		ForkJoinPool pool = new ForkJoinPool(workers);
+		try {
+			return runner.run(pool);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package aoop.asteroids.control;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.metrics.FlightRecording;
+import aoop.asteroids.model.Game;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Records a game with Flight Recorder, and checks that its ticks show up as events.
+ */
+class FlightRecorderEventsTest implements GameModeInterface {
+	@Test
+	void testTickEvents() throws IOException {
+		Game game = new Game();
+		game.setSeed(5);
+		game.initializeGameData(false, false, GameMode.Singleplayer);
+		GameUpdater updater = new GameUpdater(game);
+		Path file = Files.createTempFile("asteroids", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("aoop.asteroids.Tick").withThreshold(Duration.ZERO);
+			recording.start();
+			for (int i = 0; i < 10; i++) {
+				updater.tick();
+			}
+			recording.stop();
+			recording.dump(file);
+
+			List<RecordedEvent> ticks = RecordingFile.readAllEvents(file).stream()
+					.filter(event -> event.getEventType().getName().equals("aoop.asteroids.Tick"))
+					.collect(Collectors.toList());
+			assertEquals(10, ticks.size());
+			RecordedEvent last = ticks.get(ticks.size() - 1);
+			assertEquals(10, last.getInt("tick"));
+			assertEquals(game.getAsteroids().size(), last.getInt("asteroids"));
+			assertEquals(1, last.getInt("spaceships"));
+			assertFalse(last.getDuration().isNegative());
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * The bundled settings should be readable by Flight Recorder, and enable every event of the game.
+	 */
+	@Test
+	void testServerSettings() throws IOException, ParseException {
+		InputStream settings = this.getClass().getResourceAsStream("/asteroids-server.jfc");
+		assertNotNull(settings, "The settings should be on the class path");
+		Configuration configuration;
+		try (Reader reader = new InputStreamReader(settings, StandardCharsets.UTF_8)) {
+			configuration = Configuration.create(reader);
+		}
+		for (String event : new String[]{"Tick", "TickOverrun", "SnapshotEncode", "SnapshotDecode", "Database"}) {
+			assertEquals("true", configuration.getSettings().get("aoop.asteroids." + event + "#enabled"), event);
+		}
+		try (Recording recording = FlightRecording.start()) {
+			assertNotNull(recording);
+			assertEquals(RecordingState.RUNNING, recording.getState());
+		}
+	}
+}
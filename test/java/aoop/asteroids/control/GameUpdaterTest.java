@@ -0,0 +1,111 @@
+package aoop.asteroids.control;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.Spaceship;
+import aoop.asteroids.model.WorldSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests how the game updater keeps time, and how it publishes its world snapshots.
+ */
+class GameUpdaterTest implements GameModeInterface {
+	private static final int TICKS = 100;
+
+	/**
+	 * The length of a tick at 10 ticks per second, in nanoseconds.
+	 */
+	private static final long TICK = 100_000_000L;
+
+	private GameUpdater createUpdater(Game game) {
+		game.setSeed(42);
+		game.initializeGameData(false, false, GameMode.Singleplayer);
+		game.getSpaceship().setKeyPressed(Spaceship.INPUT_FIRE, true);
+		return new GameUpdater(game);
+	}
+
+	/**
+	 * Time that is left over after the due ticks should be kept for the next round, so that a round that is a bit late
+	 * is made up for by the next ones.
+	 */
+	@Test
+	void testLeftoverTimeIsKept() {
+		Game game = new Game();
+		GameUpdater updater = this.createUpdater(game);
+		updater.setRates(10, 0);
+		assertEquals(TICK / 2, updater.tickFor(TICK * 5 / 2));
+		assertEquals(2, game.getTick());
+		assertEquals(TICK / 10, updater.tickFor(TICK / 2 + TICK * 6 / 10));
+		assertEquals(3, game.getTick());
+		assertEquals(TICK * 9 / 10, updater.tickFor(TICK / 10 + TICK * 8 / 10));
+		assertEquals(3, game.getTick(), "Not a full tick yet");
+	}
+
+	/**
+	 * After falling far behind, the updater should only catch up by a few ticks, and drop the full ticks of the rest of
+	 * the time, while keeping what is left of a tick.
+	 */
+	@Test
+	void testCatchUpIsLimited() {
+		Game game = new Game();
+		GameUpdater updater = this.createUpdater(game);
+		updater.setRates(10, 0);
+		assertEquals(TICK * 3 / 10, updater.tickFor(TICK * 20 + TICK * 3 / 10));
+		assertEquals(GameUpdater.MAX_CATCH_UP_TICKS, game.getTick());
+		assertEquals(0, updater.tickFor(TICK * 3 / 10 + TICK * 7 / 10));
+		assertEquals(GameUpdater.MAX_CATCH_UP_TICKS + 1, game.getTick());
+	}
+
+	/**
+	 * Without anyone reading them, the updater should take turns writing into two snapshots: the published one, and the
+	 * one that the next tick goes into.
+	 */
+	@Test
+	void testSnapshotsAreReused() {
+		Game game = new Game();
+		GameUpdater updater = this.createUpdater(game);
+		Set<WorldSnapshot> published = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (int tick = 0; tick < TICKS; tick++) {
+			updater.tick();
+			published.add(game.getWorldSnapshot());
+		}
+		assertEquals(2, published.size());
+		assertEquals(TICKS, game.getWorldSnapshot().getTick());
+	}
+
+	/**
+	 * A snapshot that a reader holds should stay the same however many ticks go by, and should be written into again
+	 * once it is released.
+	 */
+	@Test
+	void testHeldSnapshotIsNotWrittenInto() {
+		Game game = new Game();
+		GameUpdater updater = this.createUpdater(game);
+		updater.tick();
+		WorldSnapshot held = game.acquireWorldSnapshot();
+		long checksum = held.checksum();
+		Set<WorldSnapshot> published = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (int tick = 0; tick < TICKS; tick++) {
+			updater.tick();
+			assertNotSame(held, game.getWorldSnapshot());
+			published.add(game.getWorldSnapshot());
+		}
+		assertEquals(1, held.getTick());
+		assertEquals(checksum, held.checksum());
+		assertEquals(2, published.size(), "Snapshots besides the held one");
+
+		held.release();
+		boolean reused = false;
+		for (int tick = 0; tick < 3; tick++) {
+			updater.tick();
+			reused |= game.getWorldSnapshot() == held;
+		}
+		assertTrue(reused);
+	}
+}
@@ -0,0 +1,127 @@
+package aoop.asteroids.control;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.Spaceship;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plays games from a seed and a log of inputs, and checks that replaying them gives exactly the same game.
+ */
+class InputLogTest implements GameModeInterface {
+	private static final int TICKS = 1000;
+
+	private static final int[] KEYS = {Spaceship.INPUT_ACCELERATE, Spaceship.INPUT_TURN_LEFT, Spaceship.INPUT_TURN_RIGHT, Spaceship.INPUT_FIRE};
+
+	/**
+	 * A game that is replayed from its seed and inputs should be in the same state as the original after every tick.
+	 */
+	@Test
+	void testReplayPlaysOutTheSame() {
+		Game original = this.createGame(42);
+		GameUpdater originalUpdater = this.createUpdater(original);
+		InputLog log = new InputLog(original.getSeed());
+		originalUpdater.recordInputs(log);
+		Random player = new Random(7);
+		long[] checksums = new long[TICKS];
+		for (int tick = 0; tick < TICKS; tick++) {
+			original.getSpaceship().setKeyPressed(KEYS[player.nextInt(KEYS.length)], player.nextBoolean());
+			originalUpdater.tick();
+			checksums[tick] = original.getWorldSnapshot().checksum();
+		}
+		assertEquals(TICKS, log.getLength());
+		assertTrue(original.getSpaceship().getScore() > 0 || !original.getAsteroids().isEmpty(), "Something should have happened");
+
+		Game replay = this.createGame(log.getSeed());
+		GameUpdater replayUpdater = this.createUpdater(replay);
+		replayUpdater.replayInputs(log);
+		replay.getSpaceship().setKeyPressed(Spaceship.INPUT_FIRE, true); // Ignored, since the inputs come from the log.
+		for (int tick = 0; tick < TICKS; tick++) {
+			replayUpdater.tick();
+			assertEquals(checksums[tick], replay.getWorldSnapshot().checksum(), "Replay went apart at tick " + tick);
+		}
+		assertFalse(log.hasNext());
+		assertEquals(original.getSpaceship().getScore(), replay.getSpaceship().getScore());
+		assertEquals(original.getAsteroids().size(), replay.getAsteroids().size());
+	}
+
+	/**
+	 * The same inputs with another seed should give another game.
+	 */
+	@Test
+	void testSeedDecidesTheGame() {
+		Game first = this.createGame(1);
+		Game second = this.createGame(2);
+		GameUpdater firstUpdater = this.createUpdater(first);
+		GameUpdater secondUpdater = this.createUpdater(second);
+		firstUpdater.tick();
+		secondUpdater.tick();
+		assertEquals(1, first.getAsteroids().size());
+		assertNotEquals(first.getAsteroids().get(0).getLocation(), second.getAsteroids().get(0).getLocation());
+		assertNotEquals(first.getWorldSnapshot().checksum(), second.getWorldSnapshot().checksum());
+
+		first.initializeGameData(false, false, GameMode.Singleplayer);
+		assertEquals(1, first.getSeed(), "New games should keep the fixed seed");
+	}
+
+	/**
+	 * A key that is pressed in between ticks should only be applied to the ship at the start of the next tick.
+	 */
+	@Test
+	void testKeysAreReadOncePerTick() {
+		Game game = this.createGame(3);
+		GameUpdater updater = this.createUpdater(game);
+		Spaceship ship = game.getSpaceship();
+		ship.setKeyPressed(Spaceship.INPUT_ACCELERATE, true);
+		ship.setKeyPressed(Spaceship.INPUT_TURN_LEFT, true);
+		assertEquals(0, ship.getInputs());
+		updater.tick();
+		assertEquals(Spaceship.INPUT_ACCELERATE | Spaceship.INPUT_TURN_LEFT, ship.getInputs());
+		ship.setKeyPressed(Spaceship.INPUT_TURN_LEFT, false);
+		assertEquals(Spaceship.INPUT_ACCELERATE | Spaceship.INPUT_TURN_LEFT, ship.getInputs());
+		updater.tick();
+		assertEquals(Spaceship.INPUT_ACCELERATE, ship.getInputs());
+	}
+
+	@Test
+	void testWriteAndRead() throws IOException {
+		InputLog log = new InputLog(-5);
+		for (int i = 0; i < 3000; i++) {
+			log.record(i % 16);
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		log.writeTo(new DataOutputStream(bytes));
+		InputLog read = InputLog.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertEquals(-5, read.getSeed());
+		assertEquals(3000, read.getLength());
+		for (int i = 0; i < 3000; i++) {
+			assertEquals(i % 16, read.next());
+		}
+		assertFalse(read.hasNext());
+		assertThrows(IllegalStateException.class, read::next);
+		read.rewind();
+		assertEquals(0, read.next());
+	}
+
+	private Game createGame(long seed) {
+		Game game = new Game();
+		game.setSeed(seed);
+		game.initializeGameData(false, false, GameMode.Singleplayer);
+		return game;
+	}
+
+	private GameUpdater createUpdater(Game game) {
+		GameUpdater updater = new GameUpdater(game);
+		updater.setKesslerSyndrome(true);
+		return updater;
+	}
+}
@@ -0,0 +1,135 @@
+package aoop.asteroids.control;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.Spaceship;
+import aoop.asteroids.model.WorldSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Records games to a file, and checks that seeking to any tick of the recording gives exactly the state that the
+ * original game was in at that tick.
+ */
+class MatchRecorderTest implements GameModeInterface {
+	private static final int TICKS = 1000;
+
+	private static final int[] KEYS = {Spaceship.INPUT_ACCELERATE, Spaceship.INPUT_TURN_LEFT, Spaceship.INPUT_TURN_RIGHT, Spaceship.INPUT_FIRE};
+
+	@Test
+	void testSeek() throws IOException {
+		Path file = Files.createTempFile("asteroids", ".match");
+		try {
+			long[] checksums = this.record(file, true);
+			MatchRecording recording = MatchRecording.open(file);
+			assertEquals(TICKS, recording.getLength());
+			assertEquals(11, recording.getSeed());
+			assertEquals(GameMode.Singleplayer, recording.getGameMode());
+			assertTrue(recording.isKesslerSyndrome());
+
+			Game game = new Game();
+			for (int tick : new int[]{0, 1, 149, 150, 151, 487, 900, TICKS - 1, TICKS}) {
+				recording.seek(game, tick);
+				assertEquals(checksums[tick], WorldSnapshot.capture(game).checksum(), "Wrong state at tick " + tick);
+			}
+
+			// Playing on from a tick should give the rest of the original game.
+			GameUpdater updater = recording.seek(game, 200);
+			for (int tick = 200; tick < TICKS; tick++) {
+				updater.tick();
+				assertEquals(checksums[tick + 1], game.getWorldSnapshot().checksum(), "Went apart at tick " + tick);
+			}
+			assertThrows(IllegalArgumentException.class, () -> recording.seek(game, TICKS + 1));
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * A recording that was never closed, for example because the game crashed, has no index, but can still be read.
+	 */
+	@Test
+	void testUnclosedRecording() throws IOException {
+		Path file = Files.createTempFile("asteroids", ".match");
+		try {
+			Game original = this.createGame();
+			GameUpdater originalUpdater = new GameUpdater(original);
+			MatchRecorder recorder = originalUpdater.recordMatch(file);
+			long[] checksums = new long[TICKS + 1];
+			checksums[0] = WorldSnapshot.capture(original).checksum();
+			this.play(original, originalUpdater, checksums);
+
+			MatchRecording recording = MatchRecording.open(file);
+			assertEquals(TICKS, recording.getLength());
+			Game game = new Game();
+			for (int tick : new int[]{0, 450, 777, TICKS}) {
+				recording.seek(game, tick);
+				assertEquals(checksums[tick], WorldSnapshot.capture(game).checksum(), "Wrong state at tick " + tick);
+			}
+			recorder.close();
+			assertEquals(checksums[777], this.seek(file, 777));
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void testNotARecording() throws IOException {
+		Path file = Files.createTempFile("asteroids", ".match");
+		try {
+			Files.write(file, new byte[100]);
+			assertThrows(IOException.class, () -> MatchRecording.open(file));
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Plays a game with random inputs while recording it.
+	 *
+	 * @return The checksum of the game at the start of every tick, and at the end.
+	 */
+	private long[] record(Path file, boolean kesslerSyndrome) throws IOException {
+		Game game = this.createGame();
+		GameUpdater updater = new GameUpdater(game);
+		updater.setKesslerSyndrome(kesslerSyndrome);
+		long[] checksums = new long[TICKS + 1];
+		checksums[0] = WorldSnapshot.capture(game).checksum();
+		try (MatchRecorder recorder = updater.recordMatch(file)) {
+			this.play(game, updater, checksums);
+			assertEquals(TICKS, recorder.getTicks());
+		}
+		return checksums;
+	}
+
+	private void play(Game game, GameUpdater updater, long[] checksums) {
+		Random player = new Random(5);
+		for (int tick = 0; tick < TICKS; tick++) {
+			game.getSpaceship().setKeyPressed(KEYS[player.nextInt(KEYS.length)], player.nextBoolean());
+			updater.tick();
+			checksums[tick + 1] = game.getWorldSnapshot().checksum();
+		}
+	}
+
+	private long seek(Path file, int tick) throws IOException {
+		Game game = new Game();
+		MatchRecording.open(file).seek(game, tick);
+		return WorldSnapshot.capture(game).checksum();
+	}
+
+	private Game createGame() {
+		Game game = new Game();
+		game.setSeed(11);
+		game.initializeGameData(false, false, GameMode.Singleplayer);
+		return game;
+	}
+}
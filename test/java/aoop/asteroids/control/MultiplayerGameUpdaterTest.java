@@ -0,0 +1,428 @@
+package aoop.asteroids.control;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Asteroid;
+import aoop.asteroids.model.AsteroidSize;
+import aoop.asteroids.model.Bullet;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.Spaceship;
+import aoop.asteroids.model.WorldSnapshot;
+import aoop.asteroids.multiplayer.DataPacket_Client;
+import aoop.asteroids.multiplayer.DataPacket_Game;
+import aoop.asteroids.multiplayer.DatagramTransport;
+import aoop.asteroids.multiplayer.InputHistory;
+import aoop.asteroids.multiplayer.PacketCodec;
+import aoop.asteroids.multiplayer.SnapshotHistory;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the host moves the ships of its clients itself, from nothing but the buttons they pressed, and that
+ * clients correct their own ship with what the host sends back.
+ */
+class MultiplayerGameUpdaterTest implements GameModeInterface {
+	/**
+	 * The largest error allowed for locations, which are rounded when they are sent.
+	 */
+	private static final double DELTA = 0.5;
+
+	/**
+	 * Where the packets of the client come from.
+	 */
+	private static final InetSocketAddress CLIENT_ADDRESS = new InetSocketAddress(InetAddress.getLoopbackAddress(), 40000);
+
+	/**
+	 * A client's ship should appear on the host when its first packet arrives, and then accelerate, turn and fire on
+	 * the host just like the client's own ship does.
+	 */
+	@Test
+	void testHostSimulatesClientShip() {
+		Game host = this.createHost();
+		DatagramTransport transport = new DatagramTransport(0); // Never started, packets are handed over directly.
+		MultiplayerGameUpdater multiplayerUpdater = new MultiplayerGameUpdater(host, transport);
+		GameUpdater updater = new GameUpdater(host);
+
+		Game client = this.createClient();
+		Spaceship clientShip = client.getSpaceship();
+		InputHistory inputs = new InputHistory();
+		DataPacket_Client packet = new DataPacket_Client();
+		packet.sender = CLIENT_ADDRESS;
+
+		for (int tick = 0; tick < 20; tick++) {
+			clientShip.setInputs(Spaceship.INPUT_ACCELERATE | (tick < 10 ? Spaceship.INPUT_TURN_RIGHT : Spaceship.INPUT_FIRE));
+			clientShip.nextStep();
+			if (clientShip.canFireWeapon()) {
+				clientShip.setFired();
+			}
+			inputs.record(clientShip.getInputs());
+			packet.capture(WorldSnapshot.capture(client), inputs);
+			if (tick % 3 == 2) { // Only every third packet arrives, but each one holds the inputs of the ones before.
+				multiplayerUpdater.acceptClientInfo(packet);
+			}
+			if (tick >= 2) { // The host starts moving the ship once it has joined.
+				this.tick(host, multiplayerUpdater, updater);
+			}
+		}
+		assertEquals(1, host.getSpaceships().size());
+		Spaceship simulated = host.getSpaceships().iterator().next();
+		assertEquals("client", simulated.getUsername());
+		assertEquals(17, simulated.getInputSequence());
+
+		// The host is two ticks behind. The last two inputs never arrived, so the host repeats the one before them,
+		// which happens to be the same.
+		for (int tick = 0; tick < 2; tick++) {
+			this.tick(host, multiplayerUpdater, updater);
+		}
+		assertEquals(clientShip.getDirection(), simulated.getDirection(), 1e-9);
+		assertEquals(clientShip.getLocation().x, simulated.getLocation().x, 1e-9);
+		assertEquals(clientShip.getLocation().y, simulated.getLocation().y, 1e-9);
+		assertEquals(clientShip.getEnergyPercentage(), simulated.getEnergyPercentage(), 1e-9);
+		assertFalse(host.getBullets().isEmpty());
+		transport.close();
+	}
+
+	/**
+	 * With packets taking a few ticks each way, a client whose prediction went wrong should end up where the host says
+	 * its ship is, plus the inputs that the host hasn't seen yet.
+	 */
+	@Test
+	void testClientReconcilesOwnShip() throws ProtocolException {
+		final int latency = 3;
+		Game host = this.createHost();
+		DatagramTransport hostTransport = new DatagramTransport(0);
+		MultiplayerGameUpdater hostMultiplayerUpdater = new MultiplayerGameUpdater(host, hostTransport);
+		GameUpdater hostUpdater = new GameUpdater(host);
+
+		Game client = this.createClient();
+		DatagramTransport clientTransport = new DatagramTransport(0, InetAddress.getLoopbackAddress(), 0);
+		MultiplayerGameUpdater clientMultiplayerUpdater = new MultiplayerGameUpdater(client, clientTransport);
+		GameUpdater clientUpdater = new GameUpdater(client);
+		Spaceship clientShip = client.getSpaceship();
+
+		Spaceship expected = new Spaceship(); // Where the client's ship should be if nothing went wrong.
+		InputHistory inputs = new InputHistory();
+		List<DataPacket_Client> clientPackets = new ArrayList<>();
+		List<DataPacket_Game> snapshots = new ArrayList<>();
+		PacketCodec codec = new PacketCodec();
+
+		for (int tick = 0; tick < 40; tick++) {
+			if (tick >= 2 * latency) {
+				clientMultiplayerUpdater.updateGameSnapshot(snapshots.get(tick - latency));
+			}
+			int pressed = Spaceship.INPUT_ACCELERATE | (tick % 10 < 5 ? Spaceship.INPUT_TURN_LEFT : Spaceship.INPUT_FIRE);
+			clientShip.setInputs(pressed);
+			expected.setInputs(pressed);
+			clientMultiplayerUpdater.receivePackets(); // Records the input for this tick.
+			clientUpdater.updatePhysics();
+			expected.nextStep();
+			if (expected.canFireWeapon()) {
+				expected.setFired();
+			}
+			if (tick == 20) { // Something the client didn't predict, such as a bump into another ship.
+				clientShip.setLocation(clientShip.getLocation().x + 100, clientShip.getLocation().y);
+			}
+
+			inputs.record(pressed);
+			DataPacket_Client packet = new DataPacket_Client();
+			packet.capture(WorldSnapshot.capture(client), inputs);
+			packet.sender = CLIENT_ADDRESS;
+			clientPackets.add(packet);
+			if (tick >= latency) {
+				hostMultiplayerUpdater.acceptClientInfo(clientPackets.get(tick - latency));
+				this.tick(host, hostMultiplayerUpdater, hostUpdater);
+			}
+			DataPacket_Game snapshot = new DataPacket_Game();
+			DataPacket_Game sent = new DataPacket_Game();
+			sent.capture(host);
+			codec.decode(codec.encode(sent, null, SnapshotHistory.NO_SNAPSHOT, this.ownShip(host)), snapshot);
+			snapshots.add(snapshot);
+
+			if (tick == 20) { // Corrected as soon as the next snapshot arrives.
+				assertTrue(Math.abs(expected.getLocation().x - clientShip.getLocation().x) > DELTA, "Tick " + tick);
+			} else if (tick >= 2 * latency) {
+				assertEquals(expected.getLocation().x, clientShip.getLocation().x, DELTA, "Tick " + tick);
+				assertEquals(expected.getLocation().y, clientShip.getLocation().y, DELTA, "Tick " + tick);
+				// Directions are sent as a fraction of a full turn, so only the angle itself has to match.
+				assertEquals(Math.cos(expected.getDirection()), Math.cos(clientShip.getDirection()), 0.01);
+				assertEquals(Math.sin(expected.getDirection()), Math.sin(clientShip.getDirection()), 0.01);
+			}
+		}
+		assertFalse(clientShip.isDestroyed());
+		hostTransport.close();
+		clientTransport.close();
+	}
+
+	/**
+	 * Once the host has the client's ship, the ship disappearing from the snapshots means it was destroyed.
+	 */
+	@Test
+	void testClientShipDestroyedByHost() throws ProtocolException {
+		Game host = this.createHost();
+		DatagramTransport hostTransport = new DatagramTransport(0);
+		MultiplayerGameUpdater hostMultiplayerUpdater = new MultiplayerGameUpdater(host, hostTransport);
+		Game client = this.createClient();
+		DatagramTransport clientTransport = new DatagramTransport(0, InetAddress.getLoopbackAddress(), 0);
+		MultiplayerGameUpdater clientMultiplayerUpdater = new MultiplayerGameUpdater(client, clientTransport);
+
+		DataPacket_Game snapshot = new DataPacket_Game();
+		snapshot.capture(host);
+		clientMultiplayerUpdater.updateGameSnapshot(snapshot);
+		assertFalse(client.getSpaceship().isDestroyed()); // Not joined yet.
+
+		InputHistory inputs = new InputHistory();
+		inputs.record(0);
+		DataPacket_Client packet = new DataPacket_Client();
+		packet.capture(WorldSnapshot.capture(client), inputs);
+		packet.sender = CLIENT_ADDRESS;
+		hostMultiplayerUpdater.acceptClientInfo(packet);
+		snapshot.capture(host);
+		snapshot.ownShip = this.ownShip(host);
+		clientMultiplayerUpdater.updateGameSnapshot(snapshot);
+		assertFalse(client.getSpaceship().isDestroyed());
+		assertEquals(snapshot.ownShip, client.getSpaceship().getMultiplayerID());
+
+		host.getSpaceships().clear();
+		snapshot.capture(host);
+		clientMultiplayerUpdater.updateGameSnapshot(snapshot);
+		assertTrue(client.getSpaceship().isDestroyed());
+		hostTransport.close();
+		clientTransport.close();
+	}
+
+	/**
+	 * The host should give every client's ship an id of its own, even if two clients made ships with the same id, and
+	 * send each client the id of its own ship only.
+	 */
+	@Test
+	void testHostGivesShipIds() {
+		Game host = this.createHost();
+		DatagramTransport transport = new DatagramTransport(0);
+		MultiplayerGameUpdater multiplayerUpdater = new MultiplayerGameUpdater(host, transport);
+		InputHistory inputs = new InputHistory();
+		inputs.record(0);
+		InetSocketAddress[] addresses = {CLIENT_ADDRESS, new InetSocketAddress(InetAddress.getLoopbackAddress(), 40001)};
+		for (InetSocketAddress address : addresses) {
+			Game client = this.createClient();
+			client.getSpaceship().setMultiplayerID(7); // The same id on both clients.
+			DataPacket_Client packet = new DataPacket_Client();
+			packet.capture(WorldSnapshot.capture(client), inputs);
+			packet.sender = address;
+			multiplayerUpdater.addClient(GameMode.COOP, address);
+			multiplayerUpdater.acceptClientInfo(packet);
+			multiplayerUpdater.acceptClientInfo(packet); // Again, which should not add another ship.
+		}
+		assertEquals(2, host.getSpaceships().size());
+		List<Integer> ids = new ArrayList<>();
+		for (Spaceship ship : host.getSpaceships()) {
+			ids.add(ship.getMultiplayerID());
+		}
+		assertNotEquals(ids.get(0), ids.get(1));
+		assertFalse(ids.contains(7));
+
+		host.publishWorldSnapshot();
+		multiplayerUpdater.onGameUpdate();
+		DataPacket_Game published = multiplayerUpdater.getRoom().getOutgoingSnapshots().poll();
+		assertNotNull(published);
+		assertEquals(2, published.getRecipientCount());
+		for (int i = 0; i < published.getRecipientCount(); i++) {
+			assertEquals(addresses[i], published.getRecipient(i));
+			assertEquals((int) ids.get(i), published.getRecipientShip(i));
+		}
+		transport.close();
+	}
+
+	/**
+	 * A client that stops sending should be dropped by the host, along with its ship, once it has been silent for the
+	 * timeout. A client whose ship was destroyed should not get a new one from packets that were still on their way.
+	 */
+	@Test
+	void testHostDropsSilentClients() {
+		Game host = this.createHost();
+		DatagramTransport transport = new DatagramTransport(0);
+		MultiplayerGameUpdater multiplayerUpdater = new MultiplayerGameUpdater(host, transport);
+		GameUpdater updater = new GameUpdater(host);
+		InputHistory inputs = new InputHistory();
+		inputs.record(0);
+		DataPacket_Client packet = new DataPacket_Client();
+		packet.capture(WorldSnapshot.capture(this.createClient()), inputs);
+		packet.sender = CLIENT_ADDRESS;
+		multiplayerUpdater.addClient(GameMode.COOP, CLIENT_ADDRESS);
+		multiplayerUpdater.acceptClientInfo(packet);
+		assertEquals(1, host.getSpaceships().size());
+		Spaceship ship = host.getSpaceships().iterator().next();
+
+		for (int tick = 0; tick < MultiplayerGameUpdater.CLIENT_TIMEOUT_TICKS; tick++) {
+			this.tick(host, multiplayerUpdater, updater);
+		}
+		assertEquals(1, host.getSpaceships().size(), "Not silent for long enough yet");
+		ship.destroy();
+		this.tick(host, multiplayerUpdater, updater);
+		assertTrue(host.getSpaceships().isEmpty());
+		multiplayerUpdater.addClient(GameMode.COOP, CLIENT_ADDRESS);
+		multiplayerUpdater.acceptClientInfo(packet);
+		assertTrue(host.getSpaceships().isEmpty(), "A destroyed ship isn't replaced");
+		assertEquals(List.of(CLIENT_ADDRESS), host.getClients());
+
+		for (int tick = 0; tick <= MultiplayerGameUpdater.CLIENT_TIMEOUT_TICKS + 1; tick++) { // Dropped on the tick after the timeout.
+			this.tick(host, multiplayerUpdater, updater);
+		}
+		assertTrue(host.getClients().isEmpty());
+		multiplayerUpdater.addClient(GameMode.COOP, CLIENT_ADDRESS);
+		multiplayerUpdater.acceptClientInfo(packet);
+		assertEquals(1, host.getSpaceships().size(), "A client that comes back after being dropped joins anew");
+		assertNotSame(ship, host.getSpaceships().iterator().next());
+		transport.close();
+	}
+
+	/**
+	 * The client should keep its objects, including the other players' ships, for as long as the host has them, moving
+	 * them to where the host says they are, and remove the ones that the host no longer has.
+	 */
+	@Test
+	void testClientMergesObjectsById() throws ProtocolException {
+		Game host = this.createHost();
+		Game client = this.createClient();
+		DatagramTransport clientTransport = new DatagramTransport(0, InetAddress.getLoopbackAddress(), 0);
+		MultiplayerGameUpdater clientMultiplayerUpdater = new MultiplayerGameUpdater(client, clientTransport);
+
+		Asteroid asteroid = new Asteroid(new Point.Double(100, 100), new Point.Double(1, 0), AsteroidSize.LARGE);
+		Bullet first = new Bullet(200, 200, 0, 5);
+		Bullet second = new Bullet(300, 300, 5, 0);
+		host.getAsteroids().add(asteroid);
+		host.getBullets().add(first);
+		host.getBullets().add(second);
+		Spaceship otherShip = new Spaceship();
+		otherShip.setUsername("other");
+		host.addSpaceship(otherShip);
+		DataPacket_Game snapshot = new DataPacket_Game();
+		snapshot.capture(host);
+		clientMultiplayerUpdater.updateGameSnapshot(snapshot);
+		assertEquals(1, client.getAsteroids().size());
+		assertEquals(2, client.getBullets().size());
+		assertEquals(1, client.getSpaceships().size());
+		Asteroid clientAsteroid = client.getAsteroids().iterator().next();
+		Bullet clientSecond = this.findBullet(client, second.getMultiplayerID());
+		assertNotNull(clientSecond);
+		Spaceship clientOtherShip = client.getSpaceships().iterator().next();
+		assertEquals(otherShip.getMultiplayerID(), clientOtherShip.getMultiplayerID());
+		assertEquals("other", clientOtherShip.getUsername());
+
+		asteroid.setLocation(150, 100);
+		second.setLocation(400, 300);
+		otherShip.setLocation(500, 500);
+		host.getBullets().remove(first);
+		snapshot.capture(host);
+		clientMultiplayerUpdater.updateGameSnapshot(snapshot);
+		assertSame(clientOtherShip, client.getSpaceships().iterator().next());
+		assertEquals(500, clientOtherShip.getLocation().x, DELTA);
+		assertSame(clientAsteroid, client.getAsteroids().iterator().next());
+		assertEquals(150, clientAsteroid.getLocation().x, DELTA);
+		assertEquals(1, client.getBullets().size());
+		assertSame(clientSecond, client.getBullets().iterator().next());
+		assertEquals(400, clientSecond.getLocation().x, DELTA);
+		assertNull(this.findBullet(client, first.getMultiplayerID()));
+
+		host.getAsteroids().clear();
+		host.getBullets().clear();
+		host.getSpaceships().clear();
+		snapshot.capture(host);
+		clientMultiplayerUpdater.updateGameSnapshot(snapshot);
+		assertTrue(client.getAsteroids().isEmpty());
+		assertTrue(client.getBullets().isEmpty());
+		assertTrue(client.getSpaceships().isEmpty());
+		clientTransport.close();
+	}
+
+	/**
+	 * An asteroid that the client destroys before the host does should not be reused for the client's own successors,
+	 * since it is still found by the host's id. Once the host's next snapshot arrives, the client should have the
+	 * host's asteroid as it is, not one of the client's successors.
+	 */
+	@Test
+	void testClientDoesNotReuseMergedObjects() throws ProtocolException {
+		Game host = this.createHost();
+		Game client = this.createClient();
+		DatagramTransport clientTransport = new DatagramTransport(0, InetAddress.getLoopbackAddress(), 0);
+		MultiplayerGameUpdater clientMultiplayerUpdater = new MultiplayerGameUpdater(client, clientTransport);
+		GameUpdater clientUpdater = new GameUpdater(client);
+
+		Asteroid asteroid = new Asteroid(new Point.Double(100, 100), new Point.Double(1, 0), AsteroidSize.LARGE);
+		host.getAsteroids().add(asteroid);
+		DataPacket_Game snapshot = new DataPacket_Game();
+		snapshot.capture(host);
+		clientMultiplayerUpdater.updateGameSnapshot(snapshot);
+		Asteroid clientAsteroid = client.getAsteroids().iterator().next();
+
+		// The client destroys the asteroid, then the medium successors, whose successors would be taken from the pool.
+		for (int i = 0; i < 2; i++) {
+			client.getAsteroids().forEach(Asteroid::destroy);
+			clientUpdater.updatePhysics();
+		}
+		assertFalse(client.getAsteroids().isEmpty());
+		for (Asteroid successor : client.getAsteroids()) {
+			assertNotSame(clientAsteroid, successor);
+			assertEquals(AsteroidSize.SMALL, successor.getSize());
+		}
+
+		snapshot.capture(host);
+		clientMultiplayerUpdater.updateGameSnapshot(snapshot);
+		assertEquals(1, client.getAsteroids().size());
+		Asteroid merged = client.getAsteroids().iterator().next();
+		assertEquals(asteroid.getMultiplayerID(), merged.getMultiplayerID());
+		assertEquals(AsteroidSize.LARGE, merged.getSize());
+		assertFalse(merged.isDestroyed());
+		clientTransport.close();
+	}
+
+	/**
+	 * @return The id of the first client ship on the host, which is sent to the client as its own, or
+	 * {@link DataPacket_Game#NO_SHIP} if the client hasn't joined yet.
+	 */
+	private int ownShip(Game host) {
+		return host.getSpaceships().isEmpty() ? DataPacket_Game.NO_SHIP : host.getSpaceships().iterator().next().getMultiplayerID();
+	}
+
+	private Bullet findBullet(Game game, int id) {
+		for (Bullet bullet : game.getBullets()) {
+			if (bullet.getMultiplayerID() == id) {
+				return bullet;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return A dedicated COOP server.
+	 */
+	private Game createHost() {
+		Game host = new Game();
+		host.initializeGameData(true, true, GameMode.COOP);
+		host.setDedicatedServer(true);
+		return host;
+	}
+
+	private Game createClient() {
+		Game client = new Game();
+		client.initializeGameData(true, false, GameMode.COOP);
+		client.setUsername("client");
+		return client;
+	}
+
+	/**
+	 * Runs a game tick on the host. Asteroids that spawn are removed again, so that the client's ship can't run into
+	 * them.
+	 */
+	private void tick(Game host, MultiplayerGameUpdater multiplayerUpdater, GameUpdater updater) {
+		multiplayerUpdater.receivePackets();
+		updater.updatePhysics();
+		host.getAsteroids().clear();
+	}
+}
@@ -0,0 +1,46 @@
+package aoop.asteroids.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the buckets and percentiles of the latency histogram.
+ */
+class LatencyHistogramTest {
+	/**
+	 * Every duration should fall in a bucket that holds it, and that is at most about 6% wide.
+	 */
+	@Test
+	void testBuckets() {
+		long previousBound = -1;
+		for (long nanos : new long[]{0, 1, 15, 16, 17, 31, 32, 33, 1000, 999_999, 1_000_000, 33_333_333, 1L << 39}) {
+			int bucket = LatencyHistogram.bucketOf(nanos);
+			long upper = LatencyHistogram.upperBoundOf(bucket);
+			assertTrue(upper >= nanos, "Bucket of " + nanos + " ends at " + upper);
+			assertTrue(bucket == 0 || LatencyHistogram.upperBoundOf(bucket - 1) < nanos, "Bucket of " + nanos + " starts too late");
+			assertTrue(upper - nanos <= nanos / 16, "Bucket of " + nanos + " is too wide");
+			assertTrue(upper >= previousBound);
+			previousBound = upper;
+		}
+		// Anything longer ends up in the last bucket.
+		assertEquals(LatencyHistogram.bucketOf(1L << 40), LatencyHistogram.bucketOf(Long.MAX_VALUE));
+	}
+
+	@Test
+	void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getP99Nanos());
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000L);
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500_500, histogram.getMeanNanos(), 1e-9);
+		assertEquals(1_000_000, histogram.getMaxNanos());
+		assertEquals(500_000, histogram.getP50Nanos(), 500_000 / 16.0);
+		assertEquals(990_000, histogram.getP99Nanos(), 990_000 / 16.0);
+		assertTrue(histogram.getP99Nanos() >= 990_000);
+		assertEquals(1_000_000, histogram.getPercentileNanos(100));
+		assertTrue(histogram.getP50Nanos() <= histogram.getP90Nanos() && histogram.getP90Nanos() <= histogram.getP99Nanos());
+	}
+}
@@ -0,0 +1,105 @@
+package aoop.asteroids.metrics;
+
+import aoop.asteroids.metrics.TickMetrics.Phase;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Registers metrics, and reads them back through JMX and the text endpoint.
+ */
+class TickMetricsTest {
+	@Test
+	void testJmx() throws JMException {
+		TickMetrics metrics = new TickMetrics();
+		long time = System.nanoTime();
+		time = metrics.record(Phase.INTEGRATE, time);
+		metrics.record(Phase.TICK, time - 1_000_000);
+		metrics.countEntities(5, 7, 1);
+		assertEquals(1, metrics.getTicks());
+		assertEquals(1, metrics.getHistogram(Phase.INTEGRATE).getCount());
+		assertTrue(metrics.getTickP99Nanos() >= 1_000_000);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		metrics.register(42);
+		ObjectName pattern = new ObjectName(Metrics.DOMAIN + ":type=Game,room=42,*");
+		try {
+			ObjectName name = server.queryNames(pattern, null).iterator().next();
+			assertEquals(5, server.getAttribute(name, "Asteroids"));
+			assertEquals(1L, server.getAttribute(name, "Ticks"));
+			ObjectName phase = new ObjectName(Metrics.DOMAIN + ":type=TickPhase,game=" + name.getKeyProperty("game") + ",room=42,phase=collide");
+			assertEquals(0L, server.getAttribute(phase, "Count"));
+		}
+		finally {
+			metrics.unregister();
+		}
+		assertTrue(server.queryNames(pattern, null).isEmpty());
+	}
+
+	@Test
+	void testScrape() throws IOException {
+		TickMetrics metrics = new TickMetrics();
+		metrics.record(Phase.COLLIDE, System.nanoTime());
+		metrics.countEntities(3, 0, 2);
+		TransportMetrics transport = new TransportMetrics(12345);
+		InetSocketAddress peer = new InetSocketAddress(InetAddress.getLoopbackAddress(), 25665);
+		InetSocketAddress stranger = new InetSocketAddress(InetAddress.getLoopbackAddress(), 25666);
+		transport.addPeer(peer);
+		transport.received(stranger, 10);
+		transport.droppedOnReceive(stranger);
+		transport.received(peer, 100);
+		transport.sent(peer, 250);
+		transport.droppedOnReceive(peer);
+		metrics.register(43);
+		transport.register();
+		MetricsServer server = new MetricsServer(0);
+		server.start();
+		try {
+			String text = Metrics.scrape();
+			assertTrue(text.contains("asteroids_tick_phase_seconds_count{game="));
+			assertTrue(text.contains("room=\"43\",phase=\"collide\"} 1\n"));
+			assertTrue(text.contains("room=\"43\",kind=\"asteroid\"} 3\n"));
+			assertTrue(text.contains("asteroids_bytes_sent_total{port=\"12345\"} 250\n"));
+			assertTrue(text.contains("asteroids_packets_dropped_total{port=\"12345\",peer=\"" + peer.getAddress().getHostAddress() + ":25665\",direction=\"receive\"} 1\n"));
+			assertFalse(text.contains(":25666"), "Packets of strangers only count towards the total");
+			assertEquals(1, transport.getPeer(peer).getPacketsReceived());
+			assertEquals(2, transport.getTotal().getPacketsDroppedOnReceive());
+			assertNull(transport.getPeer(stranger));
+
+			String response = this.get(server.getPort());
+			assertTrue(response.startsWith("HTTP/1.0 200 OK"));
+			assertTrue(response.contains("asteroids_bytes_received_total{port=\"12345\"} 110"));
+		}
+		finally {
+			server.close();
+			transport.unregister();
+			metrics.unregister();
+		}
+		assertFalse(Metrics.scrape().contains("room=\"43\""));
+		assertFalse(Metrics.scrape().contains("port=\"12345\""));
+	}
+
+	private String get(int port) throws IOException {
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			OutputStream out = socket.getOutputStream();
+			out.write("GET /metrics HTTP/1.0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+			out.flush();
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			return in.lines().collect(Collectors.joining("\n"));
+		}
+	}
+}
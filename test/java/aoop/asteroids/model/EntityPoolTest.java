@@ -0,0 +1,105 @@
+package aoop.asteroids.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that destroyed bullets and asteroids are reused, and come back as if they were new.
+ */
+class EntityPoolTest {
+	private static final double DELTA = 0.0001;
+
+	@Test
+	void testBulletIsReused() {
+		EntityPool pool = new EntityPool();
+		Bullet bullet = pool.obtainBullet(10, 20, 1, 2);
+		assertEquals(0, bullet.getGeneration());
+		int id = bullet.getMultiplayerID();
+		for (int i = 0; i < Bullet.DEFAULT_BULLET_STEP_LIFETIME; i++) {
+			bullet.nextStep();
+		}
+		assertTrue(bullet.isDestroyed());
+		pool.recycle(bullet);
+		assertEquals(1, pool.getFreeBulletCount());
+
+		Bullet reused = pool.obtainBullet(300, 400, -5, 0);
+		assertSame(bullet, reused);
+		assertEquals(0, pool.getFreeBulletCount());
+		assertFalse(reused.isDestroyed());
+		assertEquals(1, reused.getGeneration());
+		assertNotEquals(id, reused.getMultiplayerID());
+		assertEquals(300, reused.getLocation().x, DELTA);
+		assertEquals(400, reused.getLocation().y, DELTA);
+		assertEquals(-5, reused.getVelocity().x, DELTA);
+		assertEquals(Bullet.DEFAULT_BULLET_STEP_LIFETIME, reused.getStepsLeft());
+		assertEquals(Bullet.STEPS_UNTIL_COLLISION_POSSIBLE, reused.getStepsUntilCollisionPossible());
+	}
+
+	/**
+	 * A reused asteroid can have a different size than it had before, and should get the radius of its new size.
+	 */
+	@Test
+	void testAsteroidIsReusedWithNewSize() {
+		EntityPool pool = new EntityPool();
+		Asteroid asteroid = pool.obtainAsteroid(100, 100, 0, 0, AsteroidSize.LARGE);
+		asteroid.destroy();
+		pool.recycle(asteroid);
+
+		Asteroid reused = pool.obtainAsteroid(50, 60, 1, 1, AsteroidSize.SMALL);
+		assertSame(asteroid, reused);
+		assertEquals(AsteroidSize.SMALL, reused.getSize());
+		assertEquals(AsteroidSize.SMALL.getRadius(), reused.getRadius(), DELTA);
+		assertEquals(Asteroid.STEPS_UNTIL_COLLISION_POSSIBLE, reused.getStepsUntilCollisionPossible());
+		assertEquals(1, reused.getGeneration());
+	}
+
+	/**
+	 * Objects that are still in the game must not be handed out again, and objects that aren't pooled are ignored.
+	 */
+	@Test
+	void testRecycleOnlyDestroyedObjects() {
+		EntityPool pool = new EntityPool();
+		assertThrows(IllegalArgumentException.class, () -> pool.recycle(pool.obtainBullet(0, 0, 0, 0)));
+		Spaceship ship = new Spaceship();
+		ship.destroy();
+		pool.recycle(ship);
+		assertEquals(0, pool.getFreeBulletCount());
+		assertEquals(0, pool.getFreeAsteroidCount());
+	}
+
+	/**
+	 * Successors should be taken from the pool, and be one size smaller than their parent.
+	 */
+	@Test
+	void testSuccessorsComeFromPool() {
+		EntityPool pool = new EntityPool();
+		List<Asteroid> recycled = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			Asteroid asteroid = pool.obtainAsteroid(0, 0, 0, 0, AsteroidSize.SMALL);
+			asteroid.destroy();
+			recycled.add(asteroid);
+		}
+		recycled.forEach(pool::recycle);
+
+		Asteroid parent = new Asteroid(200, 300, 1, -1, AsteroidSize.LARGE);
+		List<Asteroid> asteroids = new ArrayList<>();
+		parent.spawnSuccessors(pool, new Random(1), asteroids);
+		assertEquals(2, asteroids.size());
+		assertEquals(0, pool.getFreeAsteroidCount());
+		for (Asteroid successor : asteroids) {
+			assertTrue(recycled.contains(successor));
+			assertEquals(AsteroidSize.MEDIUM, successor.getSize());
+			assertEquals(200, successor.getLocation().x, DELTA);
+			assertEquals(300, successor.getLocation().y, DELTA);
+		}
+
+		asteroids.clear();
+		new Asteroid(0, 0, 0, 0, AsteroidSize.SMALL).spawnSuccessors(pool, new Random(1), asteroids);
+		assertTrue(asteroids.isEmpty());
+	}
+}
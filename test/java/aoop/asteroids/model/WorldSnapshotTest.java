@@ -0,0 +1,210 @@
+package aoop.asteroids.model;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that a world snapshot copies the state of a game, and that it stays the same while the game goes on.
+ */
+class WorldSnapshotTest implements GameModeInterface {
+	private Game createGame() {
+		Game game = new Game();
+		game.initializeGameData(false, false, GameMode.Singleplayer);
+		game.getSpaceship().setUsername("player");
+		game.getSpaceship().setColour(Color.RED);
+		game.getAsteroids().add(new Asteroid(new Point.Double(100, 200), new Point.Double(1, -2), AsteroidSize.MEDIUM));
+		game.getBullets().add(new Bullet(300, 400, 5, 6));
+		Spaceship other = new Spaceship();
+		other.setUsername("other");
+		other.setScore(7);
+		game.addSpaceship(other);
+		return game;
+	}
+
+	/**
+	 * Tests that every table of the snapshot holds the state of the corresponding objects.
+	 */
+	@Test
+	void testCapture() {
+		Game game = this.createGame();
+		game.advanceTick();
+		WorldSnapshot snapshot = WorldSnapshot.capture(game);
+
+		assertEquals(1, snapshot.getTick());
+		assertEquals(GameMode.Singleplayer, snapshot.getGameMode());
+
+		Asteroid asteroid = game.getAsteroids().iterator().next();
+		assertEquals(1, snapshot.getAsteroids().size());
+		assertEquals(asteroid.getMultiplayerID(), snapshot.getAsteroids().getId(0));
+		assertEquals(100, snapshot.getAsteroids().getLocationX(0));
+		assertEquals(-2, snapshot.getAsteroids().getVelocityY(0));
+		assertEquals(AsteroidSize.MEDIUM.ordinal(), snapshot.getAsteroids().getSize(0));
+		assertEquals(asteroid.getRadius(), snapshot.getAsteroids().getRadius(0));
+
+		Bullet bullet = game.getBullets().iterator().next();
+		assertEquals(1, snapshot.getBullets().size());
+		assertEquals(bullet.getStepsLeft(), snapshot.getBullets().getStepsLeft(0));
+		assertEquals(400, snapshot.getBullets().getLocationY(0));
+
+		assertEquals(1, snapshot.getShips().size());
+		assertEquals("other", snapshot.getShips().getUsername(0));
+		assertEquals(7, snapshot.getShips().getScore(0));
+
+		assertEquals(1, snapshot.getPlayer().size());
+		assertEquals("player", snapshot.getPlayer().getUsername(0));
+		assertEquals(Color.RED, snapshot.getPlayer().getColour(0));
+		assertEquals(game.getSpaceship().getEnergyPercentage(), snapshot.getPlayer().getEnergyPercentage(0));
+		assertFalse(snapshot.getPlayer().isDestroyed(0));
+	}
+
+	/**
+	 * Tests that a snapshot doesn't change when the game does, so that it can be read while the game is updated.
+	 */
+	@Test
+	void testSnapshotDoesNotChange() {
+		Game game = this.createGame();
+		WorldSnapshot snapshot = WorldSnapshot.capture(game);
+
+		game.getAsteroids().forEach(GameObject::nextStep);
+		game.getBullets().clear();
+		game.getSpaceship().destroy();
+		game.advanceTick();
+
+		assertEquals(0, snapshot.getTick());
+		assertEquals(100, snapshot.getAsteroids().getLocationX(0));
+		assertEquals(1, snapshot.getBullets().size());
+		assertFalse(snapshot.getPlayer().isDestroyed(0));
+	}
+
+	/**
+	 * Tests that a snapshot that is written into again holds the new state of the game, with rows that can still be
+	 * looked up by id, and that doing so allocates nothing once its arrays are large enough.
+	 */
+	@Test
+	void testCaptureIntoReusedSnapshot() {
+		Game game = this.createGame();
+		WorldSnapshot snapshot = WorldSnapshot.capture(game);
+		for (int i = 0; i < 10; i++) {
+			game.getBullets().add(new Bullet(i, i, 0, 0));
+		}
+		game.getAsteroids().clear();
+		game.advanceTick();
+		assertSame(snapshot, WorldSnapshot.capture(game, snapshot));
+		assertEquals(1, snapshot.getTick());
+		assertEquals(0, snapshot.getAsteroids().size());
+		assertEquals(11, snapshot.getBullets().size());
+		for (int row = 0; row < snapshot.getBullets().size(); row++) {
+			assertEquals(row, snapshot.getBullets().rowOf(snapshot.getBullets().getId(row)));
+		}
+		assertEquals(-1, snapshot.getAsteroids().rowOf(12345));
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long overhead = -threads.getThreadAllocatedBytes(thread) + threads.getThreadAllocatedBytes(thread);
+		long allocated = 0;
+		for (int round = 0; round < 3; round++) { // The first round may still load classes along the way.
+			long before = threads.getThreadAllocatedBytes(thread);
+			for (int i = 0; i < 100; i++) {
+				WorldSnapshot.capture(game, snapshot);
+			}
+			allocated = threads.getThreadAllocatedBytes(thread) - before - overhead;
+		}
+		assertEquals(0, allocated, "Bytes allocated by 100 captures");
+		assertEquals(11, snapshot.getBullets().size());
+	}
+
+	/**
+	 * Tests that a snapshot that a reader holds doesn't change while the game goes on publishing new ones, which it
+	 * does as fast as it can from another thread, growing and shrinking along the way. Every snapshot the reader gets
+	 * should hold a single tick of the game: the number of bullets and the location of every object follow from the
+	 * tick, so a snapshot that is written into while it is read shows up as rows that don't match its tick.
+	 */
+	@Test
+	void testReadWhilePublishing() throws InterruptedException {
+		Game game = this.createGame();
+		List<Bullet> bullets = game.getBullets();
+		AtomicReference<String> torn = new AtomicReference<>();
+		Thread updater = new Thread(() -> {
+			for (int tick = 1; tick <= 20000 && torn.get() == null; tick++) {
+				while (bullets.size() < tick % 64) {
+					bullets.add(new Bullet(0, 0, 0, 0));
+				}
+				while (bullets.size() > tick % 64) {
+					bullets.remove(bullets.size() - 1);
+				}
+				for (Bullet bullet : bullets) {
+					bullet.setLocation(tick, tick);
+				}
+				game.getAsteroids().get(0).setLocation(tick, tick);
+				game.advanceTick();
+				game.publishWorldSnapshot();
+			}
+		});
+		updater.start();
+		int reads = 0;
+		while (updater.isAlive() || reads == 0) {
+			WorldSnapshot snapshot = game.acquireWorldSnapshot();
+			if (snapshot == null) {
+				continue;
+			}
+			try {
+				int tick = snapshot.getTick();
+				for (int pass = 0; pass < 2; pass++) { // Reading again a little later should give the same rows.
+					WorldSnapshot.ObjectTable read = snapshot.getBullets();
+					if (snapshot.getTick() != tick || read.size() != tick % 64 || snapshot.getAsteroids().getLocationX(0) != tick) {
+						torn.compareAndSet(null, "Snapshot of tick " + tick + " changed while it was held");
+					}
+					for (int row = 0; row < read.size(); row++) {
+						if (read.getLocationX(row) != tick || read.getLocationY(row) != tick) {
+							torn.compareAndSet(null, "Row " + row + " of tick " + tick + " is at " + read.getLocationX(row));
+						}
+					}
+					Thread.yield();
+				}
+			}
+			finally {
+				snapshot.release();
+			}
+			reads++;
+		}
+		updater.join();
+		assertNull(torn.get());
+		assertEquals(20000, game.getWorldSnapshot().getTick());
+		assertFalse(game.getWorldSnapshot().isHeld());
+	}
+
+	/**
+	 * Tests that the game updater publishes a snapshot after every tick.
+	 */
+	@Test
+	void testPublishedByGameUpdater() {
+		Game game = this.createGame();
+		assertNull(game.acquireWorldSnapshot());
+		game.start();
+		try {
+			long deadline = System.currentTimeMillis() + 5000;
+			int tick = -1;
+			while (tick < 2 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+				WorldSnapshot snapshot = game.acquireWorldSnapshot();
+				if (snapshot != null) {
+					tick = snapshot.getTick();
+					snapshot.release();
+				}
+			}
+			assertTrue(tick >= 2);
+		}
+		catch (InterruptedException e) {
+			fail(e.getMessage());
+		} finally {
+			game.quit();
+		}
+	}
+}
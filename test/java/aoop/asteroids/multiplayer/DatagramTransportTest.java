@@ -0,0 +1,272 @@
+package aoop.asteroids.multiplayer;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Bullet;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.Spaceship;
+import aoop.asteroids.model.WorldSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs a host and a client transport against each other over the loopback interface.
+ */
+class DatagramTransportTest implements GameModeInterface {
+	/**
+	 * How long to wait for a packet to arrive, in milliseconds.
+	 */
+	private static final long TIMEOUT = 5000;
+
+	/**
+	 * A client packet should reach the host, along with the client's address and port, and a snapshot sent by the host
+	 * should reach the client on the port that the client receives on, which is not the host's.
+	 */
+	@Test
+	void testRoundTrip() throws IOException, InterruptedException {
+		int hostPort = this.findFreePort();
+		int clientPort = this.findFreePort();
+		InetAddress loopback = InetAddress.getLoopbackAddress();
+		DatagramTransport host = new DatagramTransport(hostPort);
+		DatagramTransport client = new DatagramTransport(clientPort, loopback, hostPort);
+		DatagramTransport.Room hostRoom = host.openRoom(DatagramTransport.DEFAULT_ROOM);
+		DatagramTransport.Room clientRoom = client.openRoom(DatagramTransport.DEFAULT_ROOM);
+		host.start();
+		client.start();
+		try {
+			Game game = new Game();
+			game.initializeGameData(true, true, GameMode.COOP);
+			game.setUsername("client");
+			game.getBullets().add(new Bullet(10, 20, 1, 1));
+			InputHistory inputs = new InputHistory();
+			inputs.record(Spaceship.INPUT_FIRE);
+
+			DataPacket_Client received = this.waitFor(() -> {
+				DataPacket_Client packet = clientRoom.getOutgoingClientPackets().acquire();
+				if (packet != null) {
+					packet.capture(WorldSnapshot.capture(game), inputs);
+					clientRoom.getOutgoingClientPackets().publish(packet);
+					client.flush();
+				}
+				return hostRoom.getReceivedClientPackets().poll();
+			});
+			assertEquals("client", received.player.getUsername());
+			assertEquals(1, received.getInputCount());
+			assertEquals(Spaceship.INPUT_FIRE, received.getInput(0));
+			InetSocketAddress sender = received.sender;
+			assertEquals(new InetSocketAddress(loopback, clientPort), sender);
+			hostRoom.getReceivedClientPackets().release(received);
+
+			DataPacket_Game snapshot = this.waitFor(() -> {
+				DataPacket_Game packet = hostRoom.getOutgoingSnapshots().acquire();
+				if (packet != null) {
+					packet.capture(game);
+					packet.clearRecipients();
+					packet.addRecipient(sender, 42);
+					hostRoom.getOutgoingSnapshots().publish(packet);
+					host.flush();
+				}
+				return clientRoom.getReceivedSnapshots().poll();
+			});
+			assertEquals(GameMode.COOP, snapshot.gameMode);
+			assertEquals(1, snapshot.bullets.size());
+			assertEquals(42, snapshot.ownShip);
+		}
+		finally {
+			host.close();
+			client.close();
+			host.join(TIMEOUT);
+			client.join(TIMEOUT);
+		}
+		assertFalse(host.isAlive());
+		assertFalse(client.isAlive());
+	}
+
+	/**
+	 * Two clients on the same address, each receiving on a port of its own, should be told apart by the host, and each
+	 * should receive the snapshots sent to it.
+	 */
+	@Test
+	void testClientsOnOneAddress() throws IOException, InterruptedException {
+		int hostPort = this.findFreePort();
+		InetAddress loopback = InetAddress.getLoopbackAddress();
+		DatagramTransport host = new DatagramTransport(hostPort);
+		DatagramTransport first = new DatagramTransport(0, loopback, hostPort);
+		DatagramTransport second = new DatagramTransport(0, loopback, hostPort);
+		DatagramTransport.Room hostRoom = host.openRoom(DatagramTransport.DEFAULT_ROOM);
+		DatagramTransport.Room firstRoom = first.openRoom(DatagramTransport.DEFAULT_ROOM);
+		DatagramTransport.Room secondRoom = second.openRoom(DatagramTransport.DEFAULT_ROOM);
+		host.start();
+		first.start();
+		second.start();
+		try {
+			Game game = new Game();
+			game.initializeGameData(true, true, GameMode.COOP);
+			InetSocketAddress firstSender = this.sendFrom(first, firstRoom, hostRoom, "first");
+			InetSocketAddress secondSender = this.sendFrom(second, secondRoom, hostRoom, "second");
+			assertEquals(firstSender.getAddress(), secondSender.getAddress());
+			assertNotEquals(firstSender.getPort(), secondSender.getPort());
+			assertNotEquals(hostPort, firstSender.getPort());
+
+			DatagramTransport.Room[] rooms = {firstRoom, secondRoom};
+			for (DatagramTransport.Room room : rooms) {
+				DataPacket_Game snapshot = this.waitFor(() -> {
+					DataPacket_Game packet = hostRoom.getOutgoingSnapshots().acquire();
+					if (packet != null) {
+						packet.capture(game);
+						packet.clearRecipients();
+						packet.addRecipient(firstSender, 1);
+						packet.addRecipient(secondSender, 2);
+						hostRoom.getOutgoingSnapshots().publish(packet);
+						host.flush();
+					}
+					return room.getReceivedSnapshots().poll();
+				});
+				assertEquals(GameMode.COOP, snapshot.gameMode);
+				assertEquals(room == firstRoom ? 1 : 2, snapshot.ownShip, "Every client is sent its own ship");
+			}
+			assertNotNull(host.getMetrics().getPeer(firstSender));
+			assertNotNull(host.getMetrics().getPeer(secondSender));
+			assertTrue(host.getMetrics().getPeer(firstSender).getPacketsSent() > 0);
+			assertTrue(host.getMetrics().getPeer(secondSender).getPacketsSent() > 0);
+		}
+		finally {
+			host.close();
+			first.close();
+			second.close();
+			host.join(TIMEOUT);
+			first.join(TIMEOUT);
+			second.join(TIMEOUT);
+		}
+	}
+
+	/**
+	 * A client should drop snapshots that come from anywhere but the host it joined, even if they are well-formed and
+	 * for its room.
+	 */
+	@Test
+	void testSnapshotsFromOthersAreDropped() throws IOException, InterruptedException {
+		int clientPort = this.findFreePort();
+		int strangerPort = this.findFreePort();
+		InetAddress loopback = InetAddress.getLoopbackAddress();
+		DatagramTransport stranger = new DatagramTransport(strangerPort);
+		DatagramTransport client = new DatagramTransport(clientPort, loopback, this.findFreePort());
+		DatagramTransport.Room strangerRoom = stranger.openRoom(DatagramTransport.DEFAULT_ROOM);
+		DatagramTransport.Room clientRoom = client.openRoom(DatagramTransport.DEFAULT_ROOM);
+		stranger.start();
+		client.start();
+		try {
+			Game game = new Game();
+			game.initializeGameData(true, true, GameMode.COOP);
+			this.waitFor(() -> {
+				DataPacket_Game packet = strangerRoom.getOutgoingSnapshots().acquire();
+				if (packet != null) {
+					packet.capture(game);
+					packet.clearRecipients();
+					packet.addRecipient(new InetSocketAddress(loopback, clientPort), 1);
+					strangerRoom.getOutgoingSnapshots().publish(packet);
+					stranger.flush();
+				}
+				return client.getMetrics().getTotal().getPacketsDroppedOnReceive() > 0 ? Boolean.TRUE : null;
+			});
+			assertNull(clientRoom.getReceivedSnapshots().poll());
+			assertNull(client.getMetrics().getPeer(new InetSocketAddress(loopback, strangerPort)), "Only the host is counted apart");
+		}
+		finally {
+			stranger.close();
+			client.close();
+			stranger.join(TIMEOUT);
+			client.join(TIMEOUT);
+		}
+	}
+
+	/**
+	 * A client that stops sending should be forgotten by the host once it has been silent for the timeout, along with
+	 * its counters.
+	 */
+	@Test
+	void testSilentClientIsForgotten() throws IOException, InterruptedException {
+		int hostPort = this.findFreePort();
+		DatagramTransport host = new DatagramTransport(hostPort);
+		host.setPeerTimeout(200);
+		DatagramTransport client = new DatagramTransport(0, InetAddress.getLoopbackAddress(), hostPort);
+		DatagramTransport.Room hostRoom = host.openRoom(DatagramTransport.DEFAULT_ROOM);
+		DatagramTransport.Room clientRoom = client.openRoom(DatagramTransport.DEFAULT_ROOM);
+		host.start();
+		client.start();
+		try {
+			InetSocketAddress sender = this.sendFrom(client, clientRoom, hostRoom, "silent");
+			assertNotNull(host.getMetrics().getPeer(sender));
+			this.waitFor(() -> host.getMetrics().getPeer(sender) == null ? Boolean.TRUE : null);
+			assertTrue(host.getMetrics().getTotal().getPacketsReceived() > 0);
+		}
+		finally {
+			host.close();
+			client.close();
+			host.join(TIMEOUT);
+			client.join(TIMEOUT);
+		}
+	}
+
+	/**
+	 * Sends client packets until the host receives one from the given client. Packets that are still arriving from
+	 * other clients are skipped.
+	 *
+	 * @return The address and port that the host received the packet from.
+	 */
+	private InetSocketAddress sendFrom(DatagramTransport client, DatagramTransport.Room clientRoom, DatagramTransport.Room hostRoom, String username) throws InterruptedException {
+		Game game = new Game();
+		game.initializeGameData(true, false, GameMode.COOP);
+		game.setUsername(username);
+		InputHistory inputs = new InputHistory();
+		DataPacket_Client received = this.waitFor(() -> {
+			DataPacket_Client packet = clientRoom.getOutgoingClientPackets().acquire();
+			if (packet != null) {
+				inputs.record(0);
+				packet.capture(WorldSnapshot.capture(game), inputs);
+				clientRoom.getOutgoingClientPackets().publish(packet);
+				client.flush();
+			}
+			DataPacket_Client polled = hostRoom.getReceivedClientPackets().poll();
+			if (polled != null && !username.equals(polled.player.getUsername())) {
+				hostRoom.getReceivedClientPackets().release(polled);
+				return null;
+			}
+			return polled;
+		});
+		InetSocketAddress sender = received.sender;
+		hostRoom.getReceivedClientPackets().release(received);
+		return sender;
+	}
+
+	/**
+	 * Repeats an action until it gives a result, or fails the test if that takes too long.
+	 */
+	private <T> T waitFor(Supplier<T> action) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (System.currentTimeMillis() < deadline) {
+			T result = action.get();
+			if (result != null) {
+				return result;
+			}
+			Thread.sleep(10);
+		}
+		fail("Nothing was received within " + TIMEOUT + " ms");
+		return null;
+	}
+
+	/**
+	 * @return A port that is not in use at the moment.
+	 */
+	private int findFreePort() throws IOException {
+		try (DatagramSocket socket = new DatagramSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package aoop.asteroids.multiplayer;
+
+import aoop.asteroids.model.Spaceship;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests how the host turns redundant, possibly lost or reordered client packets back into one input per tick.
+ */
+class InputBufferTest {
+	/**
+	 * Inputs that arrive in several packets should only be applied once, in order.
+	 */
+	@Test
+	void testRedundantInputsAreAppliedOnce() {
+		InputHistory history = new InputHistory();
+		InputBuffer buffer = new InputBuffer();
+		history.record(Spaceship.INPUT_ACCELERATE);
+		buffer.receive(this.packet(history));
+		history.record(Spaceship.INPUT_TURN_LEFT);
+		buffer.receive(this.packet(history));
+		buffer.receive(this.packet(history)); // The same packet twice.
+		history.record(Spaceship.INPUT_FIRE);
+		buffer.receive(this.packet(history));
+
+		assertEquals(2, buffer.getLatestSequence());
+		assertEquals(Spaceship.INPUT_ACCELERATE, buffer.next());
+		assertEquals(Spaceship.INPUT_TURN_LEFT, buffer.next());
+		assertEquals(Spaceship.INPUT_FIRE, buffer.next());
+		assertEquals(Spaceship.INPUT_FIRE, buffer.next()); // Nothing new, so the last input is held.
+	}
+
+	/**
+	 * If a few packets in a row are lost, the next packet should still hold the inputs that they carried.
+	 */
+	@Test
+	void testLostPacketsAreRecovered() {
+		InputHistory history = new InputHistory();
+		InputBuffer buffer = new InputBuffer();
+		for (int i = 0; i < DataPacket_Client.INPUT_REDUNDANCY; i++) {
+			history.record(i);
+		}
+		buffer.receive(this.packet(history)); // Only the last of these packets arrives.
+		for (int i = 0; i < DataPacket_Client.INPUT_REDUNDANCY; i++) {
+			assertEquals(i, buffer.next());
+		}
+	}
+
+	/**
+	 * A packet that arrives late should not undo inputs that were already received.
+	 */
+	@Test
+	void testOldPacketsAreIgnored() {
+		InputHistory history = new InputHistory();
+		InputBuffer buffer = new InputBuffer();
+		history.record(Spaceship.INPUT_TURN_RIGHT);
+		DataPacket_Client old = this.packet(history);
+		history.record(Spaceship.INPUT_ACCELERATE);
+		buffer.receive(this.packet(history));
+		buffer.next();
+		buffer.next();
+		buffer.receive(old);
+		assertEquals(Spaceship.INPUT_ACCELERATE, buffer.next());
+	}
+
+	/**
+	 * A burst of inputs shouldn't make the ship lag behind by more than the buffer's capacity.
+	 */
+	@Test
+	void testBurstIsCapped() {
+		InputHistory history = new InputHistory();
+		InputBuffer buffer = new InputBuffer();
+		for (int i = 0; i < 3 * InputBuffer.CAPACITY; i++) {
+			history.record(i);
+			buffer.receive(this.packet(history));
+		}
+		assertEquals(2 * InputBuffer.CAPACITY, buffer.next());
+	}
+
+	private DataPacket_Client packet(InputHistory history) {
+		DataPacket_Client packet = new DataPacket_Client();
+		packet.inputSequence = history.getLatestSequence();
+		packet.inputCount = 0;
+		while (packet.inputCount < DataPacket_Client.INPUT_REDUNDANCY && history.contains(packet.inputSequence - packet.inputCount)) {
+			packet.inputs[packet.inputCount] = (byte) history.get(packet.inputSequence - packet.inputCount);
+			packet.inputCount++;
+		}
+		return packet;
+	}
+}
@@ -0,0 +1,203 @@
+package aoop.asteroids.multiplayer;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.WorldSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Feeds the interpolation buffer with snapshots that arrive steadily, unevenly or not at all, and checks which states
+ * it draws between.
+ */
+class InterpolationBufferTest implements GameModeInterface {
+	/**
+	 * The duration of a tick used in these tests, in milliseconds.
+	 */
+	private static final double TICK = 20;
+	private static final long NANOS_PER_TICK = 20_000_000L;
+
+	/**
+	 * An arbitrary clock value at which the first snapshot arrives, since the client's clock has nothing to do with the
+	 * host's ticks.
+	 */
+	private static final long START = 123_456_789_000L;
+
+	private static final double DELTA = 0.0001;
+
+	/**
+	 * The client's game, whose tick is kept the same as the host's tick of the snapshot that is added, so that the
+	 * states in a frame can be told apart.
+	 */
+	private final Game game = new Game();
+
+	@Test
+	void testEmpty() {
+		assertFalse(new InterpolationBuffer(TICK).sample(START, new InterpolationBuffer.Frame()));
+	}
+
+	/**
+	 * With a snapshot every tick, arriving exactly on time, the world should be drawn one tick behind the newest snapshot,
+	 * moving smoothly between the two snapshots around that time.
+	 */
+	@Test
+	void testSteadyArrivals() {
+		InterpolationBuffer buffer = new InterpolationBuffer(TICK);
+		for (int tick = 0; tick < 10; tick++) {
+			this.add(buffer, tick, START + tick * NANOS_PER_TICK);
+		}
+		assertEquals(TICK, buffer.getDelayMilliseconds(), DELTA);
+
+		// Right when tick 9 arrives, tick 8 should be drawn.
+		InterpolationBuffer.Frame frame = this.sample(buffer, START + 9 * NANOS_PER_TICK);
+		assertEquals(0, frame.getExtrapolatedTicks(), DELTA);
+		assertEquals(8, frame.getPrevious().getTick() + frame.getFraction(), DELTA);
+
+		// A quarter of a tick later, a quarter of the way from tick 8 to tick 9.
+		frame = this.sample(buffer, START + 9 * NANOS_PER_TICK + NANOS_PER_TICK / 4);
+		assertEquals(8, frame.getPrevious().getTick());
+		assertEquals(9, frame.getNext().getTick());
+		assertEquals(0.25, frame.getFraction(), DELTA);
+
+		// Long before the oldest snapshot, the oldest one is drawn as it is.
+		frame = this.sample(buffer, START - 100 * NANOS_PER_TICK);
+		assertEquals(0, frame.getNext().getTick());
+		assertEquals(0, frame.getFraction(), DELTA);
+	}
+
+	/**
+	 * Snapshots that arrive out of order, or twice, should not be drawn, since a newer one was already received.
+	 */
+	@Test
+	void testLateSnapshotsAreIgnored() {
+		InterpolationBuffer buffer = new InterpolationBuffer(TICK);
+		this.add(buffer, 0, START);
+		this.add(buffer, 2, START + 2 * NANOS_PER_TICK);
+		buffer.add(this.game, 1, START + 3 * NANOS_PER_TICK);
+		buffer.add(this.game, 2, START + 3 * NANOS_PER_TICK);
+
+		InterpolationBuffer.Frame frame = this.sample(buffer, START + NANOS_PER_TICK + NANOS_PER_TICK / 2);
+		assertEquals(0, frame.getPrevious().getTick());
+		assertEquals(2, frame.getNext().getTick());
+	}
+
+	/**
+	 * The more unevenly snapshots arrive, the further behind the world should be drawn, so that late snapshots are still
+	 * in time. Once the connection is steady again, the delay should come back down.
+	 */
+	@Test
+	void testJitterIncreasesDelay() {
+		InterpolationBuffer buffer = new InterpolationBuffer(TICK);
+		Random random = new Random(1);
+		int tick = 0;
+		for (; tick < 200; tick++) {
+			long lateness = (long) (random.nextDouble() * 3 * NANOS_PER_TICK);
+			this.add(buffer, tick, START + tick * NANOS_PER_TICK + lateness);
+		}
+		double jitteryDelay = buffer.getDelayMilliseconds();
+		assertTrue(jitteryDelay > 2 * TICK, "Delay of " + jitteryDelay + "ms");
+
+		for (; tick < 400; tick++) {
+			this.add(buffer, tick, START + tick * NANOS_PER_TICK + NANOS_PER_TICK);
+		}
+		assertTrue(buffer.getDelayMilliseconds() < jitteryDelay / 2);
+		assertTrue(buffer.getDelayMilliseconds() >= TICK);
+	}
+
+	/**
+	 * When snapshots stop arriving, objects should keep moving from the newest snapshot for a few ticks, and then stop.
+	 */
+	@Test
+	void testStarvationIsExtrapolatedBriefly() {
+		InterpolationBuffer buffer = new InterpolationBuffer(TICK);
+		for (int tick = 0; tick < 10; tick++) {
+			this.add(buffer, tick, START + tick * NANOS_PER_TICK);
+		}
+		InterpolationBuffer.Frame frame = this.sample(buffer, START + 11 * NANOS_PER_TICK);
+		assertEquals(9, frame.getNext().getTick());
+		assertEquals(1, frame.getExtrapolatedTicks(), DELTA);
+
+		frame = this.sample(buffer, START + 100 * NANOS_PER_TICK);
+		assertEquals(9, frame.getNext().getTick());
+		assertEquals(InterpolationBuffer.MAX_EXTRAPOLATION_TICKS, frame.getExtrapolatedTicks(), DELTA);
+	}
+
+	/**
+	 * Only the most recent snapshots should be kept.
+	 */
+	@Test
+	void testCapacity() {
+		InterpolationBuffer buffer = new InterpolationBuffer(TICK);
+		for (int tick = 0; tick < InterpolationBuffer.CAPACITY * 2; tick++) {
+			this.add(buffer, tick, START + tick * NANOS_PER_TICK);
+		}
+		InterpolationBuffer.Frame frame = this.sample(buffer, START);
+		assertEquals(InterpolationBuffer.CAPACITY, frame.getNext().getTick());
+	}
+
+	/**
+	 * The states of a frame that hasn't been released should stay the same, however many snapshots are added in the
+	 * meantime, and adding snapshots should allocate nothing once the ring is full.
+	 */
+	@Test
+	void testSnapshotsAreReused() {
+		InterpolationBuffer buffer = new InterpolationBuffer(TICK);
+		int tick = 0;
+		for (; tick < InterpolationBuffer.CAPACITY; tick++) {
+			this.add(buffer, tick, START + tick * NANOS_PER_TICK);
+		}
+		InterpolationBuffer.Frame held = new InterpolationBuffer.Frame();
+		assertTrue(buffer.sample(START, held));
+		WorldSnapshot oldest = held.getNext();
+		assertEquals(0, oldest.getTick());
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long overhead = -threads.getThreadAllocatedBytes(thread) + threads.getThreadAllocatedBytes(thread);
+		long allocated = 0;
+		for (int round = 0; round < 3; round++) { // The first round fills the ring with snapshots of its own.
+			long before = threads.getThreadAllocatedBytes(thread);
+			for (int i = 0; i < InterpolationBuffer.CAPACITY * 2; i++, tick++) {
+				this.game.advanceTick();
+				buffer.add(this.game, tick, START + tick * NANOS_PER_TICK);
+			}
+			allocated = threads.getThreadAllocatedBytes(thread) - before - overhead;
+		}
+		assertEquals(0, allocated, "Bytes allocated by adding " + InterpolationBuffer.CAPACITY * 2 + " snapshots");
+		assertSame(oldest, held.getNext());
+		assertEquals(0, oldest.getTick());
+		held.release();
+		assertFalse(oldest.isHeld());
+
+		for (int i = 0; i < InterpolationBuffer.CAPACITY + 1; i++, tick++) {
+			this.add(buffer, tick, START + tick * NANOS_PER_TICK);
+		}
+		assertNotEquals(0, oldest.getTick(), "Not captured into again after it was released");
+	}
+
+	/**
+	 * Adds a snapshot of the client's game, after bringing it to the given tick.
+	 */
+	private void add(InterpolationBuffer buffer, int tick, long receivedNanos) {
+		if (this.game.getCurrentGameMode() == null) {
+			this.game.initializeGameData(false, false, GameMode.Singleplayer);
+		}
+		while (this.game.getTick() < tick) {
+			this.game.advanceTick();
+		}
+		buffer.add(this.game, tick, receivedNanos);
+	}
+
+	/**
+	 * @return The frame to draw at the given time, which still holds its states.
+	 */
+	private InterpolationBuffer.Frame sample(InterpolationBuffer buffer, long nowNanos) {
+		InterpolationBuffer.Frame frame = new InterpolationBuffer.Frame();
+		assertTrue(buffer.sample(nowNanos, frame));
+		return frame;
+	}
+}
@@ -0,0 +1,302 @@
+package aoop.asteroids.multiplayer;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the binary packet format. Values are rounded when they are sent, so received values are compared with a small
+ * margin of error.
+ */
+class PacketCodecTest implements GameModeInterface {
+	/**
+	 * The largest error allowed for received locations and velocities.
+	 */
+	private static final double DELTA = 0.05;
+
+	/**
+	 * Sends a game with a few of everything, and checks that what comes out is what went in.
+	 */
+	@Test
+	void testGameSnapshotRoundTrip() throws ProtocolException {
+		Game game = this.createGame(20, 10);
+		DataPacket_Game sent = new DataPacket_Game();
+		sent.capture(game);
+
+		PacketCodec codec = new PacketCodec();
+		DataPacket_Game received = new DataPacket_Game();
+		codec.decode(codec.encode(sent), received);
+
+		assertEquals(GameMode.COOP, received.gameMode);
+		assertEquals("host", received.host.getUsername());
+		assertEquals(game.getSpaceship().getMultiplayerID(), received.host.getId());
+		// Directions are sent as a fraction of a full turn, so only the angle itself has to match.
+		assertEquals(Math.cos(game.getSpaceship().getDirection()), Math.cos(received.host.getDirection()), 0.001);
+		assertEquals(Math.sin(game.getSpaceship().getDirection()), Math.sin(received.host.getDirection()), 0.001);
+		assertEquals(1, received.getShipCount());
+		assertEquals("client", received.getShip(0).getUsername());
+		Spaceship receivedClient = new Spaceship();
+		received.getShip(0).applyTo(receivedClient);
+		assertEquals(Color.CYAN, receivedClient.getShipColour());
+		assertEquals(7, receivedClient.getScore());
+
+		assertEquals(game.getAsteroids().size(), received.asteroids.size());
+		int row = 0;
+		for (Asteroid asteroid : game.getAsteroids()) {
+			assertEquals(asteroid.getMultiplayerID(), received.asteroids.getId(row));
+			assertEquals(0, this.wrappedDistance(asteroid.getLocation().x, received.asteroids.getLocationX(row)), DELTA);
+			assertEquals(0, this.wrappedDistance(asteroid.getLocation().y, received.asteroids.getLocationY(row)), DELTA);
+			assertEquals(asteroid.getVelocity().x, received.asteroids.getVelocityX(row), DELTA);
+			assertEquals(asteroid.getVelocity().y, received.asteroids.getVelocityY(row), DELTA);
+			assertEquals(asteroid.getSize().ordinal(), received.asteroids.getSize(row));
+			row++;
+		}
+		assertEquals(game.getBullets().size(), received.bullets.size());
+		row = 0;
+		for (Bullet bullet : game.getBullets()) {
+			assertEquals(bullet.getMultiplayerID(), received.bullets.getId(row));
+			assertEquals(bullet.getLocation().x, received.bullets.getLocationX(row), DELTA);
+			assertEquals(bullet.getStepsLeft(), received.bullets.getStepsLeft(row));
+			row++;
+		}
+
+		assertEquals(DataPacket_Game.NO_SHIP, received.ownShip);
+		codec.decode(codec.encode(sent, null, SnapshotHistory.NO_SNAPSHOT, 1234), received);
+		assertEquals(1234, received.ownShip);
+	}
+
+	/**
+	 * Sends a client's ship and inputs, and checks that what comes out is what went in, and that it only takes a few
+	 * dozen bytes no matter how many bullets there are.
+	 */
+	@Test
+	void testClientPacketRoundTrip() throws ProtocolException {
+		Game game = this.createGame(0, 50);
+		game.getSpaceship().setColour(Color.ORANGE);
+		InputHistory inputs = new InputHistory();
+		for (int i = 0; i < 20; i++) {
+			inputs.record(i % 16);
+		}
+		DataPacket_Client sent = new DataPacket_Client();
+		sent.capture(WorldSnapshot.capture(game), inputs);
+
+		PacketCodec codec = new PacketCodec();
+		ByteBuffer encoded = codec.encode(sent);
+		assertTrue(encoded.remaining() < 48, "Client packet is " + encoded.remaining() + " bytes");
+		DataPacket_Client received = new DataPacket_Client();
+		codec.decode(encoded, received);
+
+		assertEquals(GameMode.COOP, received.player.getGameMode());
+		assertEquals(game.getSpaceship().getMultiplayerID(), received.player.getId());
+		Spaceship receivedShip = new Spaceship();
+		received.player.applyIdentityTo(receivedShip);
+		assertEquals("host", receivedShip.getUsername());
+		assertEquals(Color.ORANGE, receivedShip.getShipColour());
+		assertEquals(19, received.inputSequence);
+		assertEquals(DataPacket_Client.INPUT_REDUNDANCY, received.getInputCount());
+		for (int i = 0; i < received.getInputCount(); i++) {
+			assertEquals((19 - i) % 16, received.getInput(i));
+		}
+	}
+
+	/**
+	 * Every packet should carry its room, which can be looked up without decoding the rest of the packet.
+	 */
+	@Test
+	void testRoom() throws ProtocolException {
+		PacketCodec codec = new PacketCodec();
+		DataPacket_Game sent = new DataPacket_Game();
+		sent.capture(this.createGame(5, 5));
+		sent.room = 42;
+		ByteBuffer encoded = codec.encode(sent);
+		assertEquals(42, PacketCodec.peekRoom(encoded));
+		DataPacket_Game received = new DataPacket_Game();
+		codec.decode(encoded, received);
+		assertEquals(42, received.room);
+
+		DataPacket_Client sentClient = new DataPacket_Client();
+		sentClient.capture(WorldSnapshot.capture(this.createGame(0, 1)), new InputHistory());
+		sentClient.room = 7;
+		encoded = codec.encode(sentClient);
+		assertEquals(7, PacketCodec.peekRoom(encoded));
+		DataPacket_Client receivedClient = new DataPacket_Client();
+		codec.decode(encoded, receivedClient);
+		assertEquals(7, receivedClient.room);
+
+		assertThrows(ProtocolException.class, () -> PacketCodec.peekRoom(ByteBuffer.wrap(new byte[3])));
+	}
+
+	/**
+	 * The binary format should be far smaller than the Java serialization that was used before.
+	 */
+	@Test
+	void testSmallerThanSerialization() throws IOException {
+		Game game = this.createGame(50, 30);
+		ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+			out.writeObject(game);
+		}
+		DataPacket_Game packet = new DataPacket_Game();
+		packet.capture(game);
+		int encodedSize = new PacketCodec().encode(packet).remaining();
+		assertTrue(encodedSize * 5 < serialized.size(), "Encoded " + encodedSize + " bytes, serialized " + serialized.size());
+	}
+
+	/**
+	 * Packets of another version, of the wrong type, or that are cut short must be rejected.
+	 */
+	@Test
+	void testRejectsInvalidPackets() {
+		PacketCodec codec = new PacketCodec();
+		DataPacket_Game packet = new DataPacket_Game();
+		packet.capture(this.createGame(5, 5));
+		ByteBuffer encoded = codec.encode(packet);
+		byte[] bytes = new byte[encoded.remaining()];
+		encoded.get(bytes);
+
+		byte[] wrongVersion = bytes.clone();
+		wrongVersion[0] = PacketCodec.PROTOCOL_VERSION + 1;
+		assertThrows(ProtocolException.class, () -> codec.decode(ByteBuffer.wrap(wrongVersion), new DataPacket_Game()));
+		assertThrows(ProtocolException.class, () -> codec.decode(ByteBuffer.wrap(bytes), new DataPacket_Client()));
+		assertThrows(ProtocolException.class, () -> codec.decode(ByteBuffer.wrap(bytes, 0, bytes.length / 2), new DataPacket_Game()));
+	}
+
+	/**
+	 * Once a client has a baseline, later snapshots should only hold what changed, and should still give the client
+	 * the same world as the host.
+	 */
+	@Test
+	void testDeltaSnapshots() throws ProtocolException {
+		Game game = this.createGame(50, 0);
+		PacketCodec codec = new PacketCodec();
+		SnapshotHistory hostHistory = new SnapshotHistory();
+		SnapshotHistory clientHistory = new SnapshotHistory();
+		DataPacket_Game sent = new DataPacket_Game();
+		DataPacket_Game received = new DataPacket_Game();
+
+		sent.capture(game);
+		int first = hostHistory.record(sent);
+		int keyframeSize = codec.encode(sent, hostHistory, SnapshotHistory.NO_SNAPSHOT).remaining();
+		assertTrue(codec.decode(codec.encode(sent, hostHistory, SnapshotHistory.NO_SNAPSHOT), received, clientHistory));
+		assertEquals(first, clientHistory.getLatestSequence());
+
+		this.step(game, 10);
+		sent.capture(game);
+		hostHistory.record(sent);
+		int deltaSize = codec.encode(sent, hostHistory, first).remaining();
+		assertTrue(deltaSize * 5 < keyframeSize, "Delta " + deltaSize + " bytes, keyframe " + keyframeSize);
+		assertTrue(codec.decode(codec.encode(sent, hostHistory, first), received, clientHistory));
+		this.assertSameAsteroids(game, received);
+
+		// Remove one asteroid, add another, and send the changes relative to the previous snapshot.
+		Asteroid removed = game.getAsteroids().iterator().next();
+		game.getAsteroids().remove(removed);
+		Asteroid added = new Asteroid(new Point.Double(400, 400), new Point.Double(1, 1), AsteroidSize.LARGE);
+		game.getAsteroids().add(added);
+		this.step(game, 3);
+		int second = sent.sequence;
+		sent.capture(game);
+		hostHistory.record(sent);
+		assertTrue(codec.decode(codec.encode(sent, hostHistory, second), received, clientHistory));
+		this.assertSameAsteroids(game, received);
+	}
+
+	/**
+	 * A client that doesn't have the baseline must reject the snapshot, and the host must send a keyframe when it
+	 * doesn't know the baseline either. Snapshots that arrive twice are ignored.
+	 */
+	@Test
+	void testMissingBaseline() throws ProtocolException {
+		Game game = this.createGame(10, 0);
+		PacketCodec codec = new PacketCodec();
+		SnapshotHistory hostHistory = new SnapshotHistory();
+		DataPacket_Game sent = new DataPacket_Game();
+		sent.capture(game);
+		int first = hostHistory.record(sent);
+		this.step(game, 1);
+		sent.capture(game);
+		hostHistory.record(sent);
+
+		assertThrows(ProtocolException.class, () -> codec.decode(codec.encode(sent, hostHistory, first), new DataPacket_Game(), new SnapshotHistory()));
+
+		SnapshotHistory clientHistory = new SnapshotHistory();
+		DataPacket_Game received = new DataPacket_Game();
+		assertTrue(codec.decode(codec.encode(sent, hostHistory, 12345), received, clientHistory));
+		this.assertSameAsteroids(game, received);
+		assertFalse(codec.decode(codec.encode(sent, hostHistory, 12345), received, clientHistory));
+	}
+
+	/**
+	 * Moves every asteroid of the game forward by the given number of ticks.
+	 */
+	private void step(Game game, int ticks) {
+		for (int i = 0; i < ticks; i++) {
+			game.getAsteroids().forEach(GameObject::nextStep);
+			game.advanceTick();
+		}
+	}
+
+	/**
+	 * Checks that the received snapshot holds the same asteroids as the game, in about the same place.
+	 */
+	private void assertSameAsteroids(Game game, DataPacket_Game received) {
+		assertEquals(game.getAsteroids().size(), received.asteroids.size());
+		for (Asteroid asteroid : game.getAsteroids()) {
+			int row = 0;
+			while (row < received.asteroids.size() && received.asteroids.getId(row) != asteroid.getMultiplayerID()) {
+				row++;
+			}
+			assertTrue(row < received.asteroids.size(), "Asteroid " + asteroid.getMultiplayerID() + " is missing");
+			assertEquals(0, this.wrappedDistance(asteroid.getLocation().x, received.asteroids.getLocationX(row)), 1.0);
+			assertEquals(0, this.wrappedDistance(asteroid.getLocation().y, received.asteroids.getLocationY(row)), 1.0);
+			assertEquals(asteroid.getVelocity().x, received.asteroids.getVelocityX(row), DELTA);
+		}
+	}
+
+	/**
+	 * @return The distance between two coordinates in the 800 pixel wide world, which wraps around.
+	 */
+	private double wrappedDistance(double first, double second) {
+		double distance = Math.abs(first - second) % 800;
+		return Math.min(distance, 800 - distance);
+	}
+
+	/**
+	 * @param asteroids The number of asteroids to add.
+	 * @param bullets   The number of bullets to add.
+	 * @return A COOP game with a named host ship, one client ship, and the given number of asteroids and bullets.
+	 */
+	private Game createGame(int asteroids, int bullets) {
+		Game game = new Game();
+		game.initializeGameData(true, true, GameMode.COOP);
+		game.setUsername("host");
+		game.getSpaceship().setDirection(-7.5);
+		game.getSpaceship().setLocation(123.4, 567.8);
+		game.getSpaceship().setVelocity(-3.3, 4.4);
+		Spaceship client = new Spaceship();
+		client.setUsername("client");
+		client.setColour(Color.CYAN);
+		client.setScore(7);
+		game.addSpaceship(client);
+		List<Asteroid> asteroidList = new ArrayList<>();
+		for (int i = 0; i < asteroids; i++) {
+			asteroidList.add(new Asteroid(new Point.Double(i * 15.5, 800 - i * 7.25), new Point.Double(i % 7 - 3.1, 2.2), AsteroidSize.values()[i % 3]));
+		}
+		game.getAsteroids().addAll(asteroidList);
+		for (int i = 0; i < bullets; i++) {
+			game.getBullets().add(new Bullet(i * 20.0, i * 10.0, 12.5, -12.5));
+		}
+		return game;
+	}
+}
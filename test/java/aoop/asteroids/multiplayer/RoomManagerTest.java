@@ -0,0 +1,132 @@
+package aoop.asteroids.multiplayer;
+
+import aoop.asteroids.game_observer.GameModeInterface;
+import aoop.asteroids.model.Game;
+import aoop.asteroids.model.WorldSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs several rooms on one port, and checks that they tick independently and that packets reach the right room.
+ */
+class RoomManagerTest implements GameModeInterface {
+	/**
+	 * How long to wait for something to happen, in milliseconds.
+	 */
+	private static final long TIMEOUT = 5000;
+
+	/**
+	 * Every room should get its own id and game, and all of them should be ticked by the shared workers.
+	 */
+	@Test
+	void testRoomsTick() throws IOException, InterruptedException {
+		RoomManager roomManager = new RoomManager(this.findFreePort(), 1);
+		try {
+			Game first = roomManager.openRoom(GameMode.COOP);
+			Game second = roomManager.openRoom(GameMode.Deathmatch);
+			assertNotEquals(first.getRoomId(), second.getRoomId());
+			assertSame(second, roomManager.getRoom(second.getRoomId()));
+			assertEquals(2, roomManager.getRooms().size());
+			assertTrue(first.isDedicatedServer());
+			assertEquals(GameMode.Deathmatch, second.getCurrentGameMode());
+
+			this.waitForTick(first, 3);
+			this.waitForTick(second, 3);
+
+			roomManager.closeRoom(first.getRoomId());
+			assertNull(roomManager.getRoom(first.getRoomId()));
+			assertFalse(first.isRunning());
+			int tick = this.publishedTick(second);
+			this.waitForTick(second, tick + 3);
+		}
+		finally {
+			roomManager.close();
+		}
+	}
+
+	/**
+	 * A client packet for one room should only reach that room's game.
+	 */
+	@Test
+	void testPacketsAreRoutedByRoom() throws IOException, InterruptedException {
+		int serverPort = this.findFreePort();
+		RoomManager roomManager = new RoomManager(serverPort, 1);
+		InetAddress loopback = InetAddress.getLoopbackAddress();
+		DatagramTransport client = new DatagramTransport(this.findFreePort(), loopback, serverPort);
+		try {
+			Game other = roomManager.openRoom(GameMode.COOP);
+			Game joined = roomManager.openRoom(GameMode.COOP);
+			DatagramTransport.Room clientRoom = client.openRoom(joined.getRoomId());
+			client.start();
+
+			Game clientGame = new Game();
+			clientGame.initializeGameData(true, false, GameMode.COOP);
+			clientGame.setUsername("client");
+			InputHistory inputs = new InputHistory();
+			long deadline = System.currentTimeMillis() + TIMEOUT;
+			while (!this.hasClient(joined) && System.currentTimeMillis() < deadline) {
+				DataPacket_Client packet = clientRoom.getOutgoingClientPackets().acquire();
+				if (packet != null) {
+					inputs.record(0);
+					packet.capture(WorldSnapshot.capture(clientGame), inputs);
+					clientRoom.getOutgoingClientPackets().publish(packet);
+					client.flush();
+				}
+				Thread.sleep(10);
+			}
+			assertTrue(this.hasClient(joined));
+			assertFalse(this.hasClient(other));
+			assertTrue(client.getMetrics().getPeer(new InetSocketAddress(loopback, serverPort)).getPacketsSent() > 0);
+			assertTrue(client.getMetrics().getTotal().getBytesSent() > 0);
+		}
+		finally {
+			client.close();
+			roomManager.close();
+		}
+	}
+
+	private boolean hasClient(Game game) {
+		synchronized (game) {
+			return !game.getClients().isEmpty();
+		}
+	}
+
+	private void waitForTick(Game game, int tick) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (this.publishedTick(game) < tick && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(this.publishedTick(game) >= tick);
+	}
+
+	/**
+	 * @return The tick of the game's latest snapshot, or -1 if the game hasn't published one yet.
+	 */
+	private int publishedTick(Game game) {
+		WorldSnapshot snapshot = game.acquireWorldSnapshot();
+		if (snapshot == null) {
+			return -1;
+		}
+		try {
+			return snapshot.getTick();
+		}
+		finally {
+			snapshot.release();
+		}
+	}
+
+	/**
+	 * @return A port that is not in use at the moment.
+	 */
+	private int findFreePort() throws IOException {
+		try (DatagramSocket socket = new DatagramSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
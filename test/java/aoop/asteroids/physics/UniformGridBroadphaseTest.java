@@ -0,0 +1,131 @@
+package aoop.asteroids.physics;
+
+import aoop.asteroids.model.Asteroid;
+import aoop.asteroids.model.AsteroidSize;
+import aoop.asteroids.model.Bullet;
+import aoop.asteroids.view.AsteroidsFrame;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the uniform grid broadphase. Since a broadphase is allowed to report more candidates than actually collide,
+ * the important property to test is that it never misses a collision that the brute force approach would find.
+ */
+class UniformGridBroadphaseTest {
+	/**
+	 * Scatters many asteroids and bullets randomly (including some just outside of the screen), and checks that every
+	 * colliding bullet-asteroid pair is among the candidates of the grid.
+	 */
+	@RepeatedTest(20)
+	void testForEachCandidateFindsAllCollisions() {
+		List<Asteroid> asteroids = this.generateRandomAsteroids(300);
+		UniformGridBroadphase<Asteroid> grid = new UniformGridBroadphase<>();
+		grid.build(asteroids);
+		for (int i = 0; i < 300; i++) {
+			Bullet bullet = this.generateRandomBullet();
+			Set<Asteroid> candidates = new HashSet<>();
+			grid.forEachCandidate(bullet, candidates::add);
+			for (Asteroid asteroid : asteroids) {
+				if (asteroid.getLocation().distance(bullet.getLocation()) < asteroid.getRadius() + bullet.getRadius()) {
+					assertTrue(candidates.contains(asteroid), "Grid missed an asteroid that overlaps the bullet.");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that every pair of overlapping asteroids is reported exactly once, and that no asteroid is ever paired
+	 * with itself.
+	 */
+	@RepeatedTest(20)
+	void testForEachCandidatePairFindsAllCollisions() {
+		List<Asteroid> asteroids = this.generateRandomAsteroids(300);
+		UniformGridBroadphase<Asteroid> grid = new UniformGridBroadphase<>();
+		grid.build(asteroids);
+		Set<List<Asteroid>> pairs = new HashSet<>();
+		grid.forEachCandidatePair((first, second) -> {
+			assertNotSame(first, second);
+			assertTrue(pairs.add(List.of(first, second)), "Pair was reported more than once.");
+			assertFalse(pairs.contains(List.of(second, first)), "Pair was reported more than once.");
+		});
+		for (int i = 0; i < asteroids.size(); i++) {
+			for (int j = i + 1; j < asteroids.size(); j++) {
+				Asteroid first = asteroids.get(i);
+				Asteroid second = asteroids.get(j);
+				if (first.getLocation().distance(second.getLocation()) < first.getRadius() + second.getRadius()) {
+					assertTrue(pairs.contains(List.of(first, second)) || pairs.contains(List.of(second, first)), "Grid missed a pair of overlapping asteroids.");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Objects on opposite edges of the screen sit in neighbouring cells of the grid, so a location just past the edge
+	 * still finds the objects close to it.
+	 */
+	@Test
+	void testWrapsAroundEdges() {
+		Asteroid pastLeftEdge = new Asteroid(new Point.Double(-5.0, 400.0), new Point.Double(0, 0), AsteroidSize.SMALL);
+		Asteroid nearLeftEdge = new Asteroid(new Point.Double(5.0, 400.0), new Point.Double(0, 0), AsteroidSize.SMALL);
+		UniformGridBroadphase<Asteroid> grid = new UniformGridBroadphase<>();
+		grid.build(List.of(pastLeftEdge, nearLeftEdge));
+		List<Asteroid> pairs = new ArrayList<>();
+		grid.forEachCandidatePair((first, second) -> {
+			pairs.add(first);
+			pairs.add(second);
+		});
+		assertTrue(pairs.contains(pastLeftEdge));
+		assertTrue(pairs.contains(nearLeftEdge));
+	}
+
+	/**
+	 * Rebuilding the grid should completely replace what was stored before.
+	 */
+	@Test
+	void testBuildReplacesObjects() {
+		UniformGridBroadphase<Asteroid> grid = new UniformGridBroadphase<>();
+		grid.build(this.generateRandomAsteroids(100));
+		grid.build(new ArrayList<>());
+		grid.forEachCandidate(this.generateRandomBullet(), asteroid -> fail("Grid should be empty."));
+		grid.forEachCandidatePair((first, second) -> fail("Grid should be empty."));
+	}
+
+	/**
+	 * @param amount The number of asteroids to generate.
+	 * @return Randomly placed asteroids of random sizes, some of which are slightly outside of the screen.
+	 */
+	private List<Asteroid> generateRandomAsteroids(int amount) {
+		ThreadLocalRandom rng = ThreadLocalRandom.current();
+		List<Asteroid> asteroids = new ArrayList<>(amount);
+		for (int i = 0; i < amount; i++) {
+			AsteroidSize size = AsteroidSize.values()[rng.nextInt(AsteroidSize.values().length)];
+			asteroids.add(new Asteroid(this.generateRandomLocation(), new Point.Double(0, 0), size));
+		}
+		return asteroids;
+	}
+
+	/**
+	 * @return A bullet at a random location.
+	 */
+	private Bullet generateRandomBullet() {
+		Point.Double location = this.generateRandomLocation();
+		return new Bullet(location.x, location.y, 0, 0);
+	}
+
+	/**
+	 * @return A random location on the screen, or up to 50 pixels past one of its edges.
+	 */
+	private Point.Double generateRandomLocation() {
+		ThreadLocalRandom rng = ThreadLocalRandom.current();
+		return new Point.Double(rng.nextDouble(-50, AsteroidsFrame.WINDOW_SIZE.width + 50), rng.nextDouble(-50, AsteroidsFrame.WINDOW_SIZE.height + 50));
+	}
+}
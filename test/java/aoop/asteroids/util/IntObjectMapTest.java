@@ -0,0 +1,79 @@
+package aoop.asteroids.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the open addressing map from int keys to objects.
+ */
+class IntObjectMapTest {
+	@Test
+	void testPutGetRemove() {
+		IntObjectMap<String> map = new IntObjectMap<>();
+		assertTrue(map.isEmpty());
+		assertNull(map.put(7, "seven"));
+		assertNull(map.put(-3, "minus three"));
+		assertNull(map.put(0, "zero"));
+		assertEquals("seven", map.put(7, "SEVEN"));
+		assertEquals(3, map.size());
+		assertEquals("SEVEN", map.get(7));
+		assertEquals("minus three", map.get(-3));
+		assertEquals("zero", map.get(0));
+		assertNull(map.get(8));
+		assertFalse(map.containsKey(8));
+
+		assertEquals("minus three", map.remove(-3));
+		assertNull(map.remove(-3));
+		assertFalse(map.containsKey(-3));
+		assertEquals(2, map.size());
+
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertNull(map.get(7));
+		assertThrows(NullPointerException.class, () -> map.put(1, null));
+	}
+
+	/**
+	 * Keys that all want the same slot should still all be found, also after some of them are removed.
+	 */
+	@Test
+	void testCollidingKeys() {
+		IntObjectMap<Integer> map = new IntObjectMap<>(4);
+		// Multiples of a large power of two all hash to the same slot in a small table.
+		for (int i = 0; i < 8; i++) {
+			map.put(i << 20, i);
+		}
+		map.remove(0);
+		map.remove(3 << 20);
+		for (int i = 0; i < 8; i++) {
+			assertEquals(i == 0 || i == 3 ? null : Integer.valueOf(i), map.get(i << 20));
+		}
+	}
+
+	/**
+	 * Mixes a lot of random puts and removes, and checks that the map always agrees with a HashMap.
+	 */
+	@Test
+	void testAgreesWithHashMap() {
+		IntObjectMap<Integer> map = new IntObjectMap<>(0);
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			int key = random.nextInt(2000) - 1000;
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				assertEquals(expected.put(key, i), map.put(key, i));
+			}
+			assertEquals(expected.size(), map.size());
+		}
+		for (int key = -1000; key < 1000; key++) {
+			assertEquals(expected.get(key), map.get(key));
+		}
+	}
+}
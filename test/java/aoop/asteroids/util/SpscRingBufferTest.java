@@ -0,0 +1,62 @@
+package aoop.asteroids.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the single-producer single-consumer ring buffer.
+ */
+class SpscRingBufferTest {
+	/**
+	 * Elements should come out in the order they went in, and offering to a full buffer should fail.
+	 */
+	@Test
+	void testFifoAndCapacity() {
+		SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(3);
+		assertEquals(4, buffer.capacity()); // Rounded up to a power of two.
+		assertNull(buffer.poll());
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(i));
+		}
+		assertFalse(buffer.offer(4));
+		assertEquals(4, buffer.size());
+		for (int round = 0; round < 10; round++) { // Go around the ring a few times.
+			int first = buffer.poll();
+			assertTrue(buffer.offer(first + 4));
+		}
+		for (int i = 10; i < 14; i++) {
+			assertEquals(Integer.valueOf(i), buffer.poll());
+		}
+		assertNull(buffer.poll());
+		assertEquals(0, buffer.size());
+	}
+
+	/**
+	 * Passes a lot of elements from one thread to another, and checks that none are lost, duplicated or reordered.
+	 */
+	@Test
+	void testConcurrentTransfer() throws InterruptedException {
+		final int count = 100_000;
+		SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(64);
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < count; i++) {
+				while (!buffer.offer(i)) {
+					Thread.yield();
+				}
+			}
+		});
+		producer.start();
+		int expected = 0;
+		while (expected < count) {
+			Integer element = buffer.poll();
+			if (element == null) {
+				Thread.yield();
+			} else {
+				assertEquals(expected++, element.intValue());
+			}
+		}
+		producer.join();
+		assertNull(buffer.poll());
+	}
+}
@@ -0,0 +1,177 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the leaderboard against a database that simply sorts every result, and checks that the database is only
+ * asked for what isn't kept in memory.
+ */
+class LeaderboardTest {
+	@Test
+	void testPages() {
+		ListDAO dao = new ListDAO();
+		for (int i = 0; i < 20; i++) {
+			dao.players.add(new Player("player" + i, i * 10));
+		}
+		Leaderboard leaderboard = new Leaderboard(dao, 5);
+		assertEquals(20, leaderboard.size());
+		int queries = dao.queries;
+
+		List<Player> page = leaderboard.getPage(1, 3);
+		assertEquals(3, page.size());
+		assertEquals(190, page.get(0).getScore());
+		assertEquals(170, page.get(2).getScore());
+		assertEquals(170, leaderboard.getPage(3, 3).get(0).getScore());
+		assertEquals(queries, dao.queries, "The best results are kept in memory");
+
+		// Beyond the best results, the database is asked.
+		page = leaderboard.getPage(5, 3);
+		assertEquals(queries + 1, dao.queries);
+		assertEquals(150, page.get(0).getScore());
+		assertEquals(130, page.get(2).getScore());
+		assertTrue(leaderboard.getPage(21, 3).isEmpty());
+
+		assertThrows(IllegalArgumentException.class, () -> leaderboard.getPage(0, 3));
+	}
+
+	@Test
+	void testRanks() {
+		ListDAO dao = new ListDAO();
+		dao.players.add(new Player("a", 100));
+		dao.players.add(new Player("b", 50));
+		dao.players.add(new Player("a", 30));
+		dao.players.add(new Player("c", 50));
+		dao.players.add(new Player("d", 10));
+		Leaderboard leaderboard = new Leaderboard(dao, 3);
+		assertEquals(1, leaderboard.getRank("a"));
+		assertEquals(2, leaderboard.getRank("b"));
+		assertEquals(2, leaderboard.getRank("c"), "Results with the same score share a rank");
+		int queries = dao.queries;
+		assertEquals(5, leaderboard.getRank("d"));
+		assertTrue(dao.queries > queries, "d is not among the best, so the database is asked");
+		assertEquals(0, leaderboard.getRank("nobody"));
+	}
+
+	/**
+	 * Results that are stored after the leaderboard is loaded should be added to it, pushing out the lowest.
+	 */
+	@Test
+	void testStoredResultsAreAdded() {
+		ListDAO dao = new ListDAO();
+		dao.addPlayers(Collections.singletonList(new Player("old", 10)));
+		Leaderboard leaderboard = new Leaderboard(dao, 2);
+		assertEquals(1, leaderboard.getRank("old"));
+
+		dao.addPlayers(List.of(new Player("new", 20), new Player("newer", 30)));
+		assertEquals(3, leaderboard.size());
+		assertEquals(1, leaderboard.getRank("newer"));
+		assertEquals(2, leaderboard.getRank("new"));
+		int queries = dao.queries;
+		assertEquals(3, leaderboard.getRank("old"));
+		assertTrue(dao.queries > queries);
+
+		// The database is empty, and the leaderboard hasn't been loaded yet.
+		ListDAO empty = new ListDAO();
+		Leaderboard fresh = new Leaderboard(empty, 2);
+		empty.addPlayers(Collections.singletonList(new Player("first", 1)));
+		assertEquals(1, fresh.size(), "Results stored before loading should be counted once");
+	}
+
+	/**
+	 * Random scores, added before and after loading, should give the same pages and ranks as sorting them all.
+	 */
+	@Test
+	void testMatchesSortedResults() {
+		Random random = new Random(3);
+		ListDAO dao = new ListDAO();
+		for (int i = 0; i < 200; i++) {
+			dao.players.add(new Player("player" + random.nextInt(50), random.nextInt(1000)));
+		}
+		Leaderboard leaderboard = new Leaderboard(dao, 20);
+		leaderboard.size();
+		for (int i = 0; i < 200; i++) {
+			dao.addPlayers(Collections.singletonList(new Player("player" + random.nextInt(50), random.nextInt(1000))));
+		}
+
+		List<Player> sorted = dao.sorted();
+		for (int rank = 1; rank <= sorted.size(); rank += 7) {
+			List<Player> page = leaderboard.getPage(rank, 10);
+			for (int i = 0; i < page.size(); i++) {
+				assertEquals(sorted.get(rank - 1 + i).getScore(), page.get(i).getScore());
+			}
+		}
+		for (int i = 0; i < 50; i++) {
+			String username = "player" + i;
+			long rank = 0;
+			for (Player player : sorted) {
+				if (player.getUsername().equals(username)) {
+					rank = dao.countPlayersAbove(player.getScore()) + 1;
+					break;
+				}
+			}
+			assertEquals(rank, leaderboard.getRank(username), username);
+		}
+	}
+
+	/**
+	 * Keeps the results in a list, and answers the leaderboard's queries by going through all of them.
+	 */
+	private static class ListDAO extends AsteroidsDAO {
+		private final List<Player> players = new ArrayList<>();
+
+		/**
+		 * The number of times the results were queried.
+		 */
+		private int queries;
+
+		ListDAO() {
+			super("test");
+		}
+
+		@Override
+		public synchronized void addPlayers(Collection<Player> players) {
+			this.players.addAll(players);
+			this.notifyStored(players);
+		}
+
+		@Override
+		public synchronized List<Player> getPlayers(int first, int count) {
+			this.queries++;
+			List<Player> sorted = this.sorted();
+			return new ArrayList<>(sorted.subList(Math.min(first, sorted.size()), Math.min(first + count, sorted.size())));
+		}
+
+		@Override
+		public synchronized long countPlayers() {
+			this.queries++;
+			return this.players.size();
+		}
+
+		@Override
+		public synchronized long countPlayersAbove(int score) {
+			this.queries++;
+			return this.players.stream().filter(player -> player.getScore() > score).count();
+		}
+
+		@Override
+		public synchronized Integer getBestScore(String username) {
+			this.queries++;
+			return this.players.stream().filter(player -> player.getUsername().equals(username)).map(Player::getScore).max(Integer::compare).orElse(null);
+		}
+
+		private List<Player> sorted() {
+			List<Player> sorted = new ArrayList<>(this.players);
+			sorted.sort(Comparator.comparingInt(Player::getScore).reversed());
+			return sorted;
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the score writer stores results in batches without making anyone wait, and stores everything that is left
+ * when it is closed. The database is replaced by a DAO that only remembers what it was asked to store.
+ */
+class ScoreWriterTest {
+	@Test
+	void testResultsAreBatched() throws InterruptedException {
+		RecordingDAO dao = new RecordingDAO();
+		ScoreWriter writer = new ScoreWriter(dao);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(writer.submit(new Player("player" + i, i)));
+		}
+		assertTrue(dao.stored.await(5, TimeUnit.SECONDS));
+		writer.close();
+		assertEquals(10, dao.getPlayers().size());
+		assertTrue(dao.getBatchCount() < 10, "Stored in " + dao.getBatchCount() + " transactions");
+		assertEquals("player0", dao.getPlayers().get(0).getUsername());
+		assertTrue(dao.opened);
+		assertTrue(dao.closed);
+	}
+
+	/**
+	 * Closing the writer should store whatever is still queued, without waiting for the flush interval.
+	 */
+	@Test
+	void testCloseFlushes() {
+		RecordingDAO dao = new RecordingDAO();
+		ScoreWriter writer = new ScoreWriter(dao);
+		for (int i = 0; i < ScoreWriter.BATCH_SIZE * 2 + 1; i++) {
+			writer.submit(new Player("player", i));
+		}
+		long start = System.nanoTime();
+		writer.close();
+		assertEquals(ScoreWriter.BATCH_SIZE * 2 + 1, dao.getPlayers().size());
+		assertEquals(0, writer.getPendingCount());
+		assertTrue(dao.closed);
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+
+		assertFalse(writer.submit(new Player("late", 1)));
+	}
+
+	/**
+	 * A slow database should never make submitting wait; once the queue is full, results are dropped instead.
+	 */
+	@Test
+	void testSubmitNeverBlocks() {
+		RecordingDAO dao = new RecordingDAO();
+		dao.blocked = new CountDownLatch(1);
+		ScoreWriter writer = new ScoreWriter(dao);
+		int accepted = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < ScoreWriter.QUEUE_CAPACITY + ScoreWriter.BATCH_SIZE + 10; i++) {
+			if (writer.submit(new Player("player", i))) {
+				accepted++;
+			}
+		}
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+		assertTrue(accepted < ScoreWriter.QUEUE_CAPACITY + ScoreWriter.BATCH_SIZE + 10);
+		dao.blocked.countDown();
+		writer.close();
+		assertEquals(accepted, dao.getPlayers().size());
+	}
+
+	/**
+	 * A batch that fails to be stored is dropped, and the writer goes on with the next one.
+	 */
+	@Test
+	void testFailedBatchIsSkipped() throws InterruptedException {
+		RecordingDAO dao = new RecordingDAO();
+		dao.failures = 1;
+		ScoreWriter writer = new ScoreWriter(dao);
+		writer.submit(new Player("lost", 1));
+		long deadline = System.currentTimeMillis() + 5000;
+		while (dao.failures > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		writer.submit(new Player("kept", 2));
+		writer.close();
+		assertEquals(1, dao.getPlayers().size());
+		assertEquals("kept", dao.getPlayers().get(0).getUsername());
+		assertTrue(dao.closed);
+	}
+
+	/**
+	 * Remembers what it is asked to store, instead of storing it in a database.
+	 */
+	private static class RecordingDAO extends AsteroidsDAO {
+		private final List<Player> players = new ArrayList<>();
+		private int batchCount;
+		private final CountDownLatch stored = new CountDownLatch(1);
+		private volatile CountDownLatch blocked;
+		private volatile int failures;
+		private volatile boolean opened;
+		private volatile boolean closed;
+
+		RecordingDAO() {
+			super("test");
+		}
+
+		@Override
+		public void openDataSource() {
+			this.opened = true;
+		}
+
+		@Override
+		public void closeDataSource() {
+			this.closed = true;
+		}
+
+		@Override
+		public synchronized void addPlayers(Collection<Player> players) {
+			if (this.blocked != null) {
+				try {
+					this.blocked.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (this.failures > 0) {
+				this.failures--;
+				throw new IllegalStateException("Failed on purpose");
+			}
+			this.players.addAll(players);
+			this.batchCount++;
+			this.stored.countDown();
+		}
+
+		synchronized List<Player> getPlayers() {
+			return new ArrayList<>(this.players);
+		}
+
+		synchronized int getBatchCount() {
+			return this.batchCount;
+		}
+	}
+}